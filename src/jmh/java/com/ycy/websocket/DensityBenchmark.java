@@ -0,0 +1,142 @@
+package com.ycy.websocket;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+// 게이트웨이를 거쳐 대부분 유휴 상태인 세션을 많이 열어 두고 게이트웨이가 세션 하나당 유지하는 힙을 측정
+// 인자: [세션 수] [게이트웨이 설정...] (예: --websocket.proxy.routes.websocket_route.high-density=true)
+// 게이트웨이 힙만 재도록 에코 서버와 클라이언트는 같은 클래스패스의 별도 JVM(load 모드)에서 실행
+// 루프백 주소 하나에서 목적지 하나로 열 수 있는 연결 수는 임시 포트 범위로 제한되므로,
+// 세션이 많으면 127.0.0.x 여러 주소로 나눠서 클라이언트 -> 게이트웨이, 게이트웨이 -> 에코 서버 연결을 분산
+public final class DensityBenchmark {
+
+    private static final String ROUTE = "websocket.proxy.routes.websocket_route.";
+    private static final int ECHO_PORT = 7777;
+    // 루프백 주소 하나에 배정할 최대 세션 수 (기본 임시 포트 범위 32768-60999 보다 작게)
+    private static final int SESSIONS_PER_ADDRESS = 20000;
+    // 동시에 진행할 핸드쉐이크 수
+    private static final int CONCURRENCY = 256;
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(30);
+
+    private DensityBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && "load".equals(args[0])) {
+            load(Integer.parseInt(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+            return;
+        }
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int addresses = (sessions + SESSIONS_PER_ADDRESS - 1) / SESSIONS_PER_ADDRESS;
+
+        List<String> gatewayArgs = new ArrayList<>(List.of("--server.port=0", "--logging.level.root=WARN",
+                "--websocket.proxy.defaults.event-log-sample-rate=0", "--" + ROUTE + "event-log-sample-rate=0"));
+        if (addresses > 1) {
+            for (int i = 0; i < addresses; i++) {
+                gatewayArgs.add("--" + ROUTE + "load-balancer.instances[" + i + "]=ws://" + loopback(i) + ":"
+                        + ECHO_PORT);
+            }
+        }
+        gatewayArgs.addAll(Arrays.asList(args).subList(Math.min(1, args.length), args.length));
+        ConfigurableApplicationContext gateway = SpringApplication.run(WebsocketApplication.class,
+                gatewayArgs.toArray(new String[0]));
+        int port = ((WebServerApplicationContext) gateway).getWebServer().getPort();
+        boolean highDensity = gateway.getBean(WebSocketProxyProperties.class).getRoute("websocket_route")
+                .isHighDensity();
+        WebSocketSessionManager sessionManager = gateway.getBean(WebSocketSessionManager.class);
+
+        long heapBefore = GatewayLoadHarness.usedHeapAfterGc();
+
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.add("-Xmx" + Math.max(512, sessions / 25) + "m");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(DensityBenchmark.class.getName());
+        command.addAll(List.of("load", String.valueOf(port), String.valueOf(sessions), String.valueOf(addresses)));
+        Process loadProcess = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+
+        String result = null;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(loadProcess.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                System.out.println(line);
+                if (line.startsWith("[DensityBenchmark] connected")) {
+                    result = line;
+                    break;
+                }
+            }
+
+            long heapAfter = GatewayLoadHarness.usedHeapAfterGc();
+            int registered = sessionManager.getSessionCount();
+            System.out.printf("[DensityBenchmark] high-density=%s gateway args: %s%n", highDensity,
+                    gatewayArgs.subList(4, gatewayArgs.size()));
+            System.out.printf("[DensityBenchmark] registered sessions=%d (%s)%n", registered,
+                    result != null ? result.substring("[DensityBenchmark] ".length()) : "load JVM 종료");
+            System.out.printf("[DensityBenchmark] gateway heap: before=%dMB after=%dMB%n", heapBefore >> 20,
+                    heapAfter >> 20);
+            System.out.printf("[DensityBenchmark] retained heap per session: %d bytes%n",
+                    (heapAfter - heapBefore) / Math.max(1, registered));
+        } finally {
+            loadProcess.destroy();
+            loadProcess.waitFor();
+            // 연결이 남은 채로 서버를 닫지 않도록 클라이언트 연결이 끊긴 세션이 정리될 때까지 잠시 대기
+            long deadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+            while (sessionManager.getSessionCount() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(100);
+            }
+            System.out.printf("[DensityBenchmark] sessions left after load JVM exit: %d%n",
+                    sessionManager.getSessionCount());
+            gateway.close();
+        }
+    }
+
+    // load 모드: 에코 서버를 띄우고 게이트웨이로 세션을 열어 메시지 하나를 왕복시킨 뒤 유휴 상태로 유지
+    // 모든 세션이 준비되면 결과 한 줄을 출력하고 부모 프로세스가 종료할 때까지 대기
+    private static void load(int gatewayPort, int sessions, int addresses) {
+        DisposableServer echo = EchoBackend.start(ECHO_PORT);
+        HttpClient client = HttpClient.create(ConnectionProvider.newConnection());
+        AtomicInteger failures = new AtomicInteger();
+
+        long startedAt = System.nanoTime();
+        Flux.range(0, sessions)
+                .flatMap(i -> Mono.<Void>create(ready -> client.websocket()
+                        .uri("ws://" + loopback(i % addresses) + ":" + gatewayPort + "/ws/density")
+                        .handle((in, out) -> out.sendString(Mono.just("density")).then()
+                                .and(in.receiveFrames().doOnNext(frame -> ready.success()).then()))
+                        .subscribe(null, ready::error))
+                        .timeout(Duration.ofSeconds(30))
+                        .onErrorResume(error -> {
+                            failures.incrementAndGet();
+                            return Mono.empty();
+                        }), CONCURRENCY)
+                .blockLast();
+        long elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+
+        System.out.printf("[DensityBenchmark] connected=%d failed=%d in %d ms%n", sessions - failures.get(),
+                failures.get(), elapsedMillis);
+        System.out.flush();
+        // 부모 프로세스가 측정을 끝내고 종료시킬 때까지 세션 유지
+        echo.onDispose().block();
+    }
+
+    private static String loopback(int index) {
+        return "127.0.0." + (index + 1);
+    }
+}
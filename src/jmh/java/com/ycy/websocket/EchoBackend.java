@@ -0,0 +1,28 @@
+package com.ycy.websocket;
+
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+// application.yml 의 websocket_route(ws://localhost:7777)를 대신하는 에코 서버
+// 받은 프레임을 그대로 돌려보냄
+public final class EchoBackend {
+
+    private EchoBackend() {
+    }
+
+    public static DisposableServer start(int port) {
+        return HttpServer.create()
+                .port(port)
+                .handle((request, response) -> response.sendWebsocket((in, out) -> out
+                        .sendObject(in.receiveFrames().doOnNext(WebSocketFrame::retain))))
+                .bindNow();
+    }
+
+    public static void main(String[] args) {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 7777;
+        DisposableServer server = start(port);
+        System.out.println("[EchoBackend] listening on " + server.port());
+        server.onDispose().block();
+    }
+}
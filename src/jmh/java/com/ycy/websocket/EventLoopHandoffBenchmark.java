@@ -0,0 +1,66 @@
+package com.ycy.websocket;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+// 중계 한 번에서 반대편 구간으로 넘어가는 비용 (전송 계층 x 이벤트 루프 배치)
+// affinity=true: 클라이언트 구간 이벤트 루프에서 그대로 처리 (CLIENT_AFFINITY)
+// affinity=false: 업스트림 구간의 다른 이벤트 루프로 넘긴 뒤 처리 (SHARED / DEDICATED)
+// 벤치마크 스레드에서 클라이언트 구간 이벤트 루프로 넘기는 한 번은 양쪽에 공통으로 포함됨
+// 게이트웨이 전체 왕복 비교는 GatewayLoadHarness 에 --websocket.proxy.event-loops.* 인자를 주고 실행
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EventLoopHandoffBenchmark {
+
+    @Param({ "NIO", "EPOLL", "IO_URING" })
+    public WebSocketProxyProperties.EventLoopTransport transport;
+
+    @Param({ "true", "false" })
+    public boolean affinity;
+
+    private EventLoopGroup group;
+    private EventLoop clientLoop;
+    private EventLoop upstreamLoop;
+    private final AtomicInteger completed = new AtomicInteger();
+
+    @Setup
+    public void setup() {
+        group = ProxyEventLoops.Transport.select(transport).newGroup("bench", 2);
+        clientLoop = group.next();
+        upstreamLoop = affinity ? clientLoop : group.next();
+    }
+
+    @TearDown
+    public void tearDown() {
+        group.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+
+    @Benchmark
+    public int relay() {
+        int expected = completed.get() + 1;
+        clientLoop.execute(() -> {
+            if (upstreamLoop.inEventLoop()) {
+                completed.incrementAndGet();
+            } else {
+                upstreamLoop.execute(completed::incrementAndGet);
+            }
+        });
+        while (completed.get() < expected) {
+            Thread.onSpinWait();
+        }
+        return expected;
+    }
+}
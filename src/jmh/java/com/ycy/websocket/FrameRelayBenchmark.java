@@ -0,0 +1,85 @@
+package com.ycy.websocket;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocket13FrameEncoder;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+// 프레임 한 개를 중계하는 비용 (수신 훅 -> 반대편 채널 write/인코딩 -> write 후 훅)
+// passthrough: FrameRelay 의 실제 훅 사용, decodeToString: 기존 getPayloadAsText 방식의 디코딩을 추가한 경우
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FrameRelayBenchmark {
+
+    @Param({ "64", "1024", "16384" })
+    public int payloadBytes;
+
+    private ByteBuf payload;
+    private EmbeddedChannel target;
+    private FrameRelay relay;
+
+    @Setup
+    public void setup() {
+        StringBuilder json = new StringBuilder("{\"type\":\"tick\",\"data\":\"");
+        while (json.length() < payloadBytes - 2) {
+            json.append('x');
+        }
+        json.append("\"}");
+        payload = PooledByteBufAllocator.DEFAULT.directBuffer(payloadBytes);
+        payload.writeCharSequence(json, StandardCharsets.UTF_8);
+
+        // 서버 쪽 연결처럼 마스킹 없이 인코딩하는 채널
+        target = new EmbeddedChannel(new WebSocket13FrameEncoder(false));
+        WebSocketRelayMetrics.SessionMetrics metrics = new WebSocketRelayMetrics().openSession("bench", "bench");
+        relay = new FrameRelay(null, null, FrameRelay.Direction.SERVER_TO_CLIENT, "bench",
+                new WebSocketProxyProperties.RouteProperties(), FrameTransformerChain.EMPTY, null, metrics,
+                null, null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        target.finishAndReleaseAll();
+        payload.release();
+    }
+
+    @Benchmark
+    public void passthrough(Blackhole blackhole) {
+        WebSocketFrame frame = new TextWebSocketFrame(payload.retainedDuplicate());
+        relay.onReceive(frame);
+        write(frame, blackhole);
+    }
+
+    @Benchmark
+    public void decodeToString(Blackhole blackhole) {
+        WebSocketFrame frame = new TextWebSocketFrame(payload.retainedDuplicate());
+        relay.onReceive(frame);
+        blackhole.consume(frame.content().toString(StandardCharsets.UTF_8));
+        write(frame, blackhole);
+    }
+
+    private void write(WebSocketFrame frame, Blackhole blackhole) {
+        target.writeOutbound(frame);
+        relay.onWritten(frame);
+        Object encoded;
+        while ((encoded = target.readOutbound()) != null) {
+            blackhole.consume(encoded);
+            ((ByteBuf) encoded).release();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.ycy.websocket;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocket13FrameEncoder;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+// 프레임 변환 비용 (변환 -> 반대편 채널 write/인코딩)
+// *Buffer: FrameTransformer 구현 (ByteBuf 그대로), *String: 페이로드를 문자열로 디코딩해서 바꾸고 다시 인코딩하는 방식
+// redactMiss 는 대상 필드가 없는 프레임 (accepts 에서 걸러져 복사 없이 전달되는 경우)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FrameTransformerBenchmark {
+
+    private static final Pattern REDACT = Pattern.compile("(\"token\"\\s*:\\s*)\"(?:[^\"\\\\]|\\\\.)*\"");
+
+    @Param({ "64", "1024", "16384" })
+    public int payloadBytes;
+
+    private ByteBuf hit;
+    private ByteBuf miss;
+    private EmbeddedChannel target;
+    private FrameTransformer redact;
+    private FrameTransformer inject;
+    private FrameTransformer envelope;
+
+    @Setup
+    public void setup() {
+        hit = payload("{\"token\":\"secret-value\",\"type\":\"tick\",\"data\":\"");
+        miss = payload("{\"session\":\"secret-value\",\"type\":\"tick\",\"data\":\"");
+        target = new EmbeddedChannel(new WebSocket13FrameEncoder(false));
+        redact = new RedactFieldsTransformer(List.of("token"), "\"***\"");
+        inject = new InjectFieldTransformer("gateway", "\"gw-1\"");
+        envelope = new EnvelopeTransformer("{\"type\":\"event\",\"data\":", "}");
+    }
+
+    @TearDown
+    public void tearDown() {
+        target.finishAndReleaseAll();
+        hit.release();
+        miss.release();
+    }
+
+    @Benchmark
+    public void redactHitBuffer(Blackhole blackhole) {
+        write(applyBuffer(redact, hit), blackhole);
+    }
+
+    @Benchmark
+    public void redactHitString(Blackhole blackhole) {
+        write(applyString(hit, text -> REDACT.matcher(text).replaceAll("$1\"***\"")), blackhole);
+    }
+
+    @Benchmark
+    public void redactMissBuffer(Blackhole blackhole) {
+        write(applyBuffer(redact, miss), blackhole);
+    }
+
+    @Benchmark
+    public void redactMissString(Blackhole blackhole) {
+        write(applyString(miss, text -> REDACT.matcher(text).replaceAll("$1\"***\"")), blackhole);
+    }
+
+    @Benchmark
+    public void injectBuffer(Blackhole blackhole) {
+        write(applyBuffer(inject, hit), blackhole);
+    }
+
+    @Benchmark
+    public void injectString(Blackhole blackhole) {
+        write(applyString(hit, text -> "{\"gateway\":\"gw-1\"," + text.substring(1)), blackhole);
+    }
+
+    @Benchmark
+    public void envelopeBuffer(Blackhole blackhole) {
+        write(applyBuffer(envelope, hit), blackhole);
+    }
+
+    @Benchmark
+    public void envelopeString(Blackhole blackhole) {
+        write(applyString(hit, text -> "{\"type\":\"event\",\"data\":" + text + "}"), blackhole);
+    }
+
+    private ByteBuf payload(String head) {
+        StringBuilder json = new StringBuilder(head);
+        while (json.length() < payloadBytes - 2) {
+            json.append('x');
+        }
+        json.append("\"}");
+        ByteBuf payload = PooledByteBufAllocator.DEFAULT.directBuffer(json.length());
+        payload.writeCharSequence(json, StandardCharsets.UTF_8);
+        return payload;
+    }
+
+    private static WebSocketFrame applyBuffer(FrameTransformer transformer, ByteBuf payload) {
+        WebSocketFrame frame = new TextWebSocketFrame(payload.retainedDuplicate());
+        return transformer.accepts(frame) ? transformer.transform(frame) : frame;
+    }
+
+    // 예전 메시지 변조 예시처럼 문자열로 바꿔서 처리
+    private static WebSocketFrame applyString(ByteBuf payload, UnaryOperator<String> change) {
+        WebSocketFrame frame = new TextWebSocketFrame(payload.retainedDuplicate());
+        String text = frame.content().toString(StandardCharsets.UTF_8);
+        frame.release();
+        return new TextWebSocketFrame(Unpooled.wrappedBuffer(change.apply(text).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private void write(WebSocketFrame frame, Blackhole blackhole) {
+        target.writeOutbound(frame);
+        Object encoded;
+        while ((encoded = target.readOutbound()) != null) {
+            blackhole.consume(encoded);
+            ((ByteBuf) encoded).release();
+        }
+    }
+}
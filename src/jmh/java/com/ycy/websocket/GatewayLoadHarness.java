@@ -0,0 +1,149 @@
+package com.ycy.websocket;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+// 에코 서버 + 게이트웨이 + 클라이언트를 한 JVM 에서 띄우고 게이트웨이를 통한 왕복 부하를 측정
+// 인자: [세션 수] [세션당 메시지 수] [페이로드 바이트] [게이트웨이 설정...]
+// 네 번째 인자부터는 게이트웨이 설정으로 전달 (예: --websocket.proxy.event-loops.upstream=CLIENT_AFFINITY)
+// 각 세션은 에코 응답을 받은 뒤 다음 메시지를 보내는 closed-loop 방식으로 동작
+public final class GatewayLoadHarness {
+
+    // 시작 신호(main 스레드)와 응답 수신(이벤트 루프)이 같은 sink 에 동시에 emit 할 수 있으므로 실패 시 재시도
+    private static final Sinks.EmitFailureHandler EMIT_RETRY = Sinks.EmitFailureHandler
+            .busyLooping(Duration.ofSeconds(1));
+
+    private GatewayLoadHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int messages = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int payloadBytes = Math.max(Long.BYTES, args.length > 2 ? Integer.parseInt(args[2]) : 64);
+
+        DisposableServer echo = EchoBackend.start(7777);
+        List<String> gatewayArgs = new ArrayList<>(List.of("--server.port=0", "--logging.level.root=WARN",
+                "--websocket.proxy.defaults.event-log-sample-rate=0",
+                "--websocket.proxy.routes.websocket_route.event-log-sample-rate=0"));
+        gatewayArgs.addAll(Arrays.asList(args).subList(Math.min(3, args.length), args.length));
+        ConfigurableApplicationContext gateway = SpringApplication.run(WebsocketApplication.class,
+                gatewayArgs.toArray(new String[0]));
+        int port = ((WebServerApplicationContext) gateway).getWebServer().getPort();
+        String url = "ws://localhost:" + port + "/ws/load";
+
+        LatencyHistogram roundTrip = new LatencyHistogram();
+        AtomicLong received = new AtomicLong();
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch connected = new CountDownLatch(sessions);
+        CountDownLatch finished = new CountDownLatch(sessions);
+        Sinks.One<Boolean> start = Sinks.one();
+
+        HttpClient client = HttpClient.create(ConnectionProvider.newConnection());
+
+        long heapBefore = usedHeapAfterGc();
+        for (int i = 0; i < sessions; i++) {
+            client.websocket()
+                    .uri(url)
+                    .handle((in, out) -> {
+                        // sent == -1: 워밍업 메시지로 게이트웨이 - 에코 서버 구간까지 연결됐는지 확인하는 단계
+                        AtomicInteger sent = new AtomicInteger(-1);
+                        Sinks.Many<Boolean> next = Sinks.many().unicast().onBackpressureBuffer();
+                        Flux<WebSocketFrame> outbound = next.asFlux()
+                                .map(signal -> timestampedFrame(out.alloc(), payloadBytes));
+
+                        Mono<Void> inbound = in.receiveFrames()
+                                .doOnNext(frame -> {
+                                    if (sent.get() < 0) {
+                                        sent.set(0);
+                                        connected.countDown();
+                                        start.asMono().subscribe(go -> sendNext(sent, next));
+                                        return;
+                                    }
+                                    long sentAt = frame.content().getLong(frame.content().readerIndex());
+                                    roundTrip.record(System.nanoTime() - sentAt);
+                                    received.incrementAndGet();
+                                    if (sent.get() < messages) {
+                                        sendNext(sent, next);
+                                    } else {
+                                        next.emitComplete(EMIT_RETRY);
+                                    }
+                                })
+                                .take(messages + 1L)
+                                .then();
+                        next.emitNext(Boolean.TRUE, EMIT_RETRY);
+                        return out.sendObject(outbound).then().and(inbound);
+                    })
+                    .doOnError(error -> failures.incrementAndGet())
+                    .doFinally(signal -> finished.countDown())
+                    .subscribe();
+        }
+
+        if (!connected.await(60, TimeUnit.SECONDS)) {
+            System.out.println("[GatewayLoadHarness] 연결 대기 시간 초과: " + connected.getCount() + " 세션 미연결");
+        }
+        long heapAfter = usedHeapAfterGc();
+
+        long startedAt = System.nanoTime();
+        start.tryEmitValue(Boolean.TRUE);
+        finished.await(10, TimeUnit.MINUTES);
+        long elapsedNanos = System.nanoTime() - startedAt;
+
+        Map<String, Object> latency = roundTrip.snapshot();
+        System.out.printf("[GatewayLoadHarness] sessions=%d messages/session=%d payload=%dB failures=%d%n", sessions,
+                messages, payloadBytes, failures.get());
+        System.out.printf("[GatewayLoadHarness] gateway args: %s%n", gatewayArgs.subList(4, gatewayArgs.size()));
+        System.out.printf("[GatewayLoadHarness] throughput: %.0f msgs/sec (%d round trips in %.2f s)%n",
+                received.get() / (elapsedNanos / 1e9), received.get(), elapsedNanos / 1e9);
+        System.out.printf("[GatewayLoadHarness] round trip: p50=%sus p99=%sus p999=%sus max=%sus%n",
+                latency.get("p50Micros"), latency.get("p99Micros"), latency.get("p999Micros"),
+                latency.get("maxMicros"));
+        System.out.printf("[GatewayLoadHarness] heap per connection (gateway + echo + client): %d bytes%n",
+                (heapAfter - heapBefore) / Math.max(1, sessions));
+
+        gateway.close();
+        echo.disposeNow(Duration.ofSeconds(5));
+    }
+
+    private static void sendNext(AtomicInteger sent, Sinks.Many<Boolean> next) {
+        sent.incrementAndGet();
+        next.emitNext(Boolean.TRUE, EMIT_RETRY);
+    }
+
+    // 앞 8바이트에 송신 시각(System.nanoTime)을 기록한 바이너리 프레임
+    private static WebSocketFrame timestampedFrame(ByteBufAllocator allocator, int payloadBytes) {
+        ByteBuf content = allocator.buffer(payloadBytes);
+        content.writeLong(System.nanoTime());
+        content.writeZero(payloadBytes - Long.BYTES);
+        return new BinaryWebSocketFrame(content);
+    }
+
+    static long usedHeapAfterGc() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(200);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
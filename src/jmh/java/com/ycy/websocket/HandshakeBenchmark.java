@@ -0,0 +1,91 @@
+package com.ycy.websocket;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+// 업그레이드 요청마다 실행되는 핸드쉐이크 경로(서브 프로토콜 파싱, 헤더 필터, 스킴 변경) 벤치마크
+// handshake: 세 단계를 모두 합친 업그레이드 한 건의 준비 비용 (초당 핸드쉐이크 수)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class HandshakeBenchmark {
+
+    private static final URI HTTP_URL = URI.create("http://localhost:7777/ws/chat");
+
+    private CustomWebSocketRoutingFilter filter;
+    private HandshakeTemplate template;
+    private List<HttpHeadersFilter> headersFilters;
+    private HttpHeaders headers;
+    private MockServerWebExchange exchange;
+
+    @Setup
+    public void setup() {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        filter = new CustomWebSocketRoutingFilter(null, null,
+                beanFactory.getBeanProvider(ResolvableType.forClassWithGenerics(List.class, HttpHeadersFilter.class)));
+        headersFilters = filter.getHeadersFilters();
+        template = new HandshakeTemplate("websocket_route", new WebSocketProxyProperties.RouteProperties(),
+                FrameTransformerChain.EMPTY, null);
+
+        // 브라우저가 보내는 업그레이드 요청과 비슷한 헤더 구성
+        exchange = MockServerWebExchange.from(MockServerHttpRequest.get("http://localhost:8080/ws/chat")
+                .header("Host", "localhost:8080")
+                .header("Upgrade", "websocket")
+                .header("Connection", "Upgrade")
+                .header("Sec-WebSocket-Key", "dGhlIHNhbXBsZSBub25jZQ==")
+                .header("Sec-WebSocket-Version", "13")
+                .header("Sec-WebSocket-Protocol", "v12.stomp, v11.stomp", "v10.stomp")
+                .header("Sec-WebSocket-Extensions", "permessage-deflate; client_max_window_bits")
+                .header("Origin", "http://localhost:3000")
+                .header("User-Agent", "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36")
+                .header("Accept-Language", "ko-KR,ko;q=0.9,en-US;q=0.8")
+                .header("Cookie", "SESSION=5f0c1e3a-8d8b-4c52-9d8e-2f4b7a1c9e00"));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR, HTTP_URL);
+        headers = exchange.getRequest().getHeaders();
+    }
+
+    @Benchmark
+    public List<String> getProtocols() {
+        return filter.getProtocols(headers);
+    }
+
+    @Benchmark
+    public HttpHeaders filterHeaders() {
+        return HttpHeadersFilter.filterRequest(headersFilters, exchange);
+    }
+
+    @Benchmark
+    public Object changeSchemeIfIsWebSocketUpgrade() {
+        // 이전 호출에서 ws 로 바뀐 URL 을 되돌려서 매번 변환 경로를 타도록 함
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR, HTTP_URL);
+        CustomWebSocketRoutingFilter.changeSchemeIfIsWebSocketUpgrade(exchange, template);
+        return exchange.getAttributes().get(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void handshake(Blackhole blackhole) {
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR, HTTP_URL);
+        CustomWebSocketRoutingFilter.changeSchemeIfIsWebSocketUpgrade(exchange, template);
+        blackhole.consume(exchange.getAttributes().get(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR));
+        blackhole.consume(HttpHeadersFilter.filterRequest(headersFilters, exchange));
+        blackhole.consume(filter.getProtocols(headers));
+    }
+}
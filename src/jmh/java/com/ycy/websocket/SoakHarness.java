@@ -0,0 +1,202 @@
+package com.ycy.websocket;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+// 에코 서버 + 게이트웨이 + 클라이언트를 한 JVM 에서 띄우고 오랫동안 세션을 열고 닫으면서 누수를 확인
+// 인자: [실행 시간(분)] [동시 세션 수] [세션당 메시지 수] [게이트웨이 설정...]
+// 세션은 정상 종료(1000) / 종료 프레임 없이 끊기 / 에코 응답을 받는 도중 끊기를 번갈아 가며 끝냄
+// 1분마다 churn 을 멈추고 세션이 모두 정리되면 direct 메모리, 레지스트리 크기, 누수 보고 수를 기록하고,
+// 첫 샘플(워밍업으로 풀이 채워진 상태)과 마지막 샘플을 비교해서 늘어났으면 종료 코드 1 로 끝냄
+public final class SoakHarness {
+
+    private static final String ROUTE = "websocket.proxy.routes.websocket_route.";
+    private static final int ECHO_PORT = 7777;
+    private static final int PAYLOAD_BYTES = 512;
+    private static final Duration SAMPLE_INTERVAL = Duration.ofMinutes(1);
+    private static final Duration SESSION_TIMEOUT = Duration.ofSeconds(30);
+    // 샘플마다 세션이 모두 정리될 때까지 기다리는 최대 시간
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(30);
+    // 워밍업 이후 허용하는 direct 메모리 증가량 (풀 청크 몇 개 정도, 동시 세션 수가 잠깐 몰려 청크가 늘어나는 경우)
+    private static final long DIRECT_MEMORY_TOLERANCE = 16L << 20;
+
+    // 세션 종료 방식
+    private static final int CLOSE = 0;
+    private static final int DISCONNECT = 1;
+    private static final int DISCONNECT_MID_STREAM = 2;
+
+    private SoakHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        // 버퍼 누수 집계는 Netty 버퍼 클래스가 로딩되기 전에 설치해야 함
+        ResourceLeakMonitor.installLeakCounter();
+        long minutes = args.length > 0 ? Long.parseLong(args[0]) : 60;
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int messages = Math.max(2, args.length > 2 ? Integer.parseInt(args[2]) : 20);
+
+        DisposableServer echo = EchoBackend.start(ECHO_PORT);
+        List<String> gatewayArgs = new ArrayList<>(List.of("--server.port=0", "--logging.level.root=WARN",
+                "--websocket.proxy.defaults.event-log-sample-rate=0", "--" + ROUTE + "event-log-sample-rate=0",
+                "--websocket.proxy.leak-check.interval=5s"));
+        gatewayArgs.addAll(Arrays.asList(args).subList(Math.min(3, args.length), args.length));
+        ConfigurableApplicationContext gateway = SpringApplication.run(WebsocketApplication.class,
+                gatewayArgs.toArray(new String[0]));
+        int port = ((WebServerApplicationContext) gateway).getWebServer().getPort();
+        String url = "ws://localhost:" + port + "/ws/soak";
+        ResourceLeakMonitor leakMonitor = gateway.getBean(ResourceLeakMonitor.class);
+        WebSocketSessionManager sessionManager = gateway.getBean(WebSocketSessionManager.class);
+        WebSocketRelayMetrics relayMetrics = gateway.getBean(WebSocketRelayMetrics.class);
+
+        HttpClient client = HttpClient.create(ConnectionProvider.newConnection());
+        AtomicLong sessions = new AtomicLong();
+        AtomicLong echoes = new AtomicLong();
+        AtomicLong failures = new AtomicLong();
+
+        System.out.printf("[SoakHarness] %d min, concurrency=%d messages/session=%d gateway args: %s%n", minutes,
+                concurrency, messages, gatewayArgs.subList(5, gatewayArgs.size()));
+        List<Sample> samples = new ArrayList<>();
+        long startedAt = System.nanoTime();
+        long deadline = startedAt + Duration.ofMinutes(minutes).toNanos();
+        do {
+            long roundEnd = Math.min(System.nanoTime() + SAMPLE_INTERVAL.toNanos(), deadline);
+            Flux.range(0, Integer.MAX_VALUE)
+                    .takeWhile(i -> System.nanoTime() < roundEnd)
+                    .flatMap(i -> session(client, url, i % 3, messages, echoes)
+                            .doOnSubscribe(subscription -> sessions.incrementAndGet())
+                            .onErrorResume(error -> {
+                                failures.incrementAndGet();
+                                return Mono.empty();
+                            }), concurrency)
+                    .blockLast();
+
+            Sample sample = sample(leakMonitor, sessionManager, relayMetrics,
+                    (System.nanoTime() - startedAt) / 60_000_000_000L, sessions.get());
+            samples.add(sample);
+            System.out.printf("[SoakHarness] %s echoes=%d failures=%d%n", sample, echoes.get(), failures.get());
+        } while (System.nanoTime() < deadline);
+
+        List<String> violations = evaluate(samples);
+        gateway.close();
+        echo.disposeNow(Duration.ofSeconds(5));
+        if (!violations.isEmpty()) {
+            violations.forEach(violation -> System.out.println("[SoakHarness] FAIL: " + violation));
+            System.exit(1);
+        }
+        System.out.println("[SoakHarness] PASS");
+    }
+
+    // 세션 하나: 메시지를 보내고 에코를 받은 뒤 mode 에 따라 종료
+    private static Mono<Void> session(HttpClient client, String url, int mode, int messages, AtomicLong echoes) {
+        return client.websocket()
+                .uri(url)
+                .handle((in, out) -> {
+                    Flux<WebSocketFrame> frames = Flux.range(0, messages)
+                            .map(i -> new BinaryWebSocketFrame(out.alloc().buffer(PAYLOAD_BYTES)
+                                    .writeZero(PAYLOAD_BYTES)));
+                    Mono<Void> received = in.receiveFrames()
+                            .take(mode == DISCONNECT_MID_STREAM ? messages / 2 : messages)
+                            .doOnNext(frame -> echoes.incrementAndGet())
+                            .then();
+                    Mono<Void> end = mode == CLOSE
+                            ? out.sendClose(1000, "soak")
+                            : Mono.fromRunnable(() -> in.withConnection(Connection::dispose));
+                    // 중간에 끊는 세션은 아직 보내는 중인 프레임이 있어 전송이 오류로 끝날 수 있음
+                    Mono<Void> send = out.sendObject(frames).then()
+                            .onErrorResume(error -> mode == DISCONNECT_MID_STREAM, error -> Mono.empty());
+                    // 응답이 오지 않는 세션은 연결을 끊어서 게이트웨이가 클라이언트 종료로 처리하도록 함
+                    return Mono.when(send, received.then(end))
+                            .timeout(SESSION_TIMEOUT)
+                            .doOnError(error -> in.withConnection(Connection::dispose));
+                })
+                .then();
+    }
+
+    // 세션이 모두 정리되기를 기다린 뒤 GC 를 돌리고 기록 (release 없이 GC 된 버퍼가 누수 보고에 잡히도록)
+    private static Sample sample(ResourceLeakMonitor leakMonitor, WebSocketSessionManager sessionManager,
+            WebSocketRelayMetrics relayMetrics, long minute, long sessions) throws InterruptedException {
+        long deadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+        while ((sessionManager.getSessionCount() > 0 || relayMetrics.getOpenSessionCount() > 0
+                || leakMonitor.getOpenUpstreams() > 0) && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+        GatewayLoadHarness.usedHeapAfterGc();
+        // 누수 감지기는 추적 대상 버퍼를 새로 할당할 때 GC 된 버퍼를 확인하므로 샘플링 간격보다 많이 할당
+        for (int i = 0; i < 1024; i++) {
+            ByteBufAllocator.DEFAULT.directBuffer(1).release();
+        }
+        return new Sample(minute, sessions, ResourceLeakMonitor.usedDirectMemory(),
+                sessionManager.getSessionCount(), relayMetrics.getOpenSessionCount(), leakMonitor.getOpenUpstreams(),
+                leakMonitor.getStaleReports(), leakMonitor.getLeakReports());
+    }
+
+    private static List<String> evaluate(List<Sample> samples) {
+        Sample baseline = samples.get(0);
+        Sample last = samples.get(samples.size() - 1);
+        List<String> violations = new ArrayList<>();
+        if (last.directMemory - baseline.directMemory > DIRECT_MEMORY_TOLERANCE) {
+            violations.add("direct 메모리 증가 " + (baseline.directMemory >> 20) + "MB -> "
+                    + (last.directMemory >> 20) + "MB");
+        }
+        if (last.registered > baseline.registered) {
+            violations.add("레지스트리 크기 증가 " + baseline.registered + " -> " + last.registered);
+        }
+        if (last.openClients > baseline.openClients || last.openUpstreams > baseline.openUpstreams) {
+            violations.add("정리되지 않은 세션 clients=" + last.openClients + " upstreams=" + last.openUpstreams);
+        }
+        if (last.staleReports > 0) {
+            violations.add("레지스트리에 남은 닫힌 세션 보고 " + last.staleReports + "건");
+        }
+        if (last.leakReports > 0) {
+            violations.add("버퍼 누수 보고 " + last.leakReports + "건");
+        }
+        return violations;
+    }
+
+    private static final class Sample {
+
+        private final long minute;
+        private final long sessions;
+        private final long directMemory;
+        private final int registered;
+        private final int openClients;
+        private final long openUpstreams;
+        private final long staleReports;
+        private final long leakReports;
+
+        Sample(long minute, long sessions, long directMemory, int registered, int openClients, long openUpstreams,
+                long staleReports, long leakReports) {
+            this.minute = minute;
+            this.sessions = sessions;
+            this.directMemory = directMemory;
+            this.registered = registered;
+            this.openClients = openClients;
+            this.openUpstreams = openUpstreams;
+            this.staleReports = staleReports;
+            this.leakReports = leakReports;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("t=%dmin sessions=%d directMemory=%dKB registered=%d openClients=%d "
+                    + "openUpstreams=%d staleReports=%d leakReports=%d", minute, sessions, directMemory >> 10,
+                    registered, openClients, openUpstreams, staleReports, leakReports);
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.ycy.websocket;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.ContinuationWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PongWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.client.WebsocketClientSpec;
+import reactor.netty.resources.ConnectionProvider;
+
+// 트래픽 캡처 세그먼트(TrafficCapture)를 읽어 캡처된 세션들을 게이트웨이에 다시 연결하고 클라이언트 프레임을 재생
+// 인자: [캡처 디렉터리] [게이트웨이 주소] [속도]
+// 속도 1.0 은 캡처된 시간 간격 그대로, 2.0 은 두 배 빠르게, 0 은 간격 없이 최대한 빠르게 재생
+// 세션 연결 시각과 세션 안의 프레임 시각을 모두 속도에 맞춰 줄이고, 서버 -> 클라이언트 프레임은 받은 수만 캡처와 비교
+// 압축된 채로 캡처된 메시지(압축 그대로 전달 구간)는 압축 컨텍스트를 재현할 수 없으므로 건너뜀
+// 잘려서 캡처된 페이로드는 원래 길이까지 0 으로 채워서 보냄
+public final class TrafficReplay {
+
+    // 캡처에서 받은 만큼 서버 프레임을 받을 때까지 세션 종료를 미루는 최대 시간
+    private static final Duration RESPONSE_GRACE = Duration.ofSeconds(5);
+
+    private TrafficReplay() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path directory = Paths.get(args.length > 0 ? args[0] : "capture");
+        String baseUrl = args.length > 1 ? args[1] : "ws://localhost:8080";
+        double speed = args.length > 2 ? Double.parseDouble(args[2]) : 1.0;
+
+        Capture capture = load(directory);
+        List<CapturedSession> sessions = new ArrayList<>(capture.sessions.values());
+        if (sessions.isEmpty()) {
+            System.out.println("[TrafficReplay] 재생할 세션 없음: " + directory.toAbsolutePath()
+                    + " (세션 시작 기록이 없는 프레임 " + capture.orphanFrames + ")");
+            return;
+        }
+        long firstOpenedAt = sessions.stream().mapToLong(session -> session.openedAt).min().getAsLong();
+        long lastClosedAt = sessions.stream().mapToLong(CapturedSession::endedAt).max().getAsLong();
+
+        AtomicLong sentFrames = new AtomicLong();
+        AtomicLong sentBytes = new AtomicLong();
+        AtomicLong receivedFrames = new AtomicLong();
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch finished = new CountDownLatch(sessions.size());
+        HttpClient client = HttpClient.create(ConnectionProvider.newConnection());
+
+        long startedAt = System.nanoTime();
+        for (CapturedSession session : sessions) {
+            WebsocketClientSpec.Builder spec = WebsocketClientSpec.builder().maxFramePayloadLength(Integer.MAX_VALUE);
+            if (session.subProtocol != null) {
+                spec.protocols(session.subProtocol);
+            }
+            at(startedAt, scale(session.openedAt - firstOpenedAt, speed))
+                    .then(client.websocket(spec.build())
+                            .uri(baseUrl + session.path)
+                            .handle((in, out) -> {
+                                long connectedAt = System.nanoTime();
+                                Flux<WebSocketFrame> frames = Flux.fromIterable(session.frames)
+                                        .concatMap(frame -> at(connectedAt,
+                                                scale(frame.capturedAt - session.openedAt, speed))
+                                                .then(Mono.fromSupplier(() -> frame.toFrame(out.alloc()))))
+                                        .doOnNext(frame -> {
+                                            sentFrames.incrementAndGet();
+                                            sentBytes.addAndGet(frame.content().readableBytes());
+                                        });
+                                AtomicLong sessionReceived = new AtomicLong();
+                                Sinks.Empty<Void> answered = Sinks.empty();
+                                if (session.serverFrames == 0) {
+                                    answered.tryEmitEmpty();
+                                }
+                                Mono<Void> received = in.receiveFrames()
+                                        .doOnNext(frame -> {
+                                            receivedFrames.incrementAndGet();
+                                            if (sessionReceived.incrementAndGet() == session.serverFrames) {
+                                                answered.tryEmitEmpty();
+                                            }
+                                        })
+                                        .then();
+                                // 캡처에서 세션이 닫힌 시각에 맞춰 닫음 (닫힌 기록이 없으면 마지막 프레임 직후)
+                                // 종료 프레임을 보내면 이후 받는 프레임은 버려지므로 캡처된 만큼 응답을 받을 때까지 기다림
+                                Mono<Void> close = Mono.when(
+                                        at(connectedAt, scale(session.endedAt() - session.openedAt, speed)),
+                                        answered.asMono().timeout(RESPONSE_GRACE, Mono.empty()))
+                                        .then(out.sendClose());
+                                return out.sendObject(frames).then().then(close).and(received);
+                            })
+                            .then())
+                    .doOnError(error -> {
+                        failures.incrementAndGet();
+                        System.out.println("[TrafficReplay] 세션 " + session.sessionId + " 실패: " + error);
+                    })
+                    .doFinally(signal -> finished.countDown())
+                    .subscribe(null, error -> {
+                    });
+        }
+
+        long capturedNanos = lastClosedAt - firstOpenedAt;
+        long timeoutNanos = speed > 0 ? (long) (capturedNanos / speed) : 0;
+        finished.await(TimeUnit.NANOSECONDS.toSeconds(timeoutNanos) + 60, TimeUnit.SECONDS);
+        long elapsedNanos = System.nanoTime() - startedAt;
+
+        System.out.printf("[TrafficReplay] segments=%d sessions=%d failures=%d unfinished=%d%n", capture.segments,
+                sessions.size(), failures.get(), finished.getCount());
+        System.out.printf("[TrafficReplay] speed=%s captured=%.2f s replayed=%.2f s%n",
+                speed > 0 ? speed + "x" : "max", capturedNanos / 1e9, elapsedNanos / 1e9);
+        System.out.printf("[TrafficReplay] client -> server: sent %d frames (%d bytes), captured %d frames%n",
+                sentFrames.get(), sentBytes.get(), capture.clientFrames);
+        System.out.printf("[TrafficReplay] server -> client: received %d frames, captured %d frames%n",
+                receivedFrames.get(), capture.serverFrames);
+        System.out.printf("[TrafficReplay] skipped: compressed=%d frames without session start=%d "
+                + "truncated (zero padded)=%d%n", capture.compressedFrames, capture.orphanFrames,
+                capture.truncatedFrames);
+        if (capture.unreadable > 0) {
+            System.out.printf("[TrafficReplay] 끝까지 읽지 못한 세그먼트: %d%n", capture.unreadable);
+        }
+    }
+
+    // base 로부터 offsetNanos 가 지난 시각까지 대기
+    private static Mono<Void> at(long base, long offsetNanos) {
+        return Mono.defer(() -> {
+            long remaining = offsetNanos - (System.nanoTime() - base);
+            return remaining > 0 ? Mono.delay(Duration.ofNanos(remaining)).then() : Mono.empty();
+        });
+    }
+
+    private static long scale(long nanos, double speed) {
+        return speed > 0 ? (long) (nanos / speed) : 0;
+    }
+
+    // 디렉터리의 세그먼트를 파일 이름 순서(= 기록 순서)로 읽음
+    private static Capture load(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+                "*" + TrafficCaptureFormat.SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        files.sort(null);
+
+        Capture capture = new Capture();
+        TrafficCaptureFormat.Record record = new TrafficCaptureFormat.Record();
+        for (Path file : files) {
+            capture.segments++;
+            try {
+                TrafficCaptureFormat.Reader reader = new TrafficCaptureFormat.Reader(file);
+                while (reader.next(record)) {
+                    capture.add(record);
+                }
+            } catch (IOException | BufferUnderflowException e) {
+                // 기록 중에 게이트웨이가 종료된 세그먼트는 읽은 데까지만 사용
+                capture.unreadable++;
+                System.out.println("[TrafficReplay] " + file + ": " + e);
+            }
+        }
+        return capture;
+    }
+
+    private static final class Capture {
+
+        final Map<String, CapturedSession> sessions = new LinkedHashMap<>();
+        int segments;
+        int unreadable;
+        long clientFrames;
+        long serverFrames;
+        long compressedFrames;
+        long orphanFrames;
+        long truncatedFrames;
+
+        void add(TrafficCaptureFormat.Record record) {
+            if (record.type == TrafficCaptureFormat.OPEN) {
+                sessions.put(record.sessionId, new CapturedSession(record));
+                return;
+            }
+            CapturedSession session = sessions.get(record.sessionId);
+            if (session == null) {
+                // 세션 시작 레코드가 있던 세그먼트가 이미 삭제됨
+                if (record.type == TrafficCaptureFormat.FRAME) {
+                    orphanFrames++;
+                }
+                return;
+            }
+            if (record.type == TrafficCaptureFormat.CLOSE) {
+                session.closedAt = record.timeNanos;
+                return;
+            }
+            if (record.direction == FrameRelay.Direction.SERVER_TO_CLIENT) {
+                serverFrames++;
+                session.serverFrames++;
+                return;
+            }
+            clientFrames++;
+            session.lastFrameAt = record.timeNanos;
+            // 압축된 메시지는 첫 프레임에만 RSV1 이 있으므로 이어지는 continuation 프레임도 건너뜀
+            boolean continuation = record.opcode == 0x0;
+            if (record.compressed || (continuation && session.skippingMessage)) {
+                session.skippingMessage = !record.fin;
+                compressedFrames++;
+                return;
+            }
+            if (record.opcode > 0x2 && record.opcode != 0x9 && record.opcode != 0xA) {
+                return;
+            }
+            if (record.payload.length < record.length) {
+                truncatedFrames++;
+            }
+            session.frames.add(new CapturedFrame(record));
+        }
+    }
+
+    private static final class CapturedSession {
+
+        final String sessionId;
+        final String path;
+        final String subProtocol;
+        final long openedAt;
+        final List<CapturedFrame> frames = new ArrayList<>();
+        long serverFrames;
+        long lastFrameAt;
+        long closedAt;
+        boolean skippingMessage;
+
+        CapturedSession(TrafficCaptureFormat.Record record) {
+            this.sessionId = record.sessionId;
+            this.path = record.path;
+            this.subProtocol = record.subProtocol;
+            this.openedAt = record.timeNanos;
+        }
+
+        long endedAt() {
+            return closedAt > 0 ? closedAt : Math.max(openedAt, lastFrameAt);
+        }
+    }
+
+    private static final class CapturedFrame {
+
+        final long capturedAt;
+        final int opcode;
+        final boolean fin;
+        final int length;
+        final byte[] payload;
+
+        CapturedFrame(TrafficCaptureFormat.Record record) {
+            this.capturedAt = record.timeNanos;
+            this.opcode = record.opcode;
+            this.fin = record.fin;
+            this.length = record.length;
+            this.payload = record.payload;
+        }
+
+        WebSocketFrame toFrame(ByteBufAllocator allocator) {
+            ByteBuf content = allocator.buffer(length);
+            content.writeBytes(payload);
+            content.writeZero(length - payload.length);
+            switch (opcode) {
+                case 0x1:
+                    return new TextWebSocketFrame(fin, 0, content);
+                case 0x2:
+                    return new BinaryWebSocketFrame(fin, 0, content);
+                case 0x9:
+                    return new PingWebSocketFrame(content);
+                case 0xA:
+                    return new PongWebSocketFrame(content);
+                default:
+                    return new ContinuationWebSocketFrame(fin, 0, content);
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.ycy.websocket;
+
+import java.util.NoSuchElementException;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
+import io.netty.util.AttributeKey;
+import org.springframework.web.reactive.socket.CloseStatus;
+import reactor.netty.NettyPipeline;
+
+// 고밀도 모드: 채널이 받은 종료 프레임(또는 종료 프레임 없이 끊긴 연결)을 세션 상태 객체에 알림
+// 핸들러에는 세션별 상태가 없어서 클라이언트 구간 / 업스트림 구간 인스턴스 하나씩을 모든 채널이 함께 사용하고,
+// 알릴 대상은 채널 속성에 둠
+@ChannelHandler.Sharable
+final class CloseFrameObserver extends ChannelInboundHandlerAdapter {
+
+    static final String NAME = "ws.proxy.closeObserver";
+
+    private static final AttributeKey<Listener> LISTENER = AttributeKey.valueOf("ws.proxy.closeListener");
+
+    private static final CloseFrameObserver CLIENT = new CloseFrameObserver(true);
+    private static final CloseFrameObserver UPSTREAM = new CloseFrameObserver(false);
+
+    interface Listener {
+
+        // 구간마다 여러 번 불릴 수 있음 (종료 프레임 수신 후 채널 종료), 처음 한 번만 처리하는 것은 받는 쪽 책임
+        void closed(boolean fromClient, int code, String reason);
+    }
+
+    private final boolean client;
+
+    private CloseFrameObserver(boolean client) {
+        this.client = client;
+    }
+
+    // 이미 닫힌 채널이면 설치 대신 바로 1006 으로 알림
+    static void install(Channel channel, boolean client, Listener listener) {
+        channel.attr(LISTENER).set(listener);
+        try {
+            channel.pipeline().addBefore(NettyPipeline.ReactiveBridge, NAME, client ? CLIENT : UPSTREAM);
+        } catch (NoSuchElementException e) {
+            // 채널이 닫히면서 Reactor Netty 핸들러가 이미 제거된 경우
+        }
+        if (!channel.isActive()) {
+            listener.closed(client, CloseStatus.NO_CLOSE_FRAME.getCode(), null);
+        }
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (msg instanceof CloseWebSocketFrame) {
+            CloseWebSocketFrame frame = (CloseWebSocketFrame) msg;
+            int code = frame.statusCode();
+            notify(ctx, code < 0 ? CloseStatus.NO_STATUS_CODE.getCode() : code, frame.reasonText());
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) {
+        notify(ctx, CloseStatus.NO_CLOSE_FRAME.getCode(), null);
+        ctx.fireChannelInactive();
+    }
+
+    private void notify(ChannelHandlerContext ctx, int code, String reason) {
+        Listener listener = ctx.channel().attr(LISTENER).get();
+        if (listener != null) {
+            listener.closed(client, code, reason);
+        }
+    }
+}
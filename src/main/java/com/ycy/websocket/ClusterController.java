@@ -0,0 +1,60 @@
+package com.ycy.websocket;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+// 게이트웨이 노드 사이의 요청 (세션 변경분 수신, 다른 노드가 전달한 세션 종료)
+// 전달받은 요청은 이 노드의 세션에만 적용하고 다시 전달하지 않음
+@RestController
+@RequestMapping(PeerSessionDirectory.BASE_PATH)
+public class ClusterController {
+
+    @Autowired
+    private WebSocketSessionManager sessionManager;
+
+    @Autowired
+    private SessionDirectory directory;
+
+    @Autowired
+    private PeerSessionDirectory peerDirectory;
+
+    // 일련번호가 이어지지 않으면 409 (보낸 노드가 전체 세션을 다시 보냄), 형식이 틀리거나 설정된 피어가 아니면 400
+    @PostMapping(value = "/deltas", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<Void> receiveDeltas(@RequestBody byte[] body) {
+        try {
+            return peerDirectory.receive(body)
+                    ? ResponseEntity.ok().build()
+                    : ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @DeleteMapping("/sessions/{sessionId}")
+    public Mono<ResponseEntity<String>> closeSession(@PathVariable String sessionId) {
+        if (sessionManager.getSession(sessionId) == null) {
+            return Mono.just(ResponseEntity.notFound().build());
+        }
+        return sessionManager.closeSession(sessionId)
+                .then(Mono.just(ResponseEntity.ok("세션이 성공적으로 종료되었습니다: " + sessionId)));
+    }
+
+    @DeleteMapping("/sessions")
+    public ResponseEntity<String> closeSessions(@RequestParam(required = false) String route,
+            @RequestParam(required = false) String remoteAddress) {
+        sessionManager.closeSessions(route, remoteAddress).subscribe();
+        return ResponseEntity.accepted().body("세션 일괄 종료를 시작했습니다.");
+    }
+
+    // 이 노드의 세션 디렉터리 상태 (피어별 전송 상태, 알고 있는 노드와 세션 수)
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getStatus() {
+        return ResponseEntity.ok(directory.snapshot());
+    }
+}
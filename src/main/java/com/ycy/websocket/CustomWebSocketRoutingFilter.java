@@ -3,30 +3,36 @@ package com.ycy.websocket;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.Function;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.gateway.filter.WebsocketRoutingFilter;
 import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
 import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.reactive.socket.client.WebSocketClient;
 import org.springframework.web.reactive.socket.server.WebSocketService;
 import org.springframework.web.server.ServerWebExchange;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
-import org.springframework.web.util.UriComponentsBuilder;
 import org.springframework.web.reactive.socket.WebSocketHandler;
 import org.springframework.web.reactive.socket.WebSocketSession;
 import org.springframework.web.reactive.socket.CloseStatus;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.reactivestreams.Publisher;
 
 @Component
 public class CustomWebSocketRoutingFilter extends WebsocketRoutingFilter {
@@ -34,12 +40,59 @@ public class CustomWebSocketRoutingFilter extends WebsocketRoutingFilter {
     @Autowired
     private WebSocketSessionManager sessionManager;
 
+    @Autowired
+    private WebSocketProxyProperties proxyProperties;
+
+    @Autowired
+    private WebSocketEventLogger eventLogger;
+
+    @Autowired
+    private WebSocketRelayMetrics relayMetrics;
+
+    @Autowired
+    private UpstreamConnectionPools upstreamPools;
+
+    @Autowired
+    private PerMessageDeflateSupport deflateSupport;
+
+    @Autowired
+    private HandshakeTemplates handshakeTemplates;
+
+    @Autowired
+    private UpstreamBalancers upstreamBalancers;
+
+    @Autowired
+    private WebSocketAdmissionControl admissionControl;
+
+    @Autowired
+    private SessionHeartbeats heartbeats;
+
+    @Autowired
+    private ProxyEventLoops eventLoops;
+
+    @Autowired
+    private StreamingRelaySupport streamingSupport;
+
+    @Autowired
+    private InFlightByteBudget inFlightBudget;
+
+    @Autowired
+    private TrafficCapture trafficCapture;
+
+    @Autowired
+    private ResourceLeakMonitor leakMonitor;
+
     private final WebSocketClient webSocketClient;
     private final WebSocketService webSocketService;
     private final ObjectProvider<List<HttpHeadersFilter>> headersFiltersProvider;
 
+    private static final String SEC_WEBSOCKET_PREFIX = "sec-websocket";
+
     private volatile List<HttpHeadersFilter> headersFilters;
 
+    // 키: 라우트 ID, 값: 라우트의 세션 핸들러들이 함께 쓰는 중계 준비물
+    private final Map<String, ProxyRoute> proxyRoutes = new ConcurrentHashMap<>();
+
     public CustomWebSocketRoutingFilter(WebSocketClient webSocketClient, WebSocketService webSocketService,
             ObjectProvider<List<HttpHeadersFilter>> headersFiltersProvider) {
         super(webSocketClient, webSocketService, headersFiltersProvider);
@@ -61,8 +114,12 @@ public class CustomWebSocketRoutingFilter extends WebsocketRoutingFilter {
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        String routeId = route != null ? route.getId() : null;
+        HandshakeTemplate template = this.handshakeTemplates.get(routeId);
+
         // WebSocket 업그레이드 요청일 경우 스킴을 변경
-        changeSchemeIfIsWebSocketUpgrade(exchange);
+        changeSchemeIfIsWebSocketUpgrade(exchange, template);
 
         URI requestUrl = (URI) exchange.getRequiredAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
         String scheme = requestUrl.getScheme();
@@ -72,6 +129,23 @@ public class CustomWebSocketRoutingFilter extends WebsocketRoutingFilter {
             // 요청을 라우팅된 것으로 플래그 설정
             ServerWebExchangeUtils.setAlreadyRouted(exchange);
 
+            // drain 중이면 업그레이드하지 않고 다른 노드로 가도록 503 반환
+            if (this.sessionManager.isDraining()) {
+                this.eventLogger.event("CustomWebSocketRoutingFilter", routeId, exchange.getRequest().getId(),
+                        "drain 중 연결 거절", requestUrl);
+                exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+                exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER,
+                        String.valueOf(this.proxyProperties.getDrain().getRetryAfter().toSeconds()));
+                return exchange.getResponse().setComplete();
+            }
+
+            // 허용 한도 확인: 헤더 필터, 압축 협상, 업스트림 연결 같은 업그레이드 작업 전에 429/503 으로 거절
+            WebSocketAdmissionControl.Permit permit = this.admissionControl.admit(exchange, routeId,
+                    template.getProperties().getAdmission());
+            if (permit == null) {
+                return exchange.getResponse().setComplete();
+            }
+
             HttpHeaders headers = exchange.getRequest().getHeaders();
 
             // WebSocket 요청에 적합하게 바꿔주는 헤더 필터를 적용
@@ -80,100 +154,222 @@ public class CustomWebSocketRoutingFilter extends WebsocketRoutingFilter {
             // Sec-WebSocket-Protocol 헤더에 들어있는 서브 프로토콜 리스트를 가져옴
             // 서브 프로토콜 리스트 = 클라이언트와 서버가 사용할 프로토콜 리스트(예: JSON-RPC, STOMP, MQTT 등)
             List<String> protocols = this.getProtocols(headers);
-            System.out.println("[CustomWebSocketRoutingFilter] protocols:[" + protocols + "]");
+            this.eventLogger.event("CustomWebSocketRoutingFilter", routeId, exchange.getRequest().getId(),
+                    "핸드쉐이크 " + requestUrl, protocols);
+
+            // 매칭된 라우트의 중계 설정
+            WebSocketProxyProperties.RouteProperties routeProperties = template.getProperties();
+
+            // 구간별 permessage-deflate 협상 (클라이언트 구간은 업그레이드 응답 전에 설치해야 함)
+            this.deflateSupport.negotiateClientLeg(exchange, routeProperties.getCompression().getClient());
+            WebSocketClient upstreamClient = this.deflateSupport.upstreamClient(routeId,
+                    routeProperties.getCompression().getUpstream());
+            // 스트리밍 라우트는 양쪽 구간의 프레임 디코더에 라우트의 최대 프레임 크기를 적용
+            upstreamClient = this.streamingSupport.upstreamClient(routeId, routeProperties.getStreaming(),
+                    upstreamClient);
+
+            // 업스트림 인스턴스가 여러 개면 클라이언트 세션이 열린 뒤 로드 밸런서로 연결 대상을 고름
+            UpstreamBalancer balancer = this.upstreamBalancers.get(routeId, routeProperties, upstreamClient);
+            String balancerKey = balancer != null ? balancer.hashKeyOf(exchange) : null;
 
             // WebSocket 핸드쉐이크 수행(=HTTP 요청을 WebSocket 연결로 업그레이드) 및 Handler를 사용하여 연결 처리 시작
-            return this.webSocketService.handleRequest(exchange,
-                    new ProxyWebSocketHandler(requestUrl, this.webSocketClient, filtered, protocols,
-                            this.sessionManager));
+            ProxyWebSocketHandler handler = new ProxyWebSocketHandler(proxyRoute(template, upstreamClient, balancer),
+                    requestUrl, filtered, protocols, balancerKey, permit);
+            return this.streamingSupport.webSocketService(routeId, routeProperties.getStreaming(),
+                    this.webSocketService).handleRequest(exchange, handler)
+                    // 업그레이드가 실패하거나 취소되어 핸들러가 실행되지 않았으면 여기서 반납
+                    // (업그레이드가 끝나면 핸들러가 실행된 뒤 완료되므로 실행된 세션의 자리는 핸들러가 반납)
+                    .doFinally(signal -> {
+                        if (!handler.started) {
+                            permit.release();
+                        }
+                    });
         } else {
             // 일반적인 필터 체인을 계속 진행
             return chain.filter(exchange);
         }
     }
 
+    // 라우트의 세션 핸들러들이 함께 쓰는 중계 준비물, 템플릿(라우트 갱신)이나 업스트림 클라이언트가 바뀌면 새로 만듦
+    private ProxyRoute proxyRoute(HandshakeTemplate template, WebSocketClient upstreamClient,
+            UpstreamBalancer balancer) {
+        String key = template.getRouteId() != null ? template.getRouteId() : WebSocketRelayMetrics.DEFAULT_ROUTE;
+        ProxyRoute route = this.proxyRoutes.get(key);
+        if (route == null || route.template != template || route.client != upstreamClient
+                || route.balancer != balancer) {
+            route = new ProxyRoute(template, upstreamClient, balancer, this.sessionManager, this.eventLogger,
+                    this.relayMetrics, this.upstreamPools, this.heartbeats, this.eventLoops, this.inFlightBudget,
+                    this.trafficCapture, this.leakMonitor);
+            this.proxyRoutes.put(key, route);
+        }
+        return route;
+    }
+
     // Sec-WebSocket-Protocol 헤더에 들어있는 서브 프로토콜 리스트를 가져옴
+    // 대부분의 요청은 헤더가 없거나 값이 하나이므로 그 경우 토큰 분리 없이 반환
     List<String> getProtocols(HttpHeaders headers) {
-        List<String> protocols = headers.get("Sec-WebSocket-Protocol");
-        if (protocols != null) {
-            ArrayList<String> updatedProtocols = new ArrayList();
-
-            for (int i = 0; i < ((List) protocols).size(); ++i) {
-                String protocol = (String) ((List) protocols).get(i);
-                updatedProtocols.addAll(Arrays.asList(StringUtils.tokenizeToStringArray(protocol, ",")));
+        List<String> values = headers.get("Sec-WebSocket-Protocol");
+        if (values == null) {
+            return null;
+        }
+        if (values.size() == 1) {
+            String value = values.get(0).trim();
+            if (!value.isEmpty() && value.indexOf(',') < 0) {
+                return Collections.singletonList(value);
             }
-
-            protocols = updatedProtocols;
         }
-
-        return (List) protocols;
+        List<String> protocols = new ArrayList<>();
+        for (String value : values) {
+            protocols.addAll(Arrays.asList(StringUtils.tokenizeToStringArray(value, ",")));
+        }
+        return protocols;
     }
 
     // HTTP 요청 헤더를 필터링하는 데 사용되는 헤더 필터 리스트를 가져옵니다.
+    // 처음 한 번만 만들고, provider 가 돌려준 리스트는 건드리지 않고 복사본에 핸드쉐이크 헤더 필터를 추가
     List<HttpHeadersFilter> getHeadersFilters() {
-        if (this.headersFilters == null) {
-            this.headersFilters = (List) this.headersFiltersProvider.getIfAvailable(ArrayList::new);
-            this.headersFilters.add((headers, exchange) -> {
-                HttpHeaders filtered = new HttpHeaders();
-                filtered.addAll(headers);
-                filtered.remove("Host");
-                boolean preserveHost = (Boolean) exchange
-                        .getAttributeOrDefault(ServerWebExchangeUtils.PRESERVE_HOST_HEADER_ATTRIBUTE, false);
-                if (preserveHost) {
-                    String host = exchange.getRequest().getHeaders().getFirst("Host");
-                    filtered.add("Host", host);
-                }
-
-                return filtered;
-            });
-            this.headersFilters.add((headers, exchange) -> {
-                HttpHeaders filtered = new HttpHeaders();
-                Iterator var3 = headers.entrySet().iterator();
-
-                while (var3.hasNext()) {
-                    Map.Entry<String, List<String>> entry = (Map.Entry) var3.next();
-                    if (!((String) entry.getKey()).toLowerCase().startsWith("sec-websocket")) {
-                        filtered.addAll((String) entry.getKey(), (List) entry.getValue());
-                    }
+        List<HttpHeadersFilter> filters = this.headersFilters;
+        if (filters == null) {
+            synchronized (this) {
+                filters = this.headersFilters;
+                if (filters == null) {
+                    List<HttpHeadersFilter> compiled = new ArrayList<>(
+                            this.headersFiltersProvider.getIfAvailable(ArrayList::new));
+                    compiled.add(CustomWebSocketRoutingFilter::filterHandshakeHeaders);
+                    filters = List.copyOf(compiled);
+                    this.headersFilters = filters;
                 }
+            }
+        }
+        return filters;
+    }
 
-                return filtered;
-            });
+    // Host(preserveHost 가 아니면)와 sec-websocket* 헤더를 한 번의 순회로 제거
+    // 헤더 이름을 소문자로 바꾸지 않고 대소문자 무시 비교로 판단
+    static HttpHeaders filterHandshakeHeaders(HttpHeaders headers, ServerWebExchange exchange) {
+        HttpHeaders filtered = new HttpHeaders();
+        headers.forEach((name, values) -> {
+            if (!isHandshakeHeader(name)) {
+                filtered.addAll(name, values);
+            }
+        });
+        boolean preserveHost = exchange.getAttributeOrDefault(
+                ServerWebExchangeUtils.PRESERVE_HOST_HEADER_ATTRIBUTE, false);
+        if (preserveHost) {
+            String host = exchange.getRequest().getHeaders().getFirst(HttpHeaders.HOST);
+            filtered.add(HttpHeaders.HOST, host);
         }
+        return filtered;
+    }
 
-        return this.headersFilters;
+    private static boolean isHandshakeHeader(String name) {
+        return name.regionMatches(true, 0, SEC_WEBSOCKET_PREFIX, 0, SEC_WEBSOCKET_PREFIX.length())
+                || HttpHeaders.HOST.equalsIgnoreCase(name);
     }
 
     // WebSocket 업그레이드 요청일 경우 URL의 스킴을 http에서 ws로, https에서 wss로 변경
-    static void changeSchemeIfIsWebSocketUpgrade(ServerWebExchange exchange) {
+    static void changeSchemeIfIsWebSocketUpgrade(ServerWebExchange exchange, HandshakeTemplate template) {
         URI requestUrl = (URI) exchange.getRequiredAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
-        String scheme = requestUrl.getScheme().toLowerCase();
-        String upgrade = exchange.getRequest().getHeaders().getUpgrade();
-        System.out.println("[CustomWebSocketRoutingFilter] upgrade:[" + upgrade + "]" + " scheme:[" + scheme + "]");
-
-        if ("WebSocket".equalsIgnoreCase(upgrade) && ("http".equals(scheme) || "https".equals(scheme))) {
-            String wsScheme = convertHttpToWs(scheme);
-            boolean encoded = ServerWebExchangeUtils.containsEncodedParts(requestUrl);
-            URI wsRequestUrl = UriComponentsBuilder.fromUri(requestUrl).scheme(wsScheme).build(encoded).toUri();
-            exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR, wsRequestUrl);
-            System.out.println("changeSchemeTo:[" + wsRequestUrl + "]");
+        String scheme = requestUrl.getScheme();
+        if (("http".equalsIgnoreCase(scheme) || "https".equalsIgnoreCase(scheme))
+                && "WebSocket".equalsIgnoreCase(exchange.getRequest().getHeaders().getUpgrade())) {
+            exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR,
+                    template.toWebSocketUri(requestUrl));
         }
     }
 
-    private static class ProxyWebSocketHandler implements WebSocketHandler {
+    // 라우트마다 한 번 만들어 그 라우트의 모든 세션 핸들러가 함께 쓰는 중계 준비물 (세션별 상태 없음)
+    private static final class ProxyRoute {
 
-        private final WebSocketSessionManager sessionManager;
+        private final HandshakeTemplate template;
         private final WebSocketClient client;
-        private final URI url;
-        private final HttpHeaders headers;
-        private final List<String> subProtocols;
-
-        ProxyWebSocketHandler(URI url, WebSocketClient client, HttpHeaders headers, List<String> protocols,
-                WebSocketSessionManager sessionManager) {
+        private final UpstreamBalancer balancer;
+        private final String routeId;
+        private final WebSocketProxyProperties.RouteProperties routeProperties;
+        private final FrameTransformerChain transformers;
+        // 고밀도 모드 (재연결 라우트는 재연결마다 핸드쉐이크 정보가 필요하므로 제외, 샤딩 라우트도 제외)
+        private final boolean highDensity;
+        private final WebSocketSessionManager sessionManager;
+        private final WebSocketEventLogger eventLogger;
+        private final WebSocketRelayMetrics relayMetrics;
+        private final UpstreamConnectionPools upstreamPools;
+        private final SessionHeartbeats heartbeats;
+        private final ProxyEventLoops eventLoops;
+        private final InFlightByteBudget budget;
+        private final TrafficCapture trafficCapture;
+        private final ResourceLeakMonitor leakMonitor;
+        // 샤딩 라우트가 아니면 null
+        private final ShardRouter shardRouter;
+
+        ProxyRoute(HandshakeTemplate template, WebSocketClient client, UpstreamBalancer balancer,
+                WebSocketSessionManager sessionManager, WebSocketEventLogger eventLogger,
+                WebSocketRelayMetrics relayMetrics, UpstreamConnectionPools upstreamPools, SessionHeartbeats heartbeats,
+                ProxyEventLoops eventLoops, InFlightByteBudget budget, TrafficCapture trafficCapture,
+                ResourceLeakMonitor leakMonitor) {
+            this.template = template;
             this.client = client;
+            this.balancer = balancer;
+            this.routeId = template.getRouteId();
+            this.routeProperties = template.getProperties();
+            this.transformers = template.getTransformers();
+            this.shardRouter = template.getShardRouter();
+            this.highDensity = routeProperties.isHighDensity() && !routeProperties.getReconnect().isEnabled()
+                    && shardRouter == null;
+            this.sessionManager = sessionManager;
+            this.eventLogger = eventLogger;
+            this.relayMetrics = relayMetrics;
+            this.upstreamPools = upstreamPools;
+            this.heartbeats = heartbeats;
+            this.eventLoops = eventLoops;
+            this.budget = budget;
+            this.trafficCapture = trafficCapture;
+            this.leakMonitor = leakMonitor;
+        }
+    }
+
+    // 업그레이드 요청 하나(세션 하나)마다 만들어지는 핸들러
+    // 고밀도 모드에서는 이 객체가 업스트림 세션 핸들러와 종료 처리 상태까지 맡아서 세션마다 객체 하나로 끝냄
+    private static class ProxyWebSocketHandler implements WebSocketHandler, CloseFrameObserver.Listener {
+
+        // 고밀도 모드의 종료 상태 비트
+        private static final int CLIENT_CLOSED = 1;
+        private static final int UPSTREAM_CLOSED = 2;
+        private static final int CLOSE_PROPAGATED = 4;
+
+        private static final AtomicIntegerFieldUpdater<ProxyWebSocketHandler> CLOSE_STATE = AtomicIntegerFieldUpdater
+                .newUpdater(ProxyWebSocketHandler.class, "closeState");
+
+        private final ProxyRoute route;
+        private final WebSocketAdmissionControl.Permit permit;
+        // 핸드쉐이크에만 필요한 값 (고밀도 모드에서는 업스트림 연결 후 해제)
+        private URI url;
+        private HttpHeaders headers;
+        private List<String> subProtocols;
+        private String balancerKey;
+        // 핸들러는 업그레이드 요청 하나(세션 하나)마다 만들어지므로 세션의 캡처 상태를 여기에 둠
+        private TrafficCapture.Session capture;
+
+        // 고밀도 모드에서만 사용: 클라이언트 세션이 정해진 뒤의 세션 상태
+        private WebSocketSession session;
+        private volatile WebSocketSession upstream;
+        private WebSocketRelayMetrics.SessionMetrics metrics;
+        private UpstreamBalancer.Lease lease;
+        private long handshakeStartedAt;
+        private volatile int closeState;
+
+        // 일반 중계에서 양쪽 종료 상태를 반대편으로 전달하는 구독 (handle 이 끝날 때 세션 등록 해제와 함께 정리)
+        private volatile Disposable closePropagation;
+
+        // handle 이 호출되면 동시 세션 자리 반납은 핸들러 몫
+        private volatile boolean started;
+
+        ProxyWebSocketHandler(ProxyRoute route, URI url, HttpHeaders headers, List<String> protocols,
+                String balancerKey, WebSocketAdmissionControl.Permit permit) {
+            this.route = route;
             this.url = url;
             this.headers = headers;
-            this.sessionManager = sessionManager;
+            this.balancerKey = balancerKey;
+            this.permit = permit;
             if (protocols != null) {
                 this.subProtocols = protocols;
             } else {
@@ -186,100 +382,495 @@ public class CustomWebSocketRoutingFilter extends WebsocketRoutingFilter {
             return this.subProtocols;
         }
 
+        // 종료 코드에 따라 적절한 클로즈 상태 반환
+        private static CloseStatus adaptCloseStatus(CloseStatus closeStatus) {
+            int code = closeStatus.getCode();
+            if (code > 2999 && code < 5000) {
+                // 사용자 정의 코드로 간주
+                return closeStatus;
+            } else {
+                switch (code) {
+                    case 1000: // 정상 종료
+                    case 1001: // 종료
+                    case 1002: // 프로토콜 오류
+                    case 1003: // 데이터형식 오류
+                    case 1007: // 데이터형식 오류
+                    case 1008: // 정책 위반
+                    case 1009: // 메시지가 너무 큼
+                    case 1010: // 확정 필요
+                    case 1011: // 서버오류
+                        return closeStatus;
+                    case 1004:
+                    case 1005:
+                    case 1006:
+                    case 1012:
+                    case 1013:
+                    case 1014:
+                    case 1015:
+                    default:
+                        return CloseStatus.PROTOCOL_ERROR;
+                }
+            }
+        }
+
         // WebSocket 세션을 처리합니다.
+        // 고밀도 모드에서는 업스트림 세션도 이 메서드로 들어오므로, 클라이언트 세션이 이미 있으면 업스트림 세션
         public Mono<Void> handle(final WebSocketSession session) {
-            System.out.println("[CustomWebSocketRoutingFilter] 연결 시작 : " + session.getId());
+            this.started = true;
+            if (this.session != null) {
+                return proxyDense(session);
+            }
+            route.eventLogger.event("CustomWebSocketRoutingFilter", route.routeId, session.getId(), "연결 시작", null);
+            WebSocketRelayMetrics.SessionMetrics metrics = route.relayMetrics.openSession(route.routeId,
+                    session.getId());
+            capture = route.trafficCapture.open(route.routeId, session);
+            long handshakeStartedAt = System.nanoTime();
+
+            if (route.routeProperties.getReconnect().isEnabled() && NettyWebSocketSessions.channel(session) != null) {
+                return handleReconnecting(session, metrics, handshakeStartedAt);
+            }
+            if (route.shardRouter != null && NettyWebSocketSessions.channel(session) != null) {
+                return handleSharded(session, metrics, handshakeStartedAt);
+            }
 
-            // 클라이언트와 서버 간의 통신을 처리하는 프록시 세션을 생성
-            return this.client.execute(this.url, this.headers, new WebSocketHandler() {
+            // 로드 밸런서가 있으면 연결할 업스트림 인스턴스를 고름
+            UpstreamBalancer.Lease lease = route.balancer != null ? route.balancer.choose(balancerKey) : null;
+            URI upstreamUrl = lease != null ? lease.resolve(this.url) : this.url;
+
+            WebSocketHandler upstreamHandler;
+            Channel channel = NettyWebSocketSessions.channel(session);
+            if (route.highDensity && channel != null) {
+                this.session = session;
+                this.metrics = metrics;
+                this.lease = lease;
+                this.handshakeStartedAt = handshakeStartedAt;
+                // 업스트림 핸드쉐이크 중에 클라이언트가 끊기는 경우도 알 수 있도록 클라이언트 구간은 먼저 관찰
+                CloseFrameObserver.install(channel, true, this);
+                upstreamHandler = this;
+            } else {
+                upstreamHandler = upstreamHandler(proxySession -> proxy(session, proxySession, metrics,
+                        handshakeStartedAt, lease));
+            }
 
-                // 종료 코드에 따라 적절한 클로즈 상태 반환
-                private CloseStatus adaptCloseStatus(CloseStatus closeStatus) {
-                    int code = closeStatus.getCode();
-                    if (code > 2999 && code < 5000) {
-                        // 사용자 정의 코드로 간주
-                        return closeStatus;
-                    } else {
-                        switch (code) {
-                            case 1000: // 정상 종료
-                            case 1001: // 종료
-                            case 1002: // 프로토콜 오류
-                            case 1003: // 데이터형식 오류
-                            case 1007: // 데이터형식 오류
-                            case 1008: // 정책 위반
-                            case 1009: // 메시지가 너무 큼
-                            case 1010: // 확정 필요
-                            case 1011: // 서버오류
-                                return closeStatus;
-                            case 1004:
-                            case 1005:
-                            case 1006:
-                            case 1012:
-                            case 1013:
-                            case 1014:
-                            case 1015:
-                            default:
-                                return CloseStatus.PROTOCOL_ERROR;
-                        }
+            return connect(session, upstreamUrl, upstreamHandler).doOnError(error -> {
+                if (!metrics.isConnected()) {
+                    metrics.getRoute().recordHandshakeFailure();
+                    if (lease != null) {
+                        lease.failed();
+                    }
+                }
+            }).doFinally(signal -> {
+                // 업스트림 연결이 끝나면 중계 Mono 는 종료 신호 없이 버려질 수 있으므로 세션 등록 해제는 여기서 처리
+                // (고밀도 모드는 종료 구독 자체가 없고, 일반 중계는 종료 전달 구독을 함께 해제)
+                Disposable closePropagation = this.closePropagation;
+                if (upstream != null || closePropagation != null) {
+                    if (closePropagation != null) {
+                        closePropagation.dispose();
                     }
+                    route.eventLogger.event("CustomWebSocketRoutingFilter", route.routeId, session.getId(),
+                            "연결 종료", null);
+                    route.sessionManager.removeSession(session.getId());
+                }
+                if (lease != null) {
+                    lease.cancel();
+                }
+                permit.release();
+                route.relayMetrics.closeSession(session.getId());
+                if (capture != null) {
+                    capture.close();
                 }
+            });
+        }
+
+        // 업스트림 세션에서 work 를 실행하는 핸들러 (서브 프로토콜은 클라이언트가 요청한 목록으로 협상)
+        private WebSocketHandler upstreamHandler(Function<WebSocketSession, Mono<Void>> work) {
+            return new WebSocketHandler() {
 
                 // 프록시 세션을 처리합니다.
                 public Mono<Void> handle(WebSocketSession proxySession) {
-                    System.out.println("[CustomWebSocketRoutingFilter] 프록시 세션 시작 : " + proxySession.getId());
+                    return work.apply(proxySession);
+                }
+
+                // 서브 프로토콜 리스트를 반환합니다.
+                public List<String> getSubProtocols() {
+                    return ProxyWebSocketHandler.this.subProtocols;
+                }
+            };
+        }
 
-                    sessionManager.addSession(session, proxySession);
+        // 업스트림에 연결해서 upstreamHandler 실행, 서브 프로토콜 협상이 필요 없으면 풀에 미리 연결된 업스트림 세션을 사용
+        // 새로 연결할 때는 설정에 따라 클라이언트 채널의 이벤트 루프에 업스트림 채널을 배정
+        private Mono<Void> connect(WebSocketSession session, URI upstreamUrl, WebSocketHandler upstreamHandler) {
+            UpstreamConnectionPool upstreamPool = route.upstreamPools.get(route.routeId, upstreamUrl,
+                    route.routeProperties, route.client);
+            UpstreamConnectionPool.PooledUpstream pooled = upstreamPool != null && subProtocols.isEmpty()
+                    && upstreamPool.serves(upstreamUrl)
+                    ? upstreamPool.borrow()
+                    : null;
+            if (pooled != null) {
+                return route.leakMonitor.trackUpstream(pooled.bind(upstreamHandler::handle));
+            }
+            // 클라이언트와 서버 간의 통신을 처리하는 프록시 세션을 생성
+            return route.leakMonitor.trackUpstream(route.eventLoops.onClientEventLoop(session,
+                    route.client.execute(upstreamUrl, this.headers, upstreamHandler)));
+        }
 
-                    Mono<Void> serverClose = session.closeStatus().filter((__) -> {
-                        return proxySession.isOpen();
-                    }).map(this::adaptCloseStatus).flatMap(closeStatus -> {
-                        return proxySession.close(closeStatus);
-                    });
-                    Mono<Void> proxyClose = proxySession.closeStatus().filter((__) -> {
-                        return session.isOpen();
+        // 재연결 라우트: 업스트림이 재연결 대상 코드로 끊기면 클라이언트 세션은 유지하고 백오프 후 다시 연결
+        // 첫 연결 실패는 일반 라우트와 같이 클라이언트 세션 종료로 이어지고, 재연결 시도 실패는 한도까지 다시 시도
+        private Mono<Void> handleReconnecting(WebSocketSession session, WebSocketRelayMetrics.SessionMetrics metrics,
+                long handshakeStartedAt) {
+            ReconnectingUpstream reconnecting = new ReconnectingUpstream(session, route.routeId,
+                    route.routeProperties.getReconnect(), route.eventLogger, metrics.getRoute());
+            FrameRelay clientRelay = new FrameRelay(session, null, FrameRelay.Direction.CLIENT_TO_SERVER,
+                    route.routeId, route.routeProperties, route.transformers, route.eventLogger, metrics,
+                    route.budget, capture);
+            return Mono.defer(() -> {
+                if (!reconnecting.hasConnected()) {
+                    return connectReconnecting(session, reconnecting, clientRelay, metrics, handshakeStartedAt)
+                            .doOnError(error -> {
+                                if (!metrics.isConnected()) {
+                                    metrics.getRoute().recordHandshakeFailure();
+                                }
+                            });
+                }
+                return reconnecting.backoff().then(Mono.defer(() -> reconnecting.isClientClosing()
+                        ? Mono.empty()
+                        : connectReconnecting(session, reconnecting, clientRelay, metrics, handshakeStartedAt)
+                                .onErrorResume(error -> !reconnecting.isAttemptConnected(), error -> {
+                                    reconnecting.attemptFailed(error);
+                                    return Mono.empty();
+                                })));
+            }).repeat(reconnecting::shouldReconnect).then().doFinally(signal -> {
+                reconnecting.close();
+                if (reconnecting.hasConnected()) {
+                    route.eventLogger.event("CustomWebSocketRoutingFilter", route.routeId, session.getId(),
+                            "연결 종료", null);
+                    route.sessionManager.removeSession(session.getId());
+                }
+                permit.release();
+                route.relayMetrics.closeSession(session.getId());
+                if (capture != null) {
+                    capture.close();
+                }
+            });
+        }
+
+        // 재연결 라우트의 업스트림 연결 한 번 (인스턴스 선택부터 업스트림 세션 종료까지)
+        private Mono<Void> connectReconnecting(WebSocketSession session, ReconnectingUpstream reconnecting,
+                FrameRelay clientRelay, WebSocketRelayMetrics.SessionMetrics metrics, long handshakeStartedAt) {
+            UpstreamBalancer.Lease lease = route.balancer != null ? route.balancer.choose(balancerKey) : null;
+            URI upstreamUrl = lease != null ? lease.resolve(this.url) : this.url;
+            return connect(session, upstreamUrl, upstreamHandler(proxySession -> {
+                if (lease != null) {
+                    lease.connected();
+                }
+                return proxyReconnecting(session, proxySession, reconnecting, clientRelay, metrics,
+                        handshakeStartedAt);
+            })).doOnError(error -> {
+                if (lease != null) {
+                    lease.failed();
+                }
+            }).doFinally(signal -> {
+                if (lease != null) {
+                    lease.cancel();
+                }
+            });
+        }
+
+        // 재연결 라우트의 중계: 클라이언트 -> 서버 방향은 ReconnectingUpstream 의 버퍼를 거치고,
+        // 서버 -> 클라이언트 방향은 업스트림 연결마다 새로 시작
+        private Mono<Void> proxyReconnecting(WebSocketSession session, WebSocketSession proxySession,
+                ReconnectingUpstream reconnecting, FrameRelay clientRelay,
+                WebSocketRelayMetrics.SessionMetrics metrics, long handshakeStartedAt) {
+            String routeId = route.routeId;
+            WebSocketProxyProperties.RouteProperties routeProperties = route.routeProperties;
+            if (reconnecting.isClientClosing()) {
+                // 재연결 핸드쉐이크 중에 클라이언트가 끊긴 경우
+                return proxySession.close(CloseStatus.GOING_AWAY);
+            }
+            if (!reconnecting.hasConnected()) {
+                metrics.recordHandshake(System.nanoTime() - handshakeStartedAt);
+                route.eventLogger.event("CustomWebSocketRoutingFilter", routeId, session.getId(), "프록시 세션 시작",
+                        proxySession.getId());
+                route.sessionManager.addSession(routeId, session, proxySession);
+                reconnecting.connected(proxySession);
+                route.heartbeats.startClient(routeId, session, reconnecting::getUpstream,
+                        routeProperties.getHeartbeat(), metrics.getRoute());
+                // 클라이언트 종료는 그 시점의 업스트림 세션에 전달
+                session.closeStatus().doOnNext(closeStatus -> {
+                    metrics.recordClose(true, closeStatus.getCode(), adaptCloseStatus(closeStatus).getCode());
+                }).flatMap(closeStatus -> {
+                    WebSocketSession upstream = reconnecting.getUpstream();
+                    return upstream != null && upstream.isOpen()
+                            ? upstream.close(adaptCloseStatus(closeStatus))
+                            : Mono.empty();
+                }).subscribe(null, error -> {
+                    // 업스트림이 이미 끊긴 경우 종료 프레임 쓰기 실패는 무시
+                });
+                reconnecting.start(clientRelay.receive(true));
+            } else {
+                metrics.getRoute().recordReconnect();
+                route.eventLogger.event("CustomWebSocketRoutingFilter", routeId, session.getId(), "업스트림 재연결",
+                        proxySession.getId());
+                route.sessionManager.replaceUpstream(session.getId(), proxySession);
+                reconnecting.connected(proxySession);
+            }
+            metrics.getRoute().recordUpstreamEventLoop(ProxyEventLoops.sameEventLoop(session, proxySession));
+            route.heartbeats.startUpstream(routeId, session.getId(), proxySession, null,
+                    routeProperties.getHeartbeat(), metrics.getRoute());
+
+            // 재연결 대상이 아닌 코드로 끊기면 클라이언트 세션도 같은 상태로 종료
+            // 종료 프레임 없이 연결이 끊기면 closeStatus 가 값 없이 끝나므로 1006 으로 간주
+            Mono<Void> proxyClose = proxySession.closeStatus()
+                    .defaultIfEmpty(CloseStatus.NO_CLOSE_FRAME)
+                    .doOnNext(closeStatus -> {
+                        metrics.recordClose(false, closeStatus.getCode(), adaptCloseStatus(closeStatus).getCode());
+                    }).filter(closeStatus -> {
+                        return !reconnecting.upstreamClosed(closeStatus) && session.isOpen();
                     }).flatMap(closeStatus -> {
-                        CloseStatus adaptedStatus = adaptCloseStatus(closeStatus);
-                        return proxySession.close(adaptedStatus);
+                        return session.close(adaptCloseStatus(closeStatus));
                     });
+            // 연결이 끊겨 write 되지 못한 프레임은 reconnecting 이 다음 연결을 위해 되돌림
+            Mono<Void> proxySessionSend = clientRelay.send(proxySession,
+                    reconnecting.frames().takeUntilOther(proxySession.closeStatus()), reconnecting::settled);
+            Mono<Void> serverSessionSend = new FrameRelay(proxySession, session,
+                    FrameRelay.Direction.SERVER_TO_CLIENT, routeId, routeProperties, route.transformers,
+                    route.eventLogger, metrics, route.budget, capture)
+                    .relay();
+            // 중계 오류(업스트림 연결이 갑자기 끊겨 읽기/쓰기 실패 등)가 나면 업스트림 연결을 닫고
+            // 업스트림 종료 상태(1006)로 재연결 여부를 판단 (클라이언트 쪽 오류면 클라이언트가 닫히는 중이라 재연결하지 않음)
+            return Mono.when(proxySessionSend, serverSessionSend).onErrorResume(error -> {
+                NettyWebSocketSessions.channel(proxySession).close();
+                return Mono.empty();
+            }).then(proxyClose);
+        }
 
-                    Mono<Void> proxySessionSend = proxySession
-                            .send(session.receive().doOnNext(message -> {
-                                System.out.println(
-                                        "[CustomWebSocketRoutingFilter] 클라이언트 -> 서버 : " + message.getPayloadAsText());
-                                message.retain();
-                            }));
-                    Mono<Void> serverSessionSend = session
-                            .send(proxySession.receive().doOnNext(message -> {
-                                System.out.println(
-                                        "[CustomWebSocketRoutingFilter] 서버 -> 클라이언트 : " + message.getPayloadAsText());
-                                message.retain();
-                            }));
-                    // 메시지 변조 예시 코드
-                    // Mono<Void> serverSessionSend = session
-                    // .send(proxySession.receive().map(message -> {
-                    // // 메시지 변조: 내용을 대문자로 변환
-                    // String originalPayload = message.getPayloadAsText();
-                    // String modifiedPayload = originalPayload.toUpperCase();
-                    // System.out.println("[CustomWebSocketRoutingFilter] 서버 -> 클라이언트 (변조됨) : " +
-                    // modifiedPayload);
-                    //
-                    // // 변조된 메시지를 새로운 텍스트 메시지로 변환
-                    // return session.textMessage(modifiedPayload);
-                    // }));
-
-                    Mono.when(new Publisher[] { serverClose, proxyClose }).doFinally(signal -> {
-                        System.out.println("[CustomWebSocketRoutingFilter] 연결 종료: " + session.getId());
-                        sessionManager.removeSession(session.getId());
-                    }).subscribe();
-
-                    return Mono.zip(proxySessionSend, serverSessionSend).then();
+        // 샤딩 라우트: 샤드마다 업스트림 세션을 하나씩 열고, 클라이언트 프레임은 키로 고른 샤드로,
+        // 샤드들이 보낸 프레임은 하나로 합쳐 클라이언트로 중계 (한 샤드가 닫히면 클라이언트와 나머지 샤드도 같은 상태로 종료)
+        // 샤드 하나라도 연결에 실패하면 일반 라우트의 연결 실패와 같이 클라이언트 세션 종료
+        private Mono<Void> handleSharded(WebSocketSession session, WebSocketRelayMetrics.SessionMetrics metrics,
+                long handshakeStartedAt) {
+            ShardRouter router = route.shardRouter;
+            ShardedUpstreams shards = new ShardedUpstreams(session, router, router.extractor(subProtocols));
+            Mono<Void> connectShards = Flux.range(0, router.size())
+                    .flatMap(shard -> connect(session, router.resolve(shard, this.url),
+                            upstreamHandler(proxySession -> proxyShard(session, proxySession, shard, shards,
+                                    metrics))), router.size())
+                    .then();
+            // 종료 프레임 없이 연결이 끊기면 closeStatus 가 값 없이 끝나므로 1006 으로 간주
+            Mono<Void> clientClose = session.closeStatus()
+                    .defaultIfEmpty(CloseStatus.NO_CLOSE_FRAME)
+                    .doOnNext(closeStatus -> {
+                        metrics.recordClose(true, closeStatus.getCode(), adaptCloseStatus(closeStatus).getCode());
+                        shards.clientClosed(adaptCloseStatus(closeStatus));
+                    }).then();
+            Mono<Void> relay = shards.ready()
+                    .then(Mono.defer(() -> shards.start()
+                            ? proxySharded(session, shards, metrics, handshakeStartedAt)
+                            : Mono.<Void>empty()))
+                    .doFinally(signal -> shards.finish());
+            return Mono.when(connectShards, clientClose, relay).doOnError(error -> {
+                if (!metrics.isConnected()) {
+                    metrics.getRoute().recordHandshakeFailure();
+                }
+            }).doFinally(signal -> {
+                shards.finish();
+                if (shards.isStarted()) {
+                    route.eventLogger.event("CustomWebSocketRoutingFilter", route.routeId, session.getId(),
+                            "연결 종료", null);
+                    route.sessionManager.removeSession(session.getId());
                 }
+                permit.release();
+                route.relayMetrics.closeSession(session.getId());
+                if (capture != null) {
+                    capture.close();
+                }
+            });
+        }
 
-                // 서브 프로토콜 리스트를 반환합니다.
-                public List<String> getSubProtocols() {
-                    return ProxyWebSocketHandler.this.subProtocols;
+        // 샤드 업스트림 세션 하나, 세션 중계가 끝날 때까지 연결을 유지하고 먼저 닫히면 종료를 전달
+        private Mono<Void> proxyShard(WebSocketSession session, WebSocketSession proxySession, int shard,
+                ShardedUpstreams shards, WebSocketRelayMetrics.SessionMetrics metrics) {
+            metrics.getRoute().recordUpstreamEventLoop(ProxyEventLoops.sameEventLoop(session, proxySession));
+            route.heartbeats.startUpstream(route.routeId, session.getId(), proxySession, session,
+                    route.routeProperties.getHeartbeat(), metrics.getRoute());
+            shards.connected(shard, proxySession);
+            Mono<Void> proxyClose = proxySession.closeStatus()
+                    .defaultIfEmpty(CloseStatus.NO_CLOSE_FRAME)
+                    .doOnNext(closeStatus -> {
+                        // 종료를 전달한 샤드의 종료만 기록 (나머지 샤드는 게이트웨이가 닫은 것)
+                        if (shards.upstreamClosed(shard, adaptCloseStatus(closeStatus))) {
+                            metrics.recordClose(false, closeStatus.getCode(), adaptCloseStatus(closeStatus).getCode());
+                        }
+                    }).then();
+            return proxyClose.takeUntilOther(shards.done()).then(shards.done());
+        }
+
+        // 모든 샤드가 연결된 뒤의 중계
+        private Mono<Void> proxySharded(WebSocketSession session, ShardedUpstreams shards,
+                WebSocketRelayMetrics.SessionMetrics metrics, long handshakeStartedAt) {
+            String routeId = route.routeId;
+            WebSocketProxyProperties.RouteProperties routeProperties = route.routeProperties;
+            metrics.recordHandshake(System.nanoTime() - handshakeStartedAt);
+            route.eventLogger.event("CustomWebSocketRoutingFilter", routeId, session.getId(), "프록시 세션 시작",
+                    shards.upstreamIds());
+            // 세션 레지스트리에는 첫 번째 샤드를 업스트림으로 등록 (세션 종료 API 로 그 샤드가 닫히면 나머지도 종료됨)
+            route.sessionManager.addSession(routeId, session, shards.upstream(0));
+            route.heartbeats.startClient(routeId, session, () -> shards.upstream(0), routeProperties.getHeartbeat(),
+                    metrics.getRoute());
+
+            // 클라이언트 -> 샤드: 샤드마다 전송을 하나씩 두고, 클라이언트 프레임은 한 번만 읽어서 나눠 줌
+            // 압축된 클라이언트 프레임은 샤드마다 압축 컨텍스트가 다르므로 압축을 풀어서 키를 찾고 샤드 구간에서 다시 압축
+            FrameRelay clientRelay = new FrameRelay(session, shards.upstream(0), FrameRelay.Direction.CLIENT_TO_SERVER,
+                    routeId, routeProperties, route.transformers, route.eventLogger, metrics, route.budget, capture);
+            List<Mono<Void>> sends = new ArrayList<>(shards.size() + 1);
+            for (int shard = 0; shard < shards.size(); shard++) {
+                sends.add(clientRelay.send(shards.upstream(shard), shards.frames(shard)));
+            }
+            shards.distribute(clientRelay.receive(true));
+
+            // 샤드 -> 클라이언트: 샤드별로 받은 프레임을 합쳐서 클라이언트 연결 하나에 씀 (클라이언트의 pong 은 ping 을 보낸 샤드로)
+            List<Flux<WebSocketFrame>> upstreamFrames = new ArrayList<>(shards.size());
+            FrameRelay serverRelay = null;
+            for (int shard = 0; shard < shards.size(); shard++) {
+                FrameRelay relay = new FrameRelay(shards.upstream(shard), session,
+                        FrameRelay.Direction.SERVER_TO_CLIENT, routeId, routeProperties, route.transformers,
+                        route.eventLogger, metrics, route.budget, capture);
+                if (serverRelay == null) {
+                    serverRelay = relay;
                 }
+                upstreamFrames.add(shards.fromShard(shard, relay.receive(true)));
+            }
+            sends.add(serverRelay.send(session, Flux.merge(upstreamFrames)));
+            return Mono.when(sends);
+        }
+
+        // 클라이언트 세션과 업스트림(프록시) 세션 사이의 중계
+        private Mono<Void> proxy(WebSocketSession session, WebSocketSession proxySession,
+                WebSocketRelayMetrics.SessionMetrics metrics, long handshakeStartedAt, UpstreamBalancer.Lease lease) {
+            String routeId = route.routeId;
+            metrics.recordHandshake(System.nanoTime() - handshakeStartedAt);
+            route.eventLogger.event("CustomWebSocketRoutingFilter", routeId, session.getId(), "프록시 세션 시작",
+                    proxySession.getId());
+
+            route.sessionManager.addSession(routeId, session, proxySession);
+            if (lease != null) {
+                lease.connected();
+            }
+            metrics.getRoute().recordUpstreamEventLoop(ProxyEventLoops.sameEventLoop(session, proxySession));
+            route.heartbeats.start(routeId, session, proxySession, route.routeProperties.getHeartbeat(),
+                    metrics.getRoute());
+
+            Mono<Void> serverClose = session.closeStatus().doOnNext(closeStatus -> {
+                metrics.recordClose(true, closeStatus.getCode(), adaptCloseStatus(closeStatus).getCode());
+            }).filter((__) -> {
+                return proxySession.isOpen();
+            }).map(ProxyWebSocketHandler::adaptCloseStatus).flatMap(closeStatus -> {
+                return proxySession.close(closeStatus);
             });
+            Mono<Void> proxyClose = proxySession.closeStatus().doOnNext(closeStatus -> {
+                metrics.recordClose(false, closeStatus.getCode(), adaptCloseStatus(closeStatus).getCode());
+            }).filter((__) -> {
+                return session.isOpen();
+            }).flatMap(closeStatus -> {
+                CloseStatus adaptedStatus = adaptCloseStatus(closeStatus);
+                return session.close(adaptedStatus);
+            });
+
+            // 종료 전달 구독은 handle 의 doFinally 에서 해제 (반대편이 종료 프레임에 응답하지 않아
+            // closeStatus 가 끝나지 않아도 구독과 레지스트리 항목이 세션보다 오래 남지 않음)
+            closePropagation = Mono.when(serverClose, proxyClose).subscribe();
+            return relay(session, proxySession, metrics);
+        }
+
+        // 고밀도 모드의 중계: 종료 전달은 양쪽 채널의 CloseFrameObserver 가 이 객체의 closed 를 호출해서 처리하고,
+        // 세션 등록 해제는 handle 의 doFinally 에서 처리하므로 세션마다 따로 유지되는 종료 구독이 없음
+        private Mono<Void> proxyDense(WebSocketSession proxySession) {
+            WebSocketSession session = this.session;
+            String routeId = route.routeId;
+            metrics.recordHandshake(System.nanoTime() - handshakeStartedAt);
+            route.eventLogger.event("CustomWebSocketRoutingFilter", routeId, session.getId(), "프록시 세션 시작",
+                    proxySession.getId());
+
+            route.sessionManager.addSession(routeId, session, proxySession);
+            if (lease != null) {
+                lease.connected();
+            }
+            // 핸드쉐이크에만 필요한 값은 세션이 끝날 때까지 들고 있지 않음
+            // 헤더는 업스트림 클라이언트 설정(연결이 끝날 때까지 유지됨)도 참조하므로 필드만 비우지 않고 내용을 지움
+            this.url = null;
+            this.headers.clear();
+            this.headers = null;
+            this.subProtocols = Collections.emptyList();
+            this.balancerKey = null;
+            NettyWebSocketSessions.clearHandshakeHeaders(session);
+            NettyWebSocketSessions.clearHandshakeHeaders(proxySession);
+
+            metrics.getRoute().recordUpstreamEventLoop(ProxyEventLoops.sameEventLoop(session, proxySession));
+            route.heartbeats.start(routeId, session, proxySession, route.routeProperties.getHeartbeat(),
+                    metrics.getRoute());
+
+            this.upstream = proxySession;
+            Channel upstreamChannel = NettyWebSocketSessions.channel(proxySession);
+            if (upstreamChannel != null) {
+                CloseFrameObserver.install(upstreamChannel, false, this);
+            }
+            // 업스트림 핸드쉐이크 중에 클라이언트가 이미 끊긴 경우
+            if ((closeState & CLIENT_CLOSED) != 0 && markClosed(CLOSE_PROPAGATED)) {
+                closeQuietly(proxySession, CloseStatus.GOING_AWAY);
+            }
+
+            return relay(session, proxySession, metrics);
+        }
+
+        // 고밀도 모드: 한쪽 구간의 종료를 처음 확인하면 반대편 구간을 같은 상태로 종료 (반대편의 응답 종료 프레임은 기록만 함)
+        @Override
+        public void closed(boolean fromClient, int code, String reason) {
+            if (!markClosed(fromClient ? CLIENT_CLOSED : UPSTREAM_CLOSED)) {
+                return;
+            }
+            CloseStatus adapted = adaptCloseStatus(code >= 1000 && code < 5000
+                    ? new CloseStatus(code, reason)
+                    : CloseStatus.NO_STATUS_CODE);
+            metrics.recordClose(fromClient, code, adapted.getCode());
+            WebSocketSession target = fromClient ? upstream : session;
+            if (target != null && markClosed(CLOSE_PROPAGATED)) {
+                closeQuietly(target, adapted);
+            }
+        }
+
+        // 종료 상태 비트를 세움, 이미 서 있으면 false
+        private boolean markClosed(int bit) {
+            int state;
+            do {
+                state = closeState;
+                if ((state & bit) != 0) {
+                    return false;
+                }
+            } while (!CLOSE_STATE.compareAndSet(this, state, state | bit));
+            return true;
+        }
+
+        private static void closeQuietly(WebSocketSession target, CloseStatus status) {
+            if (target.isOpen()) {
+                target.close(status).subscribe(null, error -> {
+                    // 이미 끊긴 연결에 종료 프레임 쓰기 실패는 무시
+                });
+            }
+        }
+
+        // 라우트가 INSPECT 모드가 아니면 페이로드를 읽지 않고 Netty 프레임을 그대로 전달
+        private Mono<Void> relay(WebSocketSession session, WebSocketSession proxySession,
+                WebSocketRelayMetrics.SessionMetrics metrics) {
+            Mono<Void> proxySessionSend = new FrameRelay(session, proxySession,
+                    FrameRelay.Direction.CLIENT_TO_SERVER, route.routeId, route.routeProperties, route.transformers,
+                    route.eventLogger, metrics, route.budget, capture)
+                    .relay();
+            Mono<Void> serverSessionSend = new FrameRelay(proxySession, session,
+                    FrameRelay.Direction.SERVER_TO_CLIENT, route.routeId, route.routeProperties, route.transformers,
+                    route.eventLogger, metrics, route.budget, capture)
+                    .relay();
+            return Mono.zip(proxySessionSend, serverSessionSend).then();
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,33 @@
+package com.ycy.websocket;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+
+// envelope: 텍스트 프레임 페이로드를 prefix 와 suffix 사이에 넣음 (인자: prefix, suffix)
+// 예: prefix '{"type":"event","data":' / suffix '}', 페이로드는 복사하지 않음
+final class EnvelopeTransformer implements FrameTransformer {
+
+    private final ByteBuf prefix;
+    private final ByteBuf suffix;
+
+    EnvelopeTransformer(String prefix, String suffix) {
+        this.prefix = InjectFieldTransformer.constant(prefix);
+        this.suffix = InjectFieldTransformer.constant(suffix);
+    }
+
+    @Override
+    public boolean accepts(WebSocketFrame frame) {
+        return frame instanceof TextWebSocketFrame;
+    }
+
+    @Override
+    public WebSocketFrame transform(WebSocketFrame frame) {
+        CompositeByteBuf composite = frame.content().alloc().compositeBuffer(3);
+        composite.addComponents(true, prefix.duplicate(), frame.content().retainedSlice(), suffix.duplicate());
+        WebSocketFrame transformed = frame.replace(composite);
+        frame.release();
+        return transformed;
+    }
+}
@@ -0,0 +1,106 @@
+package com.ycy.websocket;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+
+// 중계 대상 채널의 flush 를 묶어서 수행하는 핸들러 (채널 이벤트 루프에서만 호출됨)
+// write 는 즉시 전달하고 flush 만 미뤄서, 작은 프레임 여러 개를 한 번의 syscall 로 내보냄
+// 대기 프레임/바이트가 한도에 도달하거나 window 가 지나면 flush
+final class FlushBatchingHandler extends ChannelDuplexHandler {
+
+    static final String NAME = "ws.proxy.flushBatching";
+
+    private final long windowNanos;
+    private final int maxFrames;
+    private final int maxBytes;
+    private final WebSocketRelayMetrics.RouteMetrics metrics;
+    private final FrameRelay.Direction direction;
+
+    private int pendingFrames;
+    private long pendingBytes;
+    private boolean flushImmediately;
+    private ScheduledFuture<?> scheduledFlush;
+
+    FlushBatchingHandler(WebSocketProxyProperties.FlushBatchingProperties properties,
+            WebSocketRelayMetrics.RouteMetrics metrics, FrameRelay.Direction direction) {
+        this.windowNanos = properties.getWindow().toNanos();
+        this.maxFrames = properties.getMaxFrames();
+        this.maxBytes = properties.getMaxBytes();
+        this.metrics = metrics;
+        this.direction = direction;
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+        if (msg instanceof WebSocketFrame) {
+            pendingFrames++;
+            pendingBytes += ((WebSocketFrame) msg).content().readableBytes();
+            // 종료 프레임은 기다리지 않음
+            if (msg instanceof CloseWebSocketFrame) {
+                flushImmediately = true;
+            }
+        }
+        ctx.write(msg, promise);
+        // 한 번의 drain 에서 많이 쓰더라도 flush 하지 않은 양이 한도를 넘지 않도록 함
+        if (pendingFrames >= maxFrames || pendingBytes >= maxBytes) {
+            flushNow(ctx, true);
+        }
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) {
+        if (pendingFrames == 0 || flushImmediately) {
+            flushNow(ctx, false);
+        } else if (pendingFrames >= maxFrames || pendingBytes >= maxBytes) {
+            flushNow(ctx, true);
+        } else if (scheduledFlush == null) {
+            scheduledFlush = ctx.executor().schedule(() -> flushNow(ctx, false), windowNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // 출력 버퍼가 가득 찼으면 더 모으지 않고 바로 내보냄
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+        if (!ctx.channel().isWritable() && pendingFrames > 0) {
+            flushNow(ctx, true);
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public void close(ChannelHandlerContext ctx, ChannelPromise promise) {
+        if (pendingFrames > 0) {
+            flushNow(ctx, false);
+        }
+        ctx.close(promise);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        if (pendingFrames > 0) {
+            flushNow(ctx, false);
+        } else if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+        }
+    }
+
+    private void flushNow(ChannelHandlerContext ctx, boolean onThreshold) {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        if (pendingFrames > 0) {
+            metrics.recordFlushBatch(direction, pendingFrames, onThreshold);
+        }
+        pendingFrames = 0;
+        pendingBytes = 0;
+        flushImmediately = false;
+        ctx.flush();
+    }
+}
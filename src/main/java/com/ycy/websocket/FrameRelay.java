@@ -0,0 +1,466 @@
+package com.ycy.websocket;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.ContinuationWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.CorruptedWebSocketFrameException;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketCloseStatus;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtension;
+import org.springframework.web.reactive.socket.CloseStatus;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import org.springframework.web.reactive.socket.adapter.NettyWebSocketSessionSupport;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.SynchronousSink;
+import reactor.netty.NettyPipeline;
+import reactor.netty.http.websocket.WebsocketInbound;
+import reactor.netty.http.websocket.WebsocketOutbound;
+
+// 한 방향(source 세션 -> target 세션)의 프레임 중계를 담당
+// Spring WebSocketMessage 로 감싸지 않고 Netty WebSocketFrame 을 그대로 반대편 연결에 쓴다
+final class FrameRelay {
+
+    private static final String SLOW_CONSUMER_HANDLER = "ws.proxy.slowConsumer";
+
+    private static final String FRAME_SIZE_HANDLER = "ws.proxy.frameSize";
+
+    // Reactor Netty sendObject 가 한 번에 요청하는 프레임 수 (MonoSendMany.MAX_SIZE)
+    private static final int SEND_PREFETCH = 128;
+
+    private static final CloseStatus SLOW_CONSUMER_CLOSE = CloseStatus.POLICY_VIOLATION.withReason("slow consumer");
+
+    private static final CloseStatus MESSAGE_TOO_BIG_CLOSE = CloseStatus.TOO_BIG_TO_PROCESS.withReason("message too big");
+
+    enum Direction {
+        CLIENT_TO_SERVER("클라이언트 -> 서버"),
+        SERVER_TO_CLIENT("서버 -> 클라이언트");
+
+        private final String label;
+
+        Direction(String label) {
+            this.label = label;
+        }
+
+        String getLabel() {
+            return label;
+        }
+    }
+
+    private final WebSocketSession source;
+    private final WebSocketSession target;
+    private final Direction direction;
+    private final String routeId;
+    private final WebSocketProxyProperties.RouteProperties route;
+    private final FrameTransformerChain transformers;
+    private final WebSocketEventLogger eventLogger;
+    private final WebSocketRelayMetrics.SessionMetrics metrics;
+    private final InFlightByteBudget budget;
+    private final TrafficCapture.Session capture;
+
+    // 전달 지연 측정용 프로브: 한 번에 한 프레임만 추적 (수신 시각 ~ 반대편 채널 write 시각)
+    private volatile Object probeFrame;
+    private long probeStartedAt;
+
+    private final AtomicBoolean slowConsumerClosed = new AtomicBoolean();
+
+    // 스트리밍 중계: 분할 프레임을 모으지 않고 프레임 단위로 중계, 읽고 아직 쓰지 못한 바이트는 budget 에 예약
+    private final boolean streaming;
+    private InFlightByteBudget.Account budgetAccount;
+    private long messageBytes; // source 이벤트 루프에서만 사용
+    private boolean messageTooBig;
+    private boolean inflatingMessage;
+    private final AtomicBoolean tooBigClosed = new AtomicBoolean();
+
+    FrameRelay(WebSocketSession source, WebSocketSession target, Direction direction, String routeId,
+            WebSocketProxyProperties.RouteProperties route, FrameTransformerChain transformers,
+            WebSocketEventLogger eventLogger, WebSocketRelayMetrics.SessionMetrics metrics,
+            InFlightByteBudget budget, TrafficCapture.Session capture) {
+        this.source = source;
+        this.target = target;
+        this.direction = direction;
+        this.routeId = routeId;
+        this.route = route;
+        this.transformers = transformers;
+        this.eventLogger = eventLogger;
+        this.metrics = metrics;
+        this.budget = budget;
+        this.capture = capture;
+        this.streaming = isStreaming();
+    }
+
+    Mono<Void> relay() {
+        WebsocketInbound inbound = NettyWebSocketSessions.inbound(source);
+        WebsocketOutbound outbound = NettyWebSocketSessions.outbound(target);
+        if (inbound == null || outbound == null) {
+            // Netty 기반 세션이 아니면 Spring 메시지 API 로 중계
+            // receive 는 onNext 이후 페이로드를 release 하므로 send 로 넘기는 마지막 단계에서만 retain 해서
+            // 기록 중 예외가 나도 참조가 남지 않도록 하고, 넘긴 뒤에는 send 가 쓰기 후(또는 버릴 때) release
+            return target.send(source.receive().doOnNext(message -> {
+                metrics.recordFrame(direction, message.getPayload().readableByteCount());
+                if (route.getRelayMode() == WebSocketProxyProperties.RelayMode.INSPECT) {
+                    eventLogger.event("FrameRelay", routeId, clientSessionId(), direction.getLabel(),
+                            message.getType() + " (" + message.getPayload().readableByteCount() + " bytes)");
+                }
+            }).map(WebSocketMessage::retain));
+        }
+
+        // permessage-deflate: 양쪽 구간의 협상 결과가 같으면 압축된 프레임을 그대로 전달하고,
+        // 다르면 source 구간의 압축을 여기서 풀고 target 구간의 인코더가 다시 압축
+        PerMessageDeflateLeg sourceDeflate = PerMessageDeflateLeg.of(NettyWebSocketSessions.channel(source));
+        PerMessageDeflateLeg targetDeflate = PerMessageDeflateLeg.of(NettyWebSocketSessions.channel(target));
+        boolean passthrough = sourceDeflate != null && targetDeflate != null
+                && isCompressedPassthrough(sourceDeflate, targetDeflate);
+        if (passthrough) {
+            targetDeflate.encodeRaw();
+            eventLogger.event("FrameRelay", routeId, clientSessionId(), "압축 프레임 그대로 전달",
+                    sourceDeflate.getParameters());
+        }
+        if (route.getStreaming().isEnabled() && !streaming) {
+            eventLogger.event("FrameRelay", routeId, clientSessionId(), "분할 프레임을 모아서 중계",
+                    direction.getLabel());
+        }
+        return send(target, receive(!passthrough));
+    }
+
+    // source 세션에서 받은 프레임 (retain 된 상태로 내보내므로 받는 쪽이 release 해야 함)
+    // inflate 가 true 면 source 구간에서 압축된 프레임의 압축을 풀어서 내보냄
+    Flux<WebSocketFrame> receive(boolean inflate) {
+        WebsocketInbound inbound = NettyWebSocketSessions.inbound(source);
+        Flux<WebSocketFrame> frames = (streaming
+                ? inbound.receiveFrames()
+                : inbound.aggregateFrames(NettyWebSocketSessionSupport.DEFAULT_FRAME_MAX_SIZE).receiveFrames())
+                .doOnNext(this::onReceive)
+                // FluxReceive 는 onNext 이후 프레임을 release 하고 sendObject 는 쓰기 후 release 하므로 한 번 retain
+                // 대기열에서 버려지는 프레임은 sendObject 의 discard 훅에서 release 됨
+                .doOnNext(WebSocketFrame::retain);
+
+        PerMessageDeflateLeg sourceDeflate = PerMessageDeflateLeg.of(NettyWebSocketSessions.channel(source));
+        if (inflate && sourceDeflate != null) {
+            EmbeddedChannel inflater = sourceDeflate.newInflater();
+            frames = frames.map(frame -> inflate(inflater, frame))
+                    .doFinally(signal -> inflater.finishAndReleaseAll());
+        }
+
+        if (capture != null) {
+            // 압축을 푼 뒤, 변환기를 적용하기 전의 프레임을 남김
+            frames = frames.doOnNext(frame -> capture.frame(direction, frame));
+        }
+
+        if (!transformers.isEmpty(direction)) {
+            frames = frames.map(this::transform);
+        }
+
+        if (streaming) {
+            // 메시지 크기는 압축을 푼 뒤의 크기로 판단, 한도 안의 프레임만 budget 에 예약하고 넘김
+            // 예약을 기다리는 동안 다음 프레임을 요청하지 않도록 prefetch 없이 하나씩 처리
+            budgetAccount = budget.newAccount(Math.max(route.getBackpressure().getHighWatermarkBytes(),
+                    route.getStreaming().getMaxFrameSize()));
+            NettyWebSocketSessions.channel(source).pipeline()
+                    .addBefore(NettyPipeline.ReactiveBridge, FRAME_SIZE_HANDLER, new FrameSizeHandler());
+            frames = frames.handle(this::limitMessageSize)
+                    .concatMap(frame -> budgetAccount.acquire(frame.content().readableBytes())
+                            .thenReturn(frame)
+                            .doFinally(signal -> {
+                                if (signal == SignalType.CANCEL) {
+                                    dropProbe(frame);
+                                    frame.release();
+                                }
+                            }), 0);
+        }
+
+        if (route.getRelayMode() == WebSocketProxyProperties.RelayMode.INSPECT) {
+            // 라우트가 명시적으로 요청한 경우에만 페이로드를 읽음
+            frames = frames.doOnNext(this::inspect);
+        }
+        return frames;
+    }
+
+    // frames 를 target 세션에 씀, 라우트의 배압 설정과 느린 세션 처리 방식을 적용
+    // 업스트림 재연결 시에는 같은 source 에 대해 새 target 으로 다시 호출됨
+    Mono<Void> send(WebSocketSession target, Flux<WebSocketFrame> frames) {
+        return send(target, frames, null);
+    }
+
+    // settled 는 프레임을 반대편 채널에 write 했거나 느린 세션 정책으로 버린 직후 호출됨 (null 이면 생략)
+    Mono<Void> send(WebSocketSession target, Flux<WebSocketFrame> frames, Consumer<Object> settled) {
+        WebSocketProxyProperties.BackpressureProperties backpressure = route.getBackpressure();
+        // 바이트 한도: 반대편 채널의 출력 버퍼가 high watermark 를 넘으면 쓰기 불가 상태가 되고 sendObject 가 쓰기를 멈춤
+        Channel targetChannel = NettyWebSocketSessions.channel(target);
+        targetChannel.config().setWriteBufferWaterMark(new WriteBufferWaterMark(
+                backpressure.getLowWatermarkBytes(), backpressure.getHighWatermarkBytes()));
+        replaceHandler(targetChannel, SLOW_CONSUMER_HANDLER,
+                new SlowConsumerHandler(target, backpressure.getSlowConsumerPolicy()));
+        WebSocketProxyProperties.FlushBatchingProperties flushBatching = route.getFlushBatching();
+        // flush 묶음 핸들러는 채널과 방향에만 묶여 있으므로 재연결 시 이전 것을 그대로 사용
+        if (flushBatching.isEnabled() && targetChannel.pipeline().get(FlushBatchingHandler.NAME) == null) {
+            targetChannel.pipeline().addBefore(NettyPipeline.ReactiveBridge, FlushBatchingHandler.NAME,
+                    new FlushBatchingHandler(flushBatching, metrics.getRoute(), direction));
+        }
+
+        // 프레임 한도: 읽었지만 아직 반대편 채널에 쓰지 못한 프레임 수
+        int highWatermarkFrames = backpressure.getHighWatermarkFrames();
+        switch (backpressure.getSlowConsumerPolicy()) {
+            case DROP_OLDEST:
+                frames = frames.onBackpressureBuffer(highWatermarkFrames, dropped -> {
+                    onDropped(dropped);
+                    if (settled != null) {
+                        settled.accept(dropped);
+                    }
+                }, BufferOverflowStrategy.DROP_OLDEST);
+                break;
+            case CLOSE:
+                frames = frames.onBackpressureBuffer(highWatermarkFrames, dropped -> {
+                    closeSlowConsumer(target);
+                    dropProbe(dropped);
+                    if (settled != null) {
+                        settled.accept(dropped);
+                    }
+                }, BufferOverflowStrategy.DROP_LATEST);
+                break;
+            default:
+                // 고밀도 모드: limitRate 는 high watermark 크기의 큐를 구독할 때 미리 만들어서 유휴 세션에도 그만큼 남으므로,
+                // 한도가 sendObject 의 요청량보다 크면 sendObject 의 요청량(작은 큐)을 프레임 한도로 사용
+                if (isHighDensity() && highWatermarkFrames > SEND_PREFETCH) {
+                    break;
+                }
+                // 요청량을 high/low watermark 로 제한, 요청이 없으면 FluxReceive 가 source 채널 읽기를 멈춤
+                frames = frames.limitRate(highWatermarkFrames, backpressure.getLowWatermarkFrames());
+        }
+
+        // sendObject 의 flush predicate 는 각 프레임을 반대편 채널에 write 한 직후 호출됨
+        if (!streaming) {
+            return NettyWebSocketSessions.outbound(target).sendObject(frames, frame -> {
+                if (settled != null) {
+                    settled.accept(frame);
+                }
+                return onWritten(frame);
+            }).then();
+        }
+        // 스트리밍 중계: 쓴 프레임의 예약을 반납하고, 클라이언트 채널에는 분할 메시지 경계를 기록해 브로드캐스트가 끼어들지 않게 함
+        OutboundMessageBoundary boundary = direction == Direction.SERVER_TO_CLIENT
+                ? OutboundMessageBoundary.attach(targetChannel)
+                : null;
+        return NettyWebSocketSessions.outbound(target).sendObject(frames, frame -> {
+            if (settled != null) {
+                settled.accept(frame);
+            }
+            budgetAccount.written();
+            if (boundary != null) {
+                boundary.written(frame);
+            }
+            return onWritten(frame);
+        }).then().doFinally(signal -> {
+            budgetAccount.close();
+            if (boundary != null) {
+                targetChannel.eventLoop().execute(boundary::close);
+            }
+        });
+    }
+
+    void onReceive(WebSocketFrame frame) {
+        metrics.recordFrame(direction, frame.content().readableBytes());
+        if (probeFrame == null) {
+            probeStartedAt = System.nanoTime();
+            probeFrame = frame;
+        }
+    }
+
+    // 반대편 채널의 이벤트 루프에서 호출, false 를 반환해 기본 flush 동작을 유지
+    boolean onWritten(Object frame) {
+        if (frame == probeFrame) {
+            metrics.getRoute().recordForwardLatency(direction, System.nanoTime() - probeStartedAt);
+            probeFrame = null;
+        }
+        return false;
+    }
+
+    // 프로브 프레임이 write 되지 않고 버려지면 다음 수신 프레임부터 다시 측정
+    private void dropProbe(Object frame) {
+        if (probeFrame == frame) {
+            probeFrame = null;
+        }
+    }
+
+    // 고밀도 모드 적용 여부 (재연결 라우트와 샤딩 라우트는 제외, CustomWebSocketRoutingFilter 와 같은 조건)
+    private boolean isHighDensity() {
+        return route.isHighDensity() && !route.getReconnect().isEnabled() && !route.getSharding().isEnabled();
+    }
+
+    // 스트리밍 중계 적용 여부
+    // 프레임 변환기가 있는 방향과 재연결 라우트, 메시지에서 샤드 키를 찾는 샤딩 라우트는 메시지 단위로 처리해야 하고,
+    // DROP_OLDEST 정책은 분할 메시지 중간 프레임을 버리면 메시지가 깨지므로 분할 프레임을 모아서 중계
+    private boolean isStreaming() {
+        return route.getStreaming().isEnabled()
+                && !route.getReconnect().isEnabled()
+                && !route.getSharding().isEnabled()
+                && transformers.isEmpty(direction)
+                && route.getBackpressure().getSlowConsumerPolicy() != WebSocketProxyProperties.SlowConsumerPolicy.DROP_OLDEST;
+    }
+
+    // 분할 프레임을 합친 메시지 크기가 한도를 넘으면 양쪽 세션을 1009 로 종료
+    // 종료 프레임을 보낸 뒤 source 연결이 닫힐 때까지 도착하는 프레임은 버림
+    private void limitMessageSize(WebSocketFrame frame, SynchronousSink<WebSocketFrame> sink) {
+        if (frame instanceof TextWebSocketFrame || frame instanceof BinaryWebSocketFrame) {
+            messageBytes = 0;
+        }
+        if (frame instanceof TextWebSocketFrame || frame instanceof BinaryWebSocketFrame
+                || frame instanceof ContinuationWebSocketFrame) {
+            messageBytes += frame.content().readableBytes();
+            long maxMessageSize = route.getStreaming().getMaxMessageSize();
+            if (!messageTooBig && maxMessageSize > 0 && messageBytes > maxMessageSize) {
+                messageTooBig = true;
+                closeTooBig(true, messageBytes + " bytes");
+            }
+        }
+        if (messageTooBig) {
+            dropProbe(frame);
+            frame.release();
+            return;
+        }
+        sink.next(frame);
+    }
+
+    private static boolean isFrameTooBig(Throwable error) {
+        return error instanceof CorruptedWebSocketFrameException
+                && ((CorruptedWebSocketFrameException) error).closeStatus().code()
+                        == WebSocketCloseStatus.MESSAGE_TOO_BIG.code();
+    }
+
+    private void closeTooBig(boolean closeSource, String detail) {
+        if (tooBigClosed.compareAndSet(false, true)) {
+            metrics.getRoute().recordMessageTooBig(direction);
+            eventLogger.event("FrameRelay", routeId, clientSessionId(), "메시지 크기 초과 종료",
+                    direction.getLabel() + " " + detail);
+            // target 을 먼저 닫으면 양방향 중계가 끝나 source 에 빈 종료 프레임이 먼저 나가므로 source 부터 닫음
+            if (closeSource) {
+                source.close(MESSAGE_TOO_BIG_CLOSE).subscribe(null, error -> {
+                });
+            }
+            target.close(MESSAGE_TOO_BIG_CLOSE).subscribe(null, error -> {
+            });
+        }
+    }
+
+    // 압축된 프레임을 그대로 전달할 수 있는지 여부
+    // 컨텍스트를 이어 쓰는 압축에서는 프레임을 버리거나 게이트웨이가 따로 압축한 프레임이 섞이면 수신 측 복원이 깨지므로
+    // INSPECT 모드와 DROP_OLDEST 정책, 업스트림이 바뀔 수 있는 재연결 라우트, 프레임 변환기가 있는 방향에서는 사용하지 않음
+    private boolean isCompressedPassthrough(PerMessageDeflateLeg sourceDeflate, PerMessageDeflateLeg targetDeflate) {
+        return route.getCompression().isPassthrough()
+                && !route.getReconnect().isEnabled()
+                && transformers.isEmpty(direction)
+                && route.getRelayMode() == WebSocketProxyProperties.RelayMode.PASSTHROUGH
+                && route.getBackpressure().getSlowConsumerPolicy() != WebSocketProxyProperties.SlowConsumerPolicy.DROP_OLDEST
+                && sourceDeflate.sameParameters(targetDeflate);
+    }
+
+    // source 이벤트 루프에서 순서대로 호출됨, 입력 프레임의 참조는 디코더가 release
+    // 압축된 분할 메시지는 첫 프레임에만 RSV1 이 있으므로 이어지는 continuation 프레임도 압축을 풂
+    private WebSocketFrame inflate(EmbeddedChannel inflater, WebSocketFrame frame) {
+        if (frame instanceof ContinuationWebSocketFrame) {
+            if (!inflatingMessage) {
+                return frame;
+            }
+        } else if ((frame.rsv() & WebSocketExtension.RSV1) == 0) {
+            return frame;
+        }
+        inflatingMessage = !frame.isFinalFragment();
+        inflater.writeInbound(frame);
+        WebSocketFrame inflated = inflater.readInbound();
+        if (probeFrame == frame) {
+            probeFrame = inflated;
+        }
+        return inflated;
+    }
+
+    // 압축이 풀린 프레임에 라우트의 변환기를 적용, 프로브는 변환된 프레임을 따라감
+    private WebSocketFrame transform(WebSocketFrame frame) {
+        WebSocketFrame transformed = transformers.apply(frame, direction);
+        if (probeFrame == frame) {
+            probeFrame = transformed;
+        }
+        return transformed;
+    }
+
+    private void onDropped(WebSocketFrame frame) {
+        metrics.getRoute().recordDrop(direction, frame.content().readableBytes());
+        dropProbe(frame);
+    }
+
+    // 재연결 시 같은 클라이언트 채널에 다시 설치하므로 이전 핸들러(이전 업스트림 기준)가 있으면 교체
+    private static void replaceHandler(Channel channel, String name, ChannelHandler handler) {
+        if (channel.pipeline().get(name) != null) {
+            channel.pipeline().replace(name, name, handler);
+        } else {
+            channel.pipeline().addBefore(NettyPipeline.ReactiveBridge, name, handler);
+        }
+    }
+
+    // 반대편 세션이 따라오지 못하면 양쪽 세션을 1008 로 종료
+    private void closeSlowConsumer(WebSocketSession target) {
+        if (slowConsumerClosed.compareAndSet(false, true)) {
+            metrics.getRoute().recordSlowConsumerClose(direction);
+            eventLogger.event("FrameRelay", routeId, clientSessionId(), "느린 세션 종료", direction.getLabel());
+            target.close(SLOW_CONSUMER_CLOSE).subscribe();
+            source.close(SLOW_CONSUMER_CLOSE).subscribe();
+        }
+    }
+
+    private void inspect(WebSocketFrame frame) {
+        eventLogger.frame(routeId, clientSessionId(), direction, frame);
+    }
+
+    // 로그/지표는 클라이언트 세션 ID 기준으로 남김
+    private String clientSessionId() {
+        return direction == Direction.CLIENT_TO_SERVER ? source.getId() : target.getId();
+    }
+
+    // 프레임 디코더는 최대 프레임 크기를 넘는 프레임을 받으면 source 에 1009 를 보내고 예외를 알리므로 target 도 1009 로 종료
+    // 예외는 receive 스트림이 아니라 파이프라인으로만 전달됨
+    private final class FrameSizeHandler extends ChannelInboundHandlerAdapter {
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            if (isFrameTooBig(cause)) {
+                closeTooBig(false, cause.getMessage());
+            }
+            ctx.fireExceptionCaught(cause);
+        }
+    }
+
+    // 반대편 채널의 쓰기 가능 상태 변화를 정책에 따라 처리
+    private final class SlowConsumerHandler extends ChannelInboundHandlerAdapter {
+
+        private final WebSocketSession target;
+        private final WebSocketProxyProperties.SlowConsumerPolicy policy;
+
+        SlowConsumerHandler(WebSocketSession target, WebSocketProxyProperties.SlowConsumerPolicy policy) {
+            this.target = target;
+            this.policy = policy;
+        }
+
+        @Override
+        public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+            if (!ctx.channel().isWritable()) {
+                if (policy == WebSocketProxyProperties.SlowConsumerPolicy.PAUSE) {
+                    metrics.getRoute().recordPause(direction);
+                } else if (policy == WebSocketProxyProperties.SlowConsumerPolicy.CLOSE) {
+                    closeSlowConsumer(target);
+                }
+            }
+            ctx.fireChannelWritabilityChanged();
+        }
+    }
+}
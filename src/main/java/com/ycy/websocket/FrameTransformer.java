@@ -0,0 +1,17 @@
+package com.ycy.websocket;
+
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+
+// 중계 중인 데이터 프레임(텍스트/바이너리, 조각난 메시지는 합쳐진 상태)을 바꾸는 변환기
+// 라우트 설정의 transformers 에 이름으로 지정하며, 기본 제공 변환기 외에는 이 타입의 스프링 빈 이름을 사용
+// 페이로드를 문자열로 바꾸지 않고 ByteBuf 를 직접 다루도록 구현해야 함
+public interface FrameTransformer {
+
+    // 이 프레임을 바꿀 필요가 없으면 false (프레임은 복사 없이 그대로 전달됨)
+    // 모든 프레임에 대해 호출되므로 할당 없이 판단해야 함
+    boolean accepts(WebSocketFrame frame);
+
+    // frame 의 참조를 넘겨받아 바뀐 프레임을 반환 (frame 을 그대로 반환하지 않으면 frame 은 release 해야 함)
+    // 원래 페이로드의 일부를 그대로 쓸 때는 복사하지 말고 retainedSlice 와 CompositeByteBuf 로 이어 붙임
+    WebSocketFrame transform(WebSocketFrame frame);
+}
@@ -0,0 +1,36 @@
+package com.ycy.websocket;
+
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+
+// 라우트 하나의 방향별 프레임 변환기 목록 (설정 순서대로 적용)
+// 변환기가 없는 방향은 FrameRelay 가 변환 단계를 아예 만들지 않음
+final class FrameTransformerChain {
+
+    static final FrameTransformerChain EMPTY = new FrameTransformerChain(new FrameTransformer[0],
+            new FrameTransformer[0]);
+
+    private final FrameTransformer[][] transformers; // 인덱스: FrameRelay.Direction.ordinal()
+
+    FrameTransformerChain(FrameTransformer[] clientToServer, FrameTransformer[] serverToClient) {
+        this.transformers = new FrameTransformer[][] { clientToServer, serverToClient };
+    }
+
+    boolean isEmpty(FrameRelay.Direction direction) {
+        return transformers[direction.ordinal()].length == 0;
+    }
+
+    // frame 의 참조를 넘겨받아 변환된 프레임을 반환, 바꿀 변환기가 없으면 같은 프레임을 그대로 반환
+    WebSocketFrame apply(WebSocketFrame frame, FrameRelay.Direction direction) {
+        if (!(frame instanceof TextWebSocketFrame) && !(frame instanceof BinaryWebSocketFrame)) {
+            return frame;
+        }
+        for (FrameTransformer transformer : transformers[direction.ordinal()]) {
+            if (transformer.accepts(frame)) {
+                frame = transformer.transform(frame);
+            }
+        }
+        return frame;
+    }
+}
@@ -0,0 +1,65 @@
+package com.ycy.websocket;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+// 라우트 설정의 transformers 를 방향별 FrameTransformerChain 으로 만듦 (핸드쉐이크 템플릿을 만들 때 한 번)
+@Component
+public class FrameTransformers {
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    FrameTransformerChain compile(List<WebSocketProxyProperties.FrameTransformerProperties> definitions) {
+        if (definitions == null || definitions.isEmpty()) {
+            return FrameTransformerChain.EMPTY;
+        }
+        List<FrameTransformer> clientToServer = new ArrayList<>();
+        List<FrameTransformer> serverToClient = new ArrayList<>();
+        for (WebSocketProxyProperties.FrameTransformerProperties definition : definitions) {
+            FrameTransformer transformer = create(definition);
+            String direction = definition.getArgs().get("direction");
+            if (direction == null) {
+                clientToServer.add(transformer);
+                serverToClient.add(transformer);
+            } else if (FrameRelay.Direction.valueOf(direction) == FrameRelay.Direction.CLIENT_TO_SERVER) {
+                clientToServer.add(transformer);
+            } else {
+                serverToClient.add(transformer);
+            }
+        }
+        return new FrameTransformerChain(clientToServer.toArray(new FrameTransformer[0]),
+                serverToClient.toArray(new FrameTransformer[0]));
+    }
+
+    private FrameTransformer create(WebSocketProxyProperties.FrameTransformerProperties definition) {
+        Map<String, String> args = definition.getArgs();
+        switch (definition.getName()) {
+            case "inject-field":
+                return new InjectFieldTransformer(required(definition, "name"), required(definition, "value"));
+            case "redact-fields":
+                return new RedactFieldsTransformer(
+                        Arrays.stream(required(definition, "fields").split(",")).map(String::trim).toList(),
+                        args.getOrDefault("replacement", "\"***\""));
+            case "envelope":
+                return new EnvelopeTransformer(args.getOrDefault("prefix", ""), args.getOrDefault("suffix", ""));
+            default:
+                return applicationContext.getBean(definition.getName(), FrameTransformer.class);
+        }
+    }
+
+    private static String required(WebSocketProxyProperties.FrameTransformerProperties definition, String name) {
+        String value = definition.getArgs().get(name);
+        if (value == null) {
+            throw new IllegalArgumentException(
+                    "프레임 변환기 " + definition.getName() + " 에 " + name + " 인자가 없습니다");
+        }
+        return value;
+    }
+}
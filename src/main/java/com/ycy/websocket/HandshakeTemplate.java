@@ -0,0 +1,58 @@
+package com.ycy.websocket;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 라우트별로 미리 만들어 두는 업그레이드 요청 처리 준비물 (라우트 설정, 프레임 변환기, 샤드 라우터, ws/wss 변환 URL 캐시)
+// 요청마다 UriComponentsBuilder 로 URL 을 다시 만들지 않고, 같은 URL 로 들어오는 업그레이드는 캐시된 URL 을 사용
+final class HandshakeTemplate {
+
+    // 라우트마다 캐시할 최대 URL 수 (경로/쿼리가 요청마다 다른 라우트에서 캐시가 끝없이 커지지 않도록)
+    private static final int MAX_CACHED_URIS = 256;
+
+    private final String routeId;
+    private final WebSocketProxyProperties.RouteProperties properties;
+    private final FrameTransformerChain transformers;
+    private final ShardRouter shardRouter; // 샤딩 라우트가 아니면 null
+    private final Map<URI, URI> webSocketUris = new ConcurrentHashMap<>(); // 키: http(s) 요청 URL, 값: ws(s) URL
+
+    HandshakeTemplate(String routeId, WebSocketProxyProperties.RouteProperties properties,
+            FrameTransformerChain transformers, ShardRouter shardRouter) {
+        this.routeId = routeId;
+        this.properties = properties;
+        this.transformers = transformers;
+        this.shardRouter = shardRouter;
+    }
+
+    String getRouteId() {
+        return routeId;
+    }
+
+    WebSocketProxyProperties.RouteProperties getProperties() {
+        return properties;
+    }
+
+    FrameTransformerChain getTransformers() {
+        return transformers;
+    }
+
+    ShardRouter getShardRouter() {
+        return shardRouter;
+    }
+
+    // 스킴만 ws/wss 로 바꾼 URL, 나머지는 원래 문자열(인코딩 포함)을 그대로 사용
+    URI toWebSocketUri(URI requestUrl) {
+        URI cached = webSocketUris.get(requestUrl);
+        if (cached != null) {
+            return cached;
+        }
+        String scheme = requestUrl.getScheme();
+        URI converted = URI.create(CustomWebSocketRoutingFilter.convertHttpToWs(scheme)
+                + requestUrl.toString().substring(scheme.length()));
+        if (webSocketUris.size() < MAX_CACHED_URIS) {
+            webSocketUris.putIfAbsent(requestUrl, converted);
+        }
+        return converted;
+    }
+}
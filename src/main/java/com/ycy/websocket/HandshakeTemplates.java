@@ -0,0 +1,68 @@
+package com.ycy.websocket;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+// 라우트 ID 별 핸드쉐이크 템플릿
+// 라우트 목록이 갱신될 때(애플리케이션 시작 포함) 모든 라우트의 템플릿을 새로 만들어 교체
+@Component
+public class HandshakeTemplates {
+
+    @Autowired
+    private WebSocketProxyProperties proxyProperties;
+
+    @Autowired
+    private RouteLocator routeLocator;
+
+    @Autowired
+    private FrameTransformers frameTransformers;
+
+    private volatile Map<String, HandshakeTemplate> templates = new ConcurrentHashMap<>();
+
+    @EventListener(RefreshRoutesResultEvent.class)
+    public void compile() {
+        routeLocator.getRoutes().map(Route::getId).collectList().subscribe(routeIds -> {
+            Map<String, HandshakeTemplate> compiled = new ConcurrentHashMap<>();
+            for (String routeId : routeIds) {
+                compiled.put(routeId, create(routeId));
+            }
+            templates = compiled;
+        });
+    }
+
+    // 아직 템플릿이 없는 라우트(갱신 직후 등)는 처음 요청에서 만듦
+    HandshakeTemplate get(String routeId) {
+        String key = routeId != null ? routeId : WebSocketRelayMetrics.DEFAULT_ROUTE;
+        return templates.computeIfAbsent(key, id -> create(routeId));
+    }
+
+    private HandshakeTemplate create(String routeId) {
+        WebSocketProxyProperties.RouteProperties properties = proxyProperties.getRoute(routeId);
+        // 샤딩은 재연결 라우트에는 적용하지 않음
+        ShardRouter shardRouter = properties.getSharding().isEnabled() && !properties.getReconnect().isEnabled()
+                ? new ShardRouter(properties.getSharding())
+                : null;
+        return new HandshakeTemplate(routeId, properties, frameTransformers.compile(properties.getTransformers()),
+                shardRouter);
+    }
+
+    // 샤딩 라우트별 샤드 배정 현황
+    public List<Map<String, Object>> shardSnapshot() {
+        List<Map<String, Object>> snapshots = new ArrayList<>();
+        templates.forEach((routeId, template) -> {
+            if (template.getShardRouter() != null) {
+                snapshots.add(template.getShardRouter().snapshot(routeId));
+            }
+        });
+        return snapshots;
+    }
+}
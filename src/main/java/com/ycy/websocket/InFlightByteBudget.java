@@ -0,0 +1,221 @@
+package com.ycy.websocket;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+// 스트리밍 중계 세션 전체가 읽었지만 아직 반대편 연결에 쓰지 못한 프레임 바이트 합계 한도
+// 프레임을 읽을 때 크기만큼 예약하고 반대편에 쓰거나 버릴 때 반납, 한도가 차면 먼저 기다린 순서대로 예약을 이어감
+// 예약을 기다리는 동안 중계는 다음 프레임을 요청하지 않으므로 source 연결 읽기가 멈춤
+@Component
+public class InFlightByteBudget {
+
+    @Autowired
+    private WebSocketProxyProperties proxyProperties;
+
+    private long used; // this 로 보호
+    private long peak;
+    private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+    private final LongAdder waits = new LongAdder();
+
+    // 중계 하나(한 방향)의 예약 내역
+    // sessionLimit: 이 중계가 한 번에 예약할 수 있는 최대 바이트 (한 세션이 전체 한도를 차지하지 않도록)
+    Account newAccount(long sessionLimit) {
+        return new Account(sessionLimit);
+    }
+
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("maxInFlightBytes", proxyProperties.getStreaming().getMaxInFlightBytes());
+        snapshot.put("inFlightBytes", used);
+        snapshot.put("peakInFlightBytes", peak);
+        snapshot.put("waiting", waiters.size());
+        snapshot.put("waits", waits.sum());
+        return snapshot;
+    }
+
+    // 기다리는 예약이 없고 한도 안이면 바로 예약, 아니면 반납될 때까지 기다림
+    // 한도보다 큰 프레임도 사용 중인 바이트가 없으면 예약해서 멈추지 않도록 함
+    private Mono<Void> reserve(int bytes) {
+        return Mono.create(sink -> {
+            Waiter waiter;
+            synchronized (this) {
+                if (waiters.isEmpty() && fits(bytes)) {
+                    add(bytes);
+                    waiter = null;
+                } else {
+                    waiter = new Waiter(bytes, sink);
+                    waiters.add(waiter);
+                    waits.increment();
+                }
+            }
+            if (waiter == null) {
+                sink.success();
+                return;
+            }
+            sink.onCancel(() -> {
+                boolean granted;
+                synchronized (this) {
+                    granted = waiter.granted;
+                    if (!granted) {
+                        waiters.remove(waiter);
+                    }
+                }
+                if (granted) {
+                    release(bytes); // 예약된 직후 취소되어 반납할 곳이 없음
+                }
+            });
+        });
+    }
+
+    private void release(long bytes) {
+        List<Waiter> granted = null;
+        synchronized (this) {
+            used -= bytes;
+            while (!waiters.isEmpty() && fits(waiters.peek().bytes)) {
+                Waiter waiter = waiters.poll();
+                waiter.granted = true;
+                add(waiter.bytes);
+                if (granted == null) {
+                    granted = new ArrayList<>();
+                }
+                granted.add(waiter);
+            }
+        }
+        if (granted != null) {
+            granted.forEach(waiter -> waiter.sink.success());
+        }
+    }
+
+    private boolean fits(int bytes) {
+        return used == 0 || used + bytes <= proxyProperties.getStreaming().getMaxInFlightBytes();
+    }
+
+    private void add(int bytes) {
+        used += bytes;
+        peak = Math.max(peak, used);
+    }
+
+    private static final class Waiter {
+
+        final int bytes;
+        final MonoSink<Void> sink;
+        boolean granted;
+
+        Waiter(int bytes, MonoSink<Void> sink) {
+            this.bytes = bytes;
+            this.sink = sink;
+        }
+    }
+
+    // 프레임은 읽은 순서대로 쓰거나(앞에서부터) 버리므로 예약한 크기를 순서대로 보관했다가 앞에서부터 반납
+    final class Account {
+
+        private final long sessionLimit;
+        private int[] sizes = new int[16]; // 원형 큐
+        private int head;
+        private int count;
+        private long outstanding;
+        private boolean closed;
+        private MonoSink<Void> capacityWaiter; // 세션 한도 때문에 기다리는 예약 (중계는 한 번에 하나만 예약)
+        private int capacityWaiterBytes;
+
+        Account(long sessionLimit) {
+            this.sessionLimit = sessionLimit;
+        }
+
+        // 프레임 하나를 중계할 자리 예약, 예약이 끝나야 다음 프레임을 읽음
+        Mono<Void> acquire(int bytes) {
+            return sessionCapacity(bytes).then(Mono.defer(() -> reserve(bytes))).doOnSuccess(v -> push(bytes));
+        }
+
+        // 가장 오래된 예약 하나 반납 (반대편 연결에 썼거나 버림)
+        void written() {
+            int bytes;
+            MonoSink<Void> resumed = null;
+            synchronized (this) {
+                if (count == 0) {
+                    return;
+                }
+                bytes = sizes[head];
+                head = (head + 1) % sizes.length;
+                count--;
+                outstanding -= bytes;
+                if (capacityWaiter != null && fitsSession(capacityWaiterBytes)) {
+                    resumed = capacityWaiter;
+                    capacityWaiter = null;
+                }
+            }
+            release(bytes);
+            if (resumed != null) {
+                resumed.success();
+            }
+        }
+
+        // 중계가 끝나면 남은 예약 모두 반납 (반대편에 쓰지 못하고 버려진 프레임)
+        void close() {
+            long bytes;
+            synchronized (this) {
+                closed = true;
+                bytes = outstanding;
+                outstanding = 0;
+                count = 0;
+            }
+            if (bytes > 0) {
+                release(bytes);
+            }
+        }
+
+        private Mono<Void> sessionCapacity(int bytes) {
+            return Mono.create(sink -> {
+                synchronized (this) {
+                    if (!fitsSession(bytes)) {
+                        capacityWaiter = sink;
+                        capacityWaiterBytes = bytes;
+                        sink.onCancel(() -> {
+                            synchronized (this) {
+                                if (capacityWaiter == sink) {
+                                    capacityWaiter = null;
+                                }
+                            }
+                        });
+                        return;
+                    }
+                }
+                sink.success();
+            });
+        }
+
+        private boolean fitsSession(int bytes) {
+            return outstanding == 0 || outstanding + bytes <= sessionLimit;
+        }
+
+        private void push(int bytes) {
+            synchronized (this) {
+                if (!closed) {
+                    if (count == sizes.length) {
+                        int[] grown = new int[sizes.length * 2];
+                        for (int i = 0; i < count; i++) {
+                            grown[i] = sizes[(head + i) % sizes.length];
+                        }
+                        sizes = grown;
+                        head = 0;
+                    }
+                    sizes[(head + count) % sizes.length] = bytes;
+                    count++;
+                    outstanding += bytes;
+                    return;
+                }
+            }
+            release(bytes); // 예약을 기다리는 동안 중계가 끝남
+        }
+    }
+}
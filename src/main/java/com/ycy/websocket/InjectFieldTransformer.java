@@ -0,0 +1,56 @@
+package com.ycy.websocket;
+
+import java.nio.charset.StandardCharsets;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+
+// inject-field: JSON 객체 텍스트 프레임의 맨 앞에 필드 하나를 추가 (인자: name, value)
+// value 는 JSON 값 그대로 씀 (문자열이면 따옴표 포함), 원래 페이로드는 복사하지 않고 앞뒤를 이어 붙임
+final class InjectFieldTransformer implements FrameTransformer {
+
+    private final ByteBuf field; // "name":value,
+    private final ByteBuf onlyField; // "name":value (빈 객체용)
+
+    InjectFieldTransformer(String name, String value) {
+        String member = "\"" + name.replace("\\", "\\\\").replace("\"", "\\\"") + "\":" + value;
+        this.field = constant(member + ",");
+        this.onlyField = constant(member);
+    }
+
+    @Override
+    public boolean accepts(WebSocketFrame frame) {
+        if (!(frame instanceof TextWebSocketFrame)) {
+            return false;
+        }
+        ByteBuf content = frame.content();
+        int open = JsonBytes.skipWhitespace(content, content.readerIndex());
+        return open < content.writerIndex() && content.getByte(open) == '{';
+    }
+
+    @Override
+    public WebSocketFrame transform(WebSocketFrame frame) {
+        ByteBuf content = frame.content();
+        int start = content.readerIndex();
+        int end = content.writerIndex();
+        int bodyStart = JsonBytes.skipWhitespace(content, start) + 1;
+        int next = JsonBytes.skipWhitespace(content, bodyStart);
+        boolean empty = next < end && content.getByte(next) == '}';
+
+        CompositeByteBuf composite = content.alloc().compositeBuffer(3);
+        composite.addComponents(true, content.retainedSlice(start, bodyStart - start),
+                (empty ? onlyField : field).duplicate(), content.retainedSlice(bodyStart, end - bodyStart));
+        WebSocketFrame transformed = frame.replace(composite);
+        frame.release();
+        return transformed;
+    }
+
+    // 프레임마다 duplicate 로 공유하는 direct 버퍼 (release 되지 않음)
+    static ByteBuf constant(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return Unpooled.unreleasableBuffer(Unpooled.directBuffer(bytes.length).writeBytes(bytes));
+    }
+}
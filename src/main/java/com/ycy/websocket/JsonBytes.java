@@ -0,0 +1,86 @@
+package com.ycy.websocket;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+
+// 기본 제공 프레임 변환기가 쓰는 JSON 바이트 스캔 도구
+// 전체를 파싱하지 않고 필요한 위치만 찾으므로, 올바른 JSON 이라는 가정에서만 정확함
+final class JsonBytes {
+
+    private JsonBytes() {
+    }
+
+    // from 부터 JSON 공백이 아닌 첫 위치 (끝까지 공백이면 writerIndex)
+    static int skipWhitespace(ByteBuf buf, int from) {
+        int end = buf.writerIndex();
+        for (int i = from; i < end; i++) {
+            byte b = buf.getByte(i);
+            if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    // start 에서 시작하는 값(문자열/숫자/리터럴/객체/배열)의 끝 다음 위치, 값이 끝나지 않으면 -1
+    static int valueEnd(ByteBuf buf, int start) {
+        int end = buf.writerIndex();
+        if (start >= end) {
+            return -1;
+        }
+        byte first = buf.getByte(start);
+        if (first == '"') {
+            return stringEnd(buf, start);
+        }
+        if (first == '{' || first == '[') {
+            int depth = 0;
+            for (int i = start; i < end; i++) {
+                byte b = buf.getByte(i);
+                if (b == '"') {
+                    i = stringEnd(buf, i) - 1;
+                    if (i < 0) {
+                        return -1;
+                    }
+                } else if (b == '{' || b == '[') {
+                    depth++;
+                } else if ((b == '}' || b == ']') && --depth == 0) {
+                    return i + 1;
+                }
+            }
+            return -1;
+        }
+        // 숫자, true/false/null
+        for (int i = start; i < end; i++) {
+            byte b = buf.getByte(i);
+            if (b == ',' || b == '}' || b == ']' || b == ' ' || b == '\t' || b == '\n' || b == '\r') {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    // start 의 따옴표로 시작하는 문자열의 닫는 따옴표 다음 위치 (이스케이프 처리), 닫히지 않으면 -1
+    // 긴 문자열 값은 바이트마다 확인하지 않고 ByteBuf.indexOf 로 다음 따옴표까지 건너뜀
+    static int stringEnd(ByteBuf buf, int start) {
+        int end = buf.writerIndex();
+        int i = start + 1;
+        while ((i = buf.indexOf(i, end, (byte) '"')) >= 0) {
+            // 바로 앞의 역슬래시가 홀수 개면 이스케이프된 따옴표
+            int backslashes = 0;
+            while (buf.getByte(i - 1 - backslashes) == '\\') {
+                backslashes++;
+            }
+            if ((backslashes & 1) == 0) {
+                return i + 1;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    // start 의 따옴표로 시작하는 문자열이 key (따옴표 포함) 와 같은지 여부
+    static boolean startsWith(ByteBuf buf, int start, ByteBuf key) {
+        int length = key.readableBytes();
+        return start + length <= buf.writerIndex() && ByteBufUtil.equals(buf, start, key, key.readerIndex(), length);
+    }
+}
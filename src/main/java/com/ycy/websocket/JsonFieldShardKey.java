@@ -0,0 +1,55 @@
+package com.ycy.websocket;
+
+import java.nio.charset.StandardCharsets;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+// json:필드이름 - 최상위 JSON 객체의 필드 값을 샤드 키로 사용
+// 최상위 필드 이름만 차례로 비교하고 다른 필드의 값은 JsonBytes 로 건너뜀
+// 문자열 값은 따옴표 안의 바이트를 이스케이프를 풀지 않고 그대로 키로 쓰므로, 같은 키는 항상 같은 방식으로 인코딩해서 보내야 함
+final class JsonFieldShardKey implements ShardKeyExtractor {
+
+    private final ByteBuf key; // 따옴표를 포함한 필드 이름
+
+    JsonFieldShardKey(String field) {
+        this.key = Unpooled.unreleasableBuffer(
+                Unpooled.wrappedBuffer(("\"" + field + "\"").getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Override
+    public long find(ByteBuf payload) {
+        int end = payload.writerIndex();
+        int i = JsonBytes.skipWhitespace(payload, payload.readerIndex());
+        if (i >= end || payload.getByte(i) != '{') {
+            return NO_KEY;
+        }
+        i = JsonBytes.skipWhitespace(payload, i + 1);
+        while (i < end && payload.getByte(i) == '"') {
+            int nameEnd = JsonBytes.stringEnd(payload, i);
+            if (nameEnd < 0) {
+                return NO_KEY;
+            }
+            int colon = JsonBytes.skipWhitespace(payload, nameEnd);
+            if (colon >= end || payload.getByte(colon) != ':') {
+                return NO_KEY;
+            }
+            int valueStart = JsonBytes.skipWhitespace(payload, colon + 1);
+            int valueEnd = JsonBytes.valueEnd(payload, valueStart);
+            if (valueEnd < 0) {
+                return NO_KEY;
+            }
+            if (nameEnd - i == key.readableBytes() && JsonBytes.startsWith(payload, i, key)) {
+                return payload.getByte(valueStart) == '"'
+                        ? ShardKeyExtractor.range(valueStart + 1, valueEnd - valueStart - 2)
+                        : ShardKeyExtractor.range(valueStart, valueEnd - valueStart);
+            }
+            i = JsonBytes.skipWhitespace(payload, valueEnd);
+            if (i >= end || payload.getByte(i) != ',') {
+                return NO_KEY;
+            }
+            i = JsonBytes.skipWhitespace(payload, i + 1);
+        }
+        return NO_KEY;
+    }
+}
@@ -0,0 +1,105 @@
+package com.ycy.websocket;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// 나노초 단위 지연시간 히스토그램 (log-linear 버킷, 2의 거듭제곱 구간마다 8개 하위 버킷 → 오차 약 12%)
+// 이벤트 루프 간 경합을 피하기 위해 스레드별로 나뉜 stripe 에 기록하고 조회 시 합산
+final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // 2^40 ns (약 18분) 이상은 마지막 버킷에 모음
+    private static final int MAX_OCTAVE = 40;
+    private static final int BUCKETS = (MAX_OCTAVE - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+    private static final int STRIPES = Integer.highestOneBit(Math.max(1,
+            Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1;
+
+    private final AtomicLongArray[] stripes = new AtomicLongArray[STRIPES];
+    private final LongAdder sum = new LongAdder();
+
+    LatencyHistogram() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new AtomicLongArray(BUCKETS);
+        }
+    }
+
+    void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        int stripe = (int) (Thread.currentThread().getId() & (STRIPES - 1));
+        stripes[stripe].getAndIncrement(bucketOf(nanos));
+        sum.add(nanos);
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int octave = 63 - Long.numberOfLeadingZeros(value);
+        if (octave > MAX_OCTAVE) {
+            return BUCKETS - 1;
+        }
+        int sub = (int) (value >>> (octave - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (octave - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    // 버킷의 상한값 (백분위 추정에 사용)
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int octave = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        return ((SUB_BUCKETS + sub + 1) << (octave - SUB_BUCKET_BITS)) - 1;
+    }
+
+    // count, 평균, 주요 백분위(마이크로초)를 담은 스냅샷
+    Map<String, Object> snapshot() {
+        return snapshot("Micros", 1000.0);
+    }
+
+    // 지연시간이 아닌 값(배치 크기 등)을 기록한 경우의 스냅샷 (단위 변환 없음)
+    Map<String, Object> valueSnapshot() {
+        return snapshot("", 1.0);
+    }
+
+    private Map<String, Object> snapshot(String unit, double scale) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < BUCKETS; i++) {
+                long count = stripe.get(i);
+                counts[i] += count;
+                total += count;
+            }
+        }
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("count", total);
+        snapshot.put("mean" + unit, total == 0 ? 0.0 : sum.sum() / (double) total / scale);
+        snapshot.put("p50" + unit, percentile(counts, total, 0.50) / scale);
+        snapshot.put("p90" + unit, percentile(counts, total, 0.90) / scale);
+        snapshot.put("p99" + unit, percentile(counts, total, 0.99) / scale);
+        snapshot.put("p999" + unit, percentile(counts, total, 0.999) / scale);
+        snapshot.put("max" + unit, percentile(counts, total, 1.0) / scale);
+        return snapshot;
+    }
+
+    private static long percentile(long[] counts, long total, double quantile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * quantile));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return upperBoundOf(i);
+            }
+        }
+        return upperBoundOf(counts.length - 1);
+    }
+}
@@ -0,0 +1,68 @@
+package com.ycy.websocket;
+
+import java.lang.reflect.Method;
+
+import io.netty.channel.Channel;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import org.springframework.web.reactive.socket.adapter.AbstractWebSocketSession;
+import org.springframework.web.reactive.socket.adapter.ReactorNettyWebSocketSession;
+import reactor.netty.channel.ChannelOperations;
+import reactor.netty.http.client.HttpClientResponse;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+import reactor.netty.http.websocket.WebsocketInbound;
+import reactor.netty.http.websocket.WebsocketOutbound;
+
+// Spring WebSocketSession 뒤에 있는 Reactor Netty 연결(inbound/outbound/channel)에 접근하는 유틸리티
+// ReactorNettyWebSocketSession 은 inbound/outbound 를 protected getDelegate() 로만 노출하므로 리플렉션으로 꺼냄
+final class NettyWebSocketSessions {
+
+    private static final Method GET_DELEGATE = ReflectionUtils.findMethod(AbstractWebSocketSession.class,
+            "getDelegate");
+
+    static {
+        ReflectionUtils.makeAccessible(GET_DELEGATE);
+    }
+
+    private NettyWebSocketSessions() {
+    }
+
+    // Reactor Netty 기반 세션이 아니면 null
+    static ReactorNettyWebSocketSession.WebSocketConnection connection(WebSocketSession session) {
+        if (!(session instanceof ReactorNettyWebSocketSession)) {
+            return null;
+        }
+        return (ReactorNettyWebSocketSession.WebSocketConnection) ReflectionUtils.invokeMethod(GET_DELEGATE, session);
+    }
+
+    static WebsocketInbound inbound(WebSocketSession session) {
+        ReactorNettyWebSocketSession.WebSocketConnection connection = connection(session);
+        return connection != null ? connection.getInbound() : null;
+    }
+
+    static WebsocketOutbound outbound(WebSocketSession session) {
+        ReactorNettyWebSocketSession.WebSocketConnection connection = connection(session);
+        return connection != null ? connection.getOutbound() : null;
+    }
+
+    static Channel channel(WebSocketSession session) {
+        WebsocketInbound inbound = inbound(session);
+        return inbound != null ? ((ChannelOperations<?, ?>) inbound).channel() : null;
+    }
+
+    // 핸드쉐이크 요청/응답 헤더를 비움 (Reactor Netty 연결이 세션이 끝날 때까지 들고 있음)
+    // 업스트림 세션은 Spring 이 응답 헤더를 HandshakeInfo 에 따로 복사해 두므로 그것도 비움
+    // 세션 등록처럼 핸드쉐이크 헤더를 읽는 처리가 모두 끝난 뒤에만 호출
+    static void clearHandshakeHeaders(WebSocketSession session) {
+        WebsocketInbound inbound = inbound(session);
+        if (inbound instanceof HttpServerRequest) {
+            ((HttpServerRequest) inbound).requestHeaders().clear();
+            ((HttpServerResponse) inbound).responseHeaders().clear();
+        } else if (inbound instanceof HttpClientResponse) {
+            ((HttpClientResponse) inbound).requestHeaders().clear();
+            ((HttpClientResponse) inbound).responseHeaders().clear();
+            session.getHandshakeInfo().getHeaders().clear();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.ycy.websocket;
+
+import java.util.ArrayDeque;
+
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.ContinuationWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.util.AttributeKey;
+
+// 스트리밍 중계가 클라이언트 채널에 분할 메시지를 쓰는 중인지 추적
+// 분할 메시지 중간에는 다른 데이터 프레임을 끼워 넣을 수 없으므로 브로드캐스트 프레임은 메시지가 끝날 때까지 미뤄서 씀
+// 모든 메서드는 채널의 이벤트 루프에서 호출됨
+final class OutboundMessageBoundary {
+
+    private static final AttributeKey<OutboundMessageBoundary> KEY = AttributeKey.valueOf("ws.proxy.messageBoundary");
+
+    private final Channel channel;
+    private boolean midMessage;
+    private ArrayDeque<WebSocketFrame> deferred;
+
+    private OutboundMessageBoundary(Channel channel) {
+        this.channel = channel;
+    }
+
+    static OutboundMessageBoundary attach(Channel channel) {
+        OutboundMessageBoundary boundary = new OutboundMessageBoundary(channel);
+        OutboundMessageBoundary previous = channel.attr(KEY).setIfAbsent(boundary);
+        return previous != null ? previous : boundary;
+    }
+
+    // 스트리밍 중계가 없는 채널이면 null
+    static OutboundMessageBoundary of(Channel channel) {
+        return channel.attr(KEY).get();
+    }
+
+    // 중계가 데이터 프레임을 쓴 직후 호출, 메시지가 끝났으면 미뤄둔 프레임을 씀
+    // 프레임 내용은 이미 release 되었을 수 있으므로 타입과 FIN 비트만 봄
+    void written(Object frame) {
+        if (frame instanceof TextWebSocketFrame || frame instanceof BinaryWebSocketFrame
+                || frame instanceof ContinuationWebSocketFrame) {
+            midMessage = !((WebSocketFrame) frame).isFinalFragment();
+            if (!midMessage && deferred != null && !deferred.isEmpty()) {
+                while (!deferred.isEmpty()) {
+                    channel.write(deferred.poll());
+                }
+                channel.flush();
+            }
+        }
+    }
+
+    // 분할 메시지 중간이면 frame 을 미뤄두고 true, 아니면 false (호출한 쪽이 바로 씀)
+    boolean deferIfMidMessage(WebSocketFrame frame) {
+        if (!midMessage) {
+            return false;
+        }
+        if (deferred == null) {
+            deferred = new ArrayDeque<>();
+        }
+        deferred.add(frame);
+        return true;
+    }
+
+    // 채널이 닫힐 때 미뤄둔 프레임 release
+    void close() {
+        if (deferred != null) {
+            WebSocketFrame frame;
+            while ((frame = deferred.poll()) != null) {
+                frame.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,574 @@
+package com.ycy.websocket;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.ByteBufFlux;
+import reactor.netty.http.client.HttpClient;
+
+// 외부 저장소 없이 게이트웨이 노드끼리 HTTP 로 세션 변경분을 주고받는 기본 세션 디렉터리
+// 로컬 세션 등록/제거는 큐에 쌓아두고 publishInterval 마다 피어별로 모아서 한 묶음으로 보냄
+// (한 묶음 안에서 같은 세션의 등록 후 제거는 서로 상쇄되어 짧게 끝난 세션은 전송되지 않음)
+// 묶음마다 피어별 일련번호를 붙이고, 받는 쪽에서 번호가 이어지지 않거나 전송이 실패하면 다음 번에 전체 세션을 다시 보냄
+// 한동안 변경분이 없으면 빈 묶음을 heartbeatInterval 마다 보내고, peerTimeout 동안 소식이 없는 노드의 세션은 디렉터리에서 지움
+@Component
+public class PeerSessionDirectory implements SessionDirectory {
+
+    static final String BASE_PATH = "/api/websocket/cluster";
+    static final String DELTAS_PATH = BASE_PATH + "/deltas";
+
+    private static final Log logger = LogFactory.getLog(PeerSessionDirectory.class);
+
+    // 한 묶음에 담는 최대 변경분 수 (요청 본문이 수신 측 버퍼 한도를 넘지 않도록), 남은 것은 응답을 받자마자 이어서 보냄
+    private static final int MAX_BATCH_DELTAS = 1000;
+
+    // 피어별로 쌓아둘 수 있는 최대 변경분 수, 넘으면 버리고 전체 동기화로 전환
+    private static final int MAX_OUTBOX_DELTAS = 100_000;
+
+    // 세션 ID 순, 같은 세션 ID 는 노드 ID 순 (노드가 null 인 조회용 키는 같은 세션 ID 의 맨 뒤)
+    private static final Comparator<SessionRecord> ORDER = Comparator.comparing(SessionRecord::getSessionId)
+            .thenComparing(SessionRecord::getNode, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    @Autowired
+    private WebSocketProxyProperties proxyProperties;
+
+    @Autowired
+    private WebSocketEventLogger eventLogger;
+
+    // 같은 노드 ID 로 재시작한 프로세스를 구분
+    private final long incarnation = System.currentTimeMillis();
+    private volatile String nodeId = "local";
+    private volatile String url;
+
+    private final Map<String, SessionRecord> localSessions = new ConcurrentHashMap<>(); // 키: 세션 ID
+    private final Queue<Delta> pending = new ConcurrentLinkedQueue<>(); // 아직 피어별 대기열로 옮기지 않은 변경분
+    private final List<Peer> peers = new ArrayList<>();
+
+    private final NavigableSet<SessionRecord> remoteSessions = new ConcurrentSkipListSet<>(ORDER);
+    private final Map<String, RemoteNode> nodes = new ConcurrentHashMap<>(); // 키: 노드 ID
+
+    private final LongAdder batchesSent = new LongAdder();
+    private final LongAdder deltasSent = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder fullSyncsSent = new LongAdder();
+    private final LongAdder sendFailures = new LongAdder();
+    private final LongAdder batchesReceived = new LongAdder();
+    private final LongAdder batchesRejected = new LongAdder();
+    private final LongAdder batchesUnknownPeer = new LongAdder();
+
+    private HttpClient client;
+    private Disposable publisher;
+
+    // 내장 서버가 포트를 연 뒤에 노드 주소를 정하고 전송을 시작
+    @EventListener
+    public void onWebServerInitialized(WebServerInitializedEvent event) {
+        if (event.getApplicationContext().getServerNamespace() != null || publisher != null) {
+            return; // 관리 서버 등 별도 포트
+        }
+        WebSocketProxyProperties.ClusterProperties cluster = proxyProperties.getCluster();
+        url = cluster.getAdvertisedUrl() != null
+                ? trimSlash(cluster.getAdvertisedUrl().toString())
+                : "http://localhost:" + event.getWebServer().getPort();
+        nodeId = cluster.getNodeId() != null && !cluster.getNodeId().isEmpty()
+                ? cluster.getNodeId()
+                : URI.create(url).getAuthority();
+        if (!cluster.isEnabled()) {
+            return;
+        }
+        for (URI peer : cluster.getPeers()) {
+            String peerUrl = trimSlash(peer.toString());
+            if (!peerUrl.equals(url)) {
+                peers.add(new Peer(peerUrl));
+            }
+        }
+        client = HttpClient.create().responseTimeout(cluster.getRequestTimeout());
+        long interval = cluster.getPublishInterval().toMillis();
+        publisher = Schedulers.parallel().schedulePeriodically(this::publish, interval, interval,
+                TimeUnit.MILLISECONDS);
+        logger.info("[PeerSessionDirectory] node=" + nodeId + " url=" + url + " peers=" + peers.size());
+    }
+
+    @Override
+    public String localNode() {
+        return nodeId;
+    }
+
+    @Override
+    public void sessionAdded(SessionRecord record) {
+        if (proxyProperties.getCluster().isEnabled()) {
+            boolean firstAdd = localSessions.put(record.getSessionId(), record) == null;
+            pending.offer(new Delta(record.getSessionId(), record, firstAdd));
+        }
+    }
+
+    @Override
+    public void sessionRemoved(String sessionId) {
+        if (proxyProperties.getCluster().isEnabled() && localSessions.remove(sessionId) != null) {
+            pending.offer(new Delta(sessionId, null, false));
+        }
+    }
+
+    @Override
+    public List<SessionRecord> lookup(String sessionId) {
+        List<SessionRecord> records = new ArrayList<>(1);
+        for (SessionRecord record : remoteSessions.tailSet(probe(sessionId, ""), true)) {
+            if (!record.getSessionId().equals(sessionId)) {
+                break;
+            }
+            records.add(record);
+        }
+        return records;
+    }
+
+    @Override
+    public Flux<SessionRecord> find(String routeId, String remoteAddress, String subProtocol, String after) {
+        NavigableSet<SessionRecord> page = after != null ? remoteSessions.tailSet(probe(after, null), false)
+                : remoteSessions;
+        return Flux.fromIterable(page).filter(record -> record.matches(routeId, remoteAddress, subProtocol));
+    }
+
+    @Override
+    public Mono<Boolean> close(SessionRecord record) {
+        String target = nodeUrl(record.getNode());
+        if (target == null || client == null) {
+            return Mono.just(false);
+        }
+        eventLogger.event("PeerSessionDirectory", record.getRouteId(), record.getSessionId(), "세션 종료 전달",
+                target);
+        return client.delete()
+                .uri(target + BASE_PATH + "/sessions/" + record.getSessionId())
+                .responseSingle((response, body) -> {
+                    if (response.status().code() == HttpResponseStatus.NOT_FOUND.code()) {
+                        return Mono.just(false);
+                    }
+                    if (response.status().code() >= 300) {
+                        return Mono.error(new IllegalStateException(
+                                "노드 " + record.getNode() + " 세션 종료 실패: " + response.status()));
+                    }
+                    return Mono.just(true);
+                });
+    }
+
+    @Override
+    public Mono<Long> closeAll(String routeId, String remoteAddress) {
+        if (client == null) {
+            return Mono.just(0L);
+        }
+        Set<String> owners = new LinkedHashSet<>();
+        for (SessionRecord record : remoteSessions) {
+            if (record.matches(routeId, remoteAddress, null)) {
+                owners.add(record.getNode());
+            }
+        }
+        String query = UriComponentsBuilder.fromPath(BASE_PATH + "/sessions")
+                .queryParamIfPresent("route", Optional.ofNullable(routeId))
+                .queryParamIfPresent("remoteAddress", Optional.ofNullable(remoteAddress))
+                .encode()
+                .build()
+                .toUriString();
+        return Flux.fromIterable(owners)
+                .mapNotNull(this::nodeUrl)
+                .flatMap(target -> client.delete()
+                        .uri(target + query)
+                        .responseSingle((response, body) -> Mono.just(response.status().code() < 300))
+                        .onErrorReturn(false))
+                .filter(accepted -> accepted)
+                .count();
+    }
+
+    // 피어가 보낸 묶음 적용, 일련번호가 이어지지 않으면 false (보낸 쪽이 다음 번에 전체 세션을 보냄)
+    // 형식이 맞지 않거나 설정된 피어가 보낸 묶음이 아니면 IllegalArgumentException
+    // (노드 주소는 세션 종료 요청을 보낼 곳이므로 cluster.peers 에 있는 주소만 받고, 노드 ID 는 처음 받은 주소에 묶음)
+    boolean receive(byte[] body) {
+        SessionDeltaCodec.Batch batch = SessionDeltaCodec.decode(body);
+        if (!proxyProperties.getCluster().isEnabled() || batch.node.equals(nodeId)) {
+            return true;
+        }
+        String peerUrl = peerUrl(batch.url);
+        if (peerUrl == null) {
+            batchesUnknownPeer.increment();
+            logger.warn("[PeerSessionDirectory] 설정되지 않은 피어의 묶음 거부 node=" + batch.node + " url=" + batch.url);
+            throw new IllegalArgumentException("설정되지 않은 피어: " + batch.url);
+        }
+        batchesReceived.increment();
+        while (true) {
+            RemoteNode node = nodes.computeIfAbsent(batch.node, RemoteNode::new);
+            synchronized (node) {
+                if (node.removed) {
+                    continue; // 만료 처리와 겹침, 새 노드 상태로 다시 적용
+                }
+                if (node.url != null && !node.url.equals(peerUrl)) {
+                    // 다른 피어가 같은 노드 ID 를 쓰는 경우, 원래 노드가 peerTimeout 동안 조용하면 만료된 뒤 받음
+                    batchesUnknownPeer.increment();
+                    logger.warn("[PeerSessionDirectory] 다른 주소에 묶인 노드 ID 의 묶음 거부 node=" + batch.node
+                            + " url=" + batch.url + " bound=" + node.url);
+                    throw new IllegalArgumentException("노드 " + batch.node + " 는 " + node.url + " 에 묶여 있음");
+                }
+                if (batch.full) {
+                    if (batch.incarnation < node.incarnation) {
+                        return true; // 재시작 전 프로세스가 늦게 보낸 묶음
+                    }
+                    node.clear(remoteSessions);
+                    eventLogger.event("PeerSessionDirectory", null, null, "피어 전체 동기화 수신",
+                            batch.node + " " + batch.added.size());
+                } else if (batch.incarnation != node.incarnation || batch.seq != node.seq + 1) {
+                    batchesRejected.increment();
+                    return false;
+                }
+                for (SessionRecord record : batch.added) {
+                    SessionRecord previous = node.sessions.put(record.getSessionId(), record);
+                    if (previous != null) {
+                        remoteSessions.remove(previous);
+                    }
+                    remoteSessions.add(record);
+                }
+                for (String sessionId : batch.removed) {
+                    SessionRecord previous = node.sessions.remove(sessionId);
+                    if (previous != null) {
+                        remoteSessions.remove(previous);
+                    }
+                }
+                node.url = peerUrl;
+                node.incarnation = batch.incarnation;
+                node.seq = batch.seq;
+                node.lastSeenNanos = System.nanoTime();
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("enabled", proxyProperties.getCluster().isEnabled());
+        snapshot.put("node", nodeId);
+        snapshot.put("url", url);
+        snapshot.put("localSessions", localSessions.size());
+        snapshot.put("remoteSessions", remoteSessions.size());
+        snapshot.put("batchesSent", batchesSent.sum());
+        snapshot.put("deltasSent", deltasSent.sum());
+        snapshot.put("bytesSent", bytesSent.sum());
+        snapshot.put("fullSyncsSent", fullSyncsSent.sum());
+        snapshot.put("sendFailures", sendFailures.sum());
+        snapshot.put("batchesReceived", batchesReceived.sum());
+        snapshot.put("batchesRejected", batchesRejected.sum());
+        snapshot.put("batchesUnknownPeer", batchesUnknownPeer.sum());
+        List<Map<String, Object>> peerSnapshots = new ArrayList<>();
+        for (Peer peer : peers) {
+            peerSnapshots.add(peer.snapshot());
+        }
+        snapshot.put("peers", peerSnapshots);
+        long now = System.nanoTime();
+        List<Map<String, Object>> nodeSnapshots = new ArrayList<>();
+        nodes.values().forEach(node -> {
+            Map<String, Object> nodeSnapshot = new LinkedHashMap<>();
+            nodeSnapshot.put("node", node.id);
+            nodeSnapshot.put("url", node.url);
+            nodeSnapshot.put("sessions", node.sessions.size());
+            nodeSnapshot.put("lastSeenMillisAgo", TimeUnit.NANOSECONDS.toMillis(now - node.lastSeenNanos));
+            nodeSnapshots.add(nodeSnapshot);
+        });
+        snapshot.put("nodes", nodeSnapshots);
+        return snapshot;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (publisher != null) {
+            publisher.dispose();
+        }
+    }
+
+    // publishInterval 마다 호출: 쌓인 변경분을 피어별 대기열로 옮기고, 전송 중이 아닌 피어에 한 묶음씩 보냄
+    // 피어마다 동시에 하나의 묶음만 보내야 일련번호 순서가 유지됨 (inFlight 를 얻은 쪽만 send 호출)
+    private void publish() {
+        try {
+            List<Delta> drained = new ArrayList<>();
+            for (Delta delta; (delta = pending.poll()) != null;) {
+                drained.add(delta);
+            }
+            long now = System.nanoTime();
+            long heartbeatNanos = proxyProperties.getCluster().getHeartbeatInterval().toNanos();
+            for (Peer peer : peers) {
+                peer.offer(drained);
+                if (now - peer.retryAtNanos >= 0
+                        && (peer.hasBacklog() || now - peer.lastSentNanos >= heartbeatNanos)
+                        && peer.inFlight.compareAndSet(false, true)) {
+                    send(peer);
+                }
+            }
+            expireNodes(now);
+        } catch (RuntimeException e) {
+            logger.warn("[PeerSessionDirectory] 변경분 전송 실패", e);
+        }
+    }
+
+    // peer.inFlight 를 얻은 상태에서 호출, 응답 후 나머지를 이어 보내지 않을 때만 inFlight 를 놓음
+    private void send(Peer peer) {
+        SessionDeltaCodec.Batch batch;
+        byte[] body;
+        try {
+            batch = peer.nextBatch();
+            body = SessionDeltaCodec.encode(batch);
+        } catch (RuntimeException e) {
+            peer.inFlight.set(false);
+            throw e;
+        }
+        int deltas = batch.added.size() + batch.removed.size();
+        client.post()
+                .uri(peer.url + DELTAS_PATH)
+                .send((request, outbound) -> {
+                    request.requestHeaders().set(HttpHeaderNames.CONTENT_TYPE, MediaType.APPLICATION_OCTET_STREAM_VALUE);
+                    return outbound.send(ByteBufFlux.fromInbound(Mono.just(body)));
+                })
+                .responseSingle((response, content) -> Mono.just(response.status().code()))
+                .subscribe(status -> {
+                    if (status < 300) {
+                        batchesSent.increment();
+                        deltasSent.add(deltas);
+                        bytesSent.add(body.length);
+                        if (batch.full) {
+                            fullSyncsSent.increment();
+                        }
+                        peer.sent(System.nanoTime());
+                    } else {
+                        // 409 는 일련번호 불일치 (피어 재시작 등) 이므로 바로 전체 동기화, 그 밖의 오류는 heartbeatInterval 뒤에 재시도
+                        peer.failed("HTTP " + status, status != HttpResponseStatus.CONFLICT.code());
+                    }
+                    if (status < 300 && peer.hasBacklog()) {
+                        send(peer); // 나눠 보내는 중인 나머지 (inFlight 를 그대로 넘김)
+                    } else {
+                        peer.inFlight.set(false);
+                    }
+                }, error -> {
+                    sendFailures.increment();
+                    peer.failed(error.toString(), true);
+                    peer.inFlight.set(false);
+                });
+    }
+
+    private void expireNodes(long now) {
+        long timeoutNanos = proxyProperties.getCluster().getPeerTimeout().toNanos();
+        for (RemoteNode node : nodes.values()) {
+            if (now - node.lastSeenNanos > timeoutNanos) {
+                synchronized (node) {
+                    node.removed = true;
+                    node.clear(remoteSessions);
+                    nodes.remove(node.id, node);
+                }
+                eventLogger.event("PeerSessionDirectory", null, null, "노드 만료", node.id);
+            }
+        }
+    }
+
+    private static SessionRecord probe(String sessionId, String node) {
+        return new SessionRecord(sessionId, node, null, null, null, null, 0);
+    }
+
+    // 세션 종료 요청을 보낼 노드 주소, 설정된 피어 주소가 아니면 null
+    private String nodeUrl(String nodeId) {
+        RemoteNode node = nodes.get(nodeId);
+        String nodeUrl = node != null ? node.url : null;
+        return nodeUrl != null ? peerUrl(nodeUrl) : null;
+    }
+
+    // 설정된 피어 주소 중 url 과 같은 것 (없으면 null), 세션 종료 요청은 이 값으로만 보냄
+    private String peerUrl(String url) {
+        String trimmed = trimSlash(url);
+        for (Peer peer : peers) {
+            if (peer.url.equals(trimmed)) {
+                return peer.url;
+            }
+        }
+        return null;
+    }
+
+    private static String trimSlash(String value) {
+        return value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+    }
+
+    // 로컬 세션 등록(record) 또는 제거(record == null)
+    private static final class Delta {
+
+        final String sessionId;
+        final SessionRecord record;
+        // 피어 대기열 안에서 이어지는 제거와 상쇄할 수 있는지 (피어가 아직 이 세션을 모름)
+        final boolean cancellable;
+
+        Delta(String sessionId, SessionRecord record, boolean cancellable) {
+            this.sessionId = sessionId;
+            this.record = record;
+            this.cancellable = cancellable;
+        }
+    }
+
+    // 변경분을 받는 피어 하나 (대기열과 일련번호는 피어마다 따로 관리해서 한 피어의 장애가 다른 피어 전송을 막지 않음)
+    private final class Peer {
+
+        final String url;
+        private final Map<String, Delta> outbox = new LinkedHashMap<>(); // 키: 세션 ID, 같은 세션의 변경분은 마지막 것만
+        private final Deque<SessionRecord> syncing = new ArrayDeque<>(); // 전체 동기화 중 아직 보내지 않은 세션
+        private boolean needsFullSync = true; // 시작 직후에는 전체 세션을 먼저 보냄
+        // 전체 동기화 직후에는 스냅샷에 이미 담긴 세션의 등록이 뒤늦게 들어올 수 있으므로 한 번은 상쇄하지 않음
+        private boolean justSynced;
+        private long seq;
+        private long failures;
+        private int consecutiveFailures;
+        private String lastError;
+        final AtomicBoolean inFlight = new AtomicBoolean(); // 전송 중인 묶음이 있는지 (피어마다 하나씩만)
+        volatile long lastSentNanos = System.nanoTime();
+        volatile long retryAtNanos = System.nanoTime();
+
+        Peer(String url) {
+            this.url = url;
+        }
+
+        synchronized void offer(List<Delta> deltas) {
+            boolean allowCancel = !justSynced;
+            justSynced = false;
+            for (Delta delta : deltas) {
+                Delta previous = outbox.get(delta.sessionId);
+                if (delta.record != null) {
+                    boolean cancellable = previous != null
+                            ? previous.record != null && previous.cancellable
+                            : delta.cancellable && allowCancel;
+                    outbox.put(delta.sessionId, new Delta(delta.sessionId, delta.record, cancellable));
+                } else if (previous != null && previous.record != null && previous.cancellable) {
+                    outbox.remove(delta.sessionId);
+                } else {
+                    outbox.put(delta.sessionId, delta);
+                }
+            }
+            if (outbox.size() > MAX_OUTBOX_DELTAS) {
+                outbox.clear();
+                needsFullSync = true;
+            }
+        }
+
+        synchronized boolean hasBacklog() {
+            return needsFullSync || !syncing.isEmpty() || !outbox.isEmpty();
+        }
+
+        // 전체 동기화 > 동기화 나머지 > 대기열 순서로 최대 MAX_BATCH_DELTAS 개를 담은 묶음
+        synchronized SessionDeltaCodec.Batch nextBatch() {
+            boolean full = needsFullSync;
+            if (full) {
+                needsFullSync = false;
+                justSynced = true;
+                outbox.clear();
+                syncing.clear();
+                syncing.addAll(localSessions.values());
+            }
+            SessionDeltaCodec.Batch batch = new SessionDeltaCodec.Batch(nodeId, PeerSessionDirectory.this.url,
+                    incarnation, ++seq, full);
+            while (!syncing.isEmpty() && batch.added.size() < MAX_BATCH_DELTAS) {
+                batch.added.add(syncing.poll());
+            }
+            if (!syncing.isEmpty()) {
+                return batch;
+            }
+            Iterator<Delta> iterator = outbox.values().iterator();
+            while (iterator.hasNext() && batch.added.size() + batch.removed.size() < MAX_BATCH_DELTAS) {
+                Delta delta = iterator.next();
+                if (delta.record != null) {
+                    batch.added.add(delta.record);
+                } else {
+                    batch.removed.add(delta.sessionId);
+                }
+                iterator.remove();
+            }
+            return batch;
+        }
+
+        synchronized void sent(long now) {
+            lastSentNanos = now;
+            if (consecutiveFailures > 0) {
+                eventLogger.event("PeerSessionDirectory", null, null, "피어 전송 복구", url);
+                consecutiveFailures = 0;
+            }
+        }
+
+        // 피어가 묶음을 받았는지 알 수 없으므로 다음 번에 전체 세션을 다시 보냄
+        synchronized void failed(String error, boolean backoff) {
+            if (consecutiveFailures++ == 0) {
+                eventLogger.event("PeerSessionDirectory", null, null, "피어 전송 실패", url + " " + error);
+            }
+            failures++;
+            lastError = error;
+            if (backoff) {
+                retryAtNanos = System.nanoTime() + proxyProperties.getCluster().getHeartbeatInterval().toNanos();
+            }
+            needsFullSync = true;
+            syncing.clear();
+            outbox.clear();
+        }
+
+        synchronized Map<String, Object> snapshot() {
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("url", url);
+            snapshot.put("seq", seq);
+            snapshot.put("pendingDeltas", outbox.size() + syncing.size());
+            snapshot.put("needsFullSync", needsFullSync);
+            snapshot.put("failures", failures);
+            snapshot.put("lastError", lastError);
+            return snapshot;
+        }
+    }
+
+    // 변경분을 보내온 다른 노드 하나와 그 노드의 세션
+    private static final class RemoteNode {
+
+        final String id;
+        volatile String url;
+        long incarnation = Long.MIN_VALUE;
+        long seq;
+        volatile long lastSeenNanos = System.nanoTime();
+        boolean removed;
+        final Map<String, SessionRecord> sessions = new HashMap<>(); // 키: 세션 ID
+
+        RemoteNode(String id) {
+            this.id = id;
+        }
+
+        void clear(NavigableSet<SessionRecord> remoteSessions) {
+            for (SessionRecord record : sessions.values()) {
+                remoteSessions.remove(record);
+            }
+            sessions.clear();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.ycy.websocket;
+
+import java.util.Map;
+import java.util.Objects;
+
+import io.netty.channel.Channel;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.ContinuationWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtension;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionFilter;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionFilterProvider;
+import io.netty.util.AttributeKey;
+
+// 한 구간(채널)의 permessage-deflate 협상 결과와 압축 동작
+// 파이프라인의 디코더는 압축을 풀지 않고 그대로 올려보내며, 압축 해제 여부는 FrameRelay 가 반대편 구간을 보고 결정
+final class PerMessageDeflateLeg implements WebSocketExtensionFilterProvider {
+
+    private static final AttributeKey<PerMessageDeflateLeg> KEY = AttributeKey.valueOf("ws.proxy.deflateLeg");
+
+    private final int minSize;
+    private volatile Map<String, String> parameters;
+    private volatile WebSocketExtension inflatingExtension;
+    // true 면 이 구간으로 나가는 프레임을 압축하지 않음 (반대편에서 압축된 프레임을 그대로 전달하는 경우)
+    private volatile boolean encodeRaw;
+
+    private final WebSocketExtensionFilter encoderFilter = new WebSocketExtensionFilter() {
+        public boolean mustSkip(WebSocketFrame frame) {
+            // 압축 중인 분할 메시지의 continuation 프레임은 건너뛸 수 없음 (메시지 압축 여부는 첫 프레임이 정함)
+            return encodeRaw || (!(frame instanceof ContinuationWebSocketFrame)
+                    && frame.content().readableBytes() < minSize);
+        }
+    };
+
+    PerMessageDeflateLeg(int minSize) {
+        this.minSize = minSize;
+    }
+
+    // 협상이 끝난 구간만 반환 (확장을 제안하지 않았거나 거절된 경우 null)
+    static PerMessageDeflateLeg of(Channel channel) {
+        PerMessageDeflateLeg leg = channel != null ? channel.attr(KEY).get() : null;
+        return leg != null && leg.parameters != null ? leg : null;
+    }
+
+    void attach(Channel channel) {
+        channel.attr(KEY).set(this);
+    }
+
+    // inflatingExtension: 같은 협상 결과로 만든, 필터 없이 압축을 푸는 확장
+    void negotiated(Map<String, String> parameters, WebSocketExtension inflatingExtension) {
+        this.inflatingExtension = inflatingExtension;
+        this.parameters = parameters;
+    }
+
+    boolean sameParameters(PerMessageDeflateLeg other) {
+        return Objects.equals(parameters, other.parameters);
+    }
+
+    Map<String, String> getParameters() {
+        return parameters;
+    }
+
+    void encodeRaw() {
+        encodeRaw = true;
+    }
+
+    // 이 구간에서 받은 압축 프레임을 순서대로 푸는 디코더 (컨텍스트 유지를 위해 세션당 하나만 사용)
+    EmbeddedChannel newInflater() {
+        return new EmbeddedChannel(inflatingExtension.newExtensionDecoder());
+    }
+
+    @Override
+    public WebSocketExtensionFilter encoderFilter() {
+        return encoderFilter;
+    }
+
+    @Override
+    public WebSocketExtensionFilter decoderFilter() {
+        return WebSocketExtensionFilter.ALWAYS_SKIP;
+    }
+}
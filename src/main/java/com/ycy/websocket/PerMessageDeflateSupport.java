@@ -0,0 +1,160 @@
+package com.ycy.websocket;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.compression.ZlibCodecFactory;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketClientExtension;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketClientExtensionHandler;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketClientExtensionHandshaker;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionData;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketServerExtension;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketServerExtensionHandler;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketServerExtensionHandshaker;
+import io.netty.handler.codec.http.websocketx.extensions.compression.PerMessageDeflateClientExtensionHandshaker;
+import io.netty.handler.codec.http.websocketx.extensions.compression.PerMessageDeflateServerExtensionHandshaker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import org.springframework.web.reactive.socket.client.WebSocketClient;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.netty.Connection;
+import reactor.netty.NettyPipeline;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.client.WebsocketClientSpec;
+
+// 클라이언트 구간과 업스트림 구간에 각각 permessage-deflate 협상을 설치
+// Reactor Netty 의 compress 옵션은 압축 수준/윈도우 크기를 고정값으로 쓰므로, 같은 방식으로 확장 핸들러를 직접 설치함
+@Component
+public class PerMessageDeflateSupport {
+
+    @Autowired
+    private WebSocketClient webSocketClient;
+
+    // 키: 라우트 ID, 값: 업스트림 압축 설정이 적용된 클라이언트
+    private final Map<String, WebSocketClient> upstreamClients = new ConcurrentHashMap<>();
+
+    // 클라이언트 구간: 업그레이드 응답(101)을 쓰기 전에 호출해야 함
+    void negotiateClientLeg(ServerWebExchange exchange, WebSocketProxyProperties.DeflateProperties properties) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        ServerHttpRequest request = exchange.getRequest();
+        Object nativeRequest = ServerHttpRequestDecorator.getNativeRequest(request);
+        if (!(nativeRequest instanceof Connection)) {
+            return;
+        }
+        Channel channel = ((Connection) nativeRequest).channel();
+        ChannelPipeline pipeline = channel.pipeline();
+        if (pipeline.get(NettyPipeline.HttpCodec) == null) {
+            return;
+        }
+
+        PerMessageDeflateLeg leg = new PerMessageDeflateLeg(properties.getMinSize());
+        leg.attach(channel);
+        WebSocketServerExtensionHandler handler = new WebSocketServerExtensionHandler(
+                new NegotiatingServerHandshaker(properties, leg));
+        // 요청은 이미 읽혔으므로 확장 핸들러에 업그레이드 요청을 직접 전달해 제안된 확장을 협상시킴
+        DefaultHttpHeaders headers = new DefaultHttpHeaders();
+        request.getHeaders().forEach(headers::add);
+        try {
+            handler.channelRead(pipeline.context(NettyPipeline.ReactiveBridge),
+                    new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, request.getURI().toString(), headers));
+        } catch (Exception e) {
+            throw new IllegalStateException("permessage-deflate 협상 실패", e);
+        }
+        pipeline.addAfter(NettyPipeline.HttpCodec, NettyPipeline.WsCompressionHandler, handler);
+    }
+
+    // 업스트림 구간: 압축이 켜진 라우트는 핸드쉐이크 요청에 확장 핸들러를 붙이는 별도 클라이언트를 사용
+    WebSocketClient upstreamClient(String routeId, WebSocketProxyProperties.DeflateProperties properties) {
+        if (!properties.isEnabled() || !(webSocketClient instanceof ReactorNettyWebSocketClient)) {
+            return webSocketClient;
+        }
+        return upstreamClients.computeIfAbsent(routeId != null ? routeId : WebSocketRelayMetrics.DEFAULT_ROUTE,
+                key -> createUpstreamClient((ReactorNettyWebSocketClient) webSocketClient, properties));
+    }
+
+    private static WebSocketClient createUpstreamClient(ReactorNettyWebSocketClient base,
+            WebSocketProxyProperties.DeflateProperties properties) {
+        WebsocketClientSpec spec = base.getWebsocketClientSpec();
+        HttpClient httpClient = base.getHttpClient().doOnRequest((request, connection) -> {
+            PerMessageDeflateLeg leg = new PerMessageDeflateLeg(properties.getMinSize());
+            leg.attach(connection.channel());
+            connection.addHandlerFirst(NettyPipeline.WsCompressionHandler,
+                    new WebSocketClientExtensionHandler(new NegotiatingClientHandshaker(properties, leg)));
+        });
+        return new ReactorNettyWebSocketClient(httpClient, () -> WebsocketClientSpec.builder()
+                .handlePing(spec.handlePing())
+                .maxFramePayloadLength(spec.maxFramePayloadLength()));
+    }
+
+    // 협상 결과를 구간 정보에 기록하는 서버 쪽 핸드쉐이커
+    private static final class NegotiatingServerHandshaker implements WebSocketServerExtensionHandshaker {
+
+        private final PerMessageDeflateServerExtensionHandshaker delegate;
+        private final PerMessageDeflateServerExtensionHandshaker inflating;
+        private final PerMessageDeflateLeg leg;
+
+        NegotiatingServerHandshaker(WebSocketProxyProperties.DeflateProperties properties, PerMessageDeflateLeg leg) {
+            boolean windowSize = ZlibCodecFactory.isSupportingWindowSizeAndMemLevel();
+            this.delegate = new PerMessageDeflateServerExtensionHandshaker(properties.getCompressionLevel(),
+                    windowSize, properties.getClientMaxWindowBits(), properties.isServerNoContextTakeover(),
+                    properties.isClientNoContextTakeover(), leg);
+            this.inflating = new PerMessageDeflateServerExtensionHandshaker(properties.getCompressionLevel(),
+                    windowSize, properties.getClientMaxWindowBits(), properties.isServerNoContextTakeover(),
+                    properties.isClientNoContextTakeover());
+            this.leg = leg;
+        }
+
+        @Override
+        public WebSocketServerExtension handshakeExtension(WebSocketExtensionData extensionData) {
+            WebSocketServerExtension extension = delegate.handshakeExtension(extensionData);
+            if (extension != null) {
+                leg.negotiated(extension.newReponseData().parameters(), inflating.handshakeExtension(extensionData));
+            }
+            return extension;
+        }
+    }
+
+    // 협상 결과를 구간 정보에 기록하는 클라이언트 쪽 핸드쉐이커
+    private static final class NegotiatingClientHandshaker implements WebSocketClientExtensionHandshaker {
+
+        private final PerMessageDeflateClientExtensionHandshaker delegate;
+        private final PerMessageDeflateClientExtensionHandshaker inflating;
+        private final PerMessageDeflateLeg leg;
+
+        NegotiatingClientHandshaker(WebSocketProxyProperties.DeflateProperties properties, PerMessageDeflateLeg leg) {
+            boolean windowSize = ZlibCodecFactory.isSupportingWindowSizeAndMemLevel();
+            this.delegate = new PerMessageDeflateClientExtensionHandshaker(properties.getCompressionLevel(),
+                    windowSize, properties.getServerMaxWindowBits(), properties.isClientNoContextTakeover(),
+                    properties.isServerNoContextTakeover(), leg);
+            this.inflating = new PerMessageDeflateClientExtensionHandshaker(properties.getCompressionLevel(),
+                    windowSize, properties.getServerMaxWindowBits(), properties.isClientNoContextTakeover(),
+                    properties.isServerNoContextTakeover());
+            this.leg = leg;
+        }
+
+        @Override
+        public WebSocketExtensionData newRequestData() {
+            return delegate.newRequestData();
+        }
+
+        @Override
+        public WebSocketClientExtension handshakeExtension(WebSocketExtensionData extensionData) {
+            WebSocketClientExtension extension = delegate.handshakeExtension(extensionData);
+            if (extension != null) {
+                leg.negotiated(extensionData.parameters(), inflating.handshakeExtension(extensionData));
+            }
+            return extension;
+        }
+    }
+}
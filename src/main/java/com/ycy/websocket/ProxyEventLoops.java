@@ -0,0 +1,266 @@
+package com.ycy.websocket;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ReflectiveChannelFactory;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.epoll.EpollDomainSocketChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerDomainSocketChannel;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.channel.unix.DomainSocketChannel;
+import io.netty.channel.unix.ServerDomainSocketChannel;
+import io.netty.incubator.channel.uring.IOUring;
+import io.netty.incubator.channel.uring.IOUringDatagramChannel;
+import io.netty.incubator.channel.uring.IOUringEventLoopGroup;
+import io.netty.incubator.channel.uring.IOUringServerSocketChannel;
+import io.netty.incubator.channel.uring.IOUringSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.client.ReactorResourceFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.LoopResources;
+
+// 클라이언트 구간(게이트웨이 서버)과 업스트림 구간(게이트웨이 HttpClient, WebSocket 클라이언트 포함)의 이벤트 루프 구성
+// 서버와 HttpClient 에 같은 LoopResources 를 적용하고, 전송 계층은 io_uring / epoll / NIO 중 사용 가능한 것으로 고름
+// CLIENT_AFFINITY 면 업스트림 연결을 클라이언트 채널의 이벤트 루프에서 시작해 두 구간이 한 스레드에서 중계되도록 함
+@Component
+public class ProxyEventLoops implements HttpClientCustomizer {
+
+    private static final Log logger = LogFactory.getLog(ProxyEventLoops.class);
+
+    @Autowired
+    private WebSocketProxyProperties proxyProperties;
+
+    private WebSocketProxyProperties.UpstreamEventLoop upstream = WebSocketProxyProperties.UpstreamEventLoop.SHARED;
+    private Transport transport;
+    private ProxyLoopResources serverLoops; // 기본 설정이면 null (Reactor Netty 전역 이벤트 루프 사용)
+    private ProxyLoopResources upstreamLoops; // SHARED / CLIENT_AFFINITY 면 serverLoops 와 같음
+
+    @PostConstruct
+    public void init() {
+        WebSocketProxyProperties.EventLoopProperties properties = proxyProperties.getEventLoops();
+        if (properties.isDefault()) {
+            return;
+        }
+        upstream = properties.getUpstream();
+        transport = Transport.select(properties.getTransport());
+        int workerCount = properties.getWorkerCount() > 0
+                ? properties.getWorkerCount()
+                : LoopResources.DEFAULT_IO_WORKER_COUNT;
+        boolean colocate = upstream == WebSocketProxyProperties.UpstreamEventLoop.CLIENT_AFFINITY;
+        serverLoops = new ProxyLoopResources("ws-proxy", transport, workerCount, colocate);
+        if (upstream == WebSocketProxyProperties.UpstreamEventLoop.DEDICATED) {
+            int upstreamWorkerCount = properties.getUpstreamWorkerCount() > 0
+                    ? properties.getUpstreamWorkerCount()
+                    : workerCount;
+            upstreamLoops = new ProxyLoopResources("ws-upstream", transport, upstreamWorkerCount, false);
+        } else {
+            upstreamLoops = serverLoops;
+        }
+        logger.info("[ProxyEventLoops] transport=" + transport + " workers=" + workerCount + " upstream=" + upstream);
+    }
+
+    // 게이트웨이 서버 (클라이언트 구간)
+    // 내장 서버는 시작할 때 ReactorResourceFactory 의 LoopResources 로 runOn 하므로 (NettyServerCustomizer 보다 나중에 적용됨)
+    // 스프링 부트 기본 ReactorResourceFactory 대신 이 빈을 사용
+    @Bean
+    public ReactorResourceFactory reactorResourceFactory() {
+        ReactorResourceFactory factory = new ReactorResourceFactory();
+        if (serverLoops != null) {
+            factory.setUseGlobalResources(false);
+            factory.setLoopResources(serverLoops);
+        }
+        return factory;
+    }
+
+    // 게이트웨이 HttpClient (업스트림 구간)
+    @Override
+    public HttpClient customize(HttpClient client) {
+        return upstreamLoops != null ? client.runOn(upstreamLoops, transport != Transport.NIO) : client;
+    }
+
+    // CLIENT_AFFINITY 면 connect 를 클라이언트 채널의 이벤트 루프에서 구독
+    // 업스트림 쪽 이벤트 루프 그룹이 구독 스레드의 이벤트 루프를 고르므로 업스트림 채널도 같은 이벤트 루프에 배정됨
+    // 풀에 미리 연결된 업스트림 세션은 이미 이벤트 루프가 정해져 있으므로 적용되지 않음
+    <T> Mono<T> onClientEventLoop(WebSocketSession session, Mono<T> connect) {
+        if (upstream != WebSocketProxyProperties.UpstreamEventLoop.CLIENT_AFFINITY) {
+            return connect;
+        }
+        Channel channel = NettyWebSocketSessions.channel(session);
+        if (channel == null) {
+            return connect;
+        }
+        EventLoop eventLoop = channel.eventLoop();
+        return Mono.defer(() -> eventLoop.inEventLoop()
+                ? connect
+                : connect.subscribeOn(Schedulers.fromExecutor(eventLoop)));
+    }
+
+    // 두 세션의 채널이 같은 이벤트 루프에 있는지 여부 (Netty 기반 세션이 아니면 false)
+    static boolean sameEventLoop(WebSocketSession session, WebSocketSession proxySession) {
+        Channel client = NettyWebSocketSessions.channel(session);
+        Channel upstream = NettyWebSocketSessions.channel(proxySession);
+        return client != null && upstream != null && client.eventLoop() == upstream.eventLoop();
+    }
+
+    @PreDestroy
+    public void close() {
+        if (upstreamLoops != null && upstreamLoops != serverLoops) {
+            upstreamLoops.disposeLater().block(Duration.ofSeconds(5));
+        }
+        if (serverLoops != null) {
+            serverLoops.disposeLater().block(Duration.ofSeconds(5));
+        }
+    }
+
+    // 전송 계층별 이벤트 루프 그룹과 채널 타입
+    enum Transport {
+        IO_URING(Map.of(SocketChannel.class, IOUringSocketChannel.class,
+                ServerSocketChannel.class, IOUringServerSocketChannel.class,
+                DatagramChannel.class, IOUringDatagramChannel.class)),
+        EPOLL(Map.of(SocketChannel.class, EpollSocketChannel.class,
+                ServerSocketChannel.class, EpollServerSocketChannel.class,
+                DatagramChannel.class, EpollDatagramChannel.class,
+                DomainSocketChannel.class, EpollDomainSocketChannel.class,
+                ServerDomainSocketChannel.class, EpollServerDomainSocketChannel.class)),
+        NIO(Map.of(SocketChannel.class, NioSocketChannel.class,
+                ServerSocketChannel.class, NioServerSocketChannel.class,
+                DatagramChannel.class, NioDatagramChannel.class));
+
+        private final Map<Class<?>, Class<?>> channelClasses; // 키: 요청된 채널 타입, 값: 구현 클래스
+
+        Transport(Map<Class<?>, Class<?>> channelClasses) {
+            this.channelClasses = channelClasses;
+        }
+
+        // 요청한 전송 계층을 쓸 수 없으면 io_uring > epoll > NIO 순서로 다음 것을 사용
+        static Transport select(WebSocketProxyProperties.EventLoopTransport requested) {
+            boolean ioUring = requested == WebSocketProxyProperties.EventLoopTransport.IO_URING
+                    || requested == WebSocketProxyProperties.EventLoopTransport.AUTO;
+            if (ioUring) {
+                if (IOUring.isAvailable()) {
+                    return IO_URING;
+                }
+                warnUnavailable(requested, IOUring.unavailabilityCause());
+            }
+            if (ioUring || requested == WebSocketProxyProperties.EventLoopTransport.EPOLL) {
+                if (Epoll.isAvailable()) {
+                    return EPOLL;
+                }
+                warnUnavailable(requested, Epoll.unavailabilityCause());
+            }
+            return NIO;
+        }
+
+        private static void warnUnavailable(WebSocketProxyProperties.EventLoopTransport requested, Throwable cause) {
+            if (requested != WebSocketProxyProperties.EventLoopTransport.AUTO) {
+                logger.warn("[ProxyEventLoops] " + requested + " 전송 계층을 사용할 수 없어 다음 전송 계층으로 대체: "
+                        + cause);
+            }
+        }
+
+        EventLoopGroup newGroup(String prefix, int threads) {
+            DefaultThreadFactory threadFactory = new DefaultThreadFactory(
+                    prefix + "-" + name().toLowerCase().replace("_", ""), true);
+            switch (this) {
+                case IO_URING:
+                    return new IOUringEventLoopGroup(threads, threadFactory);
+                case EPOLL:
+                    return new EpollEventLoopGroup(threads, threadFactory);
+                default:
+                    return new NioEventLoopGroup(threads, threadFactory);
+            }
+        }
+
+        Class<?> channelClass(Class<?> channelType) {
+            Class<?> channelClass = channelClasses.get(channelType);
+            if (channelClass == null) {
+                throw new IllegalArgumentException(name() + " 전송 계층에서 지원하지 않는 채널 타입: " + channelType);
+            }
+            return channelClass;
+        }
+    }
+
+    // 전송 계층을 직접 고른 LoopResources
+    // Reactor Netty 기본 구현은 채널 타입을 전역 감지 결과(io_uring 우선)로 정하므로, 그룹과 채널 타입을 함께 지정
+    private static final class ProxyLoopResources implements LoopResources {
+
+        private final Transport transport;
+        private final EventLoopGroup workers;
+        private final EventLoopGroup clientGroup;
+
+        ProxyLoopResources(String prefix, Transport transport, int threads, boolean colocate) {
+            this.transport = transport;
+            this.workers = transport.newGroup(prefix, threads);
+            this.clientGroup = colocate ? LoopResources.colocate(workers) : workers;
+        }
+
+        @Override
+        public EventLoopGroup onServer(boolean useNative) {
+            return workers;
+        }
+
+        @Override
+        public EventLoopGroup onServerSelect(boolean useNative) {
+            return workers;
+        }
+
+        @Override
+        public EventLoopGroup onClient(boolean useNative) {
+            return clientGroup;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <CHANNEL extends Channel> Class<? extends CHANNEL> onChannelClass(Class<CHANNEL> channelType,
+                EventLoopGroup group) {
+            return (Class<? extends CHANNEL>) transport.channelClass(channelType);
+        }
+
+        @Override
+        public <CHANNEL extends Channel> CHANNEL onChannel(Class<CHANNEL> channelType, EventLoopGroup group) {
+            return new ReflectiveChannelFactory<>(onChannelClass(channelType, group)).newChannel();
+        }
+
+        @Override
+        public boolean daemon() {
+            return true;
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return workers.isShutdown();
+        }
+
+        @Override
+        public Mono<Void> disposeLater(Duration quietPeriod, Duration timeout) {
+            return Mono.create(sink -> workers.shutdownGracefully(quietPeriod.toMillis(), timeout.toMillis(),
+                    TimeUnit.MILLISECONDS).addListener(future -> sink.success()));
+        }
+    }
+}
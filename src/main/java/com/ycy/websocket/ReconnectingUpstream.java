@@ -0,0 +1,387 @@
+package com.ycy.websocket;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.ThreadLocalRandom;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PongWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import org.reactivestreams.Subscription;
+import org.springframework.web.reactive.socket.CloseStatus;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.netty.NettyPipeline;
+
+// 재연결 라우트에서 클라이언트 세션 하나의 업스트림 연결 상태와 클라이언트 프레임 버퍼
+// 클라이언트 프레임은 세션 동안 한 번만 구독하고, 연결된 업스트림이 있으면 그쪽 요청량만큼 넘기고 없으면 버퍼에 모음
+// 버퍼에는 수신한 Netty 프레임(풀링된 direct 버퍼)을 retain 한 채로 보관하므로 힙으로 복사하지 않음
+// 업스트림에 넘겼지만 아직 채널에 write 되지 않은 프레임은 참조를 하나 더 잡아 두었다가, 연결이 끊기면 버퍼 맨 앞에 되돌려
+// 다음 연결에서 다시 보냄 (이미 write 된 프레임은 전송 중에 연결이 끊기면 유실될 수 있음)
+final class ReconnectingUpstream extends BaseSubscriber<WebSocketFrame> {
+
+    private static final String CLOSE_WATCH_HANDLER = "ws.proxy.reconnectCloseWatch";
+
+    private static final CloseStatus BUFFER_OVERFLOW = CloseStatus.POLICY_VIOLATION.withReason("reconnect buffer full");
+
+    private static final CloseStatus UPSTREAM_UNAVAILABLE = CloseStatus.SERVER_ERROR.withReason("upstream unavailable");
+
+    private final WebSocketSession session;
+    private final String routeId;
+    private final WebSocketProxyProperties.ReconnectProperties properties;
+    private final WebSocketEventLogger eventLogger;
+    private final WebSocketRelayMetrics.RouteMetrics metrics;
+
+    // 아래 필드는 this 로 동기화 (클라이언트 이벤트 루프와 업스트림 이벤트 루프에서 모두 접근)
+    private final ArrayDeque<WebSocketFrame> pending = new ArrayDeque<>();
+    private final ArrayDeque<Unwritten> unwritten = new ArrayDeque<>(); // 넘긴 순서대로
+    private long pendingBytes;
+    private FluxSink<WebSocketFrame> current; // 연결된 업스트림으로 가는 프레임 (연결이 없으면 null)
+    private boolean paused; // 버퍼가 가득 차서 클라이언트 읽기를 멈춘 상태
+    private boolean done; // 클라이언트 입력이 끝났거나 세션이 정리됨
+    private boolean draining;
+    private boolean missed;
+
+    private volatile WebSocketSession upstream; // 현재 업스트림 세션 (연결이 없으면 null)
+    private volatile CloseStatus upstreamCloseStatus;
+    private volatile boolean connectedOnce;
+    private volatile boolean attemptConnected;
+    private volatile int failedAttempts;
+    // 클라이언트 세션이 닫히는 중이거나 닫힘 (게이트웨이가 닫은 경우 포함), 이후에는 재연결하지 않음
+    private volatile boolean clientClosing;
+
+    ReconnectingUpstream(WebSocketSession session, String routeId,
+            WebSocketProxyProperties.ReconnectProperties properties, WebSocketEventLogger eventLogger,
+            WebSocketRelayMetrics.RouteMetrics metrics) {
+        this.session = session;
+        this.routeId = routeId;
+        this.properties = properties;
+        this.eventLogger = eventLogger;
+        this.metrics = metrics;
+        Channel channel = NettyWebSocketSessions.channel(session);
+        if (channel != null) {
+            channel.pipeline().addBefore(NettyPipeline.ReactiveBridge, CLOSE_WATCH_HANDLER, new CloseWatch());
+        }
+    }
+
+    // 첫 업스트림 연결 직후 한 번 호출, 이후 클라이언트 프레임은 이 객체를 거쳐 업스트림으로 전달됨
+    void start(Flux<WebSocketFrame> clientFrames) {
+        clientFrames.subscribe(this);
+    }
+
+    // 업스트림 핸드쉐이크 성공
+    void connected(WebSocketSession proxySession) {
+        connectedOnce = true;
+        attemptConnected = true;
+        failedAttempts = 0;
+        upstreamCloseStatus = null;
+        upstream = proxySession;
+    }
+
+    // 업스트림 세션 종료, 재연결할 예정이면 true (false 면 호출자가 클라이언트까지 종료)
+    boolean upstreamClosed(CloseStatus status) {
+        upstream = null;
+        upstreamCloseStatus = status;
+        boolean reconnect = shouldReconnect();
+        if (reconnect) {
+            eventLogger.event("ReconnectingUpstream", routeId, session.getId(), "업스트림 끊김, 재연결 대기",
+                    status.getCode());
+        }
+        return reconnect;
+    }
+
+    // 재연결 시도 실패 (핸드쉐이크 전 오류), 연속 실패가 한도에 도달하면 클라이언트 세션 종료
+    void attemptFailed(Throwable error) {
+        metrics.recordReconnectFailure();
+        if (++failedAttempts >= properties.getMaxAttempts() && !clientClosing) {
+            metrics.recordReconnectGiveUp();
+            eventLogger.event("ReconnectingUpstream", routeId, session.getId(), "재연결 포기", error.toString());
+            session.close(UPSTREAM_UNAVAILABLE).subscribe();
+        }
+    }
+
+    // 재연결 시도 전 대기, 클라이언트 세션이 닫히면 바로 끝남
+    Mono<Void> backoff() {
+        attemptConnected = false;
+        long initial = properties.getInitialBackoff().toMillis();
+        long max = properties.getMaxBackoff().toMillis();
+        long delay = Math.min(max, initial << Math.min(failedAttempts, 20));
+        // 백엔드 재배포 직후 세션들이 한꺼번에 다시 연결하지 않도록 절반은 임의로 분산
+        delay = delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+        return Mono.delay(Duration.ofMillis(delay)).then().or(session.closeStatus().then());
+    }
+
+    boolean hasConnected() {
+        return connectedOnce;
+    }
+
+    // 이번 연결 시도에서 핸드쉐이크까지 끝났는지 여부
+    boolean isAttemptConnected() {
+        return attemptConnected;
+    }
+
+    boolean isClientClosing() {
+        return clientClosing;
+    }
+
+    WebSocketSession getUpstream() {
+        return upstream;
+    }
+
+    // 업스트림 세션이 끝난 뒤 다시 연결할지 여부
+    boolean shouldReconnect() {
+        CloseStatus status = upstreamCloseStatus;
+        return !clientClosing && status != null && failedAttempts < properties.getMaxAttempts()
+                && properties.getCloseCodes().contains(status.getCode());
+    }
+
+    // 업스트림 연결 하나에 보낼 클라이언트 프레임 (버퍼에 모인 프레임부터 순서대로)
+    // 구독이 끝나면 남은 프레임은 다음 업스트림 연결을 위해 버퍼에 그대로 남음
+    Flux<WebSocketFrame> frames() {
+        return Flux.create(sink -> {
+            synchronized (this) {
+                if (done) {
+                    sink.complete();
+                    return;
+                }
+                current = sink;
+            }
+            sink.onRequest(n -> {
+                synchronized (this) {
+                    drain();
+                }
+            });
+            sink.onDispose(() -> {
+                synchronized (this) {
+                    if (current == sink) {
+                        current = null;
+                    }
+                    requeueUnwritten();
+                }
+            });
+        });
+    }
+
+    // FrameRelay 의 flush predicate 에서 호출 (업스트림 채널에 write 했거나 느린 세션 정책으로 버림)
+    void settled(Object frame) {
+        synchronized (this) {
+            Iterator<Unwritten> iterator = unwritten.iterator();
+            while (iterator.hasNext()) {
+                Unwritten entry = iterator.next();
+                if (entry.frame == frame) {
+                    iterator.remove();
+                    entry.copy.release();
+                    return;
+                }
+            }
+        }
+    }
+
+    // 세션 정리, 클라이언트 구독을 끊고 버퍼에 남은 프레임을 release
+    void close() {
+        dispose();
+        synchronized (this) {
+            finish();
+        }
+    }
+
+    @Override
+    protected void hookOnSubscribe(Subscription subscription) {
+        subscription.request(1);
+    }
+
+    @Override
+    protected void hookOnNext(WebSocketFrame frame) {
+        synchronized (this) {
+            if (done) {
+                frame.release();
+                return;
+            }
+            // ping/pong 은 구간별 생존 확인이므로 업스트림이 없는 동안에는 모으지 않음
+            if (current == null && (frame instanceof PingWebSocketFrame || frame instanceof PongWebSocketFrame)) {
+                frame.release();
+                request(1);
+                return;
+            }
+            pending.offerLast(frame);
+            pendingBytes += frame.content().readableBytes();
+            drain();
+            if (pendingBytes <= properties.getBufferMaxBytes()) {
+                request(1);
+            } else if (current != null) {
+                // 업스트림이 연결돼 있으면 그쪽 요청을 기다림 (배압은 FrameRelay 가 업스트림 쪽에서 처리)
+                paused = true;
+            } else {
+                overflow();
+            }
+        }
+    }
+
+    @Override
+    protected void hookOnComplete() {
+        synchronized (this) {
+            finish();
+        }
+    }
+
+    // 클라이언트 연결이 닫혀서 생긴 오류가 아니면 클라이언트 프레임을 더 받을 수 없으므로 세션 종료
+    @Override
+    protected void hookOnError(Throwable throwable) {
+        synchronized (this) {
+            finish();
+        }
+        if (!clientClosing) {
+            eventLogger.event("ReconnectingUpstream", routeId, session.getId(), "클라이언트 수신 오류",
+                    throwable.toString());
+            session.close(CloseStatus.SERVER_ERROR).subscribe(null, error -> {
+            });
+        }
+    }
+
+    // 업스트림이 없는 동안 버퍼가 가득 참
+    private void overflow() {
+        metrics.recordReconnectBufferOverflow();
+        switch (properties.getOverflowPolicy()) {
+            case PAUSE:
+                paused = true;
+                break;
+            case DROP_OLDEST:
+                while (pendingBytes > properties.getBufferMaxBytes() && pending.size() > 1) {
+                    WebSocketFrame dropped = pending.pollFirst();
+                    pendingBytes -= dropped.content().readableBytes();
+                    metrics.recordDrop(FrameRelay.Direction.CLIENT_TO_SERVER, dropped.content().readableBytes());
+                    dropped.release();
+                }
+                request(1);
+                break;
+            default:
+                eventLogger.event("ReconnectingUpstream", routeId, session.getId(), "재연결 버퍼 초과",
+                        pendingBytes);
+                finish();
+                session.close(BUFFER_OVERFLOW).subscribe();
+        }
+    }
+
+    // this 로 동기화된 상태에서 호출, 업스트림이 요청한 만큼 버퍼의 프레임을 넘김
+    // sink.next 안에서 요청이 다시 들어올 수 있으므로 재진입하면 한 번 더 돌도록 표시만 함
+    private void drain() {
+        if (draining) {
+            missed = true;
+            return;
+        }
+        draining = true;
+        try {
+            do {
+                missed = false;
+                while (current != null && current.requestedFromDownstream() > 0 && !pending.isEmpty()) {
+                    WebSocketFrame frame = pending.pollFirst();
+                    pendingBytes -= frame.content().readableBytes();
+                    // next 안에서 바로 write 되어 settled 가 불릴 수 있으므로 먼저 기록
+                    unwritten.offerLast(new Unwritten(frame, frame.retainedDuplicate()));
+                    current.next(frame);
+                }
+            } while (missed);
+        } finally {
+            draining = false;
+        }
+        if (paused && !done && pendingBytes <= properties.getBufferMaxBytes()) {
+            paused = false;
+            request(1);
+        }
+    }
+
+    // this 로 동기화된 상태에서 호출, 업스트림 구독이 끝난 뒤 write 되지 않은 프레임을 순서대로 버퍼 맨 앞에 되돌림
+    // (원래 프레임은 sendObject 가 버리면서 release 하고, 되돌리는 것은 따로 잡아 둔 복제본)
+    private void requeueUnwritten() {
+        int requeued = 0;
+        Unwritten entry;
+        while ((entry = unwritten.pollLast()) != null) {
+            WebSocketFrame copy = entry.copy;
+            if (done || copy instanceof PingWebSocketFrame || copy instanceof PongWebSocketFrame) {
+                copy.release();
+                continue;
+            }
+            pending.offerFirst(copy);
+            pendingBytes += copy.content().readableBytes();
+            requeued++;
+        }
+        if (requeued > 0) {
+            metrics.recordReconnectRequeued(requeued);
+        }
+    }
+
+    // this 로 동기화된 상태에서 호출
+    private void finish() {
+        if (done) {
+            return;
+        }
+        done = true;
+        WebSocketFrame frame;
+        while ((frame = pending.pollFirst()) != null) {
+            frame.release();
+        }
+        Unwritten entry;
+        while ((entry = unwritten.pollFirst()) != null) {
+            entry.copy.release();
+        }
+        pendingBytes = 0;
+        if (current != null) {
+            current.complete();
+            current = null;
+        }
+    }
+
+    // 업스트림에 넘긴 프레임과, 아직 write 되지 않았을 때 되돌릴 복제본 (인덱스가 따로여서 write 중에 읽혀도 그대로)
+    private static final class Unwritten {
+
+        final WebSocketFrame frame;
+        final WebSocketFrame copy;
+
+        Unwritten(WebSocketFrame frame, WebSocketFrame copy) {
+            this.frame = frame;
+            this.copy = copy;
+        }
+    }
+
+    // 클라이언트 채널에 종료 프레임을 쓰거나 채널이 닫히는 시점을 표시
+    // 게이트웨이가 양쪽을 닫을 때 업스트림이 돌려준 종료 코드를 업스트림 장애로 오해해서 재연결하지 않도록 함
+    private final class CloseWatch extends ChannelDuplexHandler {
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            if (msg instanceof CloseWebSocketFrame) {
+                clientClosing = true;
+            }
+            ctx.write(msg, promise);
+        }
+
+        @Override
+        public void close(ChannelHandlerContext ctx, ChannelPromise promise) {
+            clientClosing = true;
+            ctx.close(promise);
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            if (msg instanceof CloseWebSocketFrame) {
+                clientClosing = true;
+            }
+            ctx.fireChannelRead(msg);
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) {
+            clientClosing = true;
+            ctx.fireChannelInactive();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.ycy.websocket;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+
+// redact-fields: JSON 텍스트 프레임에서 지정한 필드의 값을 replacement 로 바꿈 (인자: fields (쉼표 구분), replacement)
+// 필드 이름이 페이로드에 없는 프레임은 accepts 에서 걸러져 그대로 전달되고,
+// 바꾸는 경우에도 바꾸지 않는 구간은 복사하지 않고 원래 버퍼의 slice 로 이어 붙임 (중첩 객체 안의 같은 이름 필드도 바꿈)
+final class RedactFieldsTransformer implements FrameTransformer {
+
+    private final ByteBuf[] keys; // 따옴표를 포함한 필드 이름
+    private final ByteBuf replacement;
+
+    RedactFieldsTransformer(List<String> fields, String replacement) {
+        this.keys = new ByteBuf[fields.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = Unpooled.unreleasableBuffer(
+                    Unpooled.wrappedBuffer(("\"" + fields.get(i) + "\"").getBytes(StandardCharsets.UTF_8)));
+        }
+        this.replacement = InjectFieldTransformer.constant(replacement);
+    }
+
+    @Override
+    public boolean accepts(WebSocketFrame frame) {
+        if (!(frame instanceof TextWebSocketFrame)) {
+            return false;
+        }
+        // 따옴표 위치만 ByteBuf.indexOf 로 찾아서 키와 비교 (값 안의 긴 구간은 건너뜀)
+        ByteBuf content = frame.content();
+        int end = content.writerIndex();
+        int i = content.readerIndex();
+        while ((i = content.indexOf(i, end, (byte) '"')) >= 0) {
+            for (ByteBuf key : keys) {
+                if (JsonBytes.startsWith(content, i, key)) {
+                    return true;
+                }
+            }
+            i++;
+        }
+        return false;
+    }
+
+    @Override
+    public WebSocketFrame transform(WebSocketFrame frame) {
+        ByteBuf content = frame.content();
+        int end = content.writerIndex();
+        int copied = content.readerIndex();
+        CompositeByteBuf composite = null;
+        int i = copied;
+        // 문자열 단위로 건너뛰며 키 위치만 확인하므로 문자열 값 안에 같은 글자가 있어도 바꾸지 않음
+        while ((i = content.indexOf(i, end, (byte) '"')) >= 0) {
+            int stringEnd = JsonBytes.stringEnd(content, i);
+            if (stringEnd < 0) {
+                break;
+            }
+            int colon = JsonBytes.skipWhitespace(content, stringEnd);
+            if (colon < end && content.getByte(colon) == ':' && isKey(content, i, stringEnd)) {
+                int valueStart = JsonBytes.skipWhitespace(content, colon + 1);
+                int valueEnd = JsonBytes.valueEnd(content, valueStart);
+                if (valueEnd < 0) {
+                    break;
+                }
+                if (composite == null) {
+                    composite = content.alloc().compositeBuffer();
+                }
+                composite.addComponents(true, content.retainedSlice(copied, valueStart - copied),
+                        replacement.duplicate());
+                copied = valueEnd;
+                i = valueEnd;
+            } else {
+                i = stringEnd;
+            }
+        }
+        if (composite == null) {
+            // 필드 이름이 값으로만 나온 경우
+            return frame;
+        }
+        composite.addComponent(true, content.retainedSlice(copied, end - copied));
+        WebSocketFrame transformed = frame.replace(composite);
+        frame.release();
+        return transformed;
+    }
+
+    private boolean isKey(ByteBuf content, int start, int end) {
+        for (ByteBuf key : keys) {
+            if (end - start == key.readableBytes() && JsonBytes.startsWith(content, start, key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
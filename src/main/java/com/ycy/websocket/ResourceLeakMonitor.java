@@ -0,0 +1,233 @@
+package com.ycy.websocket;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufAllocatorMetric;
+import io.netty.buffer.ByteBufAllocatorMetricProvider;
+import io.netty.buffer.PoolArenaMetric;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.util.ResourceLeakDetector;
+import io.netty.util.ResourceLeakDetectorFactory;
+import io.netty.util.internal.PlatformDependent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+// 버퍼/세션 누수 점검
+// 열려 있는 세션(클라이언트 핸들러, 업스트림 연결)과 버퍼(Netty 할당기의 사용 중인 direct 버퍼)를 카운터로 보여주고,
+// 주기적으로 세션 레지스트리를 훑어 양쪽 연결이 이미 닫혔는데 남아 있는 항목을 보고
+// Netty 누수 감지기가 찾은 누수(release 없이 GC 된 버퍼) 수도 함께 집계
+@Component
+public class ResourceLeakMonitor {
+
+    private static final Log logger = LogFactory.getLog(ResourceLeakMonitor.class);
+
+    // Netty 누수 감지기가 보고한 누수 수 (감지기는 클래스 로딩 시점에 만들어지므로 전역으로 집계)
+    private static final LongAdder leakReports = new LongAdder();
+
+    @Autowired
+    private WebSocketSessionManager sessionManager;
+
+    @Autowired
+    private WebSocketRelayMetrics relayMetrics;
+
+    @Autowired
+    private WebSocketProxyProperties proxyProperties;
+
+    // 핸드쉐이크 중이거나 중계 중인 업스트림 연결 수
+    private final LongAdder openUpstreams = new LongAdder();
+    private final LongAdder reconciles = new LongAdder();
+    private final LongAdder staleReports = new LongAdder();
+    private volatile int staleEntries;
+
+    // 직전 점검에서 닫혀 있던 세션 ID / 이미 보고한 세션 ID (점검은 한 번에 하나만 실행)
+    private Set<String> closedLastPass = Collections.emptySet();
+    private Set<String> reportedLastPass = Collections.emptySet();
+
+    private Disposable reconciler;
+
+    // Netty 버퍼 클래스가 로딩되기 전(애플리케이션 시작 전)에 호출해야 버퍼 누수 감지기에 적용됨
+    public static void installLeakCounter() {
+        ResourceLeakDetectorFactory.setResourceLeakDetectorFactory(new CountingLeakDetectorFactory());
+    }
+
+    @PostConstruct
+    public void start() {
+        WebSocketProxyProperties.LeakCheckProperties leakCheck = proxyProperties.getLeakCheck();
+        if (leakCheck.isEnabled()) {
+            long interval = leakCheck.getInterval().toMillis();
+            reconciler = Schedulers.parallel().schedulePeriodically(this::reconcile, interval, interval,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (reconciler != null) {
+            reconciler.dispose();
+        }
+    }
+
+    // 업스트림 연결 하나의 수명(구독 ~ 종료)을 열린 업스트림 수에 반영
+    Mono<Void> trackUpstream(Mono<Void> connection) {
+        return connection.doOnSubscribe(subscription -> openUpstreams.increment())
+                .doFinally(signal -> openUpstreams.decrement());
+    }
+
+    // 레지스트리에서 닫힌 세션을 찾아 보고하고 현재 남아 있는 수를 반환
+    // 정상 종료 중인 세션이 걸리지 않도록 연속 두 번의 점검에서 닫혀 있던 항목만 보고
+    public synchronized int reconcile() {
+        boolean evict = proxyProperties.getLeakCheck().isEvictStale();
+        Set<String> closed = new HashSet<>();
+        Set<String> reported = new HashSet<>();
+        for (WebSocketSessionManager.SessionEntry entry : sessionManager.getEntries()) {
+            if (!isClosed(entry)) {
+                continue;
+            }
+            String sessionId = entry.getSessionId();
+            if (!closedLastPass.contains(sessionId)) {
+                closed.add(sessionId);
+                continue;
+            }
+            if (!reportedLastPass.contains(sessionId)) {
+                staleReports.increment();
+                logger.warn("[ResourceLeakMonitor] 닫힌 세션이 레지스트리에 남아 있음 route=" + entry.getRouteId()
+                        + " session=" + sessionId + " serverSession=" + entry.getServerSession().getId());
+            }
+            if (evict) {
+                sessionManager.removeSession(sessionId);
+            } else {
+                closed.add(sessionId);
+                reported.add(sessionId);
+            }
+        }
+        closedLastPass = closed;
+        reportedLastPass = reported;
+        staleEntries = reported.size();
+        reconciles.increment();
+        return reported.size();
+    }
+
+    // 재연결 라우트는 업스트림이 끊긴 동안에도 세션을 유지하므로 클라이언트 세션만 확인
+    private boolean isClosed(WebSocketSessionManager.SessionEntry entry) {
+        WebSocketSession serverSession = entry.getServerSession();
+        return !entry.getClientSession().isOpen()
+                || (!serverSession.isOpen()
+                        && !proxyProperties.getRoute(entry.getRouteId()).getReconnect().isEnabled());
+    }
+
+    public int getStaleEntries() {
+        return staleEntries;
+    }
+
+    public long getStaleReports() {
+        return staleReports.sum();
+    }
+
+    public long getLeakReports() {
+        return leakReports.sum();
+    }
+
+    public long getOpenUpstreams() {
+        return openUpstreams.sum();
+    }
+
+    // Netty 가 직접 집계하는 direct 메모리 (io.netty.maxDirectMemory 를 쓰지 않으면 할당기 기준 사용량)
+    public static long usedDirectMemory() {
+        long used = PlatformDependent.usedDirectMemory();
+        ByteBufAllocatorMetric metric = allocatorMetric();
+        return used >= 0 || metric == null ? used : metric.usedDirectMemory();
+    }
+
+    private static ByteBufAllocatorMetric allocatorMetric() {
+        ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+        return allocator instanceof ByteBufAllocatorMetricProvider
+                ? ((ByteBufAllocatorMetricProvider) allocator).metric()
+                : null;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("openClientSessions", relayMetrics.getOpenSessionCount());
+        snapshot.put("openUpstreams", openUpstreams.sum());
+        snapshot.put("registeredSessions", sessionManager.getSessionCount());
+        snapshot.put("staleEntries", staleEntries);
+        snapshot.put("staleReports", staleReports.sum());
+        snapshot.put("reconciles", reconciles.sum());
+        snapshot.put("usedDirectMemory", usedDirectMemory());
+        ByteBufAllocatorMetric metric = allocatorMetric();
+        if (metric != null) {
+            snapshot.put("allocatorDirectMemory", metric.usedDirectMemory());
+            snapshot.put("allocatorHeapMemory", metric.usedHeapMemory());
+        }
+        if (ByteBufAllocator.DEFAULT instanceof PooledByteBufAllocator) {
+            // 스레드 캐시에 돌려놓은 버퍼도 사용 중으로 집계되므로 0 이 아니라 일정한 값에 머무르는지를 봐야 함
+            long buffers = 0;
+            long bytes = 0;
+            for (PoolArenaMetric arena : ((PooledByteBufAllocator) ByteBufAllocator.DEFAULT).metric()
+                    .directArenas()) {
+                buffers += arena.numActiveAllocations();
+                bytes += arena.numActiveBytes();
+            }
+            snapshot.put("activeDirectBuffers", buffers);
+            snapshot.put("activeDirectBytes", bytes);
+        }
+        snapshot.put("leakDetectionLevel", ResourceLeakDetector.getLevel().name());
+        snapshot.put("leakReports", leakReports.sum());
+        return snapshot;
+    }
+
+    // 누수 보고를 세는 감지기를 만드는 팩토리 (로그 수준과 관계없이 집계하고, 로그는 Netty 기본 동작을 따름)
+    private static final class CountingLeakDetectorFactory extends ResourceLeakDetectorFactory {
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public <T> ResourceLeakDetector<T> newResourceLeakDetector(Class<T> resource, int samplingInterval,
+                long maxActive) {
+            return new CountingLeakDetector<>(resource, samplingInterval);
+        }
+
+        @Override
+        public <T> ResourceLeakDetector<T> newResourceLeakDetector(Class<T> resource, int samplingInterval) {
+            return new CountingLeakDetector<>(resource, samplingInterval);
+        }
+    }
+
+    private static final class CountingLeakDetector<T> extends ResourceLeakDetector<T> {
+
+        CountingLeakDetector(Class<?> resourceType, int samplingInterval) {
+            super(resourceType, samplingInterval);
+        }
+
+        @Override
+        protected boolean needReport() {
+            return true;
+        }
+
+        @Override
+        protected void reportTracedLeak(String resourceType, String records) {
+            leakReports.increment();
+            super.reportTracedLeak(resourceType, records);
+        }
+
+        @Override
+        protected void reportUntracedLeak(String resourceType) {
+            leakReports.increment();
+            super.reportUntracedLeak(resourceType);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.ycy.websocket;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// 같은 메시지를 여러 클라이언트 세션에 보내는 작업 하나
+// 페이로드는 direct 버퍼 하나에만 담고 세션마다 retainedDuplicate 로 참조만 공유 (세션별 복사 없음)
+// 대상 채널을 이벤트 루프별로 묶어서 루프마다 작업 하나로 쓰기를 제출하고, 쓰기 불가 상태인 채널은 건너뜀
+// 스트리밍 중계가 분할 메시지를 쓰는 중인 채널에는 그 메시지가 끝난 뒤에 씀
+final class SessionBroadcast {
+
+    private final ByteBuf content;
+    private final boolean binary;
+    private final Map<EventLoop, List<Channel>> targets = new HashMap<>();
+    private int targeted;
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder deferred = new LongAdder();
+
+    SessionBroadcast(byte[] payload, boolean binary) {
+        this.content = ByteBufAllocator.DEFAULT.directBuffer(payload.length).writeBytes(payload);
+        this.binary = binary;
+    }
+
+    void add(Channel channel) {
+        targeted++;
+        if (channel == null) {
+            skipped.increment();
+            return;
+        }
+        targets.computeIfAbsent(channel.eventLoop(), loop -> new ArrayList<>()).add(channel);
+    }
+
+    // 모든 이벤트 루프에서 쓰기를 마치면 결과 반환, 공유 버퍼의 원본 참조는 마지막에 release
+    Mono<Map<String, Object>> send() {
+        return Flux.fromIterable(targets.entrySet())
+                .flatMap(group -> submit(group.getKey(), group.getValue()))
+                .then(Mono.fromSupplier(this::result))
+                .doFinally(signal -> content.release());
+    }
+
+    private Mono<Void> submit(EventLoop loop, List<Channel> channels) {
+        return Mono.create(sink -> {
+            try {
+                loop.execute(() -> {
+                    for (Channel channel : channels) {
+                        write(channel);
+                    }
+                    sink.success();
+                });
+            } catch (RejectedExecutionException e) {
+                // 종료 중인 이벤트 루프
+                skipped.add(channels.size());
+                sink.success();
+            }
+        });
+    }
+
+    // 채널의 이벤트 루프에서 호출됨
+    private void write(Channel channel) {
+        if (!channel.isActive() || !channel.isWritable()) {
+            skipped.increment();
+            return;
+        }
+        WebSocketFrame frame = frame();
+        OutboundMessageBoundary boundary = OutboundMessageBoundary.of(channel);
+        if (boundary != null && boundary.deferIfMidMessage(frame)) {
+            deferred.increment();
+        } else {
+            channel.writeAndFlush(frame);
+        }
+        sent.increment();
+    }
+
+    private WebSocketFrame frame() {
+        ByteBuf shared = content.retainedDuplicate();
+        return binary ? new BinaryWebSocketFrame(shared) : new TextWebSocketFrame(shared);
+    }
+
+    private Map<String, Object> result() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("targeted", targeted);
+        result.put("sent", sent.sum());
+        result.put("skipped", skipped.sum());
+        result.put("deferred", deferred.sum());
+        result.put("eventLoops", targets.size());
+        result.put("payloadBytes", content.readableBytes());
+        return result;
+    }
+}
@@ -0,0 +1,161 @@
+package com.ycy.websocket;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// 피어 사이에 주고받는 세션 변경분 묶음의 바이너리 형식
+// 헤더: 버전, 노드 ID, 노드 주소, 기동 시각(incarnation), 피어별 일련번호, 전체 동기화 여부
+// 본문: 추가(갱신) 레코드 수 + 레코드, 제거 세션 ID 수 + 세션 ID
+// 라우트/원격 주소/서브 프로토콜/업스트림처럼 반복되는 문자열은 묶음 안에서 처음 한 번만 쓰고 이후에는 번호로 참조
+final class SessionDeltaCodec {
+
+    private static final int VERSION = 1;
+
+    // 문자열 참조: 0 = null, 1 = 새 문자열(이어서 UTF), 2 이상 = (값 - 2) 번째로 나온 문자열
+    private static final int NULL_STRING = 0;
+    private static final int NEW_STRING = 1;
+
+    private SessionDeltaCodec() {
+    }
+
+    static byte[] encode(Batch batch) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + batch.added.size() * 24 + batch.removed.size() * 12);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeUTF(batch.node);
+            out.writeUTF(batch.url);
+            out.writeLong(batch.incarnation);
+            out.writeLong(batch.seq);
+            out.writeBoolean(batch.full);
+            Map<String, Integer> table = new HashMap<>();
+            writeVarInt(out, batch.added.size());
+            for (SessionRecord record : batch.added) {
+                out.writeUTF(record.getSessionId());
+                writeString(out, table, record.getRouteId());
+                writeString(out, table, record.getRemoteAddress());
+                writeString(out, table, record.getSubProtocol());
+                writeString(out, table, record.getUpstream());
+                out.writeLong(record.getStartedAt());
+            }
+            writeVarInt(out, batch.removed.size());
+            for (String sessionId : batch.removed) {
+                out.writeUTF(sessionId);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    // 형식이 맞지 않으면 IllegalArgumentException
+    static Batch decode(byte[] body) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(body))) {
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("지원하지 않는 세션 변경분 버전: " + version);
+            }
+            Batch batch = new Batch(in.readUTF(), in.readUTF(), in.readLong(), in.readLong(), in.readBoolean());
+            List<String> table = new ArrayList<>();
+            int added = readVarInt(in);
+            for (int i = 0; i < added; i++) {
+                String sessionId = in.readUTF();
+                String routeId = readString(in, table);
+                String remoteAddress = readString(in, table);
+                String subProtocol = readString(in, table);
+                String upstream = readString(in, table);
+                batch.added.add(new SessionRecord(sessionId, batch.node, routeId, remoteAddress, subProtocol,
+                        upstream, in.readLong()));
+            }
+            int removed = readVarInt(in);
+            for (int i = 0; i < removed; i++) {
+                batch.removed.add(in.readUTF());
+            }
+            return batch;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("세션 변경분을 해석할 수 없음: " + e, e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, Map<String, Integer> table, String value)
+            throws IOException {
+        if (value == null) {
+            writeVarInt(out, NULL_STRING);
+            return;
+        }
+        Integer index = table.get(value);
+        if (index != null) {
+            writeVarInt(out, index + 2);
+            return;
+        }
+        table.put(value, table.size());
+        writeVarInt(out, NEW_STRING);
+        out.writeUTF(value);
+    }
+
+    private static String readString(DataInputStream in, List<String> table) throws IOException {
+        int reference = readVarInt(in);
+        if (reference == NULL_STRING) {
+            return null;
+        }
+        if (reference == NEW_STRING) {
+            String value = in.readUTF();
+            table.add(value);
+            return value;
+        }
+        if (reference - 2 >= table.size()) {
+            throw new IOException("잘못된 문자열 참조: " + reference);
+        }
+        return table.get(reference - 2);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (value < 0) {
+                    throw new IOException("잘못된 길이: " + value);
+                }
+                return value;
+            }
+        }
+        throw new IOException("varint 가 너무 김");
+    }
+
+    // 한 번에 보내는 변경분 묶음 (full 이면 보낸 노드의 세션 전체)
+    static final class Batch {
+
+        final String node;
+        final String url;
+        final long incarnation;
+        final long seq;
+        final boolean full;
+        final List<SessionRecord> added = new ArrayList<>();
+        final List<String> removed = new ArrayList<>();
+
+        Batch(String node, String url, long incarnation, long seq, boolean full) {
+            this.node = node;
+            this.url = url;
+            this.incarnation = incarnation;
+            this.seq = seq;
+            this.full = full;
+        }
+    }
+}
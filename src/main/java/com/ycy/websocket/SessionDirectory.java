@@ -0,0 +1,36 @@
+package com.ycy.websocket;
+
+import java.util.List;
+import java.util.Map;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// 여러 게이트웨이 노드의 세션이 어느 노드에 있는지 알려주는 클러스터 세션 디렉터리
+// 세션 관리자는 로컬 세션의 등록/제거만 알리고, 관리 API 는 로컬에 없는 세션을 디렉터리로 찾아 소유 노드로 보냄
+// 기본 구현은 피어끼리 직접 변경분을 주고받는 PeerSessionDirectory, 다른 저장소를 쓰려면 @Primary 빈으로 등록
+public interface SessionDirectory {
+
+    // 이 노드의 ID (세션 조회 응답의 node 값)
+    String localNode();
+
+    // 로컬 세션 등록 (같은 세션 ID 로 다시 호출하면 메타데이터 갱신)
+    void sessionAdded(SessionRecord record);
+
+    // 로컬 세션 제거
+    void sessionRemoved(String sessionId);
+
+    // 다른 노드에 있는 세션 ID 의 레코드 (세션 ID 가 노드 사이에 겹치면 여러 개)
+    List<SessionRecord> lookup(String sessionId);
+
+    // 다른 노드에 있는 세션 중 조건에 맞는 것을 after 이후부터 세션 ID 순으로 흘려보냄
+    Flux<SessionRecord> find(String routeId, String remoteAddress, String subProtocol, String after);
+
+    // 소유 노드에 세션 종료 요청, 소유 노드에 세션이 없으면 false
+    Mono<Boolean> close(SessionRecord record);
+
+    // 조건에 맞는 세션을 가진 다른 노드 모두에 일괄 종료 요청, 요청을 보낸 노드 수 반환
+    Mono<Long> closeAll(String routeId, String remoteAddress);
+
+    Map<String, Object> snapshot();
+}
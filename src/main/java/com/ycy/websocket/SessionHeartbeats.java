@@ -0,0 +1,168 @@
+package com.ycy.websocket;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PongWebSocketFrame;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.TimerTask;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.socket.CloseStatus;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import reactor.netty.NettyPipeline;
+
+// 게이트웨이가 양쪽 연결에 직접 ping 을 보내고, 응답 없는 연결(NAT 타임아웃, 사라진 모바일 클라이언트 등)을 정리
+// 세션마다 스케줄 작업을 두지 않고 HashedWheelTimer 하나에 구간별 다음 확인 시각만 등록 (등록/취소 O(1))
+// 확인 작업은 해당 연결의 이벤트 루프에서 실행되므로 마지막 수신 시각은 이벤트 루프 안에서만 읽고 씀
+@Component
+public class SessionHeartbeats {
+
+    private static final String HEARTBEAT_HANDLER = "ws.proxy.heartbeat";
+
+    // 게이트웨이가 보낸 ping 을 구분하는 페이로드 (이 페이로드의 pong 은 반대편으로 중계하지 않음)
+    private static final ByteBuf PING_PAYLOAD = Unpooled.unreleasableBuffer(
+            Unpooled.wrappedBuffer("ws.proxy.heartbeat".getBytes(StandardCharsets.US_ASCII)));
+
+    private static final CloseStatus IDLE_TIMEOUT = CloseStatus.GOING_AWAY.withReason("idle timeout");
+
+    @Autowired
+    private WebSocketEventLogger eventLogger;
+
+    // 100ms 틱, 512칸 (한 바퀴 약 51초)
+    private final HashedWheelTimer timer = new HashedWheelTimer(new DefaultThreadFactory("ws-heartbeat", true),
+            100, TimeUnit.MILLISECONDS, 512);
+
+    // 프록시 세션이 연결된 직후 호출, 라우트에서 하트비트가 꺼져 있으면 아무것도 하지 않음
+    void start(String routeId, WebSocketSession session, WebSocketSession proxySession,
+            WebSocketProxyProperties.HeartbeatProperties properties, WebSocketRelayMetrics.RouteMetrics metrics) {
+        startClient(routeId, session, () -> proxySession, properties, metrics);
+        startUpstream(routeId, session.getId(), proxySession, session, properties, metrics);
+    }
+
+    // 클라이언트 구간만 시작, upstream 은 클라이언트가 응답하지 않을 때 함께 닫을 현재 업스트림 세션 (없으면 null)
+    void startClient(String routeId, WebSocketSession session, Supplier<WebSocketSession> upstream,
+            WebSocketProxyProperties.HeartbeatProperties properties, WebSocketRelayMetrics.RouteMetrics metrics) {
+        Channel channel = NettyWebSocketSessions.channel(session);
+        if (properties.isEnabled() && channel != null) {
+            new Leg(routeId, session.getId(), channel, upstream, true, properties.getClientPingInterval().toNanos(),
+                    properties.getIdleTimeout().toNanos(), metrics).install();
+        }
+    }
+
+    // 업스트림 구간만 시작, client 가 null 이면 업스트림이 응답하지 않을 때 업스트림 연결만 닫음 (재연결 라우트)
+    void startUpstream(String routeId, String sessionId, WebSocketSession proxySession, WebSocketSession client,
+            WebSocketProxyProperties.HeartbeatProperties properties, WebSocketRelayMetrics.RouteMetrics metrics) {
+        Channel channel = NettyWebSocketSessions.channel(proxySession);
+        if (properties.isEnabled() && channel != null) {
+            new Leg(routeId, sessionId, channel, () -> client, false, properties.getUpstreamPingInterval().toNanos(),
+                    properties.getIdleTimeout().toNanos(), metrics).install();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        timer.stop();
+    }
+
+    // 한 구간(연결)의 하트비트
+    private final class Leg extends ChannelInboundHandlerAdapter implements TimerTask {
+
+        private final String routeId;
+        private final String sessionId;
+        private final Channel channel;
+        private final Supplier<WebSocketSession> peer; // 반대편 구간의 세션 (null 이면 이 구간만 닫음)
+        private final boolean clientLeg;
+        private final long intervalNanos;
+        private final long idleTimeoutNanos;
+        private final WebSocketRelayMetrics.RouteMetrics metrics;
+        private long lastReadAt = System.nanoTime(); // 이벤트 루프에서만 접근
+        private volatile Timeout timeout;
+
+        Leg(String routeId, String sessionId, Channel channel, Supplier<WebSocketSession> peer, boolean clientLeg,
+                long intervalNanos, long idleTimeoutNanos, WebSocketRelayMetrics.RouteMetrics metrics) {
+            this.routeId = routeId;
+            this.sessionId = sessionId;
+            this.channel = channel;
+            this.peer = peer;
+            this.clientLeg = clientLeg;
+            this.intervalNanos = intervalNanos;
+            this.idleTimeoutNanos = idleTimeoutNanos;
+            this.metrics = metrics;
+        }
+
+        // 핸들러보다 타이머를 먼저 등록해서 channelInactive 에서 항상 취소할 수 있도록 함
+        void install() {
+            timeout = timer.newTimeout(this, intervalNanos, TimeUnit.NANOSECONDS);
+            channel.pipeline().addBefore(NettyPipeline.ReactiveBridge, HEARTBEAT_HANDLER, this);
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            lastReadAt = System.nanoTime();
+            if (msg instanceof PongWebSocketFrame && PING_PAYLOAD.equals(((PongWebSocketFrame) msg).content())) {
+                ((PongWebSocketFrame) msg).release();
+                // 게이트웨이 pong 을 여기서 소비했으므로, autoRead 가 꺼진 채널이면 다음 읽기를 직접 요청
+                if (!ctx.channel().config().isAutoRead()) {
+                    ctx.read();
+                }
+                return;
+            }
+            ctx.fireChannelRead(msg);
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) {
+            timeout.cancel();
+            ctx.fireChannelInactive();
+        }
+
+        // 타이머 스레드에서 호출, 확인은 연결의 이벤트 루프로 넘김
+        @Override
+        public void run(Timeout timeout) {
+            if (channel.isActive()) {
+                channel.eventLoop().execute(this::check);
+            }
+        }
+
+        private void check() {
+            if (!channel.isActive()) {
+                return;
+            }
+            long idle = System.nanoTime() - lastReadAt;
+            if (idle >= idleTimeoutNanos) {
+                expire();
+                return;
+            }
+            if (idle >= intervalNanos) {
+                channel.writeAndFlush(new PingWebSocketFrame(PING_PAYLOAD.duplicate()));
+                metrics.recordPing(clientLeg);
+            }
+            timeout = timer.newTimeout(this, Math.min(intervalNanos, idleTimeoutNanos - idle),
+                    TimeUnit.NANOSECONDS);
+        }
+
+        // 응답 없는 연결은 종료 핸드쉐이크 없이 닫고, 반대편 세션은 1001 로 정상 종료
+        // 반대편을 먼저 닫아서 종료 전파가 1006 기반의 엉뚱한 코드를 보내지 않도록 함
+        private void expire() {
+            metrics.recordIdleClose(clientLeg);
+            eventLogger.event("SessionHeartbeats", routeId, sessionId, "응답 없는 연결 종료",
+                    clientLeg ? "클라이언트" : "업스트림");
+            WebSocketSession peerSession = peer.get();
+            if (peerSession != null) {
+                peerSession.close(IDLE_TIMEOUT).subscribe();
+            }
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.ycy.websocket;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// 세션 디렉터리에 올라가는 세션 하나의 메타데이터 (연결 객체 없이 어느 노드에 있는지와 조회 조건만 보관)
+public final class SessionRecord {
+
+    private final String sessionId;
+    private final String node;
+    private final String routeId;
+    private final String remoteAddress;
+    private final String subProtocol;
+    private final String upstream;
+    private final long startedAt;
+
+    public SessionRecord(String sessionId, String node, String routeId, String remoteAddress, String subProtocol,
+            String upstream, long startedAt) {
+        this.sessionId = sessionId;
+        this.node = node;
+        this.routeId = routeId;
+        this.remoteAddress = remoteAddress;
+        this.subProtocol = subProtocol;
+        this.upstream = upstream;
+        this.startedAt = startedAt;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public String getNode() {
+        return node;
+    }
+
+    public String getRouteId() {
+        return routeId;
+    }
+
+    public String getRemoteAddress() {
+        return remoteAddress;
+    }
+
+    public String getSubProtocol() {
+        return subProtocol;
+    }
+
+    public String getUpstream() {
+        return upstream;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public boolean matches(String routeId, String remoteAddress, String subProtocol) {
+        return (routeId == null || routeId.equals(this.routeId))
+                && (remoteAddress == null || remoteAddress.equals(this.remoteAddress))
+                && (subProtocol == null || subProtocol.equals(this.subProtocol));
+    }
+
+    // 세션 조회 API 응답 형식 (로컬 세션의 SessionEntry.snapshot 과 같은 키와 순서)
+    // 업스트림 쪽 세션 ID 는 노드 간에 주고받지 않으므로 serverSessionId 는 null
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("sessionId", sessionId);
+        snapshot.put("serverSessionId", null);
+        snapshot.put("routeId", routeId);
+        snapshot.put("remoteAddress", remoteAddress);
+        snapshot.put("subProtocol", subProtocol);
+        snapshot.put("upstream", upstream);
+        snapshot.put("startedAt", startedAt);
+        snapshot.put("node", node);
+        return snapshot;
+    }
+}
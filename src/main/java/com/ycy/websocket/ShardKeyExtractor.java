@@ -0,0 +1,43 @@
+package com.ycy.websocket;
+
+import io.netty.buffer.ByteBuf;
+
+// 샤딩 라우트에서 데이터 프레임 페이로드 안의 샤드 키 위치를 찾음
+// 모든 클라이언트 프레임에 대해 호출되므로 페이로드를 문자열로 바꾸거나 전체를 파싱하지 않고 필요한 바이트만 훑어야 함
+interface ShardKeyExtractor {
+
+    // 키가 없는 프레임
+    long NO_KEY = -1;
+
+    // 키의 위치를 range(시작 인덱스, 길이) 로 반환, 키가 없으면 NO_KEY (payload 의 인덱스는 바꾸지 않음)
+    long find(ByteBuf payload);
+
+    static long range(int start, int length) {
+        return ((long) start << 32) | length;
+    }
+
+    static int start(long range) {
+        return (int) (range >>> 32);
+    }
+
+    static int length(long range) {
+        return (int) range;
+    }
+
+    // 설정 값(json:필드이름, stomp:헤더이름)으로 추출기 생성
+    static ShardKeyExtractor of(String spec) {
+        int separator = spec.indexOf(':');
+        String name = separator < 0 ? "" : spec.substring(separator + 1);
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("샤드 키 설정 " + spec + " 에 이름이 없습니다");
+        }
+        switch (spec.substring(0, separator)) {
+            case "json":
+                return new JsonFieldShardKey(name);
+            case "stomp":
+                return new StompHeaderShardKey(name);
+            default:
+                throw new IllegalArgumentException("지원하지 않는 샤드 키 설정입니다: " + spec);
+        }
+    }
+}
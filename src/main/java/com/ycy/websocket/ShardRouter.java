@@ -0,0 +1,122 @@
+package com.ycy.websocket;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.netty.buffer.ByteBuf;
+
+// 샤딩 라우트의 샤드 목록, 해시 링, 서브 프로토콜별 키 추출기 (라우트마다 핸드쉐이크 템플릿을 만들 때 한 번)
+// 링은 정렬된 배열로 두어 프레임마다 박싱이나 TreeMap 조회 없이 이진 탐색으로 샤드를 찾음
+final class ShardRouter {
+
+    private final List<URI> shards;
+    private final WebSocketProxyProperties.UnkeyedFramePolicy unkeyedFrames;
+    private final ShardKeyExtractor defaultExtractor;
+    private final Map<String, ShardKeyExtractor> protocolExtractors = new HashMap<>(); // 키: 서브 프로토콜
+    // 링: 가상 노드 해시 오름차순, 같은 위치의 ringShards 가 그 가상 노드의 샤드 번호
+    private final long[] ringHashes;
+    private final int[] ringShards;
+    private final LongAdder[] routed; // 샤드별로 보낸 키 있는 프레임 수
+    private final LongAdder unkeyed = new LongAdder();
+
+    ShardRouter(WebSocketProxyProperties.ShardingProperties properties) {
+        if (properties.getShards().isEmpty()) {
+            throw new IllegalArgumentException("샤딩 라우트에 shards 가 없습니다");
+        }
+        this.shards = List.copyOf(properties.getShards());
+        this.unkeyedFrames = properties.getUnkeyedFrames();
+        this.defaultExtractor = ShardKeyExtractor.of(properties.getKey());
+        properties.getProtocolKeys().forEach((protocol, key) -> protocolExtractors.put(protocol,
+                ShardKeyExtractor.of(key)));
+        // 가상 노드 이름은 샤드 주소로 정하므로 shards 순서가 바뀌어도 키 배정은 같음
+        TreeMap<Long, Integer> ring = new TreeMap<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            for (int i = 0; i < properties.getVirtualNodes(); i++) {
+                ring.put(UpstreamBalancer.hash(shards.get(shard).getRawAuthority() + "#" + i), shard);
+            }
+        }
+        this.ringHashes = new long[ring.size()];
+        this.ringShards = new int[ring.size()];
+        int index = 0;
+        for (Map.Entry<Long, Integer> entry : ring.entrySet()) {
+            ringHashes[index] = entry.getKey();
+            ringShards[index] = entry.getValue();
+            index++;
+        }
+        this.routed = new LongAdder[shards.size()];
+        for (int shard = 0; shard < routed.length; shard++) {
+            routed[shard] = new LongAdder();
+        }
+    }
+
+    int size() {
+        return shards.size();
+    }
+
+    WebSocketProxyProperties.UnkeyedFramePolicy getUnkeyedFrames() {
+        return unkeyedFrames;
+    }
+
+    // 클라이언트가 요청한 서브 프로토콜 순서대로 처음 설정된 키 추출기, 없으면 기본 추출기
+    ShardKeyExtractor extractor(List<String> protocols) {
+        for (String protocol : protocols) {
+            ShardKeyExtractor extractor = protocolExtractors.get(protocol);
+            if (extractor != null) {
+                return extractor;
+            }
+        }
+        return defaultExtractor;
+    }
+
+    // 요청 URL 의 스킴/호스트/포트를 샤드 주소로 바꾼 URL
+    URI resolve(int shard, URI requestUrl) {
+        return UpstreamBalancer.resolve(shards.get(shard), requestUrl);
+    }
+
+    // 데이터 프레임 페이로드의 키가 배정된 샤드 번호, 키가 없으면 -1
+    int shardOf(ByteBuf payload, ShardKeyExtractor extractor) {
+        long range = extractor.find(payload);
+        if (range == ShardKeyExtractor.NO_KEY) {
+            unkeyed.increment();
+            return -1;
+        }
+        int shard = onRing(UpstreamBalancer.hash(payload, ShardKeyExtractor.start(range),
+                ShardKeyExtractor.length(range)));
+        routed[shard].increment();
+        return shard;
+    }
+
+    // 해시 이후 첫 번째 가상 노드의 샤드 (링 끝을 넘으면 처음으로)
+    int onRing(long hash) {
+        int low = 0;
+        int high = ringHashes.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ringHashes[mid] < hash) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return ringShards[low == ringHashes.length ? 0 : low];
+    }
+
+    // 샤드별로 보낸 키 있는 프레임 수와 키가 없는 프레임 수
+    Map<String, Object> snapshot(String routeId) {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("routeId", routeId);
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            counts.put(shards.get(shard).toString(), routed[shard].sum());
+        }
+        snapshot.put("routed", counts);
+        snapshot.put("unkeyed", unkeyed.sum());
+        snapshot.put("unkeyedFrames", unkeyedFrames);
+        return snapshot;
+    }
+}
@@ -0,0 +1,281 @@
+package com.ycy.websocket;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PongWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import org.reactivestreams.Subscription;
+import org.springframework.web.reactive.socket.CloseStatus;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+// 샤딩 라우트에서 클라이언트 세션 하나의 샤드별 업스트림 세션과 클라이언트 프레임 분배
+// 클라이언트 프레임은 세션 동안 한 번만 구독하고, 프레임마다 키로 고른 샤드의 전송 스트림으로 넘김 (복사 없이 프레임 그대로)
+// 클라이언트에는 모든 샤드 전송 스트림의 남은 요청량 중 가장 작은 만큼만 요청하므로
+// 한 샤드라도 따라오지 못하면 클라이언트 읽기가 멈춤
+// 샤드가 보낸 ping 은 클라이언트에 전달하고, 클라이언트의 pong 은 ping 을 보낸 샤드로 순서대로 돌려줌
+final class ShardedUpstreams extends BaseSubscriber<WebSocketFrame> {
+
+    private static final int MAX_PENDING_PINGS = 16;
+
+    private final WebSocketSession session;
+    private final ShardRouter router;
+    private final ShardKeyExtractor extractor;
+    private final WebSocketSession[] upstreams;
+    private final AtomicInteger connectedCount = new AtomicInteger();
+    private final AtomicBoolean closing = new AtomicBoolean();
+    private volatile boolean started;
+    // 모든 샤드가 연결됐거나, 그 전에 세션이 닫히기 시작함
+    private final Sinks.Empty<Void> ready = Sinks.empty();
+    // 세션 중계가 끝남, 샤드 업스트림 핸들러는 이때까지 연결을 유지
+    private final Sinks.Empty<Void> done = Sinks.empty();
+
+    // 아래 다섯 필드는 this 로 동기화 (클라이언트 이벤트 루프와 샤드 이벤트 루프에서 모두 접근)
+    private final List<FluxSink<WebSocketFrame>> sinks; // 샤드 순서, 전송이 구독되기 전에는 null
+    private Flux<WebSocketFrame> clientFrames;
+    private boolean subscribed;
+    private long outstanding; // 클라이언트에 요청했지만 아직 받지 못한 프레임 수
+    // 클라이언트에 전달한 ping 을 보낸 샤드 (오래된 것부터, 클라이언트가 응답하지 않아도 쌓이지 않도록 최근 것만 유지)
+    private final ArrayDeque<Integer> pingShards = new ArrayDeque<>();
+
+    ShardedUpstreams(WebSocketSession session, ShardRouter router, ShardKeyExtractor extractor) {
+        this.session = session;
+        this.router = router;
+        this.extractor = extractor;
+        this.upstreams = new WebSocketSession[router.size()];
+        this.sinks = new ArrayList<>(Collections.nCopies(router.size(), null));
+    }
+
+    int size() {
+        return upstreams.length;
+    }
+
+    WebSocketSession upstream(int shard) {
+        return upstreams[shard];
+    }
+
+    List<String> upstreamIds() {
+        List<String> ids = new ArrayList<>(upstreams.length);
+        for (WebSocketSession upstream : upstreams) {
+            ids.add(upstream.getId());
+        }
+        return ids;
+    }
+
+    // 샤드 업스트림 핸드쉐이크 성공, 세션이 이미 닫히는 중이면 바로 종료
+    void connected(int shard, WebSocketSession upstream) {
+        upstreams[shard] = upstream;
+        if (closing.get()) {
+            closeQuietly(upstream, CloseStatus.GOING_AWAY);
+        }
+        if (connectedCount.incrementAndGet() == upstreams.length) {
+            ready.tryEmitEmpty();
+        }
+    }
+
+    Mono<Void> ready() {
+        return ready.asMono();
+    }
+
+    Mono<Void> done() {
+        return done.asMono();
+    }
+
+    // 모든 샤드가 연결되고 세션이 아직 열려 있으면 중계 시작으로 표시 (이후 세션 등록 해제가 필요)
+    boolean start() {
+        if (connectedCount.get() == upstreams.length && !closing.get()) {
+            started = true;
+        }
+        return started;
+    }
+
+    boolean isStarted() {
+        return started;
+    }
+
+    // 샤드 shard 로 보낼 클라이언트 프레임 (샤드 전송마다 한 번만 구독)
+    Flux<WebSocketFrame> frames(int shard) {
+        return Flux.create(sink -> {
+            synchronized (this) {
+                sinks.set(shard, sink);
+            }
+            sink.onRequest(n -> drain());
+            sink.onCancel(this::drain);
+            drain();
+        });
+    }
+
+    // 샤드 shard 에서 클라이언트로 가는 프레임, ping 을 보낸 샤드를 기록
+    Flux<WebSocketFrame> fromShard(int shard, Flux<WebSocketFrame> frames) {
+        return frames.doOnNext(frame -> {
+            if (frame instanceof PingWebSocketFrame) {
+                synchronized (this) {
+                    if (pingShards.size() == MAX_PENDING_PINGS) {
+                        pingShards.pollFirst();
+                    }
+                    pingShards.offerLast(shard);
+                }
+            }
+        });
+    }
+
+    // 분배할 클라이언트 프레임, 모든 샤드 전송 스트림이 구독된 뒤에 구독함
+    void distribute(Flux<WebSocketFrame> frames) {
+        synchronized (this) {
+            clientFrames = frames;
+        }
+        drain();
+    }
+
+    // 클라이언트 종료를 모든 샤드에 전달, 이미 한쪽 종료를 전달했으면 false
+    boolean clientClosed(CloseStatus status) {
+        if (!closing.compareAndSet(false, true)) {
+            return false;
+        }
+        for (WebSocketSession upstream : upstreams) {
+            closeQuietly(upstream, status);
+        }
+        ready.tryEmitEmpty();
+        return true;
+    }
+
+    // 샤드 하나의 종료를 클라이언트와 나머지 샤드에 전달, 이미 한쪽 종료를 전달했으면 false
+    boolean upstreamClosed(int shard, CloseStatus status) {
+        if (!closing.compareAndSet(false, true)) {
+            return false;
+        }
+        closeQuietly(session, status);
+        for (int i = 0; i < upstreams.length; i++) {
+            if (i != shard) {
+                closeQuietly(upstreams[i], status);
+            }
+        }
+        ready.tryEmitEmpty();
+        return true;
+    }
+
+    // 세션 중계 종료, 클라이언트 프레임 구독을 끊고 샤드 업스트림 핸들러를 끝냄
+    void finish() {
+        dispose();
+        ready.tryEmitEmpty();
+        done.tryEmitEmpty();
+    }
+
+    @Override
+    protected void hookOnSubscribe(Subscription subscription) {
+        drain();
+    }
+
+    @Override
+    protected void hookOnNext(WebSocketFrame frame) {
+        Integer pingShard = null;
+        synchronized (this) {
+            outstanding--;
+            if (frame instanceof PongWebSocketFrame) {
+                pingShard = pingShards.pollFirst();
+            }
+        }
+        if (pingShard != null) {
+            emit(pingShard, frame);
+        } else if (!(frame instanceof TextWebSocketFrame) && !(frame instanceof BinaryWebSocketFrame)) {
+            // 클라이언트가 먼저 보낸 ping 과 응답할 ping 이 없는 pong 은 샤드마다 응답하지 않도록 첫 번째 샤드로만
+            emit(0, frame);
+        } else {
+            int shard = router.shardOf(frame.content(), extractor);
+            if (shard >= 0) {
+                emit(shard, frame);
+            } else if (router.getUnkeyedFrames() == WebSocketProxyProperties.UnkeyedFramePolicy.ALL_SHARDS) {
+                // 샤드마다 다른 채널에 쓰므로 인덱스를 따로 갖는 duplicate 로 넘김
+                for (int i = 1; i < sinks.size(); i++) {
+                    emit(i, frame.retainedDuplicate());
+                }
+                emit(0, frame);
+            } else {
+                emit(0, frame);
+            }
+        }
+        drain();
+    }
+
+    @Override
+    protected void hookOnComplete() {
+        for (FluxSink<WebSocketFrame> sink : sinks) {
+            sink.complete();
+        }
+    }
+
+    @Override
+    protected void hookOnError(Throwable error) {
+        for (FluxSink<WebSocketFrame> sink : sinks) {
+            sink.error(error);
+        }
+    }
+
+    // 요청량이 있는 샤드로만 보내므로 전송 스트림에 쌓이지 않음, 이미 끝난 샤드로 가는 프레임은 여기서 release
+    private void emit(int shard, WebSocketFrame frame) {
+        FluxSink<WebSocketFrame> sink = sinks.get(shard);
+        if (sink.isCancelled()) {
+            frame.release();
+        } else {
+            sink.next(frame);
+        }
+    }
+
+    // 모든 샤드 전송 스트림이 구독되면 클라이언트 프레임을 구독하고,
+    // 이후에는 남은 요청량의 최솟값까지 클라이언트에 요청 (키 있는 프레임은 샤드 하나, 키 없는 프레임은 모든 샤드의 요청량을 씀)
+    private void drain() {
+        boolean subscribe = false;
+        long n = 0;
+        synchronized (this) {
+            if (clientFrames == null || isDisposed()) {
+                return;
+            }
+            boolean open = false;
+            long min = Long.MAX_VALUE;
+            for (FluxSink<WebSocketFrame> sink : sinks) {
+                if (sink == null) {
+                    return;
+                }
+                if (!sink.isCancelled()) {
+                    open = true;
+                    min = Math.min(min, sink.requestedFromDownstream());
+                }
+            }
+            if (!open) {
+                return;
+            }
+            if (!subscribed) {
+                subscribed = true;
+                subscribe = true;
+            } else if (upstream() != null && min > outstanding) {
+                n = min - outstanding;
+                outstanding = min;
+            }
+        }
+        if (subscribe) {
+            clientFrames.subscribe(this);
+        } else if (n > 0) {
+            request(n);
+        }
+    }
+
+    private static void closeQuietly(WebSocketSession target, CloseStatus status) {
+        if (target != null && target.isOpen()) {
+            target.close(status).subscribe(null, error -> {
+                // 이미 끊긴 연결에 종료 프레임 쓰기 실패는 무시
+            });
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.ycy.websocket;
+
+import java.nio.charset.StandardCharsets;
+
+import io.netty.buffer.ByteBuf;
+
+// stomp:헤더이름 - STOMP 프레임 헤더 값을 샤드 키로 사용 (예: stomp:destination)
+// 명령 줄 다음의 헤더 줄만 훑고 빈 줄(본문 시작)에서 멈춤, 같은 헤더가 여러 번 있으면 STOMP 규칙대로 첫 번째 값을 사용
+// 헤더 값의 이스케이프(\c, \n 등)는 풀지 않음
+final class StompHeaderShardKey implements ShardKeyExtractor {
+
+    private final byte[] prefix; // "헤더이름:"
+
+    StompHeaderShardKey(String header) {
+        this.prefix = (header + ":").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public long find(ByteBuf payload) {
+        int end = payload.writerIndex();
+        int i = payload.readerIndex();
+        // 프레임 앞의 하트비트 줄바꿈은 건너뜀 (줄바꿈만 있는 프레임은 키 없음)
+        while (i < end && (payload.getByte(i) == '\n' || payload.getByte(i) == '\r')) {
+            i++;
+        }
+        int lineEnd = payload.indexOf(i, end, (byte) '\n');
+        while (lineEnd >= 0) {
+            i = lineEnd + 1;
+            lineEnd = payload.indexOf(i, end, (byte) '\n');
+            if (lineEnd < 0) {
+                return NO_KEY;
+            }
+            int valueEnd = lineEnd > i && payload.getByte(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+            if (valueEnd == i) {
+                return NO_KEY;
+            }
+            if (valueEnd - i >= prefix.length && startsWithPrefix(payload, i)) {
+                return ShardKeyExtractor.range(i + prefix.length, valueEnd - i - prefix.length);
+            }
+        }
+        return NO_KEY;
+    }
+
+    private boolean startsWithPrefix(ByteBuf payload, int start) {
+        for (int j = 0; j < prefix.length; j++) {
+            if (payload.getByte(start + j) != prefix[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,65 @@
+package com.ycy.websocket;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import org.springframework.web.reactive.socket.client.WebSocketClient;
+import org.springframework.web.reactive.socket.server.WebSocketService;
+import org.springframework.web.reactive.socket.server.support.HandshakeWebSocketService;
+import org.springframework.web.reactive.socket.server.upgrade.ReactorNettyRequestUpgradeStrategy;
+import reactor.netty.http.client.WebsocketClientSpec;
+import reactor.netty.http.server.WebsocketServerSpec;
+
+// 스트리밍 라우트의 프레임 크기 한도를 양쪽 구간의 프레임 디코더에 적용
+// 디코더는 프레임 헤더의 길이를 보고 페이로드를 받기 전에 1009 로 종료하므로 한도를 넘는 프레임은 버퍼에 쌓이지 않음
+// 게이트웨이 기본 업그레이드 전략/클라이언트의 다른 설정은 그대로 두고 최대 프레임 크기만 바꾼 것을 라우트별로 만들어 둠
+@Component
+public class StreamingRelaySupport {
+
+    // 키: 라우트 ID
+    private final Map<String, WebSocketService> webSocketServices = new ConcurrentHashMap<>();
+    private final Map<String, WebSocketClient> upstreamClients = new ConcurrentHashMap<>();
+
+    // 클라이언트 구간 업그레이드
+    WebSocketService webSocketService(String routeId, WebSocketProxyProperties.RouteStreamingProperties properties,
+            WebSocketService base) {
+        if (!properties.isEnabled() || !(base instanceof HandshakeWebSocketService)
+                || !(((HandshakeWebSocketService) base).getUpgradeStrategy() instanceof ReactorNettyRequestUpgradeStrategy)) {
+            return base;
+        }
+        return webSocketServices.computeIfAbsent(routeId != null ? routeId : WebSocketRelayMetrics.DEFAULT_ROUTE,
+                key -> createWebSocketService((HandshakeWebSocketService) base, properties.getMaxFrameSize()));
+    }
+
+    // 업스트림 구간 연결 (압축 설정이 적용된 클라이언트라면 그 HttpClient 를 그대로 사용)
+    WebSocketClient upstreamClient(String routeId, WebSocketProxyProperties.RouteStreamingProperties properties,
+            WebSocketClient base) {
+        if (!properties.isEnabled() || !(base instanceof ReactorNettyWebSocketClient)) {
+            return base;
+        }
+        return upstreamClients.computeIfAbsent(routeId != null ? routeId : WebSocketRelayMetrics.DEFAULT_ROUTE,
+                key -> {
+                    ReactorNettyWebSocketClient client = (ReactorNettyWebSocketClient) base;
+                    WebsocketClientSpec spec = client.getWebsocketClientSpec();
+                    return new ReactorNettyWebSocketClient(client.getHttpClient(), () -> WebsocketClientSpec.builder()
+                            .handlePing(spec.handlePing())
+                            .compress(spec.compress())
+                            .maxFramePayloadLength(properties.getMaxFrameSize()));
+                });
+    }
+
+    private static WebSocketService createWebSocketService(HandshakeWebSocketService base, int maxFrameSize) {
+        WebsocketServerSpec spec = ((ReactorNettyRequestUpgradeStrategy) base.getUpgradeStrategy())
+                .getWebsocketServerSpec();
+        HandshakeWebSocketService service = new HandshakeWebSocketService(new ReactorNettyRequestUpgradeStrategy(
+                () -> WebsocketServerSpec.builder()
+                        .handlePing(spec.handlePing())
+                        .compress(spec.compress())
+                        .maxFramePayloadLength(maxFrameSize)));
+        service.setSessionAttributePredicate(base.getSessionAttributePredicate());
+        service.start();
+        return service;
+    }
+}
@@ -0,0 +1,38 @@
+package com.ycy.websocket;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// 락 없는 토큰 버킷 (GCRA 방식: 남은 토큰 수 대신 다음 토큰이 채워지는 이론상 시각 하나만 CAS 로 갱신)
+// 초당 rate 개씩 채워지고 최대 burst 개까지 한 번에 사용 가능
+final class TokenBucket {
+
+    private final long intervalNanos; // 토큰 하나가 채워지는 시간
+    private final long burstNanos; // 버킷이 가득 찼을 때 앞당겨 쓸 수 있는 시간
+    private final AtomicLong theoreticalArrival;
+
+    TokenBucket(double rate, int burst, long now) {
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / rate));
+        this.burstNanos = intervalNanos * Math.max(1, burst);
+        this.theoreticalArrival = new AtomicLong(now);
+    }
+
+    // 토큰을 하나 쓰면 0, 없으면 다음 토큰까지 남은 나노초
+    long tryAcquire(long now) {
+        while (true) {
+            long arrival = theoreticalArrival.get();
+            long next = Math.max(arrival, now) + intervalNanos;
+            long wait = next - burstNanos - now;
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+
+    // 버킷이 가득 찬 상태 (새로 만든 버킷과 같으므로 버려도 됨)
+    boolean isFull(long now) {
+        return theoreticalArrival.get() <= now;
+    }
+}
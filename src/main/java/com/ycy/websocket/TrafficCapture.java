@@ -0,0 +1,325 @@
+package com.ycy.websocket;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PongWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtension;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.socket.WebSocketSession;
+
+// 중계한 프레임을 세그먼트 파일에 남기는 트래픽 캡처 (형식은 TrafficCaptureFormat, 재생은 TrafficReplay)
+// 이벤트 루프에서는 페이로드를 복사하지 않고 retainedSlice 로 참조만 링 버퍼에 넣고,
+// 기록 스레드가 메모리 매핑한 세그먼트 파일에 쓴 뒤 release (버퍼가 가득 차거나 바이트 한도를 넘으면 버림)
+@Component
+public class TrafficCapture {
+
+    private static final Log logger = LogFactory.getLog(TrafficCapture.class);
+
+    // 레코드의 고정 부분 최대 크기: 타입 + nanoTime 차이 + 플래그 + 원래 길이 + 남긴 길이
+    private static final int RECORD_OVERHEAD = 1 + 10 + 1 + 5 + 5;
+
+    private final WebSocketProxyProperties proxyProperties;
+    private final WebSocketProxyProperties.CaptureProperties properties;
+    private final EventRingBuffer<Entry> buffer;
+    private final int maxPayloadBytes;
+    private final long drainIntervalNanos;
+
+    private final AtomicLong bufferedBytes = new AtomicLong();
+    private final LongAdder sessions = new LongAdder();
+    private final LongAdder frames = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private volatile long writtenBytes;
+    private volatile long segments;
+    private volatile Path currentFile;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    // 기록 스레드 전용
+    private Path directory;
+    private String filePrefix;
+    private MappedByteBuffer segment;
+    private Map<String, Integer> strings;
+    private long lastNanoTime;
+    private boolean failed;
+    private final ArrayDeque<Path> files = new ArrayDeque<>();
+
+    public TrafficCapture(WebSocketProxyProperties proxyProperties) {
+        this.proxyProperties = proxyProperties;
+        this.properties = proxyProperties.getCapture();
+        this.buffer = new EventRingBuffer<>(properties.isEnabled() ? properties.getBufferSize() : 2);
+        // 가장 큰 레코드도 세그먼트 하나에 들어가도록 제한
+        this.maxPayloadBytes = Math.min(properties.getMaxPayloadBytes(), properties.getSegmentSize() / 2);
+        this.drainIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, properties.getDrainIntervalMillis()));
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            directory = Files.createDirectories(Paths.get(properties.getDirectory()));
+        } catch (IOException e) {
+            logger.error("트래픽 캡처 디렉터리를 만들 수 없어 캡처하지 않음: " + properties.getDirectory(), e);
+            return;
+        }
+        filePrefix = "capture-" + System.currentTimeMillis();
+        running = true;
+        writer = new Thread(this::drainLoop, "ws-traffic-capture");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer != null) {
+            running = false;
+            LockSupport.unpark(writer);
+            writer.join(TimeUnit.SECONDS.toMillis(1));
+        }
+    }
+
+    // 세션 캡처 시작, 라우트의 captureSampleRate 로 이 세션을 캡처할지 정함 (캡처하지 않으면 null)
+    Session open(String routeId, WebSocketSession session) {
+        if (!running || !sampled(proxyProperties.getRoute(routeId).getCaptureSampleRate())) {
+            return null;
+        }
+        URI uri = session.getHandshakeInfo().getUri();
+        String path = uri.getRawQuery() != null ? uri.getRawPath() + "?" + uri.getRawQuery() : uri.getRawPath();
+        Session captured = new Session(session.getId());
+        sessions.increment();
+        publish(new Entry(TrafficCaptureFormat.OPEN, captured.sessionId, System.nanoTime(), routeId, path,
+                session.getHandshakeInfo().getSubProtocol()));
+        return captured;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("enabled", running);
+        snapshot.put("sessions", sessions.sum());
+        snapshot.put("frames", frames.sum());
+        snapshot.put("dropped", dropped.sum());
+        snapshot.put("bufferedBytes", bufferedBytes.get());
+        snapshot.put("writtenBytes", writtenBytes);
+        snapshot.put("segments", segments);
+        snapshot.put("currentSegment", currentFile != null ? currentFile.toString() : null);
+        return snapshot;
+    }
+
+    private static boolean sampled(double rate) {
+        return rate >= 1.0 || (rate > 0.0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    private void publish(Entry entry) {
+        if (!buffer.offer(entry)) {
+            discard(entry);
+        }
+    }
+
+    private void discard(Entry entry) {
+        if (entry.payload != null) {
+            bufferedBytes.addAndGet(-entry.payload.readableBytes());
+            entry.payload.release();
+        }
+        dropped.increment();
+    }
+
+    private void drainLoop() {
+        while (running) {
+            Entry entry = buffer.poll();
+            if (entry == null) {
+                LockSupport.parkNanos(drainIntervalNanos);
+                continue;
+            }
+            write(entry);
+        }
+        // 종료 시 남은 레코드 기록
+        Entry entry;
+        while ((entry = buffer.poll()) != null) {
+            write(entry);
+        }
+        if (segment != null) {
+            segment.force();
+        }
+    }
+
+    private void write(Entry entry) {
+        if (failed) {
+            discard(entry);
+            return;
+        }
+        int stored = entry.payload != null ? entry.payload.readableBytes() : 0;
+        int size = RECORD_OVERHEAD + TrafficCaptureFormat.maxStringSize(entry.sessionId)
+                + TrafficCaptureFormat.maxStringSize(entry.routeId)
+                + TrafficCaptureFormat.maxStringSize(entry.path)
+                + TrafficCaptureFormat.maxStringSize(entry.subProtocol) + stored;
+        try {
+            // 남은 공간이 모자라면 새 세그먼트로 (끝 표시는 매핑할 때 0 으로 채워진 나머지 영역)
+            if (segment == null || segment.remaining() < size) {
+                if (size > properties.getSegmentSize() - TrafficCaptureFormat.HEADER_SIZE) {
+                    discard(entry);
+                    return;
+                }
+                roll();
+            }
+        } catch (IOException e) {
+            logger.error("트래픽 캡처 세그먼트를 만들 수 없어 캡처를 멈춤", e);
+            failed = true;
+            running = false;
+            discard(entry);
+            return;
+        }
+        int start = segment.position();
+        segment.put(entry.type);
+        TrafficCaptureFormat.writeVarLong(segment, TrafficCaptureFormat.zigzag(entry.nanoTime - lastNanoTime));
+        lastNanoTime = entry.nanoTime;
+        TrafficCaptureFormat.writeString(segment, strings, entry.sessionId);
+        if (entry.type == TrafficCaptureFormat.OPEN) {
+            TrafficCaptureFormat.writeString(segment, strings, entry.routeId);
+            TrafficCaptureFormat.writeString(segment, strings, entry.path);
+            TrafficCaptureFormat.writeString(segment, strings, entry.subProtocol);
+        } else if (entry.type == TrafficCaptureFormat.FRAME) {
+            segment.put((byte) entry.flags);
+            TrafficCaptureFormat.writeVarInt(segment, entry.length);
+            TrafficCaptureFormat.writeVarInt(segment, stored);
+            int limit = segment.limit();
+            segment.limit(segment.position() + stored);
+            entry.payload.getBytes(entry.payload.readerIndex(), segment);
+            segment.limit(limit);
+            bufferedBytes.addAndGet(-stored);
+            entry.payload.release();
+            frames.increment();
+        }
+        writtenBytes += segment.position() - start;
+    }
+
+    private void roll() throws IOException {
+        Path file = directory.resolve(String.format("%s-%06d%s", filePrefix, segments,
+                TrafficCaptureFormat.SUFFIX));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, properties.getSegmentSize());
+        }
+        lastNanoTime = System.nanoTime();
+        TrafficCaptureFormat.writeHeader(segment, System.currentTimeMillis(), lastNanoTime);
+        strings = new HashMap<>();
+        segments++;
+        currentFile = file;
+        files.add(file);
+        while (properties.getMaxSegments() > 0 && files.size() > properties.getMaxSegments()) {
+            Files.deleteIfExists(files.poll());
+        }
+    }
+
+    private static int opcode(WebSocketFrame frame) {
+        if (frame instanceof TextWebSocketFrame) {
+            return 0x1;
+        } else if (frame instanceof BinaryWebSocketFrame) {
+            return 0x2;
+        } else if (frame instanceof CloseWebSocketFrame) {
+            return 0x8;
+        } else if (frame instanceof PingWebSocketFrame) {
+            return 0x9;
+        } else if (frame instanceof PongWebSocketFrame) {
+            return 0xA;
+        }
+        return 0x0; // ContinuationWebSocketFrame
+    }
+
+    // 캡처 중인 세션 하나 (클라이언트 세션 ID 기준)
+    final class Session {
+
+        private final String sessionId;
+
+        private Session(String sessionId) {
+            this.sessionId = sessionId;
+        }
+
+        // 중계하는 이벤트 루프에서 호출, 프레임의 참조는 그대로 둠
+        void frame(FrameRelay.Direction direction, WebSocketFrame frame) {
+            if (!running) {
+                return;
+            }
+            ByteBuf content = frame.content();
+            int length = content.readableBytes();
+            int stored = Math.min(length, maxPayloadBytes);
+            if (bufferedBytes.addAndGet(stored) > properties.getMaxBufferedBytes()) {
+                bufferedBytes.addAndGet(-stored);
+                dropped.increment();
+                return;
+            }
+            int flags = TrafficCaptureFormat.frameFlags(opcode(frame), frame.isFinalFragment(),
+                    (frame.rsv() & WebSocketExtension.RSV1) != 0, direction);
+            publish(new Entry(sessionId, System.nanoTime(), flags, length,
+                    content.retainedSlice(content.readerIndex(), stored)));
+        }
+
+        void close() {
+            publish(new Entry(TrafficCaptureFormat.CLOSE, sessionId, System.nanoTime(), null, null, null));
+        }
+    }
+
+    private static final class Entry {
+
+        final byte type;
+        final String sessionId;
+        final long nanoTime;
+        final String routeId;
+        final String path;
+        final String subProtocol;
+        final int flags;
+        final int length;
+        final ByteBuf payload;
+
+        Entry(byte type, String sessionId, long nanoTime, String routeId, String path, String subProtocol) {
+            this.type = type;
+            this.sessionId = sessionId;
+            this.nanoTime = nanoTime;
+            this.routeId = routeId;
+            this.path = path;
+            this.subProtocol = subProtocol;
+            this.flags = 0;
+            this.length = 0;
+            this.payload = null;
+        }
+
+        Entry(String sessionId, long nanoTime, int flags, int length, ByteBuf payload) {
+            this.type = TrafficCaptureFormat.FRAME;
+            this.sessionId = sessionId;
+            this.nanoTime = nanoTime;
+            this.routeId = null;
+            this.path = null;
+            this.subProtocol = null;
+            this.flags = flags;
+            this.length = length;
+            this.payload = payload;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.ycy.websocket;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// 트래픽 캡처 세그먼트 파일의 바이너리 형식
+// 헤더: 매직, 버전, 파일을 만든 시각(epoch ms)과 그 시점의 nanoTime
+// 레코드: 타입, 이전 레코드와의 nanoTime 차이(zigzag varint), 세션 ID, 타입별 본문
+//   OPEN  : 라우트 ID, 핸드쉐이크 경로(쿼리 포함), 서브 프로토콜
+//   FRAME : 플래그(opcode, FIN, RSV1, 방향), 원래 길이, 남긴 길이, 페이로드
+//   CLOSE : 본문 없음
+// 문자열은 세그먼트 안에서 처음 한 번만 쓰고 이후에는 번호로 참조 (0 = null, 1 = 새 문자열, 2 이상 = 참조)
+// 파일은 미리 정한 크기로 매핑하므로 기록되지 않은 나머지는 0 이고, 타입 0 을 만나면 세그먼트 끝
+final class TrafficCaptureFormat {
+
+    static final String SUFFIX = ".wscap";
+
+    static final int MAGIC = 0x57534350; // "WSCP"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 4 + 1 + 8 + 8;
+
+    static final byte END = 0;
+    static final byte OPEN = 1;
+    static final byte FRAME = 2;
+    static final byte CLOSE = 3;
+
+    private static final int NULL_STRING = 0;
+    private static final int NEW_STRING = 1;
+
+    // FRAME 플래그: 하위 4비트 opcode
+    private static final int FLAG_FIN = 0x10;
+    private static final int FLAG_RSV1 = 0x20;
+    private static final int FLAG_SERVER_TO_CLIENT = 0x40;
+
+    private TrafficCaptureFormat() {
+    }
+
+    static void writeHeader(ByteBuffer out, long epochMillis, long nanoTime) {
+        out.putInt(MAGIC);
+        out.put((byte) VERSION);
+        out.putLong(epochMillis);
+        out.putLong(nanoTime);
+    }
+
+    static int frameFlags(int opcode, boolean fin, boolean rsv1, FrameRelay.Direction direction) {
+        return (opcode & 0x0F) | (fin ? FLAG_FIN : 0) | (rsv1 ? FLAG_RSV1 : 0)
+                | (direction == FrameRelay.Direction.SERVER_TO_CLIENT ? FLAG_SERVER_TO_CLIENT : 0);
+    }
+
+    // 문자열 하나가 차지할 수 있는 최대 바이트 수 (참조 varint + 길이 varint + UTF-8)
+    static int maxStringSize(String value) {
+        return value == null ? 1 : 1 + 5 + value.length() * 3;
+    }
+
+    static void writeString(ByteBuffer out, Map<String, Integer> table, String value) {
+        if (value == null) {
+            writeVarInt(out, NULL_STRING);
+            return;
+        }
+        Integer index = table.get(value);
+        if (index != null) {
+            writeVarInt(out, index + 2);
+            return;
+        }
+        table.put(value, table.size());
+        writeVarInt(out, NEW_STRING);
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.put(bytes);
+    }
+
+    static void writeVarInt(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    static void writeVarLong(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    // 캡처된 레코드 하나 (재생 도구에서 사용)
+    // timeNanos: epoch 기준 나노초 (세그먼트 헤더의 시각으로 환산, 게이트웨이 재시작을 넘어서도 비교 가능)
+    static final class Record {
+
+        byte type;
+        long timeNanos;
+        String sessionId;
+        String routeId;
+        String path;
+        String subProtocol;
+        int opcode;
+        boolean fin;
+        boolean compressed;
+        FrameRelay.Direction direction;
+        int length;
+        byte[] payload;
+    }
+
+    // 세그먼트 파일 하나를 처음부터 읽음
+    static final class Reader {
+
+        private final MappedByteBuffer in;
+        private final long baseEpochNanos;
+        private final long baseNanoTime;
+        private final List<String> table = new ArrayList<>();
+        private long lastNanoTime;
+
+        Reader(Path file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                this.in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            if (in.remaining() < HEADER_SIZE || in.getInt() != MAGIC) {
+                throw new IOException("캡처 세그먼트가 아님: " + file);
+            }
+            int version = in.get();
+            if (version != VERSION) {
+                throw new IOException("지원하지 않는 캡처 버전: " + version + " (" + file + ")");
+            }
+            this.baseEpochNanos = in.getLong() * 1_000_000L;
+            this.baseNanoTime = in.getLong();
+            this.lastNanoTime = baseNanoTime;
+        }
+
+        // 다음 레코드를 읽어 record 에 채움, 세그먼트 끝이면 false
+        boolean next(Record record) throws IOException {
+            if (!in.hasRemaining()) {
+                return false;
+            }
+            byte type = in.get();
+            if (type == END) {
+                return false;
+            }
+            long delta = readVarLong();
+            lastNanoTime += (delta >>> 1) ^ -(delta & 1);
+            record.type = type;
+            record.timeNanos = baseEpochNanos + (lastNanoTime - baseNanoTime);
+            record.sessionId = readString();
+            switch (type) {
+                case OPEN:
+                    record.routeId = readString();
+                    record.path = readString();
+                    record.subProtocol = readString();
+                    break;
+                case FRAME:
+                    int flags = in.get() & 0xFF;
+                    record.opcode = flags & 0x0F;
+                    record.fin = (flags & FLAG_FIN) != 0;
+                    record.compressed = (flags & FLAG_RSV1) != 0;
+                    record.direction = (flags & FLAG_SERVER_TO_CLIENT) != 0
+                            ? FrameRelay.Direction.SERVER_TO_CLIENT
+                            : FrameRelay.Direction.CLIENT_TO_SERVER;
+                    record.length = readVarInt();
+                    record.payload = new byte[readVarInt()];
+                    in.get(record.payload);
+                    break;
+                case CLOSE:
+                    break;
+                default:
+                    throw new IOException("잘못된 레코드 타입: " + type);
+            }
+            return true;
+        }
+
+        private String readString() throws IOException {
+            int reference = readVarInt();
+            if (reference == NULL_STRING) {
+                return null;
+            }
+            if (reference == NEW_STRING) {
+                byte[] bytes = new byte[readVarInt()];
+                in.get(bytes);
+                String value = new String(bytes, StandardCharsets.UTF_8);
+                table.add(value);
+                return value;
+            }
+            if (reference - 2 >= table.size()) {
+                throw new IOException("잘못된 문자열 참조: " + reference);
+            }
+            return table.get(reference - 2);
+        }
+
+        private int readVarInt() throws IOException {
+            long value = readVarLong();
+            if (value < 0 || value > Integer.MAX_VALUE) {
+                throw new IOException("잘못된 길이: " + value);
+            }
+            return (int) value;
+        }
+
+        private long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 70; shift += 7) {
+                int b = in.get() & 0xFF;
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("varint 가 너무 김");
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package com.ycy.websocket;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.netty.buffer.ByteBuf;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.socket.CloseStatus;
+import org.springframework.web.reactive.socket.WebSocketHandler;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import org.springframework.web.reactive.socket.client.WebSocketClient;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+// 한 라우트의 업스트림 인스턴스 중 업그레이드 시점에 연결할 대상을 고름
+// 부하는 세션 관리자의 활성 세션 수 + 아직 핸드쉐이크 중인 연결 수로 판단 (연결 폭주 시 한 인스턴스로 몰리지 않도록)
+// 연속 연결 실패가 한도에 도달한 인스턴스는 제외하고, 주기적으로 핸드쉐이크를 시도해서 성공하면 다시 포함
+// 복구 확인은 probe-path 나 그 인스턴스를 마지막으로 선택한 요청의 경로로 함 (인스턴스 주소의 "/" 로는 404 를 받는 업스트림이 있음)
+final class UpstreamBalancer {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final String routeId;
+    private final WebSocketProxyProperties.LoadBalancerProperties properties;
+    private final WebSocketSessionManager sessionManager;
+    private final WebSocketClient client;
+    private final WebSocketEventLogger eventLogger;
+    private final List<Instance> instances = new ArrayList<>();
+    // 키: 가상 노드 해시, 값: 인스턴스 (CONSISTENT_HASH 에서만 사용)
+    private final TreeMap<Long, Instance> ring = new TreeMap<>();
+    private final Disposable probing;
+
+    UpstreamBalancer(String routeId, WebSocketProxyProperties.LoadBalancerProperties properties,
+            WebSocketSessionManager sessionManager, WebSocketClient client, WebSocketEventLogger eventLogger) {
+        this.routeId = routeId;
+        this.properties = properties;
+        this.sessionManager = sessionManager;
+        this.client = client;
+        this.eventLogger = eventLogger;
+        for (URI uri : properties.getInstances()) {
+            Instance instance = new Instance(uri);
+            instances.add(instance);
+            for (int i = 0; i < properties.getVirtualNodes(); i++) {
+                ring.put(hash(instance.key + "#" + i), instance);
+            }
+        }
+        long interval = properties.getProbeInterval().toMillis();
+        this.probing = Schedulers.parallel().schedulePeriodically(this::probeEjected, interval, interval,
+                TimeUnit.MILLISECONDS);
+    }
+
+    // 업그레이드 요청에 대한 인스턴스 선택, 반환된 Lease 로 연결 결과를 알려야 함
+    // hashKey: CONSISTENT_HASH 에서 사용할 요청의 키 (hashKeyOf 로 구함, 없으면 null)
+    Lease choose(String hashKey) {
+        List<Instance> candidates = available();
+        Instance chosen;
+        switch (properties.getStrategy()) {
+            case POWER_OF_TWO_CHOICES:
+                chosen = powerOfTwo(candidates);
+                break;
+            case CONSISTENT_HASH:
+                chosen = hashKey != null ? onRing(hashKey) : leastSessions(candidates);
+                break;
+            default:
+                chosen = leastSessions(candidates);
+        }
+        return new Lease(chosen);
+    }
+
+    void close() {
+        probing.dispose();
+    }
+
+    Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("routeId", routeId);
+        snapshot.put("strategy", properties.getStrategy());
+        List<Map<String, Object>> states = new ArrayList<>();
+        for (Instance instance : instances) {
+            Map<String, Object> state = new LinkedHashMap<>();
+            state.put("uri", instance.uri.toString());
+            state.put("ejected", instance.ejected);
+            state.put("activeSessions", sessionManager.getUpstreamSessionCount(instance.key));
+            state.put("connecting", instance.connecting.get());
+            state.put("chosen", instance.chosen.sum());
+            state.put("connectFailures", instance.connectFailures.sum());
+            state.put("ejections", instance.ejections.sum());
+            states.add(state);
+        }
+        snapshot.put("instances", states);
+        return snapshot;
+    }
+
+    // 제외되지 않은 인스턴스 (모두 제외된 상태면 전체를 대상으로 시도)
+    private List<Instance> available() {
+        List<Instance> available = new ArrayList<>(instances.size());
+        for (Instance instance : instances) {
+            if (!instance.ejected) {
+                available.add(instance);
+            }
+        }
+        return available.isEmpty() ? instances : available;
+    }
+
+    private Instance leastSessions(List<Instance> candidates) {
+        Instance best = null;
+        int bestLoad = Integer.MAX_VALUE;
+        // 부하가 같으면 앞쪽 인스턴스로만 몰리지 않도록 시작 위치를 임의로 정함
+        int offset = ThreadLocalRandom.current().nextInt(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            Instance instance = candidates.get((offset + i) % candidates.size());
+            int load = load(instance);
+            if (load < bestLoad) {
+                best = instance;
+                bestLoad = load;
+            }
+        }
+        return best;
+    }
+
+    private Instance powerOfTwo(List<Instance> candidates) {
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        Instance a = candidates.get(first);
+        Instance b = candidates.get(second);
+        return load(a) <= load(b) ? a : b;
+    }
+
+    // 키 해시 이후 첫 번째 가상 노드의 인스턴스, 제외된 인스턴스는 건너뛰고 링을 따라 다음 인스턴스로
+    private Instance onRing(String key) {
+        long hash = hash(key);
+        for (Instance instance : ring.tailMap(hash).values()) {
+            if (!instance.ejected) {
+                return instance;
+            }
+        }
+        for (Instance instance : ring.headMap(hash).values()) {
+            if (!instance.ejected) {
+                return instance;
+            }
+        }
+        Map.Entry<Long, Instance> entry = ring.ceilingEntry(hash);
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    private int load(Instance instance) {
+        return sessionManager.getUpstreamSessionCount(instance.key) + instance.connecting.get();
+    }
+
+    // 업그레이드 요청에서 해시 키를 꺼냄 (CONSISTENT_HASH 가 아니면 null)
+    String hashKeyOf(ServerWebExchange exchange) {
+        if (properties.getStrategy() != WebSocketProxyProperties.BalancingStrategy.CONSISTENT_HASH) {
+            return null;
+        }
+        String hashKey = properties.getHashKey();
+        int separator = hashKey.indexOf(':');
+        String name = separator < 0 ? null : hashKey.substring(separator + 1);
+        String source = separator < 0 ? hashKey : hashKey.substring(0, separator);
+        switch (source) {
+            case "header":
+                return exchange.getRequest().getHeaders().getFirst(name);
+            case "query":
+                return exchange.getRequest().getQueryParams().getFirst(name);
+            case "cookie":
+                HttpCookie cookie = exchange.getRequest().getCookies().getFirst(name);
+                return cookie != null ? cookie.getValue() : null;
+            default:
+                InetSocketAddress address = exchange.getRequest().getRemoteAddress();
+                return address != null ? address.getHostString() : null;
+        }
+    }
+
+    // 제외된 인스턴스에 핸드쉐이크 후 바로 1001 로 종료, 성공하면 다시 선택 대상에 포함
+    private void probeEjected() {
+        for (Instance instance : instances) {
+            if (instance.ejected && instance.probing.compareAndSet(false, true)) {
+                client.execute(probeUrl(instance), new HttpHeaders(), new WebSocketHandler() {
+                    public Mono<Void> handle(WebSocketSession session) {
+                        return session.close(CloseStatus.GOING_AWAY);
+                    }
+
+                    public List<String> getSubProtocols() {
+                        return Collections.emptyList();
+                    }
+                }).timeout(properties.getProbeTimeout())
+                        .doFinally(signal -> instance.probing.set(false))
+                        .subscribe(null, error -> {
+                        }, () -> readmit(instance));
+            }
+        }
+    }
+
+    // probe-path, 없으면 마지막 요청 경로(쿼리 제외), 둘 다 없으면 인스턴스 주소
+    private URI probeUrl(Instance instance) {
+        String probePath = properties.getProbePath();
+        if (probePath != null && !probePath.isEmpty()) {
+            return URI.create(instance.uri.getScheme() + "://" + instance.uri.getRawAuthority()
+                    + (probePath.startsWith("/") ? "" : "/") + probePath);
+        }
+        URI lastRequest = instance.lastRequest;
+        return lastRequest != null ? lastRequest : instance.uri;
+    }
+
+    private void readmit(Instance instance) {
+        instance.consecutiveFailures.set(0);
+        instance.ejected = false;
+        eventLogger.event("UpstreamBalancer", routeId, null, "인스턴스 복구", instance.uri);
+    }
+
+    private void onConnectFailure(Instance instance) {
+        instance.connectFailures.increment();
+        if (instance.consecutiveFailures.incrementAndGet() >= properties.getFailureThreshold() && !instance.ejected) {
+            instance.ejected = true;
+            instance.ejections.increment();
+            eventLogger.event("UpstreamBalancer", routeId, null, "인스턴스 제외", instance.uri);
+        }
+    }
+
+    // 64비트 FNV-1a 에 murmur3 fmix64 를 더해 가상 노드가 링에 고르게 퍼지도록 함
+    static long hash(String key) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    // hash(String) 과 같은 해시를 버퍼의 바이트 구간에서 바로 계산 (같은 UTF-8 바이트면 같은 값)
+    static long hash(ByteBuf buf, int index, int length) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = index, end = index + length; i < end; i++) {
+            hash ^= buf.getByte(i);
+            hash *= FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    // 요청 URL 의 스킴/호스트/포트를 instance 로 바꾼 URL (경로와 쿼리는 유지)
+    static URI resolve(URI instance, URI requestUrl) {
+        String url = requestUrl.toString();
+        int pathStart = url.indexOf('/', requestUrl.getScheme().length() + 3);
+        return URI.create(instance.getScheme() + "://" + instance.getRawAuthority()
+                + (pathStart < 0 ? "" : url.substring(pathStart)));
+    }
+
+    static final class Instance {
+
+        private final URI uri;
+        private final String key; // 세션 관리자의 업스트림 키 (호스트:포트)
+        private volatile boolean ejected;
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private final AtomicInteger connecting = new AtomicInteger();
+        private final AtomicBoolean probing = new AtomicBoolean();
+        private volatile URI lastRequest; // 마지막으로 이 인스턴스를 선택한 요청의 URL (쿼리 제외, 복구 확인용)
+        private final LongAdder chosen = new LongAdder();
+        private final LongAdder connectFailures = new LongAdder();
+        private final LongAdder ejections = new LongAdder();
+
+        Instance(URI uri) {
+            this.uri = uri;
+            this.key = uri.getRawAuthority();
+        }
+
+        URI resolve(URI requestUrl) {
+            URI resolved = UpstreamBalancer.resolve(uri, requestUrl);
+            if (resolved.getRawQuery() == null) {
+                lastRequest = resolved;
+            } else {
+                // 쿼리에는 만료되는 토큰 등이 있을 수 있으므로 경로까지만 기억
+                lastRequest = URI.create(uri.getScheme() + "://" + uri.getRawAuthority() + resolved.getRawPath());
+            }
+            return resolved;
+        }
+    }
+
+    // 선택된 인스턴스에 대한 연결 시도 하나, 결과(성공/실패/취소)는 한 번만 반영됨
+    final class Lease {
+
+        private final Instance instance;
+        private final AtomicBoolean settled = new AtomicBoolean();
+
+        Lease(Instance instance) {
+            this.instance = instance;
+            instance.chosen.increment();
+            instance.connecting.incrementAndGet();
+        }
+
+        URI resolve(URI requestUrl) {
+            return instance.resolve(requestUrl);
+        }
+
+        // 업스트림 핸드쉐이크 성공, 이후 부하는 세션 관리자의 활성 세션 수로 집계
+        void connected() {
+            if (settled.compareAndSet(false, true)) {
+                instance.connecting.decrementAndGet();
+                instance.consecutiveFailures.set(0);
+            }
+        }
+
+        void failed() {
+            if (settled.compareAndSet(false, true)) {
+                instance.connecting.decrementAndGet();
+                onConnectFailure(instance);
+            }
+        }
+
+        // 핸드쉐이크 전에 클라이언트가 끊은 경우
+        void cancel() {
+            if (settled.compareAndSet(false, true)) {
+                instance.connecting.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.ycy.websocket;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.socket.client.WebSocketClient;
+
+// 라우트별 업스트림 로드 밸런서 관리 (라우트에 loadBalancer.instances 가 설정된 경우 첫 요청 시 생성)
+@Component
+public class UpstreamBalancers {
+
+    @Autowired
+    private WebSocketSessionManager sessionManager;
+
+    @Autowired
+    private WebSocketEventLogger eventLogger;
+
+    // 키: 라우트 ID
+    private final Map<String, UpstreamBalancer> balancers = new ConcurrentHashMap<>();
+
+    // 인스턴스가 설정되지 않은 라우트는 null (게이트웨이가 정한 URI 하나로 연결)
+    // client: 제외된 인스턴스의 복구 확인에 사용할 클라이언트
+    UpstreamBalancer get(String routeId, WebSocketProxyProperties.RouteProperties route, WebSocketClient client) {
+        WebSocketProxyProperties.LoadBalancerProperties properties = route.getLoadBalancer();
+        if (properties.getInstances().isEmpty()) {
+            return null;
+        }
+        String key = routeId != null ? routeId : WebSocketRelayMetrics.DEFAULT_ROUTE;
+        return balancers.computeIfAbsent(key,
+                id -> new UpstreamBalancer(id, properties, sessionManager, client, eventLogger));
+    }
+
+    public List<Map<String, Object>> snapshot() {
+        List<Map<String, Object>> snapshots = new ArrayList<>();
+        balancers.values().forEach(balancer -> snapshots.add(balancer.snapshot()));
+        return snapshots;
+    }
+
+    @PreDestroy
+    public void close() {
+        balancers.values().forEach(UpstreamBalancer::close);
+        balancers.clear();
+    }
+}
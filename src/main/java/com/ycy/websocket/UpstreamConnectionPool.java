@@ -0,0 +1,310 @@
+package com.ycy.websocket;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PongWebSocketFrame;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.socket.CloseStatus;
+import org.springframework.web.reactive.socket.WebSocketHandler;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import org.springframework.web.reactive.socket.client.WebSocketClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.NettyPipeline;
+
+// 라우트의 업스트림 인스턴스 하나에 대해 미리 핸드쉐이크를 끝낸 세션을 유지하는 풀
+// 클라이언트 연결 시 유휴 세션을 바로 넘겨 핸드쉐이크 지연을 없애고, 보충은 주기적으로 나눠서 수행
+// 유지할 세션 수(target)는 minIdle 에서 시작해 유휴 세션이 없을 때마다 maxSize 까지 늘고,
+// 검증 주기 동안 부족한 적이 없으면 절반씩 minIdle 까지 줄면서 남는 유휴 세션을 닫음
+// 넘겨준 세션은 해당 클라이언트 세션이 끝날 때 함께 닫히며 풀로 돌아오지 않음
+// idleTimeout 동안 빌려 간 요청이 없으면 onExpired 로 알리고 관리 객체가 풀을 닫음
+final class UpstreamConnectionPool {
+
+    private static final String PROBE_HANDLER = "ws.proxy.poolProbe";
+
+    private final String routeId;
+    private final URI uri;
+    private final WebSocketClient client;
+    private final WebSocketProxyProperties.UpstreamPoolProperties properties;
+    private final Deque<PooledUpstream> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final AtomicInteger connecting = new AtomicInteger();
+    private final AtomicBoolean refilling = new AtomicBoolean();
+    private final AtomicInteger target = new AtomicInteger(); // 유휴 + 연결 중 세션의 목표 수
+    private volatile boolean missedSinceMaintain;
+    private final Disposable maintenance;
+    private final Consumer<UpstreamConnectionPool> onExpired;
+    private volatile long lastUsedAt = System.nanoTime();
+    private volatile boolean closed;
+
+    private final LongAdder created = new LongAdder();
+    private final LongAdder connectFailures = new LongAdder();
+    private final LongAdder borrowed = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    UpstreamConnectionPool(String routeId, URI uri, WebSocketClient client,
+            WebSocketProxyProperties.UpstreamPoolProperties properties, Consumer<UpstreamConnectionPool> onExpired) {
+        this.routeId = routeId;
+        this.uri = uri;
+        this.onExpired = onExpired;
+        this.client = client;
+        this.properties = properties;
+        this.target.set(Math.min(properties.getMinIdle(), properties.getMaxSize()));
+        long interval = properties.getValidationInterval().toMillis();
+        this.maintenance = Schedulers.parallel().schedulePeriodically(this::maintain, interval, interval,
+                TimeUnit.MILLISECONDS);
+        refill();
+    }
+
+    // 풀 세션과 같은 경로(쿼리 없음)로 가는 요청인지 여부 (다른 경로의 요청은 풀 없이 연결)
+    boolean serves(URI upstreamUrl) {
+        return upstreamUrl.getRawQuery() == null && uri.getRawPath().equals(upstreamUrl.getRawPath());
+    }
+
+    // 유휴 세션을 하나 꺼냄 (없으면 null, 호출자는 새로 연결해야 함)
+    PooledUpstream borrow() {
+        lastUsedAt = System.nanoTime();
+        PooledUpstream upstream;
+        while ((upstream = idle.pollFirst()) != null) {
+            idleCount.decrementAndGet();
+            if (upstream.isUsable() && upstream.detach()) {
+                borrowed.increment();
+                refill();
+                return upstream;
+            }
+            evict(upstream);
+        }
+        misses.increment();
+        missedSinceMaintain = true;
+        target.getAndUpdate(current -> Math.min(current + 1, properties.getMaxSize()));
+        refill();
+        return null;
+    }
+
+    void close() {
+        closed = true;
+        maintenance.dispose();
+        PooledUpstream upstream;
+        while ((upstream = idle.pollFirst()) != null) {
+            idleCount.decrementAndGet();
+            evict(upstream);
+        }
+    }
+
+    Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("routeId", routeId);
+        snapshot.put("uri", uri.toString());
+        snapshot.put("idle", idleCount.get());
+        snapshot.put("connecting", connecting.get());
+        snapshot.put("target", target.get());
+        snapshot.put("created", created.sum());
+        snapshot.put("connectFailures", connectFailures.sum());
+        snapshot.put("borrowed", borrowed.sum());
+        snapshot.put("misses", misses.sum());
+        snapshot.put("evicted", evicted.sum());
+        return snapshot;
+    }
+
+    // 주기 작업: 오래됐거나 pong 응답이 없는 세션을 버리고, 남은 세션에 ping 을 보낸 뒤 target 까지 보충
+    // 이번 주기에 부족한 적이 없으면 target 을 줄이고 그보다 많은 유휴 세션은 오래된 것부터 닫음
+    private void maintain() {
+        if (System.nanoTime() - lastUsedAt > properties.getIdleTimeout().toNanos()) {
+            onExpired.accept(this);
+            return;
+        }
+        if (!missedSinceMaintain) {
+            int minIdle = Math.min(properties.getMinIdle(), properties.getMaxSize());
+            int shrunk = target.updateAndGet(current -> Math.max(minIdle, current / 2));
+            PooledUpstream surplus;
+            while (idleCount.get() > shrunk && (surplus = idle.pollFirst()) != null) {
+                idleCount.decrementAndGet();
+                evict(surplus);
+            }
+        }
+        missedSinceMaintain = false;
+        long maxAgeNanos = properties.getMaxAge().toNanos();
+        Iterator<PooledUpstream> iterator = idle.iterator();
+        while (iterator.hasNext()) {
+            PooledUpstream upstream = iterator.next();
+            if (!upstream.isUsable() || upstream.age() > maxAgeNanos || upstream.missedPong()) {
+                if (idle.remove(upstream)) {
+                    idleCount.decrementAndGet();
+                    evict(upstream);
+                }
+            } else {
+                upstream.ping();
+            }
+        }
+        refill();
+    }
+
+    // 한 번에 한 스레드만 보충하고, 보충 연결은 target(maxSize 이하)을 넘지 않게 시작
+    private void refill() {
+        if (closed || !refilling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            while (idleCount.get() + connecting.get() < target.get()) {
+                connect();
+            }
+        } finally {
+            refilling.set(false);
+        }
+    }
+
+    private void connect() {
+        connecting.incrementAndGet();
+        AtomicBoolean connected = new AtomicBoolean();
+        // 클라이언트 헤더 없이 연결 (sharedHandshake 를 선언한 라우트만 풀을 사용)
+        client.execute(uri, new HttpHeaders(), new WebSocketHandler() {
+            public Mono<Void> handle(WebSocketSession session) {
+                connected.set(true);
+                connecting.decrementAndGet();
+                created.increment();
+                PooledUpstream upstream = new PooledUpstream(session);
+                idle.offerLast(upstream);
+                idleCount.incrementAndGet();
+                return upstream.awaitLease();
+            }
+
+            public List<String> getSubProtocols() {
+                return Collections.emptyList();
+            }
+        }).subscribe(null, error -> {
+            if (!connected.get()) {
+                connecting.decrementAndGet();
+                connectFailures.increment();
+            }
+        });
+    }
+
+    private void evict(PooledUpstream upstream) {
+        evicted.increment();
+        upstream.discard();
+    }
+
+    // 풀에 보관 중인 업스트림 세션
+    static final class PooledUpstream {
+
+        private final WebSocketSession session;
+        private final long createdAt = System.nanoTime();
+        private final Sinks.One<Mono<Void>> lease = Sinks.one();
+        private final PongProbe probe = new PongProbe();
+        private final Channel channel;
+        private long pingSentAt;
+
+        PooledUpstream(WebSocketSession session) {
+            this.session = session;
+            this.channel = NettyWebSocketSessions.channel(session);
+            if (channel != null) {
+                try {
+                    channel.pipeline().addBefore(NettyPipeline.ReactiveBridge, PROBE_HANDLER, probe);
+                } catch (NoSuchElementException e) {
+                    // 핸드쉐이크 직후 채널이 닫혀 Reactor Netty 핸들러가 이미 제거된 경우 (isUsable 에서 걸러짐)
+                }
+            }
+        }
+
+        // 빌려 주기 전에 ping/pong 처리 핸들러를 제거, 그 사이 채널이 닫혔으면 false (호출자는 새로 연결)
+        // 채널이 닫히면 Netty 가 핸들러를 모두 제거하므로 isUsable 확인 뒤에도 제거가 실패할 수 있음
+        boolean detach() {
+            if (channel == null) {
+                return session.isOpen();
+            }
+            try {
+                if (channel.pipeline().context(probe) != null) {
+                    channel.pipeline().remove(probe);
+                }
+            } catch (NoSuchElementException e) {
+                return false;
+            }
+            return channel.isActive() && session.isOpen();
+        }
+
+        // 클라이언트 세션에 연결: work 가 끝나면 업스트림 세션도 종료됨 (borrow 에서 detach 된 세션만)
+        Mono<Void> bind(Function<WebSocketSession, Mono<Void>> work) {
+            Sinks.Empty<Void> done = Sinks.empty();
+            lease.tryEmitValue(Mono.defer(() -> work.apply(session))
+                    .doOnSuccess(v -> done.tryEmitEmpty())
+                    .doOnError(done::tryEmitError));
+            return done.asMono();
+        }
+
+        // 업스트림 핸들러는 클라이언트에 연결될 때까지 대기
+        Mono<Void> awaitLease() {
+            return lease.asMono().flatMap(work -> work);
+        }
+
+        boolean isUsable() {
+            return session.isOpen();
+        }
+
+        long age() {
+            return System.nanoTime() - createdAt;
+        }
+
+        // 직전에 보낸 ping 에 대한 pong 이 아직 없는지 여부
+        boolean missedPong() {
+            return pingSentAt != 0 && probe.lastPongAt < pingSentAt;
+        }
+
+        void ping() {
+            if (channel != null) {
+                pingSentAt = System.nanoTime();
+                channel.writeAndFlush(new PingWebSocketFrame());
+            }
+        }
+
+        void discard() {
+            if (session.isOpen()) {
+                session.close(CloseStatus.GOING_AWAY).subscribe();
+            }
+            lease.tryEmitValue(Mono.empty());
+        }
+    }
+
+    // 유휴 상태에서 업스트림의 ping/pong 을 직접 처리 (클라이언트에 연결되면 파이프라인에서 제거됨)
+    private static final class PongProbe extends ChannelInboundHandlerAdapter {
+
+        private volatile long lastPongAt;
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            if (msg instanceof PongWebSocketFrame) {
+                lastPongAt = System.nanoTime();
+                ((PongWebSocketFrame) msg).release();
+            } else if (msg instanceof PingWebSocketFrame) {
+                ctx.writeAndFlush(new PongWebSocketFrame(((PingWebSocketFrame) msg).content()));
+            } else {
+                ctx.fireChannelRead(msg);
+                return;
+            }
+            // 제어 프레임을 여기서 소비했으므로, autoRead 가 꺼진 채널이면 다음 읽기를 직접 요청
+            if (!ctx.channel().config().isAutoRead()) {
+                ctx.read();
+            }
+        }
+    }
+}
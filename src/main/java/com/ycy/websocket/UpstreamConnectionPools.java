@@ -0,0 +1,61 @@
+package com.ycy.websocket;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.socket.client.WebSocketClient;
+
+// 라우트 + 업스트림 인스턴스 별 사전 연결 풀 관리 (라우트에서 upstreamPool.enabled 인 경우 첫 요청 시 생성)
+// 요청 경로/쿼리는 키에 넣지 않으므로 풀 수는 라우트 수 x 인스턴스 수로 제한되고,
+// 한동안 쓰이지 않은 풀은 스스로 닫고 빠짐
+@Component
+public class UpstreamConnectionPools {
+
+    // 설정 실수(인스턴스가 계속 바뀌는 라우트 등)로 풀이 무한히 늘지 않도록 두는 상한, 넘으면 풀 없이 연결
+    private static final int MAX_POOLS = 256;
+
+    // 키: 라우트 ID + 업스트림 인스턴스(스킴://호스트:포트)
+    private final Map<String, UpstreamConnectionPool> pools = new ConcurrentHashMap<>();
+
+    // 라우트 설정에 풀이 켜져 있으면 해당 라우트/인스턴스의 풀을 반환 (꺼져 있거나 상한에 닿았으면 null)
+    // 풀 세션은 클라이언트 핸드쉐이크 헤더 없이 연결되므로 sharedHandshake 를 선언한 라우트에서만 사용
+    // client: 풀 세션을 연결할 때 사용할 클라이언트 (라우트의 업스트림 압축 설정이 적용된 것)
+    UpstreamConnectionPool get(String routeId, URI upstreamUrl, WebSocketProxyProperties.RouteProperties route,
+            WebSocketClient client) {
+        WebSocketProxyProperties.UpstreamPoolProperties properties = route.getUpstreamPool();
+        if (!properties.isEnabled() || !properties.isSharedHandshake()) {
+            return null;
+        }
+        String instance = upstreamUrl.getScheme() + "://" + upstreamUrl.getRawAuthority();
+        String key = (routeId != null ? routeId : WebSocketRelayMetrics.DEFAULT_ROUTE) + " " + instance;
+        UpstreamConnectionPool pool = pools.get(key);
+        if (pool != null || pools.size() >= MAX_POOLS) {
+            return pool;
+        }
+        return pools.computeIfAbsent(key, k -> new UpstreamConnectionPool(routeId, URI.create(instance
+                + properties.getPath()), client, properties, expired -> remove(k, expired)));
+    }
+
+    private void remove(String key, UpstreamConnectionPool pool) {
+        if (pools.remove(key, pool)) {
+            pool.close();
+        }
+    }
+
+    public List<Map<String, Object>> snapshot() {
+        List<Map<String, Object>> snapshots = new ArrayList<>();
+        pools.values().forEach(pool -> snapshots.add(pool.snapshot()));
+        return snapshots;
+    }
+
+    @PreDestroy
+    public void close() {
+        pools.values().forEach(UpstreamConnectionPool::close);
+        pools.clear();
+    }
+}
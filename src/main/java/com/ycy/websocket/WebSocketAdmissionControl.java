@@ -0,0 +1,170 @@
+package com.ycy.websocket;
+
+import java.net.InetSocketAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Schedulers;
+
+// 업그레이드 요청 허용 여부 판단 (원격 IP / 라우트 단위 초당 요청 수, 게이트웨이 전체 / 라우트 단위 동시 세션 수)
+// 업그레이드 작업을 시작하기 전에 호출되며, 거절할 때는 응답 상태만 설정하고 본문 없이 끝냄
+@Component
+public class WebSocketAdmissionControl {
+
+    // 가득 찬(한동안 요청이 없던) IP 버킷을 정리하는 주기
+    private static final long SWEEP_INTERVAL_MILLIS = 10_000;
+
+    @Autowired
+    private WebSocketProxyProperties proxyProperties;
+
+    private final AtomicInteger activeSessions = new AtomicInteger();
+    private final Map<String, RouteState> routes = new ConcurrentHashMap<>(); // 키: 라우트 ID
+    private final Map<String, TokenBucket> ipBuckets = new ConcurrentHashMap<>(); // 키: 원격 IP
+    private final LongAdder ipRateRejections = new LongAdder();
+    private final LongAdder capacityRejections = new LongAdder();
+    private final Disposable sweeper = Schedulers.parallel().schedulePeriodically(this::sweep,
+            SWEEP_INTERVAL_MILLIS, SWEEP_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+
+    // 허용하면 세션이 끝날 때 반납할 Permit, 거절하면 응답에 429/503 을 설정하고 null 반환
+    Permit admit(ServerWebExchange exchange, String routeId, WebSocketProxyProperties.RouteAdmissionProperties route) {
+        WebSocketProxyProperties.AdmissionProperties global = proxyProperties.getAdmission();
+        long now = System.nanoTime();
+
+        if (global.getPerIpHandshakeRate() > 0) {
+            String ip = remoteIp(exchange);
+            if (ip != null) {
+                long wait = ipBuckets.computeIfAbsent(ip, key -> new TokenBucket(global.getPerIpHandshakeRate(),
+                        global.getPerIpHandshakeBurst(), now)).tryAcquire(now);
+                if (wait > 0) {
+                    ipRateRejections.increment();
+                    return reject(exchange, HttpStatus.TOO_MANY_REQUESTS, wait);
+                }
+            }
+        }
+
+        String key = routeId != null ? routeId : WebSocketRelayMetrics.DEFAULT_ROUTE;
+        RouteState state = routes.computeIfAbsent(key, id -> new RouteState(route, now));
+        if (state.bucket != null) {
+            long wait = state.bucket.tryAcquire(now);
+            if (wait > 0) {
+                state.rateRejections.increment();
+                return reject(exchange, HttpStatus.TOO_MANY_REQUESTS, wait);
+            }
+        }
+
+        if (!tryIncrement(activeSessions, global.getMaxSessions())) {
+            capacityRejections.increment();
+            return reject(exchange, HttpStatus.SERVICE_UNAVAILABLE, global.getRetryAfter().toNanos());
+        }
+        if (!tryIncrement(state.activeSessions, route.getMaxSessions())) {
+            activeSessions.decrementAndGet();
+            state.capacityRejections.increment();
+            return reject(exchange, HttpStatus.SERVICE_UNAVAILABLE, global.getRetryAfter().toNanos());
+        }
+        return new Permit(state);
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("activeSessions", activeSessions.get());
+        snapshot.put("ipRateRejections", ipRateRejections.sum());
+        snapshot.put("capacityRejections", capacityRejections.sum());
+        snapshot.put("trackedIps", ipBuckets.size());
+        Map<String, Object> routeSnapshots = new LinkedHashMap<>();
+        routes.forEach((routeId, state) -> {
+            Map<String, Object> route = new LinkedHashMap<>();
+            route.put("activeSessions", state.activeSessions.get());
+            route.put("rateRejections", state.rateRejections.sum());
+            route.put("capacityRejections", state.capacityRejections.sum());
+            routeSnapshots.put(routeId, route);
+        });
+        snapshot.put("routes", routeSnapshots);
+        return snapshot;
+    }
+
+    @PreDestroy
+    public void close() {
+        sweeper.dispose();
+    }
+
+    // limit 이 0 이하면 제한 없이 세기만 함
+    private static boolean tryIncrement(AtomicInteger counter, int limit) {
+        if (limit <= 0) {
+            counter.incrementAndGet();
+            return true;
+        }
+        while (true) {
+            int current = counter.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (counter.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private static Permit reject(ServerWebExchange exchange, HttpStatus status, long retryAfterNanos) {
+        exchange.getResponse().setStatusCode(status);
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER,
+                String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos + 999_999_999L))));
+        return null;
+    }
+
+    private static String remoteIp(ServerWebExchange exchange) {
+        InetSocketAddress address = exchange.getRequest().getRemoteAddress();
+        if (address == null) {
+            return null;
+        }
+        return address.getAddress() != null ? address.getAddress().getHostAddress() : address.getHostString();
+    }
+
+    private void sweep() {
+        long now = System.nanoTime();
+        ipBuckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    private static final class RouteState {
+
+        private final TokenBucket bucket; // 초당 요청 수 제한이 없으면 null
+        private final AtomicInteger activeSessions = new AtomicInteger();
+        private final LongAdder rateRejections = new LongAdder();
+        private final LongAdder capacityRejections = new LongAdder();
+
+        RouteState(WebSocketProxyProperties.RouteAdmissionProperties route, long now) {
+            this.bucket = route.getHandshakeRate() > 0
+                    ? new TokenBucket(route.getHandshakeRate(), route.getHandshakeBurst(), now)
+                    : null;
+        }
+    }
+
+    // 허용된 업그레이드 하나가 차지한 동시 세션 자리, 한 번만 반납됨
+    final class Permit {
+
+        private final RouteState route;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Permit(RouteState route) {
+            this.route = route;
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                activeSessions.decrementAndGet();
+                route.activeSessions.decrementAndGet();
+            }
+        }
+    }
+}
@@ -1,12 +1,17 @@
 package com.ycy.websocket;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.reactive.socket.adapter.NettyWebSocketSessionSupport;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/websocket")
@@ -15,18 +20,115 @@ public class WebSocketController {
     @Autowired
     private WebSocketSessionManager sessionManager;
 
+    @Autowired
+    private SessionDirectory directory;
+
+    // 이 노드에 없는 세션이면 세션 디렉터리에서 소유 노드를 찾아 종료 요청을 전달
     @DeleteMapping("/sessions/{sessionId}")
     public Mono<ResponseEntity<String>> closeSession(@PathVariable String sessionId) {
-        return sessionManager.closeSession(sessionId)
+        List<SessionRecord> owners = sessionManager.getSession(sessionId) == null
+                ? directory.lookup(sessionId)
+                : List.of();
+        Mono<Void> close = owners.isEmpty()
+                ? sessionManager.closeSession(sessionId)
+                : Flux.fromIterable(owners)
+                        .flatMap(directory::close)
+                        .reduce(false, Boolean::logicalOr)
+                        .flatMap(closed -> closed ? Mono.<Void>empty()
+                                : Mono.error(new RuntimeException("해당 세션을 찾을 수 없습니다. 세션 ID: " + sessionId)));
+        return close
                 .then(Mono.just(ResponseEntity.ok("세션이 성공적으로 종료되었습니다: " + sessionId)))
                 .onErrorResume(e -> Mono.just(ResponseEntity.badRequest().body("세션 종료 중 오류 발생: " + e.getMessage())));
     }
 
-    @GetMapping("/sessions")
-    public ResponseEntity<List<String>> getActiveSessions() {
-        List<String> sessions = sessionManager.getSessionMap().keySet()
-                .stream()
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(sessions);
+    private static final int MAX_PAGE_SIZE = 10000;
+
+    // 조건에 맞는 세션 일괄 종료 (route, remoteAddress 가 모두 없으면 전체)
+    // 종료는 설정된 속도로 백그라운드에서 진행되므로 바로 202 를 반환
+    // local 이 아니면 조건에 맞는 세션을 가진 다른 노드에도 같은 요청을 전달
+    @DeleteMapping("/sessions")
+    public ResponseEntity<String> closeSessions(@RequestParam(required = false) String route,
+            @RequestParam(required = false) String remoteAddress,
+            @RequestParam(defaultValue = "false") boolean local) {
+        sessionManager.closeSessions(route, remoteAddress).subscribe();
+        if (!local) {
+            directory.closeAll(route, remoteAddress).subscribe();
+        }
+        return ResponseEntity.accepted().body("세션 일괄 종료를 시작했습니다.");
+    }
+
+    // 조건에 맞는 클라이언트 세션에 메시지 전송 (route, remoteAddress, subProtocol 이 모두 없으면 전체)
+    // 업스트림을 거치지 않고 게이트웨이가 직접 보냄
+    @PostMapping("/broadcast")
+    public Mono<ResponseEntity<Map<String, Object>>> broadcast(@RequestBody byte[] payload,
+            @RequestParam(required = false) String route,
+            @RequestParam(required = false) String remoteAddress,
+            @RequestParam(required = false) String subProtocol,
+            @RequestParam(defaultValue = "false") boolean binary) {
+        if (payload.length > NettyWebSocketSessionSupport.DEFAULT_FRAME_MAX_SIZE) {
+            return Mono.just(ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build());
+        }
+        return sessionManager.broadcast(route, remoteAddress, subProtocol, payload, binary)
+                .map(ResponseEntity::ok);
+    }
+
+    // drain 시작: 새 WebSocket 연결을 받지 않음, closeExisting 이면 기존 세션도 일괄 종료
+    @PostMapping("/drain")
+    public ResponseEntity<Map<String, Object>> startDrain(@RequestParam(defaultValue = "false") boolean closeExisting) {
+        sessionManager.startDrain();
+        if (closeExisting) {
+            sessionManager.closeSessions(null, null).subscribe();
+        }
+        return ResponseEntity.accepted().body(sessionManager.drainStatus());
+    }
+
+    @DeleteMapping("/drain")
+    public ResponseEntity<Map<String, Object>> stopDrain() {
+        sessionManager.stopDrain();
+        return ResponseEntity.ok(sessionManager.drainStatus());
+    }
+
+    @GetMapping("/drain")
+    public ResponseEntity<Map<String, Object>> getDrainStatus() {
+        return ResponseEntity.ok(sessionManager.drainStatus());
+    }
+
+    // 세션 목록 조회: 세션 ID 순으로 한 줄에 하나씩 NDJSON 으로 흘려보냄
+    // 다음 페이지는 마지막으로 받은 sessionId 를 after 로 넘겨서 조회
+    // local 이 아니면 세션 디렉터리에 있는 다른 노드의 세션도 세션 ID 순으로 합쳐서 보냄 (다른 노드에 묻지 않음)
+    @GetMapping(value = "/sessions", produces = { MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE })
+    public Flux<Map<String, Object>> getActiveSessions(@RequestParam(required = false) String route,
+            @RequestParam(required = false) String remoteAddress,
+            @RequestParam(required = false) String subProtocol,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "1000") int limit,
+            @RequestParam(defaultValue = "false") boolean local) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        String node = directory.localNode();
+        Flux<Map<String, Object>> localSessions = sessionManager.listSessions(route, remoteAddress, subProtocol,
+                after, pageSize)
+                .map(entry -> entry.snapshot(node));
+        if (local) {
+            return localSessions;
+        }
+        Flux<Map<String, Object>> remoteSessions = directory.find(route, remoteAddress, subProtocol, after)
+                .take(pageSize)
+                .map(SessionRecord::snapshot);
+        return Flux.mergeComparing(Comparator.comparing(snapshot -> (String) snapshot.get("sessionId")),
+                localSessions, remoteSessions)
+                .take(pageSize);
+    }
+
+    @GetMapping("/sessions/{sessionId}")
+    public ResponseEntity<Map<String, Object>> getSession(@PathVariable String sessionId) {
+        WebSocketSessionManager.SessionEntry session = sessionManager.getSession(sessionId);
+        if (session != null) {
+            return ResponseEntity.ok(session.snapshot(directory.localNode()));
+        }
+        List<SessionRecord> owners = directory.lookup(sessionId);
+        if (owners.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(owners.get(0).snapshot());
     }
 }
\ No newline at end of file
@@ -0,0 +1,150 @@
+package com.ycy.websocket;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.stereotype.Component;
+
+// 핸드쉐이크/세션/프레임 이벤트 로그 파이프라인
+// 이벤트 루프에서는 링 버퍼에 넣기만 하고, 실제 로그 출력은 별도 drain 스레드에서 수행
+@Component
+public class WebSocketEventLogger {
+
+    private static final Log logger = LogFactory.getLog(WebSocketEventLogger.class);
+
+    private final WebSocketProxyProperties proxyProperties;
+    private final EventRingBuffer<Event> buffer;
+    private final long drainIntervalNanos;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    private volatile boolean running;
+    private Thread drainer;
+
+    public WebSocketEventLogger(WebSocketProxyProperties proxyProperties) {
+        this.proxyProperties = proxyProperties;
+        WebSocketProxyProperties.LoggingProperties logging = proxyProperties.getLogging();
+        this.buffer = new EventRingBuffer<>(logging.getBufferSize());
+        this.drainIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, logging.getDrainIntervalMillis()));
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        drainer = new Thread(this::drainLoop, "ws-event-log-drainer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(drainer);
+        drainer.join(TimeUnit.SECONDS.toMillis(1));
+    }
+
+    // 세션 이벤트 기록 (라우트의 eventLogSampleRate 에 따라 샘플링)
+    // detail 은 drain 스레드에서 문자열로 변환되므로 이후에 변경되지 않는 값만 넘길 것
+    public void event(String source, String routeId, String sessionId, String message, Object detail) {
+        if (sampled(proxyProperties.getRoute(routeId).getEventLogSampleRate())) {
+            publish(new Event(source, routeId, sessionId, message, detail));
+        }
+    }
+
+    // 프레임 이벤트 기록 (INSPECT 모드 전용, 페이로드는 logPayloadMaxBytes 까지만 디코딩)
+    public void frame(String routeId, String sessionId, FrameRelay.Direction direction, WebSocketFrame frame) {
+        WebSocketProxyProperties.RouteProperties route = proxyProperties.getRoute(routeId);
+        if (sampled(route.getFrameLogSampleRate())) {
+            publish(new Event("FrameRelay", routeId, sessionId, direction.getLabel(),
+                    describe(frame, route.getLogPayloadMaxBytes())));
+        }
+    }
+
+    // 버퍼가 가득 차서 버려진 이벤트 수
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getPublishedCount() {
+        return published.sum();
+    }
+
+    private void publish(Event event) {
+        if (buffer.offer(event)) {
+            published.increment();
+        } else {
+            dropped.increment();
+        }
+    }
+
+    private static boolean sampled(double rate) {
+        return rate >= 1.0 || (rate > 0.0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    private static String describe(WebSocketFrame frame, int maxBytes) {
+        ByteBuf content = frame.content();
+        int length = content.readableBytes();
+        if (!(frame instanceof TextWebSocketFrame)) {
+            return frame.getClass().getSimpleName() + " (" + length + " bytes)";
+        }
+        if (length <= maxBytes) {
+            return content.toString(StandardCharsets.UTF_8);
+        }
+        return content.toString(content.readerIndex(), maxBytes, StandardCharsets.UTF_8)
+                + "...(" + length + " bytes)";
+    }
+
+    private void drainLoop() {
+        while (running) {
+            Event event = buffer.poll();
+            if (event == null) {
+                LockSupport.parkNanos(drainIntervalNanos);
+                continue;
+            }
+            write(event);
+        }
+        // 종료 시 남은 이벤트 출력
+        Event event;
+        while ((event = buffer.poll()) != null) {
+            write(event);
+        }
+    }
+
+    private static void write(Event event) {
+        if (logger.isInfoEnabled()) {
+            String detail = event.detail != null ? " : " + event.detail : "";
+            logger.info("[" + event.source + "] " + event.message + detail + " (route=" + event.routeId
+                    + ", session=" + event.sessionId + ", at=" + Instant.ofEpochMilli(event.timestamp) + ")");
+        }
+    }
+
+    private static final class Event {
+
+        private final long timestamp = System.currentTimeMillis();
+        private final String source;
+        private final String routeId;
+        private final String sessionId;
+        private final String message;
+        private final Object detail;
+
+        Event(String source, String routeId, String sessionId, String message, Object detail) {
+            this.source = source;
+            this.routeId = routeId;
+            this.sessionId = sessionId;
+            this.message = message;
+            this.detail = detail;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.ycy.websocket;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/websocket/metrics")
+public class WebSocketMetricsController {
+
+    @Autowired
+    private WebSocketRelayMetrics relayMetrics;
+
+    @Autowired
+    private WebSocketEventLogger eventLogger;
+
+    @Autowired
+    private UpstreamConnectionPools upstreamPools;
+
+    @Autowired
+    private UpstreamBalancers upstreamBalancers;
+
+    @Autowired
+    private WebSocketAdmissionControl admissionControl;
+
+    @Autowired
+    private InFlightByteBudget inFlightBudget;
+
+    @Autowired
+    private TrafficCapture trafficCapture;
+
+    @Autowired
+    private HandshakeTemplates handshakeTemplates;
+
+    @Autowired
+    private ResourceLeakMonitor leakMonitor;
+
+    // 전체 라우트 지표 조회
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getMetrics() {
+        List<Map<String, Object>> routes = relayMetrics.getRoutes().values()
+                .stream()
+                .map(WebSocketRelayMetrics.RouteMetrics::snapshot)
+                .collect(Collectors.toList());
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("routes", routes);
+        body.put("eventLogPublished", eventLogger.getPublishedCount());
+        body.put("eventLogDropped", eventLogger.getDroppedCount());
+        return ResponseEntity.ok(body);
+    }
+
+    // 라우트 지표 조회
+    @GetMapping("/routes/{routeId}")
+    public ResponseEntity<Map<String, Object>> getRouteMetrics(@PathVariable String routeId) {
+        WebSocketRelayMetrics.RouteMetrics route = relayMetrics.getRoutes().get(routeId);
+        if (route == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(route.snapshot());
+    }
+
+    // 세션 지표 조회
+    @GetMapping("/sessions/{sessionId}")
+    public ResponseEntity<Map<String, Object>> getSessionMetrics(@PathVariable String sessionId) {
+        WebSocketRelayMetrics.SessionMetrics session = relayMetrics.getSession(sessionId);
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(session.snapshot());
+    }
+
+    // 업스트림 세션 풀 상태 조회
+    @GetMapping("/pools")
+    public ResponseEntity<List<Map<String, Object>>> getPoolMetrics() {
+        return ResponseEntity.ok(upstreamPools.snapshot());
+    }
+
+    // 업스트림 인스턴스별 로드 밸런싱 상태 조회
+    @GetMapping("/balancers")
+    public ResponseEntity<List<Map<String, Object>>> getBalancerMetrics() {
+        return ResponseEntity.ok(upstreamBalancers.snapshot());
+    }
+
+    // 샤딩 라우트의 샤드별 중계 프레임 수 조회
+    @GetMapping("/shards")
+    public ResponseEntity<List<Map<String, Object>>> getShardMetrics() {
+        return ResponseEntity.ok(handshakeTemplates.shardSnapshot());
+    }
+
+    // 업그레이드 허용 한도 상태 조회 (동시 세션 수, 거절 횟수)
+    @GetMapping("/admission")
+    public ResponseEntity<Map<String, Object>> getAdmissionMetrics() {
+        return ResponseEntity.ok(admissionControl.snapshot());
+    }
+
+    // 스트리밍 중계의 in-flight 바이트 한도 상태 조회 (사용량, 최대 사용량, 대기 횟수)
+    @GetMapping("/streaming")
+    public ResponseEntity<Map<String, Object>> getStreamingMetrics() {
+        return ResponseEntity.ok(inFlightBudget.snapshot());
+    }
+
+    // 트래픽 캡처 상태 조회 (캡처한 세션/프레임 수, 버린 레코드 수, 세그먼트 파일)
+    @GetMapping("/capture")
+    public ResponseEntity<Map<String, Object>> getCaptureMetrics() {
+        return ResponseEntity.ok(trafficCapture.snapshot());
+    }
+
+    // 누수 점검 상태 조회 (열린 세션/업스트림 수, 레지스트리에 남은 닫힌 세션, direct 버퍼 사용량, 누수 보고 수)
+    @GetMapping("/leaks")
+    public ResponseEntity<Map<String, Object>> getLeakMetrics() {
+        return ResponseEntity.ok(leakMonitor.snapshot());
+    }
+}
@@ -0,0 +1,1491 @@
+package com.ycy.websocket;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// application.yml 의 websocket.proxy 설정을 바인딩
+@Component
+@ConfigurationProperties(prefix = "websocket.proxy")
+public class WebSocketProxyProperties {
+
+    // 라우트별 설정이 없을 때 사용하는 기본 설정
+    private RouteProperties defaults = new RouteProperties();
+
+    // 키: 게이트웨이 라우트 ID, 값: 해당 라우트의 설정
+    private Map<String, RouteProperties> routes = new HashMap<>();
+
+    // 이벤트 로그 파이프라인 설정
+    private LoggingProperties logging = new LoggingProperties();
+
+    // 배포 시 세션 정리(drain, 일괄 종료) 설정
+    private DrainProperties drain = new DrainProperties();
+
+    // 게이트웨이 전체 / 원격 IP 단위 업그레이드 허용 한도
+    private AdmissionProperties admission = new AdmissionProperties();
+
+    // 클라이언트 구간 / 업스트림 구간의 이벤트 루프 구성과 전송 계층
+    private EventLoopProperties eventLoops = new EventLoopProperties();
+
+    // 여러 게이트웨이 노드 사이의 세션 디렉터리 (기본 구현: 피어끼리 세션 변경분 교환)
+    private ClusterProperties cluster = new ClusterProperties();
+
+    // 스트리밍 중계 라우트 전체에 걸친 메모리 한도
+    private StreamingProperties streaming = new StreamingProperties();
+
+    // 중계한 프레임을 파일로 남기는 트래픽 캡처 (부하 테스트 재생용)
+    private CaptureProperties capture = new CaptureProperties();
+
+    // 닫힌 세션이 레지스트리에 남아 있는지 주기적으로 점검
+    private LeakCheckProperties leakCheck = new LeakCheckProperties();
+
+    // 라우트 ID에 해당하는 설정을 반환 (없으면 기본 설정)
+    public RouteProperties getRoute(String routeId) {
+        if (routeId != null) {
+            RouteProperties route = routes.get(routeId);
+            if (route != null) {
+                return route;
+            }
+        }
+        return defaults;
+    }
+
+    public RouteProperties getDefaults() {
+        return defaults;
+    }
+
+    public void setDefaults(RouteProperties defaults) {
+        this.defaults = defaults;
+    }
+
+    public Map<String, RouteProperties> getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(Map<String, RouteProperties> routes) {
+        this.routes = routes;
+    }
+
+    public LoggingProperties getLogging() {
+        return logging;
+    }
+
+    public void setLogging(LoggingProperties logging) {
+        this.logging = logging;
+    }
+
+    public DrainProperties getDrain() {
+        return drain;
+    }
+
+    public void setDrain(DrainProperties drain) {
+        this.drain = drain;
+    }
+
+    public AdmissionProperties getAdmission() {
+        return admission;
+    }
+
+    public void setAdmission(AdmissionProperties admission) {
+        this.admission = admission;
+    }
+
+    public EventLoopProperties getEventLoops() {
+        return eventLoops;
+    }
+
+    public void setEventLoops(EventLoopProperties eventLoops) {
+        this.eventLoops = eventLoops;
+    }
+
+    public ClusterProperties getCluster() {
+        return cluster;
+    }
+
+    public void setCluster(ClusterProperties cluster) {
+        this.cluster = cluster;
+    }
+
+    public StreamingProperties getStreaming() {
+        return streaming;
+    }
+
+    public void setStreaming(StreamingProperties streaming) {
+        this.streaming = streaming;
+    }
+
+    public CaptureProperties getCapture() {
+        return capture;
+    }
+
+    public void setCapture(CaptureProperties capture) {
+        this.capture = capture;
+    }
+
+    public LeakCheckProperties getLeakCheck() {
+        return leakCheck;
+    }
+
+    public void setLeakCheck(LeakCheckProperties leakCheck) {
+        this.leakCheck = leakCheck;
+    }
+
+    // 프레임 중계 방식
+    public enum RelayMode {
+        // Netty 프레임 버퍼를 그대로 반대편 세션으로 전달 (페이로드를 읽지 않음)
+        PASSTHROUGH,
+        // 전달 전에 페이로드를 읽어 로그로 남김 (디버깅용)
+        INSPECT
+    }
+
+    // 반대편 세션이 프레임을 제때 가져가지 못할 때의 처리 방식
+    public enum SlowConsumerPolicy {
+        // 반대편 연결 읽기를 멈춤 (TCP 흐름 제어로 송신 측까지 전파)
+        PAUSE,
+        // 계속 읽으면서 대기열이 가득 차면 가장 오래된 프레임을 버림
+        DROP_OLDEST,
+        // 느린 세션을 1008(정책 위반)로 종료
+        CLOSE
+    }
+
+    // 라우트 단위 설정
+    public static class RouteProperties {
+
+        private RelayMode relayMode = RelayMode.PASSTHROUGH;
+
+        // 연결/종료 같은 세션 이벤트 로그 샘플링 비율 (0.0 ~ 1.0)
+        private double eventLogSampleRate = 1.0;
+
+        // INSPECT 모드에서 프레임 로그 샘플링 비율 (0.0 ~ 1.0)
+        private double frameLogSampleRate = 1.0;
+
+        // 프레임 로그에 남길 최대 페이로드 바이트 수 (초과분은 잘라냄)
+        private int logPayloadMaxBytes = 256;
+
+        // 트래픽 캡처 대상 세션 비율 (0.0 ~ 1.0, 세션이 열릴 때 한 번 정함), capture.enabled 가 true 일 때만 적용
+        private double captureSampleRate = 0.0;
+
+        // 미리 연결해 두는 업스트림 세션 풀
+        private UpstreamPoolProperties upstreamPool = new UpstreamPoolProperties();
+
+        // 세션별 버퍼 한도와 느린 세션 처리 방식
+        private BackpressureProperties backpressure = new BackpressureProperties();
+
+        // 반대편 연결에 대한 flush 묶음 처리 (작은 프레임이 많은 라우트용)
+        private FlushBatchingProperties flushBatching = new FlushBatchingProperties();
+
+        // permessage-deflate 압축 (클라이언트 구간 / 업스트림 구간 각각 설정)
+        private CompressionProperties compression = new CompressionProperties();
+
+        // 여러 업스트림 인스턴스 중 업그레이드 시점에 연결할 대상 선택
+        private LoadBalancerProperties loadBalancer = new LoadBalancerProperties();
+
+        // 라우트 단위 업그레이드 허용 한도
+        private RouteAdmissionProperties admission = new RouteAdmissionProperties();
+
+        // 게이트웨이가 양쪽 연결에 직접 보내는 ping 과 응답 없는 연결 정리
+        private HeartbeatProperties heartbeat = new HeartbeatProperties();
+
+        // 업스트림이 끊겨도 클라이언트 세션을 유지하고 업스트림만 다시 연결
+        private ReconnectProperties reconnect = new ReconnectProperties();
+
+        // 데이터 프레임 변환기 (설정 순서대로 적용)
+        private List<FrameTransformerProperties> transformers = new ArrayList<>();
+
+        // 분할(continuation) 프레임을 모으지 않고 도착하는 대로 중계
+        private RouteStreamingProperties streaming = new RouteStreamingProperties();
+
+        // 유휴 세션이 대부분인 라우트용: 세션마다 유지하는 객체와 구독을 줄이고 핸드쉐이크 정보는 업스트림 연결 후 해제
+        // (재연결 라우트에는 적용하지 않음)
+        private boolean highDensity = false;
+
+        // 프레임 안의 키로 샤드를 골라 중계 (세션마다 샤드별 업스트림 세션을 하나씩 유지)
+        private ShardingProperties sharding = new ShardingProperties();
+
+        public RelayMode getRelayMode() {
+            return relayMode;
+        }
+
+        public void setRelayMode(RelayMode relayMode) {
+            this.relayMode = relayMode;
+        }
+
+        public double getEventLogSampleRate() {
+            return eventLogSampleRate;
+        }
+
+        public void setEventLogSampleRate(double eventLogSampleRate) {
+            this.eventLogSampleRate = eventLogSampleRate;
+        }
+
+        public double getFrameLogSampleRate() {
+            return frameLogSampleRate;
+        }
+
+        public void setFrameLogSampleRate(double frameLogSampleRate) {
+            this.frameLogSampleRate = frameLogSampleRate;
+        }
+
+        public int getLogPayloadMaxBytes() {
+            return logPayloadMaxBytes;
+        }
+
+        public void setLogPayloadMaxBytes(int logPayloadMaxBytes) {
+            this.logPayloadMaxBytes = logPayloadMaxBytes;
+        }
+
+        public double getCaptureSampleRate() {
+            return captureSampleRate;
+        }
+
+        public void setCaptureSampleRate(double captureSampleRate) {
+            this.captureSampleRate = captureSampleRate;
+        }
+
+        public UpstreamPoolProperties getUpstreamPool() {
+            return upstreamPool;
+        }
+
+        public void setUpstreamPool(UpstreamPoolProperties upstreamPool) {
+            this.upstreamPool = upstreamPool;
+        }
+
+        public BackpressureProperties getBackpressure() {
+            return backpressure;
+        }
+
+        public void setBackpressure(BackpressureProperties backpressure) {
+            this.backpressure = backpressure;
+        }
+
+        public FlushBatchingProperties getFlushBatching() {
+            return flushBatching;
+        }
+
+        public void setFlushBatching(FlushBatchingProperties flushBatching) {
+            this.flushBatching = flushBatching;
+        }
+
+        public CompressionProperties getCompression() {
+            return compression;
+        }
+
+        public void setCompression(CompressionProperties compression) {
+            this.compression = compression;
+        }
+
+        public LoadBalancerProperties getLoadBalancer() {
+            return loadBalancer;
+        }
+
+        public void setLoadBalancer(LoadBalancerProperties loadBalancer) {
+            this.loadBalancer = loadBalancer;
+        }
+
+        public RouteAdmissionProperties getAdmission() {
+            return admission;
+        }
+
+        public void setAdmission(RouteAdmissionProperties admission) {
+            this.admission = admission;
+        }
+
+        public HeartbeatProperties getHeartbeat() {
+            return heartbeat;
+        }
+
+        public void setHeartbeat(HeartbeatProperties heartbeat) {
+            this.heartbeat = heartbeat;
+        }
+
+        public ReconnectProperties getReconnect() {
+            return reconnect;
+        }
+
+        public void setReconnect(ReconnectProperties reconnect) {
+            this.reconnect = reconnect;
+        }
+
+        public List<FrameTransformerProperties> getTransformers() {
+            return transformers;
+        }
+
+        public RouteStreamingProperties getStreaming() {
+            return streaming;
+        }
+
+        public void setStreaming(RouteStreamingProperties streaming) {
+            this.streaming = streaming;
+        }
+
+        public boolean isHighDensity() {
+            return highDensity;
+        }
+
+        public void setHighDensity(boolean highDensity) {
+            this.highDensity = highDensity;
+        }
+
+        public ShardingProperties getSharding() {
+            return sharding;
+        }
+
+        public void setSharding(ShardingProperties sharding) {
+            this.sharding = sharding;
+        }
+
+        public void setTransformers(List<FrameTransformerProperties> transformers) {
+            this.transformers = transformers;
+        }
+    }
+
+    // 프레임 변환기 하나 (게이트웨이 필터 설정처럼 이름과 인자로 지정)
+    // name 은 기본 제공 변환기(inject-field, redact-fields, envelope) 또는 FrameTransformer 스프링 빈 이름
+    // args 의 direction(CLIENT_TO_SERVER / SERVER_TO_CLIENT)을 생략하면 양방향에 적용
+    public static class FrameTransformerProperties {
+
+        private String name;
+
+        private Map<String, String> args = new HashMap<>();
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public Map<String, String> getArgs() {
+            return args;
+        }
+
+        public void setArgs(Map<String, String> args) {
+            this.args = args;
+        }
+    }
+
+    // 하트비트 설정
+    // 마지막 수신 이후 ping 주기가 지나면 ping 을 보내고, idleTimeout 동안 아무것도(pong 포함) 받지 못하면 세션 종료
+    public static class HeartbeatProperties {
+
+        private boolean enabled = false;
+
+        // 클라이언트 구간 ping 주기
+        private Duration clientPingInterval = Duration.ofSeconds(30);
+
+        // 업스트림 구간 ping 주기
+        private Duration upstreamPingInterval = Duration.ofSeconds(30);
+
+        // 한 구간에서 이 시간 동안 수신이 없으면 응답 없는 연결로 보고 양쪽 세션 종료 (ping 주기보다 길게 설정)
+        private Duration idleTimeout = Duration.ofSeconds(90);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getClientPingInterval() {
+            return clientPingInterval;
+        }
+
+        public void setClientPingInterval(Duration clientPingInterval) {
+            this.clientPingInterval = clientPingInterval;
+        }
+
+        public Duration getUpstreamPingInterval() {
+            return upstreamPingInterval;
+        }
+
+        public void setUpstreamPingInterval(Duration upstreamPingInterval) {
+            this.upstreamPingInterval = upstreamPingInterval;
+        }
+
+        public Duration getIdleTimeout() {
+            return idleTimeout;
+        }
+
+        public void setIdleTimeout(Duration idleTimeout) {
+            this.idleTimeout = idleTimeout;
+        }
+    }
+
+    // 업스트림 재연결 설정
+    // 업스트림이 closeCodes 중 하나로 끊기면 클라이언트 세션은 그대로 두고 지수 백오프로 다시 연결
+    // 연결이 없는 동안 클라이언트가 보낸 프레임은 세션별 버퍼에 모았다가 새 업스트림에 순서대로 전달
+    public static class ReconnectProperties {
+
+        private boolean enabled = false;
+
+        // 재연결 대상 종료 코드 (1006 은 종료 프레임 없이 연결이 끊긴 경우), 그 밖의 코드는 클라이언트까지 종료
+        private List<Integer> closeCodes = new ArrayList<>(List.of(1001, 1006, 1011, 1012, 1013, 1014));
+
+        // 첫 재연결 시도 전 대기 시간 (시도마다 두 배, 최대 maxBackoff)
+        private Duration initialBackoff = Duration.ofMillis(100);
+
+        private Duration maxBackoff = Duration.ofSeconds(5);
+
+        // 연속으로 실패한 재연결 시도가 이 횟수에 도달하면 클라이언트 세션을 1011 로 종료
+        private int maxAttempts = 10;
+
+        // 업스트림이 없는 동안 모아 둘 클라이언트 프레임의 최대 바이트 수
+        private int bufferMaxBytes = 1024 * 1024;
+
+        // 버퍼가 가득 찼을 때의 처리 방식 (PAUSE: 클라이언트 읽기 중단, DROP_OLDEST: 오래된 프레임 버림, CLOSE: 1008 로 종료)
+        private SlowConsumerPolicy overflowPolicy = SlowConsumerPolicy.CLOSE;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<Integer> getCloseCodes() {
+            return closeCodes;
+        }
+
+        public void setCloseCodes(List<Integer> closeCodes) {
+            this.closeCodes = closeCodes;
+        }
+
+        public Duration getInitialBackoff() {
+            return initialBackoff;
+        }
+
+        public void setInitialBackoff(Duration initialBackoff) {
+            this.initialBackoff = initialBackoff;
+        }
+
+        public Duration getMaxBackoff() {
+            return maxBackoff;
+        }
+
+        public void setMaxBackoff(Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public int getBufferMaxBytes() {
+            return bufferMaxBytes;
+        }
+
+        public void setBufferMaxBytes(int bufferMaxBytes) {
+            this.bufferMaxBytes = bufferMaxBytes;
+        }
+
+        public SlowConsumerPolicy getOverflowPolicy() {
+            return overflowPolicy;
+        }
+
+        public void setOverflowPolicy(SlowConsumerPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+        }
+    }
+
+    // 라우트 단위 스트리밍 중계 설정
+    // 프레임 변환기가 있는 방향과 재연결 라우트는 메시지 단위로 처리해야 하고, DROP_OLDEST 정책은 중간 프레임을 버리면
+    // 메시지가 깨지므로 기존처럼 분할 프레임을 모아서 중계
+    public static class RouteStreamingProperties {
+
+        private boolean enabled = false;
+
+        // 프레임 하나의 최대 페이로드 크기, 초과하면 프레임 디코더가 받기 전에 1009 로 종료 (양쪽 구간 모두 적용)
+        private int maxFrameSize = 65536;
+
+        // 분할 프레임을 합친 메시지 하나의 최대 크기, 초과하면 양쪽 세션을 1009 로 종료 (0 이면 제한 없음)
+        private long maxMessageSize = 16 * 1024 * 1024;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxFrameSize() {
+            return maxFrameSize;
+        }
+
+        public void setMaxFrameSize(int maxFrameSize) {
+            this.maxFrameSize = maxFrameSize;
+        }
+
+        public long getMaxMessageSize() {
+            return maxMessageSize;
+        }
+
+        public void setMaxMessageSize(long maxMessageSize) {
+            this.maxMessageSize = maxMessageSize;
+        }
+    }
+
+    // 키가 없는 프레임(연결/인증 메시지, 하트비트 등)을 보낼 샤드
+    public enum UnkeyedFramePolicy {
+        // 모든 샤드 (STOMP CONNECT 처럼 샤드마다 세션을 맺어야 하는 프로토콜용)
+        ALL_SHARDS,
+        // 첫 번째 샤드
+        FIRST_SHARD
+    }
+
+    // 콘텐츠 기반 샤딩 설정
+    // 클라이언트 세션마다 shards 의 모든 인스턴스에 업스트림 세션을 열고, 클라이언트 프레임은 페이로드에서 찾은 키의
+    // 해시 링 위치로 고른 샤드 하나에만 보냄 (샤드들이 보낸 프레임은 모두 클라이언트로 중계)
+    // 키는 메시지 단위로 찾으므로 분할 프레임은 모아서 중계하고, 재연결 라우트에는 적용하지 않음
+    public static class ShardingProperties {
+
+        private boolean enabled = false;
+
+        // 샤드 업스트림 (스킴 + 호스트 + 포트, 요청 경로/쿼리는 그대로 붙임), 순서가 바뀌어도 키 배정은 같음
+        private List<URI> shards = new ArrayList<>();
+
+        // 서브 프로토콜이 protocolKeys 에 없을 때의 키: json:필드이름 (최상위 JSON 필드), stomp:헤더이름 (STOMP 프레임 헤더)
+        private String key = "json:topic";
+
+        // 서브 프로토콜별 키 (클라이언트가 요청한 순서대로 처음 일치하는 것을 사용)
+        // 점이 들어간 서브 프로토콜은 대괄호로 감쌈 (예: "[v12.stomp]": stomp:destination)
+        private Map<String, String> protocolKeys = new HashMap<>();
+
+        private UnkeyedFramePolicy unkeyedFrames = UnkeyedFramePolicy.ALL_SHARDS;
+
+        // 해시 링에 샤드마다 배치할 가상 노드 수
+        private int virtualNodes = 160;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<URI> getShards() {
+            return shards;
+        }
+
+        public void setShards(List<URI> shards) {
+            this.shards = shards;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public void setKey(String key) {
+            this.key = key;
+        }
+
+        public Map<String, String> getProtocolKeys() {
+            return protocolKeys;
+        }
+
+        public void setProtocolKeys(Map<String, String> protocolKeys) {
+            this.protocolKeys = protocolKeys;
+        }
+
+        public UnkeyedFramePolicy getUnkeyedFrames() {
+            return unkeyedFrames;
+        }
+
+        public void setUnkeyedFrames(UnkeyedFramePolicy unkeyedFrames) {
+            this.unkeyedFrames = unkeyedFrames;
+        }
+
+        public int getVirtualNodes() {
+            return virtualNodes;
+        }
+
+        public void setVirtualNodes(int virtualNodes) {
+            this.virtualNodes = virtualNodes;
+        }
+    }
+
+    // 라우트 단위 업그레이드 허용 한도 (0 이면 제한 없음)
+    public static class RouteAdmissionProperties {
+
+        // 동시 세션 수 한도 (초과 시 503)
+        private int maxSessions = 0;
+
+        // 초당 업그레이드 요청 수 (초과 시 429)
+        private double handshakeRate = 0;
+
+        // 한 번에 허용할 업그레이드 요청 수
+        private int handshakeBurst = 100;
+
+        public int getMaxSessions() {
+            return maxSessions;
+        }
+
+        public void setMaxSessions(int maxSessions) {
+            this.maxSessions = maxSessions;
+        }
+
+        public double getHandshakeRate() {
+            return handshakeRate;
+        }
+
+        public void setHandshakeRate(double handshakeRate) {
+            this.handshakeRate = handshakeRate;
+        }
+
+        public int getHandshakeBurst() {
+            return handshakeBurst;
+        }
+
+        public void setHandshakeBurst(int handshakeBurst) {
+            this.handshakeBurst = handshakeBurst;
+        }
+    }
+
+    // 업스트림 인스턴스 선택 방식
+    public enum BalancingStrategy {
+        // 활성 세션(연결 중 포함)이 가장 적은 인스턴스
+        LEAST_SESSIONS,
+        // 임의로 고른 두 인스턴스 중 활성 세션이 적은 쪽
+        POWER_OF_TWO_CHOICES,
+        // 요청의 키(헤더/쿼리/쿠키/원격 주소) 해시로 항상 같은 인스턴스 (키가 없으면 LEAST_SESSIONS)
+        CONSISTENT_HASH
+    }
+
+    // 업스트림 로드 밸런싱 설정 (instances 가 비어 있으면 라우트 URI 하나만 사용)
+    public static class LoadBalancerProperties {
+
+        // 업스트림 인스턴스 (스킴 + 호스트 + 포트, 요청 경로/쿼리는 그대로 붙임)
+        private List<URI> instances = new ArrayList<>();
+
+        private BalancingStrategy strategy = BalancingStrategy.LEAST_SESSIONS;
+
+        // CONSISTENT_HASH 의 키: header:이름, query:이름, cookie:이름, remote-address
+        private String hashKey = "remote-address";
+
+        // 해시 링에 인스턴스마다 배치할 가상 노드 수
+        private int virtualNodes = 160;
+
+        // 연속 연결 실패가 이 횟수에 도달하면 선택 대상에서 제외
+        private int failureThreshold = 3;
+
+        // 제외된 인스턴스에 핸드쉐이크를 시도해서 복구 여부를 확인하는 주기
+        private Duration probeInterval = Duration.ofSeconds(5);
+
+        private Duration probeTimeout = Duration.ofSeconds(3);
+
+        // 복구 확인 핸드쉐이크 경로 (비어 있으면 그 인스턴스를 마지막으로 선택한 요청의 경로)
+        // 인스턴스 주소에는 경로가 없으므로, 특정 경로에서만 WebSocket 을 받는 업스트림은 이 값이나 이전 요청 경로가 있어야 복구됨
+        private String probePath = "";
+
+        public List<URI> getInstances() {
+            return instances;
+        }
+
+        public void setInstances(List<URI> instances) {
+            this.instances = instances;
+        }
+
+        public BalancingStrategy getStrategy() {
+            return strategy;
+        }
+
+        public void setStrategy(BalancingStrategy strategy) {
+            this.strategy = strategy;
+        }
+
+        public String getHashKey() {
+            return hashKey;
+        }
+
+        public void setHashKey(String hashKey) {
+            this.hashKey = hashKey;
+        }
+
+        public int getVirtualNodes() {
+            return virtualNodes;
+        }
+
+        public void setVirtualNodes(int virtualNodes) {
+            this.virtualNodes = virtualNodes;
+        }
+
+        public int getFailureThreshold() {
+            return failureThreshold;
+        }
+
+        public void setFailureThreshold(int failureThreshold) {
+            this.failureThreshold = failureThreshold;
+        }
+
+        public Duration getProbeInterval() {
+            return probeInterval;
+        }
+
+        public void setProbeInterval(Duration probeInterval) {
+            this.probeInterval = probeInterval;
+        }
+
+        public Duration getProbeTimeout() {
+            return probeTimeout;
+        }
+
+        public void setProbeTimeout(Duration probeTimeout) {
+            this.probeTimeout = probeTimeout;
+        }
+
+        public String getProbePath() {
+            return probePath;
+        }
+
+        public void setProbePath(String probePath) {
+            this.probePath = probePath;
+        }
+    }
+
+    // 세션 방향별 버퍼 한도
+    // 바이트 한도는 반대편 Netty 채널의 write buffer watermark(쓰기 가능 여부)로,
+    // 프레임 한도는 읽었지만 아직 반대편 채널에 쓰지 못한 프레임 수로 적용
+    public static class BackpressureProperties {
+
+        private SlowConsumerPolicy slowConsumerPolicy = SlowConsumerPolicy.PAUSE;
+
+        private int highWatermarkBytes = 256 * 1024;
+
+        private int lowWatermarkBytes = 128 * 1024;
+
+        private int highWatermarkFrames = 1024;
+
+        private int lowWatermarkFrames = 512;
+
+        public SlowConsumerPolicy getSlowConsumerPolicy() {
+            return slowConsumerPolicy;
+        }
+
+        public void setSlowConsumerPolicy(SlowConsumerPolicy slowConsumerPolicy) {
+            this.slowConsumerPolicy = slowConsumerPolicy;
+        }
+
+        public int getHighWatermarkBytes() {
+            return highWatermarkBytes;
+        }
+
+        public void setHighWatermarkBytes(int highWatermarkBytes) {
+            this.highWatermarkBytes = highWatermarkBytes;
+        }
+
+        public int getLowWatermarkBytes() {
+            return lowWatermarkBytes;
+        }
+
+        public void setLowWatermarkBytes(int lowWatermarkBytes) {
+            this.lowWatermarkBytes = lowWatermarkBytes;
+        }
+
+        public int getHighWatermarkFrames() {
+            return highWatermarkFrames;
+        }
+
+        public void setHighWatermarkFrames(int highWatermarkFrames) {
+            this.highWatermarkFrames = highWatermarkFrames;
+        }
+
+        public int getLowWatermarkFrames() {
+            return lowWatermarkFrames;
+        }
+
+        public void setLowWatermarkFrames(int lowWatermarkFrames) {
+            this.lowWatermarkFrames = lowWatermarkFrames;
+        }
+    }
+
+    // 업스트림 세션 풀 설정
+    // 풀 세션은 클라이언트 헤더 없이 연결되므로, 클라이언트별 헤더/서브 프로토콜이 필요 없는 백엔드에서만 사용할 것
+    public static class UpstreamPoolProperties {
+
+        private boolean enabled = false;
+
+        // 업스트림이 클라이언트별 핸드쉐이크 헤더(Cookie, Authorization, X-Forwarded-* 등)에 의존하지 않는다는 선언
+        // 풀 세션은 클라이언트 헤더 없이 미리 연결되므로, 이 값이 true 인 라우트에서만 풀을 사용하고
+        // false 면 enabled 여도 요청마다 클라이언트 헤더로 새로 연결
+        private boolean sharedHandshake = false;
+
+        // 항상 유지할 유휴 세션 수
+        private int minIdle = 4;
+
+        // 유휴 + 연결 중인 세션의 최대 수 (빌려 갈 유휴 세션이 없을 때마다 하나씩 늘리고, 한가해지면 minIdle 까지 줄임)
+        private int maxSize = 32;
+
+        // 이 시간보다 오래된 유휴 세션은 닫고 새로 연결
+        private Duration maxAge = Duration.ofMinutes(5);
+
+        // ping 검증 및 보충 주기 (이전 ping 에 대한 pong 이 없으면 세션을 버림)
+        private Duration validationInterval = Duration.ofSeconds(30);
+
+        // 풀은 라우트 + 업스트림 인스턴스마다 하나이고 풀 세션은 이 경로로 핸드쉐이크 (이 경로로 오는 요청에만 넘겨줌)
+        private String path = "/";
+
+        // 이 시간 동안 세션을 빌려 간 요청이 없는 풀은 유휴 세션을 닫고 제거 (다음 요청에서 다시 만듦)
+        private Duration idleTimeout = Duration.ofMinutes(10);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public boolean isSharedHandshake() {
+            return sharedHandshake;
+        }
+
+        public void setSharedHandshake(boolean sharedHandshake) {
+            this.sharedHandshake = sharedHandshake;
+        }
+
+        public int getMinIdle() {
+            return minIdle;
+        }
+
+        public void setMinIdle(int minIdle) {
+            this.minIdle = minIdle;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Duration getMaxAge() {
+            return maxAge;
+        }
+
+        public void setMaxAge(Duration maxAge) {
+            this.maxAge = maxAge;
+        }
+
+        public Duration getValidationInterval() {
+            return validationInterval;
+        }
+
+        public void setValidationInterval(Duration validationInterval) {
+            this.validationInterval = validationInterval;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public Duration getIdleTimeout() {
+            return idleTimeout;
+        }
+
+        public void setIdleTimeout(Duration idleTimeout) {
+            this.idleTimeout = idleTimeout;
+        }
+    }
+
+    // flush 묶음 처리 설정
+    // 프레임 write 는 그대로 두고 flush 만 window 동안 모아서 한 번에 수행 (프레임 경계는 바뀌지 않음)
+    public static class FlushBatchingProperties {
+
+        private boolean enabled = false;
+
+        // 첫 flush 요청 후 실제 flush 까지 기다리는 최대 시간
+        private Duration window = Duration.of(200, ChronoUnit.MICROS);
+
+        // 대기 중인 프레임 수가 이 값에 도달하면 바로 flush
+        private int maxFrames = 64;
+
+        // 대기 중인 바이트 수가 이 값에 도달하면 바로 flush
+        private int maxBytes = 32 * 1024;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+
+        public int getMaxFrames() {
+            return maxFrames;
+        }
+
+        public void setMaxFrames(int maxFrames) {
+            this.maxFrames = maxFrames;
+        }
+
+        public int getMaxBytes() {
+            return maxBytes;
+        }
+
+        public void setMaxBytes(int maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+    }
+
+    // permessage-deflate 설정
+    public static class CompressionProperties {
+
+        // 클라이언트 - 게이트웨이 구간 (게이트웨이가 서버 역할)
+        private DeflateProperties client = new DeflateProperties();
+
+        // 게이트웨이 - 업스트림 구간 (게이트웨이가 클라이언트 역할)
+        private DeflateProperties upstream = new DeflateProperties();
+
+        // 양쪽 구간의 협상 결과가 같으면 압축된 프레임을 풀지 않고 그대로 전달
+        private boolean passthrough = true;
+
+        public DeflateProperties getClient() {
+            return client;
+        }
+
+        public void setClient(DeflateProperties client) {
+            this.client = client;
+        }
+
+        public DeflateProperties getUpstream() {
+            return upstream;
+        }
+
+        public void setUpstream(DeflateProperties upstream) {
+            this.upstream = upstream;
+        }
+
+        public boolean isPassthrough() {
+            return passthrough;
+        }
+
+        public void setPassthrough(boolean passthrough) {
+            this.passthrough = passthrough;
+        }
+    }
+
+    // 한 구간의 permessage-deflate 협상 설정
+    // 클라이언트 구간에서는 상대가 제안한 값에 대한 허용/선호 값으로, 업스트림 구간에서는 요청 값으로 사용
+    public static class DeflateProperties {
+
+        private boolean enabled = false;
+
+        // 0 ~ 9
+        private int compressionLevel = 6;
+
+        // 이 크기(바이트)보다 작은 프레임은 압축하지 않고 전송
+        private int minSize = 256;
+
+        // 서버 쪽 압축 컨텍스트를 메시지마다 초기화 (server_no_context_takeover)
+        private boolean serverNoContextTakeover = false;
+
+        // 클라이언트 쪽 압축 컨텍스트를 메시지마다 초기화 (client_no_context_takeover)
+        private boolean clientNoContextTakeover = false;
+
+        // 서버 압축 윈도우 크기 (8 ~ 15, 업스트림 구간에서 요청하는 값)
+        private int serverMaxWindowBits = 15;
+
+        // 클라이언트 압축 윈도우 크기 (8 ~ 15, 클라이언트 구간에서 클라이언트가 조정을 허용한 경우 지정하는 값)
+        private int clientMaxWindowBits = 15;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getCompressionLevel() {
+            return compressionLevel;
+        }
+
+        public void setCompressionLevel(int compressionLevel) {
+            this.compressionLevel = compressionLevel;
+        }
+
+        public int getMinSize() {
+            return minSize;
+        }
+
+        public void setMinSize(int minSize) {
+            this.minSize = minSize;
+        }
+
+        public boolean isServerNoContextTakeover() {
+            return serverNoContextTakeover;
+        }
+
+        public void setServerNoContextTakeover(boolean serverNoContextTakeover) {
+            this.serverNoContextTakeover = serverNoContextTakeover;
+        }
+
+        public boolean isClientNoContextTakeover() {
+            return clientNoContextTakeover;
+        }
+
+        public void setClientNoContextTakeover(boolean clientNoContextTakeover) {
+            this.clientNoContextTakeover = clientNoContextTakeover;
+        }
+
+        public int getServerMaxWindowBits() {
+            return serverMaxWindowBits;
+        }
+
+        public void setServerMaxWindowBits(int serverMaxWindowBits) {
+            this.serverMaxWindowBits = serverMaxWindowBits;
+        }
+
+        public int getClientMaxWindowBits() {
+            return clientMaxWindowBits;
+        }
+
+        public void setClientMaxWindowBits(int clientMaxWindowBits) {
+            this.clientMaxWindowBits = clientMaxWindowBits;
+        }
+    }
+
+    // 이벤트 로그 파이프라인 설정
+    public static class LoggingProperties {
+
+        // 링 버퍼 크기 (2의 거듭제곱으로 올림), 가득 차면 새 이벤트는 버려짐
+        private int bufferSize = 8192;
+
+        // 버퍼가 비어 있을 때 drain 스레드의 대기 시간(ms)
+        private long drainIntervalMillis = 10;
+
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        public void setBufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        public long getDrainIntervalMillis() {
+            return drainIntervalMillis;
+        }
+
+        public void setDrainIntervalMillis(long drainIntervalMillis) {
+            this.drainIntervalMillis = drainIntervalMillis;
+        }
+    }
+
+    // 트래픽 캡처 설정
+    public static class CaptureProperties {
+
+        private boolean enabled = false;
+
+        // 세그먼트 파일을 만들 디렉터리
+        private String directory = "capture";
+
+        // 세그먼트 파일 하나의 크기 (파일 전체를 메모리 매핑하고, 다 차면 새 파일로 넘어감)
+        private int segmentSize = 64 * 1024 * 1024;
+
+        // 남겨둘 세그먼트 수, 넘으면 가장 오래된 파일부터 삭제 (0 이면 삭제하지 않음)
+        private int maxSegments = 16;
+
+        // 프레임 하나에서 남길 최대 페이로드 바이트 수 (초과분은 잘라내고 원래 길이만 기록)
+        private int maxPayloadBytes = 64 * 1024;
+
+        // 이벤트 루프에서 넘겨받아 아직 파일에 쓰지 못한 레코드 수 한도 (2의 거듭제곱으로 올림)
+        private int bufferSize = 8192;
+
+        // 아직 파일에 쓰지 못한 페이로드 바이트 합계 한도, 넘으면 새 프레임은 버림
+        private long maxBufferedBytes = 32 * 1024 * 1024;
+
+        // 버퍼가 비어 있을 때 기록 스레드의 대기 시간(ms)
+        private long drainIntervalMillis = 10;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public int getSegmentSize() {
+            return segmentSize;
+        }
+
+        public void setSegmentSize(int segmentSize) {
+            this.segmentSize = segmentSize;
+        }
+
+        public int getMaxSegments() {
+            return maxSegments;
+        }
+
+        public void setMaxSegments(int maxSegments) {
+            this.maxSegments = maxSegments;
+        }
+
+        public int getMaxPayloadBytes() {
+            return maxPayloadBytes;
+        }
+
+        public void setMaxPayloadBytes(int maxPayloadBytes) {
+            this.maxPayloadBytes = maxPayloadBytes;
+        }
+
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        public void setBufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        public long getMaxBufferedBytes() {
+            return maxBufferedBytes;
+        }
+
+        public void setMaxBufferedBytes(long maxBufferedBytes) {
+            this.maxBufferedBytes = maxBufferedBytes;
+        }
+
+        public long getDrainIntervalMillis() {
+            return drainIntervalMillis;
+        }
+
+        public void setDrainIntervalMillis(long drainIntervalMillis) {
+            this.drainIntervalMillis = drainIntervalMillis;
+        }
+    }
+
+    // 세션 정리 설정
+    // 이벤트 루프 전송 계층
+    public enum EventLoopTransport {
+        // 사용 가능한 것 중 io_uring > epoll > NIO 순서로 선택
+        AUTO,
+        IO_URING,
+        EPOLL,
+        NIO
+    }
+
+    // 업스트림 구간(게이트웨이 -> 백엔드 연결)이 쓰는 이벤트 루프
+    public enum UpstreamEventLoop {
+        // 클라이언트 구간과 같은 이벤트 루프 그룹에서 차례대로 배정
+        SHARED,
+        // 업스트림 구간만 쓰는 별도 이벤트 루프 그룹
+        DEDICATED,
+        // 클라이언트 채널과 같은 이벤트 루프에 연결 (중계가 스레드를 넘나들지 않음)
+        CLIENT_AFFINITY
+    }
+
+    // 이벤트 루프 설정 (애플리케이션 시작 시에만 적용)
+    // 모두 기본값이면 Reactor Netty 전역 이벤트 루프를 그대로 사용
+    public static class EventLoopProperties {
+
+        private EventLoopTransport transport = EventLoopTransport.AUTO;
+
+        // 이벤트 루프 스레드 수 (0 이면 Reactor Netty 기본값: CPU 코어 수)
+        private int workerCount = 0;
+
+        private UpstreamEventLoop upstream = UpstreamEventLoop.SHARED;
+
+        // DEDICATED 일 때 업스트림 구간 스레드 수 (0 이면 workerCount 와 같음)
+        private int upstreamWorkerCount = 0;
+
+        boolean isDefault() {
+            return transport == EventLoopTransport.AUTO && workerCount <= 0 && upstream == UpstreamEventLoop.SHARED;
+        }
+
+        public EventLoopTransport getTransport() {
+            return transport;
+        }
+
+        public void setTransport(EventLoopTransport transport) {
+            this.transport = transport;
+        }
+
+        public int getWorkerCount() {
+            return workerCount;
+        }
+
+        public void setWorkerCount(int workerCount) {
+            this.workerCount = workerCount;
+        }
+
+        public UpstreamEventLoop getUpstream() {
+            return upstream;
+        }
+
+        public void setUpstream(UpstreamEventLoop upstream) {
+            this.upstream = upstream;
+        }
+
+        public int getUpstreamWorkerCount() {
+            return upstreamWorkerCount;
+        }
+
+        public void setUpstreamWorkerCount(int upstreamWorkerCount) {
+            this.upstreamWorkerCount = upstreamWorkerCount;
+        }
+    }
+
+    // 클러스터 세션 디렉터리 설정 (애플리케이션 시작 시에만 적용)
+    public static class ClusterProperties {
+
+        private boolean enabled = false;
+
+        // 노드 ID (비어 있으면 advertisedUrl 의 호스트:포트)
+        private String nodeId;
+
+        // 다른 노드가 이 노드에 요청을 보낼 주소 (없으면 http://localhost:{server.port})
+        private URI advertisedUrl;
+
+        // 세션 변경분을 보낼 다른 노드 주소 (자기 자신이 포함되어 있으면 건너뜀)
+        // 변경분도 여기 있는 주소를 advertisedUrl 로 쓰는 노드에서 온 것만 받음
+        private List<URI> peers = new ArrayList<>();
+
+        // 변경분을 모아서 보내는 주기
+        private Duration publishInterval = Duration.ofMillis(100);
+
+        // 변경분이 없을 때 빈 묶음을 보내는 주기, 전송 실패한 피어의 재시도 간격
+        private Duration heartbeatInterval = Duration.ofSeconds(5);
+
+        // 이 시간 동안 묶음을 받지 못한 노드의 세션은 디렉터리에서 지움
+        private Duration peerTimeout = Duration.ofSeconds(15);
+
+        // 피어에 보내는 요청(변경분, 세션 종료 전달)의 응답 대기 시간
+        private Duration requestTimeout = Duration.ofSeconds(3);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getNodeId() {
+            return nodeId;
+        }
+
+        public void setNodeId(String nodeId) {
+            this.nodeId = nodeId;
+        }
+
+        public URI getAdvertisedUrl() {
+            return advertisedUrl;
+        }
+
+        public void setAdvertisedUrl(URI advertisedUrl) {
+            this.advertisedUrl = advertisedUrl;
+        }
+
+        public List<URI> getPeers() {
+            return peers;
+        }
+
+        public void setPeers(List<URI> peers) {
+            this.peers = peers;
+        }
+
+        public Duration getPublishInterval() {
+            return publishInterval;
+        }
+
+        public void setPublishInterval(Duration publishInterval) {
+            this.publishInterval = publishInterval;
+        }
+
+        public Duration getHeartbeatInterval() {
+            return heartbeatInterval;
+        }
+
+        public void setHeartbeatInterval(Duration heartbeatInterval) {
+            this.heartbeatInterval = heartbeatInterval;
+        }
+
+        public Duration getPeerTimeout() {
+            return peerTimeout;
+        }
+
+        public void setPeerTimeout(Duration peerTimeout) {
+            this.peerTimeout = peerTimeout;
+        }
+
+        public Duration getRequestTimeout() {
+            return requestTimeout;
+        }
+
+        public void setRequestTimeout(Duration requestTimeout) {
+            this.requestTimeout = requestTimeout;
+        }
+    }
+
+    // 스트리밍 중계 라우트 전체 설정
+    public static class StreamingProperties {
+
+        // 모든 세션이 읽었지만 아직 반대편 연결에 쓰지 못한 프레임 바이트 합계의 한도
+        // 한도에 도달하면 여유가 생길 때까지 스트리밍 세션의 읽기를 멈춤
+        private long maxInFlightBytes = 64 * 1024 * 1024;
+
+        public long getMaxInFlightBytes() {
+            return maxInFlightBytes;
+        }
+
+        public void setMaxInFlightBytes(long maxInFlightBytes) {
+            this.maxInFlightBytes = maxInFlightBytes;
+        }
+    }
+
+    public static class DrainProperties {
+
+        // 일괄 종료 시 초당 종료할 세션 수 (다른 노드로의 재연결이 한 번에 몰리지 않도록 제한)
+        private int closeRate = 100;
+
+        // 세션마다 종료 간격에 더하는 임의 지연의 최대값
+        private Duration closeJitter = Duration.ofMillis(50);
+
+        // drain 중 거절한 업그레이드 요청에 보내는 Retry-After
+        private Duration retryAfter = Duration.ofSeconds(10);
+
+        public int getCloseRate() {
+            return closeRate;
+        }
+
+        public void setCloseRate(int closeRate) {
+            this.closeRate = closeRate;
+        }
+
+        public Duration getCloseJitter() {
+            return closeJitter;
+        }
+
+        public void setCloseJitter(Duration closeJitter) {
+            this.closeJitter = closeJitter;
+        }
+
+        public Duration getRetryAfter() {
+            return retryAfter;
+        }
+
+        public void setRetryAfter(Duration retryAfter) {
+            this.retryAfter = retryAfter;
+        }
+    }
+
+    // 게이트웨이 전체 / 원격 IP 단위 업그레이드 허용 한도 (0 이면 제한 없음)
+    public static class AdmissionProperties {
+
+        // 게이트웨이 전체 동시 세션 수 한도 (초과 시 503)
+        private int maxSessions = 0;
+
+        // 원격 IP 하나가 보낼 수 있는 초당 업그레이드 요청 수 (초과 시 429)
+        private double perIpHandshakeRate = 0;
+
+        // 원격 IP 하나에 한 번에 허용할 업그레이드 요청 수
+        private int perIpHandshakeBurst = 20;
+
+        // 거절한 업그레이드 요청에 보내는 Retry-After (429 는 다음 토큰까지 남은 시간 사용)
+        private Duration retryAfter = Duration.ofSeconds(5);
+
+        public int getMaxSessions() {
+            return maxSessions;
+        }
+
+        public void setMaxSessions(int maxSessions) {
+            this.maxSessions = maxSessions;
+        }
+
+        public double getPerIpHandshakeRate() {
+            return perIpHandshakeRate;
+        }
+
+        public void setPerIpHandshakeRate(double perIpHandshakeRate) {
+            this.perIpHandshakeRate = perIpHandshakeRate;
+        }
+
+        public int getPerIpHandshakeBurst() {
+            return perIpHandshakeBurst;
+        }
+
+        public void setPerIpHandshakeBurst(int perIpHandshakeBurst) {
+            this.perIpHandshakeBurst = perIpHandshakeBurst;
+        }
+
+        public Duration getRetryAfter() {
+            return retryAfter;
+        }
+
+        public void setRetryAfter(Duration retryAfter) {
+            this.retryAfter = retryAfter;
+        }
+    }
+
+    // 세션 레지스트리 누수 점검
+    public static class LeakCheckProperties {
+
+        private boolean enabled = true;
+
+        // 점검 주기 (연속 두 번의 점검에서 닫혀 있던 항목만 보고하므로 보고까지는 최대 두 주기)
+        private Duration interval = Duration.ofMinutes(1);
+
+        // 보고한 항목을 레지스트리에서 제거 (기본은 보고만 함)
+        private boolean evictStale = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getInterval() {
+            return interval;
+        }
+
+        public void setInterval(Duration interval) {
+            this.interval = interval;
+        }
+
+        public boolean isEvictStale() {
+            return evictStale;
+        }
+
+        public void setEvictStale(boolean evictStale) {
+            this.evictStale = evictStale;
+        }
+    }
+}
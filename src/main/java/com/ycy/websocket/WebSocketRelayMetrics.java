@@ -0,0 +1,299 @@
+package com.ycy.websocket;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+// 라우트/세션 단위 중계 지표 (프레임 수, 바이트 수, 게이트웨이 내부 전달 지연, 핸드쉐이크 시간, 종료 코드 분포)
+// 라우트 지표는 LongAdder/stripe 히스토그램으로 기록해서 이벤트 루프 간 경합이 없도록 함
+@Component
+public class WebSocketRelayMetrics {
+
+    // 라우트 ID 가 없는 요청을 묶는 키
+    static final String DEFAULT_ROUTE = "default";
+
+    private final Map<String, RouteMetrics> routes = new ConcurrentHashMap<>();
+    private final Map<String, SessionMetrics> sessions = new ConcurrentHashMap<>(); // 키: 클라이언트 세션 ID
+
+    public RouteMetrics route(String routeId) {
+        return routes.computeIfAbsent(routeId != null ? routeId : DEFAULT_ROUTE, RouteMetrics::new);
+    }
+
+    // 클라이언트 세션 연결 시 호출
+    public SessionMetrics openSession(String routeId, String sessionId) {
+        RouteMetrics route = route(routeId);
+        SessionMetrics session = new SessionMetrics(sessionId, route);
+        route.activeSessions.increment();
+        route.totalSessions.increment();
+        sessions.put(sessionId, session);
+        return session;
+    }
+
+    // 클라이언트 세션 종료 시 호출
+    public void closeSession(String sessionId) {
+        SessionMetrics session = sessions.remove(sessionId);
+        if (session != null) {
+            session.route.activeSessions.decrement();
+        }
+    }
+
+    public Map<String, RouteMetrics> getRoutes() {
+        return routes;
+    }
+
+    public SessionMetrics getSession(String sessionId) {
+        return sessions.get(sessionId);
+    }
+
+    // 중계 핸들러가 실행 중인 클라이언트 세션 수
+    public int getOpenSessionCount() {
+        return sessions.size();
+    }
+
+    // 라우트 단위 지표
+    public static class RouteMetrics {
+
+        private final String routeId;
+        private final LongAdder activeSessions = new LongAdder();
+        private final LongAdder totalSessions = new LongAdder();
+        private final LongAdder handshakeFailures = new LongAdder();
+        private final LatencyHistogram handshakeLatency = new LatencyHistogram();
+        private final LongAdder[] frames = { new LongAdder(), new LongAdder() };
+        private final LongAdder[] bytes = { new LongAdder(), new LongAdder() };
+        private final LatencyHistogram[] forwardLatency = { new LatencyHistogram(), new LatencyHistogram() };
+        // 느린 세션 처리 횟수 (방향은 프레임이 향하는 쪽 기준)
+        private final LongAdder[] pauses = { new LongAdder(), new LongAdder() };
+        private final LongAdder[] droppedFrames = { new LongAdder(), new LongAdder() };
+        private final LongAdder[] droppedBytes = { new LongAdder(), new LongAdder() };
+        private final LongAdder[] slowConsumerCloses = { new LongAdder(), new LongAdder() };
+        // 스트리밍 중계에서 프레임/메시지 크기 한도를 넘어 1009 로 종료한 횟수
+        private final LongAdder[] messagesTooBig = { new LongAdder(), new LongAdder() };
+        // flush 묶음 처리: flush 한 번에 내보낸 프레임 수, 한도 도달로 즉시 flush 한 횟수
+        private final LatencyHistogram[] flushBatchFrames = { new LatencyHistogram(), new LatencyHistogram() };
+        private final LongAdder[] flushesOnThreshold = { new LongAdder(), new LongAdder() };
+        // 하트비트: 보낸 ping 수, 응답이 없어 종료한 세션 수 (클라이언트 구간 / 업스트림 구간)
+        private final LongAdder clientPings = new LongAdder();
+        private final LongAdder upstreamPings = new LongAdder();
+        private final LongAdder clientIdleCloses = new LongAdder();
+        private final LongAdder upstreamIdleCloses = new LongAdder();
+        // 업스트림 재연결: 성공한 재연결, 실패한 시도, 포기하고 종료한 세션, 버퍼가 넘친 횟수
+        private final LongAdder upstreamReconnects = new LongAdder();
+        private final LongAdder reconnectFailures = new LongAdder();
+        private final LongAdder reconnectGiveUps = new LongAdder();
+        private final LongAdder reconnectBufferOverflows = new LongAdder();
+        private final LongAdder reconnectRequeuedFrames = new LongAdder();
+        // 업스트림 연결이 클라이언트 채널과 같은 이벤트 루프에 배정된 횟수 / 다른 이벤트 루프에 배정된 횟수
+        private final LongAdder sameEventLoopUpstreams = new LongAdder();
+        private final LongAdder crossEventLoopUpstreams = new LongAdder();
+        // 키: 종료 코드, 값: 횟수 (클라이언트 세션 / 업스트림 세션이 받은 종료 상태를 나눠서 집계)
+        private final Map<Integer, LongAdder> clientCloseCodes = new ConcurrentHashMap<>();
+        private final Map<Integer, LongAdder> upstreamCloseCodes = new ConcurrentHashMap<>();
+        // 받은 종료 코드를 반대편에 전달할 코드로 바꾼 값 (1005/1006 등 전송할 수 없는 코드는 1002)
+        private final Map<Integer, LongAdder> clientAdaptedCloseCodes = new ConcurrentHashMap<>();
+        private final Map<Integer, LongAdder> upstreamAdaptedCloseCodes = new ConcurrentHashMap<>();
+
+        RouteMetrics(String routeId) {
+            this.routeId = routeId;
+        }
+
+        public String getRouteId() {
+            return routeId;
+        }
+
+        void recordHandshake(long nanos) {
+            handshakeLatency.record(nanos);
+        }
+
+        void recordHandshakeFailure() {
+            handshakeFailures.increment();
+        }
+
+        void recordForwardLatency(FrameRelay.Direction direction, long nanos) {
+            forwardLatency[direction.ordinal()].record(nanos);
+        }
+
+        void recordPause(FrameRelay.Direction direction) {
+            pauses[direction.ordinal()].increment();
+        }
+
+        void recordDrop(FrameRelay.Direction direction, int size) {
+            droppedFrames[direction.ordinal()].increment();
+            droppedBytes[direction.ordinal()].add(size);
+        }
+
+        void recordSlowConsumerClose(FrameRelay.Direction direction) {
+            slowConsumerCloses[direction.ordinal()].increment();
+        }
+
+        void recordMessageTooBig(FrameRelay.Direction direction) {
+            messagesTooBig[direction.ordinal()].increment();
+        }
+
+        void recordFlushBatch(FrameRelay.Direction direction, int frames, boolean onThreshold) {
+            flushBatchFrames[direction.ordinal()].record(frames);
+            if (onThreshold) {
+                flushesOnThreshold[direction.ordinal()].increment();
+            }
+        }
+
+        void recordPing(boolean clientLeg) {
+            (clientLeg ? clientPings : upstreamPings).increment();
+        }
+
+        void recordIdleClose(boolean clientLeg) {
+            (clientLeg ? clientIdleCloses : upstreamIdleCloses).increment();
+        }
+
+        void recordReconnect() {
+            upstreamReconnects.increment();
+        }
+
+        void recordReconnectFailure() {
+            reconnectFailures.increment();
+        }
+
+        void recordReconnectGiveUp() {
+            reconnectGiveUps.increment();
+        }
+
+        void recordReconnectBufferOverflow() {
+            reconnectBufferOverflows.increment();
+        }
+
+        void recordReconnectRequeued(int frames) {
+            reconnectRequeuedFrames.add(frames);
+        }
+
+        void recordUpstreamEventLoop(boolean sameEventLoop) {
+            (sameEventLoop ? sameEventLoopUpstreams : crossEventLoopUpstreams).increment();
+        }
+
+        // fromClient: 클라이언트 쪽 세션이 보낸 종료 코드인지 여부
+        void recordClose(boolean fromClient, int code, int adaptedCode) {
+            (fromClient ? clientCloseCodes : upstreamCloseCodes).computeIfAbsent(code, c -> new LongAdder())
+                    .increment();
+            (fromClient ? clientAdaptedCloseCodes : upstreamAdaptedCloseCodes)
+                    .computeIfAbsent(adaptedCode, c -> new LongAdder())
+                    .increment();
+        }
+
+        public Map<String, Object> snapshot() {
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("routeId", routeId);
+            snapshot.put("activeSessions", activeSessions.sum());
+            snapshot.put("totalSessions", totalSessions.sum());
+            snapshot.put("handshakeFailures", handshakeFailures.sum());
+            snapshot.put("handshake", handshakeLatency.snapshot());
+            for (FrameRelay.Direction direction : FrameRelay.Direction.values()) {
+                Map<String, Object> relay = new LinkedHashMap<>();
+                relay.put("frames", frames[direction.ordinal()].sum());
+                relay.put("bytes", bytes[direction.ordinal()].sum());
+                relay.put("forwardLatency", forwardLatency[direction.ordinal()].snapshot());
+                relay.put("pauses", pauses[direction.ordinal()].sum());
+                relay.put("droppedFrames", droppedFrames[direction.ordinal()].sum());
+                relay.put("droppedBytes", droppedBytes[direction.ordinal()].sum());
+                relay.put("slowConsumerCloses", slowConsumerCloses[direction.ordinal()].sum());
+                relay.put("messagesTooBig", messagesTooBig[direction.ordinal()].sum());
+                relay.put("flushBatchFrames", flushBatchFrames[direction.ordinal()].valueSnapshot());
+                relay.put("flushesOnThreshold", flushesOnThreshold[direction.ordinal()].sum());
+                snapshot.put(direction.name(), relay);
+            }
+            snapshot.put("clientPings", clientPings.sum());
+            snapshot.put("upstreamPings", upstreamPings.sum());
+            snapshot.put("clientIdleCloses", clientIdleCloses.sum());
+            snapshot.put("upstreamIdleCloses", upstreamIdleCloses.sum());
+            snapshot.put("upstreamReconnects", upstreamReconnects.sum());
+            snapshot.put("reconnectFailures", reconnectFailures.sum());
+            snapshot.put("reconnectGiveUps", reconnectGiveUps.sum());
+            snapshot.put("reconnectBufferOverflows", reconnectBufferOverflows.sum());
+            snapshot.put("reconnectRequeuedFrames", reconnectRequeuedFrames.sum());
+            snapshot.put("sameEventLoopUpstreams", sameEventLoopUpstreams.sum());
+            snapshot.put("crossEventLoopUpstreams", crossEventLoopUpstreams.sum());
+            snapshot.put("clientCloseCodes", sumAll(clientCloseCodes));
+            snapshot.put("upstreamCloseCodes", sumAll(upstreamCloseCodes));
+            snapshot.put("clientAdaptedCloseCodes", sumAll(clientAdaptedCloseCodes));
+            snapshot.put("upstreamAdaptedCloseCodes", sumAll(upstreamAdaptedCloseCodes));
+            return snapshot;
+        }
+
+        private static Map<Integer, Long> sumAll(Map<Integer, LongAdder> counters) {
+            Map<Integer, Long> sums = new TreeMap<>();
+            counters.forEach((code, counter) -> sums.put(code, counter.sum()));
+            return sums;
+        }
+    }
+
+    // 세션 단위 지표
+    // 각 방향의 카운터는 해당 방향 source 연결의 이벤트 루프 한 곳에서만 갱신됨
+    public static class SessionMetrics {
+
+        private final String sessionId;
+        private final RouteMetrics route;
+        private final long startedAt = System.currentTimeMillis();
+        private volatile long handshakeNanos = -1;
+        private volatile int closeCode = -1;
+        private volatile int adaptedCloseCode = -1;
+        private long clientToServerFrames;
+        private long clientToServerBytes;
+        private long serverToClientFrames;
+        private long serverToClientBytes;
+
+        SessionMetrics(String sessionId, RouteMetrics route) {
+            this.sessionId = sessionId;
+            this.route = route;
+        }
+
+        public RouteMetrics getRoute() {
+            return route;
+        }
+
+        void recordHandshake(long nanos) {
+            handshakeNanos = nanos;
+            route.recordHandshake(nanos);
+        }
+
+        // 업스트림 핸드쉐이크가 끝났는지 여부
+        boolean isConnected() {
+            return handshakeNanos >= 0;
+        }
+
+        void recordFrame(FrameRelay.Direction direction, int size) {
+            if (direction == FrameRelay.Direction.CLIENT_TO_SERVER) {
+                clientToServerFrames++;
+                clientToServerBytes += size;
+            } else {
+                serverToClientFrames++;
+                serverToClientBytes += size;
+            }
+            route.frames[direction.ordinal()].increment();
+            route.bytes[direction.ordinal()].add(size);
+        }
+
+        void recordClose(boolean fromClient, int code, int adaptedCode) {
+            if (closeCode == -1) {
+                closeCode = code;
+                adaptedCloseCode = adaptedCode;
+            }
+            route.recordClose(fromClient, code, adaptedCode);
+        }
+
+        public Map<String, Object> snapshot() {
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("sessionId", sessionId);
+            snapshot.put("routeId", route.routeId);
+            snapshot.put("startedAt", startedAt);
+            snapshot.put("handshakeMicros", handshakeNanos < 0 ? null : handshakeNanos / 1000.0);
+            snapshot.put("clientToServerFrames", clientToServerFrames);
+            snapshot.put("clientToServerBytes", clientToServerBytes);
+            snapshot.put("serverToClientFrames", serverToClientFrames);
+            snapshot.put("serverToClientBytes", serverToClientBytes);
+            snapshot.put("closeCode", closeCode < 0 ? null : closeCode);
+            snapshot.put("adaptedCloseCode", adaptedCloseCode < 0 ? null : adaptedCloseCode);
+            return snapshot;
+        }
+    }
+}
@@ -1,39 +1,300 @@
 package com.ycy.websocket;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.socket.CloseStatus;
 import org.springframework.web.reactive.socket.WebSocketSession;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.NavigableSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 
+// 프록시 중인 세션(클라이언트 세션 + 업스트림 세션) 레지스트리
+// 세션 ID 순으로 정렬해 보관해서 목록 조회 시 복사 없이 커서(마지막으로 받은 세션 ID) 이후부터 순회
+// 라우트/원격 주소/서브 프로토콜 별 보조 인덱스로 전체 순회 없이 조건 조회
+// 배포 시에는 drain 모드로 새 연결을 막고, 기존 세션은 초당 개수를 제한해서 1001 로 나눠 종료
 @Component
 public class WebSocketSessionManager {
-    private final Map<String, WebSocketSession> sessionMap = new ConcurrentHashMap<>(); // 키: 클라이언트 세션 ID, 값: 서버 세션
 
-    public void addSession(WebSocketSession clientSession, WebSocketSession serverSession) {
-        System.out.println("[WebSocketSessionManager] 클라이언트 세션 ID: " + clientSession.getId());
-        System.out.println("[WebSocketSessionManager] 서버 세션 ID: " + serverSession.getId());
-        sessionMap.put(clientSession.getId(), serverSession);
+    @Autowired
+    private WebSocketEventLogger eventLogger;
+
+    @Autowired
+    private WebSocketProxyProperties proxyProperties;
+
+    @Autowired
+    private SessionDirectory directory;
+
+    private volatile boolean draining;
+    private final AtomicInteger bulkClosesInProgress = new AtomicInteger();
+
+    private final ConcurrentNavigableMap<String, SessionEntry> sessions = new ConcurrentSkipListMap<>(); // 키: 클라이언트 세션 ID
+    // 키: 인덱스 값, 값: 클라이언트 세션 ID 집합
+    private final Map<String, NavigableSet<String>> byRoute = new ConcurrentHashMap<>();
+    private final Map<String, NavigableSet<String>> byRemoteAddress = new ConcurrentHashMap<>();
+    private final Map<String, NavigableSet<String>> bySubProtocol = new ConcurrentHashMap<>();
+    // 키: 업스트림 인스턴스(호스트:포트), 값: 활성 세션 수 (로드 밸런서가 업그레이드마다 조회)
+    private final Map<String, AtomicInteger> upstreamSessions = new ConcurrentHashMap<>();
+
+    public void addSession(String routeId, WebSocketSession clientSession, WebSocketSession serverSession) {
+        eventLogger.event("WebSocketSessionManager", routeId, clientSession.getId(), "세션 등록 - 서버 세션 ID",
+                serverSession.getId());
+        SessionEntry entry = new SessionEntry(clientSession, serverSession,
+                routeId != null ? routeId : WebSocketRelayMetrics.DEFAULT_ROUTE,
+                remoteAddressOf(clientSession), clientSession.getHandshakeInfo().getSubProtocol(),
+                serverSession.getHandshakeInfo().getUri().getRawAuthority());
+        sessions.put(entry.getSessionId(), entry);
+        upstreamSessions.computeIfAbsent(entry.upstream, key -> new AtomicInteger()).incrementAndGet();
+        index(byRoute, entry.routeId, entry.getSessionId());
+        index(byRemoteAddress, entry.remoteAddress, entry.getSessionId());
+        index(bySubProtocol, entry.subProtocol, entry.getSessionId());
+        directory.sessionAdded(entry.record(directory.localNode()));
+    }
+
+    public SessionEntry removeSession(String sessionId) {
+        eventLogger.event("WebSocketSessionManager", null, sessionId, "세션 제거", null);
+        SessionEntry entry = sessions.remove(sessionId);
+        if (entry != null) {
+            unindex(byRoute, entry.routeId, sessionId);
+            unindex(byRemoteAddress, entry.remoteAddress, sessionId);
+            unindex(bySubProtocol, entry.subProtocol, sessionId);
+            upstreamSessions.get(entry.upstream).decrementAndGet();
+            directory.sessionRemoved(sessionId);
+        }
+        return entry;
+    }
+
+    // 업스트림 재연결 후 세션의 업스트림 세션과 인스턴스별 세션 수를 새 연결 기준으로 바꿈
+    public void replaceUpstream(String sessionId, WebSocketSession serverSession) {
+        SessionEntry entry = sessions.get(sessionId);
+        if (entry == null) {
+            return;
+        }
+        eventLogger.event("WebSocketSessionManager", entry.routeId, sessionId, "업스트림 세션 교체",
+                serverSession.getId());
+        String previous = entry.upstream;
+        entry.serverSession = serverSession;
+        entry.upstream = serverSession.getHandshakeInfo().getUri().getRawAuthority();
+        upstreamSessions.computeIfAbsent(entry.upstream, key -> new AtomicInteger()).incrementAndGet();
+        upstreamSessions.get(previous).decrementAndGet();
+        directory.sessionAdded(entry.record(directory.localNode()));
+    }
+
+    public SessionEntry getSession(String sessionId) {
+        return sessions.get(sessionId);
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    // 등록된 전체 세션 (누수 점검용, 순회 중 추가/제거된 항목은 보일 수도 있고 안 보일 수도 있음)
+    Collection<SessionEntry> getEntries() {
+        return Collections.unmodifiableCollection(sessions.values());
     }
 
-    public WebSocketSession removeSession(String sessionId) {
-        System.out.println("[WebSocketSessionManager] 세션 제거 - 세션 ID: " + sessionId);
-        return sessionMap.remove(sessionId);
+    // 업스트림 인스턴스(호스트:포트)에 연결된 활성 세션 수
+    public int getUpstreamSessionCount(String upstream) {
+        AtomicInteger count = upstreamSessions.get(upstream);
+        return count != null ? count.get() : 0;
     }
 
     // 세션 조회 API 호출 시 호출되는 메서드
-    public Map<String, WebSocketSession> getSessionMap() {
-        return sessionMap;
+    // after 이후의 세션을 ID 순으로 최대 limit 개 흘려보냄
+    public Flux<SessionEntry> listSessions(String routeId, String remoteAddress, String subProtocol, String after,
+            int limit) {
+        return find(routeId, remoteAddress, subProtocol, after).take(limit);
     }
 
     // 세션 종료 API 호출 시 호출되는 메서드
     public Mono<Void> closeSession(String sessionId) {
-        System.out.println("[WebSocketSessionManager] 세션 종료 API 감지 - 세션 ID: " + sessionId);
-        WebSocketSession serverSession = sessionMap.get(sessionId);
-        if (serverSession != null) {
-            return serverSession.close(); // WebSocket 프로토콜의 특성 상, 한쪽이 close되면 다른 쪽도 자동으로 close 됨
+        eventLogger.event("WebSocketSessionManager", null, sessionId, "세션 종료 API 감지", null);
+        SessionEntry entry = sessions.get(sessionId);
+        if (entry != null) {
+            return entry.serverSession.close(); // WebSocket 프로토콜의 특성 상, 한쪽이 close되면 다른 쪽도 자동으로 close 됨
         }
         return Mono.error(new RuntimeException("해당 세션을 찾을 수 없습니다. 세션 ID: " + sessionId));
     }
-}
\ No newline at end of file
+
+    // 조건에 맞는 세션을 1001(going away)로 일괄 종료하고 종료한 세션 수를 반환 (조건이 모두 null 이면 전체)
+    // 다른 노드로 재연결이 한꺼번에 몰리지 않도록 closeRate 간격에 임의 지연을 더해 한 세션씩 종료
+    public Mono<Long> closeSessions(String routeId, String remoteAddress) {
+        WebSocketProxyProperties.DrainProperties drain = proxyProperties.getDrain();
+        long intervalNanos = Duration.ofSeconds(1).toNanos() / Math.max(1, drain.getCloseRate());
+        long jitterNanos = drain.getCloseJitter().toNanos();
+        eventLogger.event("WebSocketSessionManager", routeId, null, "일괄 종료 시작",
+                remoteAddress != null ? remoteAddress : "*");
+        return find(routeId, remoteAddress, null, null)
+                .concatMap(entry -> Mono.delay(Duration.ofNanos(intervalNanos
+                        + (jitterNanos > 0 ? ThreadLocalRandom.current().nextLong(jitterNanos) : 0)))
+                        .then(Mono.defer(() -> entry.close(CloseStatus.GOING_AWAY)))
+                        .thenReturn(entry))
+                .count()
+                .doOnSubscribe(subscription -> bulkClosesInProgress.incrementAndGet())
+                .doFinally(signal -> bulkClosesInProgress.decrementAndGet())
+                .doOnNext(closed -> eventLogger.event("WebSocketSessionManager", routeId, null, "일괄 종료 완료",
+                        closed));
+    }
+
+    // 조건에 맞는 클라이언트 세션에 같은 메시지를 보냄 (조건이 모두 null 이면 전체)
+    public Mono<Map<String, Object>> broadcast(String routeId, String remoteAddress, String subProtocol,
+            byte[] payload, boolean binary) {
+        eventLogger.event("WebSocketSessionManager", routeId, null, "브로드캐스트", payload.length + " bytes");
+        return find(routeId, remoteAddress, subProtocol, null)
+                .collect(() -> new SessionBroadcast(payload, binary),
+                        (broadcast, entry) -> broadcast.add(NettyWebSocketSessions.channel(entry.clientSession)))
+                .flatMap(SessionBroadcast::send);
+    }
+
+    // drain 모드: 새 업그레이드 요청은 거절하고 기존 세션은 스스로 끝날 때까지 유지
+    public void startDrain() {
+        draining = true;
+        eventLogger.event("WebSocketSessionManager", null, null, "drain 시작", sessions.size());
+    }
+
+    public void stopDrain() {
+        draining = false;
+        eventLogger.event("WebSocketSessionManager", null, null, "drain 해제", sessions.size());
+    }
+
+    public boolean isDraining() {
+        return draining;
+    }
+
+    public Map<String, Object> drainStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("draining", draining);
+        status.put("activeSessions", sessions.size());
+        status.put("bulkClosesInProgress", bulkClosesInProgress.get());
+        return status;
+    }
+
+    // 조건이 여러 개면 하나의 인덱스로 후보를 좁히고 나머지는 항목에서 비교, after 이후의 세션을 ID 순으로 순회
+    private Flux<SessionEntry> find(String routeId, String remoteAddress, String subProtocol, String after) {
+        NavigableSet<String> candidates;
+        if (routeId != null) {
+            candidates = byRoute.get(routeId);
+        } else if (subProtocol != null) {
+            candidates = bySubProtocol.get(subProtocol);
+        } else if (remoteAddress != null) {
+            candidates = byRemoteAddress.get(remoteAddress);
+        } else {
+            candidates = sessions.keySet();
+        }
+        if (candidates == null) {
+            return Flux.empty();
+        }
+        NavigableSet<String> page = after != null ? candidates.tailSet(after, false) : candidates;
+        return Flux.fromIterable(page)
+                .mapNotNull(sessions::get)
+                .filter(entry -> entry.matches(routeId, remoteAddress, subProtocol));
+    }
+
+    // compute 안에서 갱신해서 빈 집합 제거와 추가가 엇갈리지 않도록 함
+    private static void index(Map<String, NavigableSet<String>> index, String key, String sessionId) {
+        if (key != null) {
+            index.compute(key, (k, ids) -> {
+                NavigableSet<String> set = ids != null ? ids : new ConcurrentSkipListSet<>();
+                set.add(sessionId);
+                return set;
+            });
+        }
+    }
+
+    private static void unindex(Map<String, NavigableSet<String>> index, String key, String sessionId) {
+        if (key != null) {
+            index.computeIfPresent(key, (k, ids) -> {
+                ids.remove(sessionId);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    private static String remoteAddressOf(WebSocketSession session) {
+        InetSocketAddress address = session.getHandshakeInfo().getRemoteAddress();
+        if (address == null) {
+            return null;
+        }
+        return address.getAddress() != null ? address.getAddress().getHostAddress() : address.getHostString();
+    }
+
+    // 세션 하나의 양쪽 연결과 메타데이터
+    public static class SessionEntry {
+
+        private final WebSocketSession clientSession;
+        private volatile WebSocketSession serverSession; // 업스트림 재연결 시 교체됨
+        private final String routeId;
+        private final String remoteAddress;
+        private final String subProtocol;
+        private volatile String upstream;
+        private final long startedAt = System.currentTimeMillis();
+
+        SessionEntry(WebSocketSession clientSession, WebSocketSession serverSession, String routeId,
+                String remoteAddress, String subProtocol, String upstream) {
+            this.clientSession = clientSession;
+            this.serverSession = serverSession;
+            this.routeId = routeId;
+            this.remoteAddress = remoteAddress;
+            this.subProtocol = subProtocol;
+            this.upstream = upstream;
+        }
+
+        public String getSessionId() {
+            return clientSession.getId();
+        }
+
+        public WebSocketSession getClientSession() {
+            return clientSession;
+        }
+
+        public WebSocketSession getServerSession() {
+            return serverSession;
+        }
+
+        public String getRouteId() {
+            return routeId;
+        }
+
+        // 양쪽 연결을 같은 상태로 종료 (상대가 응답하지 않아도 반대편 세션이 엉뚱한 코드로 닫히지 않도록)
+        Mono<Void> close(CloseStatus status) {
+            return Mono.when(clientSession.close(status), serverSession.close(status));
+        }
+
+        // 세션 디렉터리에 올릴 메타데이터
+        SessionRecord record(String node) {
+            return new SessionRecord(getSessionId(), node, routeId, remoteAddress, subProtocol, upstream, startedAt);
+        }
+
+        boolean matches(String routeId, String remoteAddress, String subProtocol) {
+            return (routeId == null || routeId.equals(this.routeId))
+                    && (remoteAddress == null || remoteAddress.equals(this.remoteAddress))
+                    && (subProtocol == null || subProtocol.equals(this.subProtocol));
+        }
+
+        // 세션 조회 API 응답 형식 (원격 세션의 SessionRecord.snapshot 과 같은 키와 순서)
+        public Map<String, Object> snapshot(String node) {
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("sessionId", getSessionId());
+            snapshot.put("serverSessionId", serverSession.getId());
+            snapshot.put("routeId", routeId);
+            snapshot.put("remoteAddress", remoteAddress);
+            snapshot.put("subProtocol", subProtocol);
+            snapshot.put("upstream", upstream);
+            snapshot.put("startedAt", startedAt);
+            snapshot.put("node", node);
+            return snapshot;
+        }
+    }
+}
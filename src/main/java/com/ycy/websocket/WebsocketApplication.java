@@ -7,6 +7,8 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 public class WebsocketApplication {
 
 	public static void main(String[] args) {
+		// 버퍼 누수 집계는 Netty 버퍼 클래스가 로딩되기 전에 설치해야 함
+		ResourceLeakMonitor.installLeakCounter();
 		SpringApplication.run(WebsocketApplication.class, args);
 	}
 
@@ -0,0 +1,90 @@
+package com.ycy.websocket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import org.junit.jupiter.api.Test;
+
+class InjectFieldTransformerTests {
+
+    private final InjectFieldTransformer transformer = new InjectFieldTransformer("gateway", "\"gw-1\"");
+
+    @Test
+    void prependsFieldToObject() {
+        assertEquals("{\"gateway\":\"gw-1\",\"a\":1}", inject("{\"a\":1}"));
+    }
+
+    @Test
+    void injectsIntoEmptyObjectWithoutTrailingComma() {
+        assertEquals("{\"gateway\":\"gw-1\"}", inject("{}"));
+        assertEquals("  {\"gateway\":\"gw-1\" \n}", inject("  { \n}"));
+    }
+
+    @Test
+    void keepsLeadingWhitespace() {
+        assertEquals("\n {\"gateway\":\"gw-1\", \"a\":1}", inject("\n { \"a\":1}"));
+    }
+
+    @Test
+    void writesValueAsGivenAndEscapesName() {
+        InjectFieldTransformer numeric = new InjectFieldTransformer("say \"hi\"", "42");
+        WebSocketFrame result = numeric.transform(new TextWebSocketFrame("{\"a\":1}"));
+
+        assertEquals("{\"say \\\"hi\\\"\":42,\"a\":1}", text(result));
+        result.release();
+    }
+
+    @Test
+    void acceptsOnlyTextObjects() {
+        assertTrue(transformer.accepts(new TextWebSocketFrame(" {\"a\":1}")));
+        assertFalse(transformer.accepts(new TextWebSocketFrame("[1,2]")));
+        assertFalse(transformer.accepts(new TextWebSocketFrame("\"text\"")));
+        assertFalse(transformer.accepts(new TextWebSocketFrame("   ")));
+        assertFalse(transformer.accepts(new TextWebSocketFrame("")));
+        assertFalse(transformer.accepts(new BinaryWebSocketFrame(buf("{\"a\":1}"))));
+    }
+
+    // 필드 버퍼는 프레임마다 공유하므로 여러 번 써도 내용이 그대로
+    @Test
+    void sharedFieldBufferSurvivesRepeatedUse() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals("{\"gateway\":\"gw-1\",\"i\":" + i + "}", inject("{\"i\":" + i + "}"));
+        }
+    }
+
+    @Test
+    void releasesOriginalBuffer() {
+        ByteBuf content = buf("{\"a\":1}");
+        WebSocketFrame result = transformer.transform(new TextWebSocketFrame(content));
+
+        result.release();
+        assertEquals(0, content.refCnt());
+    }
+
+    private String inject(String json) {
+        WebSocketFrame frame = new TextWebSocketFrame(json);
+        assertTrue(transformer.accepts(frame));
+        WebSocketFrame result = transformer.transform(frame);
+        try {
+            return text(result);
+        } finally {
+            result.release();
+        }
+    }
+
+    private static String text(WebSocketFrame frame) {
+        return frame.content().toString(StandardCharsets.UTF_8);
+    }
+
+    private static ByteBuf buf(String value) {
+        return Unpooled.wrappedBuffer(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,82 @@
+package com.ycy.websocket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+
+class JsonBytesTests {
+
+    @Test
+    void skipsJsonWhitespaceOnly() {
+        ByteBuf buf = buf(" \t\r\n x");
+
+        assertEquals(5, JsonBytes.skipWhitespace(buf, 0));
+        assertEquals(5, JsonBytes.skipWhitespace(buf, 5));
+        assertEquals(3, JsonBytes.skipWhitespace(buf("   "), 0));
+    }
+
+    @Test
+    void findsEndOfScalars() {
+        assertEquals(3, JsonBytes.valueEnd(buf("123,"), 0));
+        assertEquals(4, JsonBytes.valueEnd(buf("true}"), 0));
+        assertEquals(4, JsonBytes.valueEnd(buf("null"), 0));
+        assertEquals(4, JsonBytes.valueEnd(buf("-1.5 "), 0));
+    }
+
+    @Test
+    void findsEndOfStringsWithEscapes() {
+        assertEquals(5, JsonBytes.valueEnd(buf("\"abc\",1"), 0));
+        // "a\"b" : 이스케이프된 따옴표는 끝이 아님
+        assertEquals(6, JsonBytes.stringEnd(buf("\"a\\\"b\"x"), 0));
+        // "a\\" : 역슬래시가 짝수 개면 따옴표가 문자열의 끝
+        assertEquals(5, JsonBytes.stringEnd(buf("\"a\\\\\"x"), 0));
+        assertEquals(-1, JsonBytes.stringEnd(buf("\"unterminated"), 0));
+        assertEquals(-1, JsonBytes.stringEnd(buf("\"ends with escape\\\""), 0));
+    }
+
+    @Test
+    void findsEndOfNestedContainersIgnoringBracketsInStrings() {
+        String json = "{\"a\":[1,{\"b\":\"}]\"}],\"c\":\"{\"}";
+
+        assertEquals(json.length(), JsonBytes.valueEnd(buf(json + " tail"), 0));
+        assertEquals(7, JsonBytes.valueEnd(buf("[[],{}] "), 0));
+    }
+
+    @Test
+    void returnsMinusOneForUnterminatedValues() {
+        assertEquals(-1, JsonBytes.valueEnd(buf("{\"a\":1"), 0));
+        assertEquals(-1, JsonBytes.valueEnd(buf("[1,2"), 0));
+        assertEquals(-1, JsonBytes.valueEnd(buf("{\"a\":\"}"), 0));
+        assertEquals(-1, JsonBytes.valueEnd(buf("abc"), 3));
+    }
+
+    // 읽기 위치가 0 이 아닌 버퍼(slice 등)에서도 절대 인덱스로 동작
+    @Test
+    void usesAbsoluteIndexes() {
+        ByteBuf buf = buf("xxxx\"k\":1");
+        buf.readerIndex(4);
+
+        assertEquals(7, JsonBytes.stringEnd(buf, 4));
+        assertTrue(JsonBytes.startsWith(buf, 4, buf("\"k\"")));
+        assertEquals(4, buf.readerIndex());
+    }
+
+    @Test
+    void startsWithComparesWithinBounds() {
+        ByteBuf buf = buf("\"name\":1");
+
+        assertTrue(JsonBytes.startsWith(buf, 0, buf("\"name\"")));
+        assertFalse(JsonBytes.startsWith(buf, 0, buf("\"nam\"")));
+        assertFalse(JsonBytes.startsWith(buf, 4, buf("\"name\"")));
+    }
+
+    private static ByteBuf buf(String value) {
+        return Unpooled.wrappedBuffer(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,192 @@
+package com.ycy.websocket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+// 게이트웨이 두 개를 localhost 의 서로 다른 포트로 띄워 피어 세션 디렉터리를 확인
+// peers 에는 띄우지 않은 세 번째 노드 주소도 넣어 두어, 설정된 다른 피어가 노드 ID 를 가로채는 경우를 확인
+class PeerSessionDirectoryTests {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+    private static int portA;
+    private static int portB;
+    private static int portC;
+
+    @BeforeAll
+    static void startNodes() throws IOException {
+        portA = freePort();
+        portB = freePort();
+        portC = freePort();
+        String peers = "--websocket.proxy.cluster.peers=http://localhost:" + portA + ",http://localhost:" + portB
+                + ",http://localhost:" + portC;
+        nodeA = start(portA, peers);
+        nodeB = start(portB, peers);
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (nodeA != null) {
+            nodeA.close();
+        }
+        if (nodeB != null) {
+            nodeB.close();
+        }
+    }
+
+    @Test
+    void propagatesAddedAndRemovedSessions() {
+        PeerSessionDirectory a = nodeA.getBean(PeerSessionDirectory.class);
+        PeerSessionDirectory b = nodeB.getBean(PeerSessionDirectory.class);
+
+        a.sessionAdded(new SessionRecord("propagated", a.localNode(), "websocket_route", "10.0.0.1:1234", null,
+                null, System.currentTimeMillis()));
+        await(() -> !b.lookup("propagated").isEmpty());
+        List<SessionRecord> records = b.lookup("propagated");
+        assertEquals(1, records.size());
+        assertEquals("localhost:" + portA, records.get(0).getNode());
+        assertEquals("websocket_route", records.get(0).getRouteId());
+        // 로컬 세션 조회 결과와 같은 키 순서, 원격에서 알 수 없는 serverSessionId 는 null
+        Map<String, Object> snapshot = records.get(0).snapshot();
+        assertEquals(List.of("sessionId", "serverSessionId", "routeId", "remoteAddress", "subProtocol", "upstream",
+                "startedAt", "node"), List.copyOf(snapshot.keySet()));
+        assertNull(snapshot.get("serverSessionId"));
+        assertEquals("localhost:" + portA, snapshot.get("node"));
+
+        a.sessionRemoved("propagated");
+        await(() -> b.lookup("propagated").isEmpty());
+    }
+
+    // 한 묶음(1000개)보다 많은 변경분은 나눠서 차례로 보내므로 일련번호 불일치(409)로 전체 동기화가 일어나지 않음
+    @Test
+    void sendsSplitBacklogInOrder() {
+        PeerSessionDirectory a = nodeA.getBean(PeerSessionDirectory.class);
+        PeerSessionDirectory b = nodeB.getBean(PeerSessionDirectory.class);
+        await(() -> peerSnapshot(a, portB).get("needsFullSync") == Boolean.FALSE);
+        long failuresBefore = (Long) peerSnapshot(a, portB).get("failures");
+        long fullSyncsBefore = (Long) a.snapshot().get("fullSyncsSent");
+        int sessions = 3500;
+
+        for (int i = 0; i < sessions; i++) {
+            a.sessionAdded(new SessionRecord("split-" + i, a.localNode(), "websocket_route", null, null, null, 0L));
+        }
+        await(() -> !b.lookup("split-" + (sessions - 1)).isEmpty());
+        for (int i = 0; i < sessions; i++) {
+            assertEquals(1, b.lookup("split-" + i).size(), "split-" + i);
+        }
+
+        assertEquals(failuresBefore, peerSnapshot(a, portB).get("failures"));
+        assertEquals(fullSyncsBefore, a.snapshot().get("fullSyncsSent"));
+        for (int i = 0; i < sessions; i++) {
+            a.sessionRemoved("split-" + i);
+        }
+        await(() -> b.lookup("split-" + (sessions - 1)).isEmpty());
+    }
+
+    @Test
+    void rejectsBatchesFromUnconfiguredPeers() {
+        PeerSessionDirectory b = nodeB.getBean(PeerSessionDirectory.class);
+        long rejectedBefore = unknownPeerBatches(b);
+
+        SessionDeltaCodec.Batch forged = new SessionDeltaCodec.Batch("intruder", "http://169.254.169.254", 1L, 1L,
+                true);
+        forged.added.add(new SessionRecord("forged", "intruder", "websocket_route", null, null, null, 0L));
+
+        assertEquals(400, post(portB, SessionDeltaCodec.encode(forged)));
+        assertTrue(b.lookup("forged").isEmpty());
+        assertEquals(rejectedBefore + 1, unknownPeerBatches(b));
+    }
+
+    // 다른 피어가 이미 알려진 노드 ID 로 보내도 노드 주소와 세션을 바꾸지 않음
+    @Test
+    void rejectsKnownNodeIdFromAnotherPeer() {
+        PeerSessionDirectory a = nodeA.getBean(PeerSessionDirectory.class);
+        PeerSessionDirectory b = nodeB.getBean(PeerSessionDirectory.class);
+        a.sessionAdded(new SessionRecord("bound", a.localNode(), "websocket_route", null, null, null, 0L));
+        await(() -> !b.lookup("bound").isEmpty());
+        long rejectedBefore = unknownPeerBatches(b);
+
+        SessionDeltaCodec.Batch hijack = new SessionDeltaCodec.Batch(a.localNode(), "http://localhost:" + portC,
+                Long.MAX_VALUE, 1L, true);
+
+        assertEquals(400, post(portB, SessionDeltaCodec.encode(hijack)));
+        assertEquals(1, b.lookup("bound").size());
+        assertEquals(rejectedBefore + 1, unknownPeerBatches(b));
+        a.sessionRemoved("bound");
+    }
+
+    @Test
+    void rejectsMalformedBatches() {
+        assertEquals(400, post(portB, new byte[] { 1, 0 }));
+    }
+
+    private static ConfigurableApplicationContext start(int port, String peers) {
+        return SpringApplication.run(WebsocketApplication.class, "--server.port=" + port,
+                "--websocket.proxy.cluster.enabled=true", peers, "--websocket.proxy.cluster.publish-interval=20ms",
+                "--logging.level.root=WARN");
+    }
+
+    private static int post(int port, byte[] body) {
+        return HttpClient.create()
+                .headers(headers -> headers.set("Content-Type", "application/octet-stream"))
+                .post()
+                .uri("http://localhost:" + port + PeerSessionDirectory.DELTAS_PATH)
+                .send(Mono.just(Unpooled.wrappedBuffer(body)))
+                .response()
+                .map(response -> response.status().code())
+                .block(TIMEOUT);
+    }
+
+    private static long unknownPeerBatches(PeerSessionDirectory directory) {
+        Map<String, Object> snapshot = directory.snapshot();
+        return (Long) snapshot.get("batchesUnknownPeer");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> peerSnapshot(PeerSessionDirectory directory, int port) {
+        for (Map<String, Object> peer : (List<Map<String, Object>>) directory.snapshot().get("peers")) {
+            if (peer.get("url").equals("http://localhost:" + port)) {
+                return peer;
+            }
+        }
+        throw new AssertionError("피어 없음: " + port);
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "조건이 " + TIMEOUT + " 안에 충족되지 않음");
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
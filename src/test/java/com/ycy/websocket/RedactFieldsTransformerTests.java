@@ -0,0 +1,98 @@
+package com.ycy.websocket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import org.junit.jupiter.api.Test;
+
+class RedactFieldsTransformerTests {
+
+    private final RedactFieldsTransformer transformer = new RedactFieldsTransformer(List.of("password", "token"),
+            "\"***\"");
+
+    @Test
+    void redactsTopLevelAndNestedFields() {
+        assertEquals("{\"user\":\"kim\",\"password\":\"***\",\"meta\":{\"token\":\"***\",\"n\":1}}",
+                redact("{\"user\":\"kim\",\"password\":\"hunter2\",\"meta\":{\"token\":\"abc\",\"n\":1}}"));
+    }
+
+    @Test
+    void redactsNonStringValuesAndKeepsWhitespace() {
+        assertEquals("{ \"password\" : \"***\" , \"token\":\"***\"}",
+                redact("{ \"password\" : {\"a\":[1,2]} , \"token\":null}"));
+    }
+
+    // 필드 이름과 같은 문자열 값, 필드 이름을 포함하는 더 긴 이름은 바꾸지 않음
+    @Test
+    void leavesValuesAndLongerNamesAlone() {
+        String json = "{\"note\":\"password\",\"password_hint\":\"x\",\"list\":[\"token\"]}";
+        TextWebSocketFrame frame = new TextWebSocketFrame(json);
+
+        assertTrue(transformer.accepts(frame));
+        WebSocketFrame result = transformer.transform(frame);
+
+        assertSame(frame, result);
+        assertEquals(json, text(result));
+        result.release();
+    }
+
+    @Test
+    void ignoresEscapedQuotesInsideValues() {
+        assertEquals("{\"msg\":\"say \\\"password\\\": no\",\"password\":\"***\"}",
+                redact("{\"msg\":\"say \\\"password\\\": no\",\"password\":\"p\\\"w\"}"));
+    }
+
+    @Test
+    void acceptsOnlyTextFramesMentioningAField() {
+        assertFalse(transformer.accepts(new TextWebSocketFrame("{\"user\":\"kim\"}")));
+        assertFalse(transformer.accepts(new BinaryWebSocketFrame(buf("{\"password\":\"x\"}"))));
+        assertTrue(transformer.accepts(new TextWebSocketFrame("{\"token\":1}")));
+    }
+
+    // 값이 끝나지 않은 잘못된 JSON 은 그 앞까지만 바꾸고 나머지는 그대로 둠
+    @Test
+    void stopsAtMalformedValue() {
+        assertEquals("{\"token\":\"***\",\"password\":{\"a\":1", redact("{\"token\":1,\"password\":{\"a\":1"));
+        assertEquals("{\"password\":\"unterminated", redact("{\"password\":\"unterminated"));
+    }
+
+    // 바꾼 프레임을 release 하면 원래 버퍼도 모두 release 됨
+    @Test
+    void releasesOriginalBuffer() {
+        ByteBuf content = buf("{\"password\":\"x\",\"a\":1}");
+        WebSocketFrame result = transformer.transform(new TextWebSocketFrame(content));
+
+        assertEquals("{\"password\":\"***\",\"a\":1}", text(result));
+        assertTrue(content.refCnt() > 0);
+        result.release();
+        assertEquals(0, content.refCnt());
+    }
+
+    private String redact(String json) {
+        WebSocketFrame frame = new TextWebSocketFrame(json);
+        WebSocketFrame result = transformer.accepts(frame) ? transformer.transform(frame) : frame;
+        try {
+            return text(result);
+        } finally {
+            result.release();
+        }
+    }
+
+    private static String text(WebSocketFrame frame) {
+        return frame.content().toString(StandardCharsets.UTF_8);
+    }
+
+    private static ByteBuf buf(String value) {
+        return Unpooled.wrappedBuffer(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,170 @@
+package com.ycy.websocket;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class SessionDeltaCodecTests {
+
+    @Test
+    void roundTripsHeaderRecordsAndRemovals() {
+        SessionDeltaCodec.Batch batch = new SessionDeltaCodec.Batch("node-a", "http://10.0.0.1:8080", 42L, 7L, true);
+        batch.added.add(new SessionRecord("s1", "node-a", "chat", "10.1.1.1:5000", "v12.stomp", "ws://b1:7001", 1000L));
+        batch.added.add(new SessionRecord("s2", "node-a", null, null, null, null, -1L));
+        batch.removed.add("s3");
+        batch.removed.add("세션-4");
+
+        SessionDeltaCodec.Batch decoded = SessionDeltaCodec.decode(SessionDeltaCodec.encode(batch));
+
+        assertEquals("node-a", decoded.node);
+        assertEquals("http://10.0.0.1:8080", decoded.url);
+        assertEquals(42L, decoded.incarnation);
+        assertEquals(7L, decoded.seq);
+        assertTrue(decoded.full);
+        assertEquals(2, decoded.added.size());
+        SessionRecord first = decoded.added.get(0);
+        assertEquals("s1", first.getSessionId());
+        assertEquals("node-a", first.getNode());
+        assertEquals("chat", first.getRouteId());
+        assertEquals("10.1.1.1:5000", first.getRemoteAddress());
+        assertEquals("v12.stomp", first.getSubProtocol());
+        assertEquals("ws://b1:7001", first.getUpstream());
+        assertEquals(1000L, first.getStartedAt());
+        SessionRecord second = decoded.added.get(1);
+        assertNull(second.getRouteId());
+        assertNull(second.getRemoteAddress());
+        assertNull(second.getSubProtocol());
+        assertNull(second.getUpstream());
+        assertEquals(-1L, second.getStartedAt());
+        assertEquals(List.of("s3", "세션-4"), decoded.removed);
+    }
+
+    @Test
+    void roundTripsEmptyBatch() {
+        SessionDeltaCodec.Batch decoded = SessionDeltaCodec.decode(
+                SessionDeltaCodec.encode(new SessionDeltaCodec.Batch("n", "", 0L, 0L, false)));
+
+        assertEquals("", decoded.url);
+        assertTrue(decoded.added.isEmpty());
+        assertTrue(decoded.removed.isEmpty());
+    }
+
+    // 개수가 127 을 넘으면 varint 가 여러 바이트가 되고, 문자열 참조 번호도 127 을 넘음
+    @Test
+    void roundTripsMultiByteCountsAndReferences() {
+        SessionDeltaCodec.Batch batch = new SessionDeltaCodec.Batch("n", "http://n", 1L, 1L, false);
+        for (int i = 0; i < 20_000; i++) {
+            batch.added.add(new SessionRecord("s" + i, "n", "route-" + (i % 300), "10.0.0." + (i % 200), null,
+                    null, i));
+            batch.removed.add("r" + i);
+        }
+
+        SessionDeltaCodec.Batch decoded = SessionDeltaCodec.decode(SessionDeltaCodec.encode(batch));
+
+        assertEquals(20_000, decoded.added.size());
+        assertEquals(20_000, decoded.removed.size());
+        for (int i = 0; i < 20_000; i += 997) {
+            SessionRecord record = decoded.added.get(i);
+            assertEquals("s" + i, record.getSessionId());
+            assertEquals("route-" + (i % 300), record.getRouteId());
+            assertEquals("10.0.0." + (i % 200), record.getRemoteAddress());
+            assertEquals(i, record.getStartedAt());
+            assertEquals("r" + i, decoded.removed.get(i));
+        }
+    }
+
+    // 반복되는 문자열은 두 번째부터 번호로만 쓰므로 레코드가 늘어도 문자열 길이만큼 커지지 않음
+    @Test
+    void repeatedStringsAreWrittenOnce() {
+        String route = "a-fairly-long-route-identifier-that-repeats";
+        SessionDeltaCodec.Batch one = new SessionDeltaCodec.Batch("n", "http://n", 1L, 1L, false);
+        one.added.add(new SessionRecord("s0", "n", route, null, null, null, 0L));
+        SessionDeltaCodec.Batch two = new SessionDeltaCodec.Batch("n", "http://n", 1L, 1L, false);
+        two.added.add(new SessionRecord("s0", "n", route, null, null, null, 0L));
+        two.added.add(new SessionRecord("s1", "n", route, null, null, null, 0L));
+
+        int growth = SessionDeltaCodec.encode(two).length - SessionDeltaCodec.encode(one).length;
+
+        assertTrue(growth < route.length(), "second record added " + growth + " bytes");
+    }
+
+    @Test
+    void rejectsUnsupportedVersion() {
+        byte[] body = SessionDeltaCodec.encode(new SessionDeltaCodec.Batch("n", "http://n", 1L, 1L, false));
+        body[0] = 2;
+
+        assertThrows(IllegalArgumentException.class, () -> SessionDeltaCodec.decode(body));
+    }
+
+    @Test
+    void rejectsEveryTruncation() {
+        SessionDeltaCodec.Batch batch = new SessionDeltaCodec.Batch("node", "http://node", 3L, 4L, false);
+        batch.added.add(new SessionRecord("s1", "node", "route", "addr", "proto", "up", 5L));
+        batch.removed.add("s2");
+        byte[] body = SessionDeltaCodec.encode(batch);
+
+        for (int length = 0; length < body.length; length++) {
+            byte[] truncated = Arrays.copyOf(body, length);
+            assertThrows(IllegalArgumentException.class, () -> SessionDeltaCodec.decode(truncated),
+                    "length " + length);
+        }
+    }
+
+    @Test
+    void rejectsStringReferenceBeyondTable() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = header(bytes);
+        out.writeByte(1); // 추가 레코드 1개
+        out.writeUTF("s1");
+        out.writeByte(2); // 아직 나오지 않은 0번 문자열 참조
+
+        assertThrows(IllegalArgumentException.class, () -> SessionDeltaCodec.decode(bytes.toByteArray()));
+    }
+
+    @Test
+    void rejectsOverlongVarint() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = header(bytes);
+        out.write(new byte[] { (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x01 });
+
+        assertThrows(IllegalArgumentException.class, () -> SessionDeltaCodec.decode(bytes.toByteArray()));
+    }
+
+    @Test
+    void rejectsNegativeCount() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = header(bytes);
+        out.write(new byte[] { (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F });
+
+        assertThrows(IllegalArgumentException.class, () -> SessionDeltaCodec.decode(bytes.toByteArray()));
+    }
+
+    @Test
+    void encodingIsDeterministic() {
+        SessionDeltaCodec.Batch batch = new SessionDeltaCodec.Batch("n", "http://n", 1L, 2L, false);
+        batch.added.add(new SessionRecord("s1", "n", "r", "a", "p", "u", 3L));
+
+        assertArrayEquals(SessionDeltaCodec.encode(batch), SessionDeltaCodec.encode(batch));
+    }
+
+    private static DataOutputStream header(ByteArrayOutputStream bytes) throws IOException {
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(1);
+        out.writeUTF("node");
+        out.writeUTF("http://node");
+        out.writeLong(1L);
+        out.writeLong(1L);
+        out.writeBoolean(false);
+        return out;
+    }
+}
@@ -0,0 +1,125 @@
+package com.ycy.websocket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+
+class ShardKeyExtractorTests {
+
+    private final ShardKeyExtractor json = ShardKeyExtractor.of("json:room");
+    private final ShardKeyExtractor stomp = ShardKeyExtractor.of("stomp:destination");
+
+    @Test
+    void createsExtractorsFromSpec() {
+        assertInstanceOf(JsonFieldShardKey.class, json);
+        assertInstanceOf(StompHeaderShardKey.class, stomp);
+    }
+
+    @Test
+    void rejectsInvalidSpecs() {
+        assertThrows(IllegalArgumentException.class, () -> ShardKeyExtractor.of("json"));
+        assertThrows(IllegalArgumentException.class, () -> ShardKeyExtractor.of("json:"));
+        assertThrows(IllegalArgumentException.class, () -> ShardKeyExtractor.of("xml:room"));
+        assertThrows(IllegalArgumentException.class, () -> ShardKeyExtractor.of(":room"));
+    }
+
+    @Test
+    void packsRangeIntoLong() {
+        long range = ShardKeyExtractor.range(123456, 789);
+
+        assertEquals(123456, ShardKeyExtractor.start(range));
+        assertEquals(789, ShardKeyExtractor.length(range));
+    }
+
+    @Test
+    void extractsJsonStringWithoutQuotes() {
+        assertEquals("lobby", key(json, "{\"type\":\"chat\",\"room\":\"lobby\",\"text\":\"hi\"}"));
+        assertEquals("lobby", key(json, " { \"room\" : \"lobby\" } "));
+    }
+
+    @Test
+    void extractsJsonNonStringValuesAsWritten() {
+        assertEquals("42", key(json, "{\"room\":42}"));
+        assertEquals("{\"id\":1}", key(json, "{\"room\":{\"id\":1}}"));
+        assertEquals("", key(json, "{\"room\":\"\"}"));
+    }
+
+    // 중첩 객체나 값 안의 같은 이름은 최상위 필드가 아니므로 키가 아님
+    @Test
+    void matchesTopLevelJsonFieldsOnly() {
+        assertEquals("top", key(json, "{\"meta\":{\"room\":\"nested\"},\"note\":\"room\",\"room\":\"top\"}"));
+        assertEquals(null, key(json, "{\"meta\":{\"room\":\"nested\"}}"));
+        assertEquals(null, key(json, "{\"rooms\":\"x\",\"roo\":\"y\"}"));
+    }
+
+    @Test
+    void returnsNoKeyForMalformedJson() {
+        assertEquals(null, key(json, ""));
+        assertEquals(null, key(json, "[{\"room\":\"a\"}]"));
+        assertEquals(null, key(json, "{\"a\" 1,\"room\":\"x\"}"));
+        assertEquals(null, key(json, "{\"a\":1 \"room\":\"x\"}"));
+        assertEquals(null, key(json, "{\"room\":\"unterminated"));
+        assertEquals(null, key(json, "{\"a\":{\"b\":1,\"room\":\"x\""));
+    }
+
+    @Test
+    void extractsStompHeader() {
+        assertEquals("/topic/a", key(stomp, "SEND\ndestination:/topic/a\ncontent-type:text/plain\n\nbody\0"));
+        assertEquals("/topic/b", key(stomp, "SEND\r\nreceipt:1\r\ndestination:/topic/b\r\n\r\nbody\0"));
+    }
+
+    // 하트비트 줄바꿈 뒤의 프레임도 찾고, 같은 헤더가 여러 번이면 첫 번째 값
+    @Test
+    void skipsHeartbeatsAndUsesFirstHeader() {
+        assertEquals("/first", key(stomp, "\n\r\nSEND\ndestination:/first\ndestination:/second\n\n\0"));
+    }
+
+    // 본문에 있는 같은 이름은 헤더가 아님
+    @Test
+    void stopsAtStompBody() {
+        assertEquals(null, key(stomp, "SEND\ncontent-type:text/plain\n\ndestination:/body\n\0"));
+        assertEquals(null, key(stomp, "SEND\r\n\r\ndestination:/body\r\n"));
+    }
+
+    @Test
+    void returnsNoKeyForIncompleteStompFrames() {
+        assertEquals(null, key(stomp, "\n"));
+        assertEquals(null, key(stomp, "CONNECT"));
+        assertEquals(null, key(stomp, "SEND\ndestination:/no-newline"));
+        assertEquals(null, key(stomp, "SEND\ndestinations:/x\n\n"));
+        assertEquals("", key(stomp, "SEND\ndestination:\n\n"));
+    }
+
+    // 리더 인덱스가 0 이 아닌 버퍼에서도 절대 인덱스 범위를 돌려주고 인덱스는 그대로 둠
+    @Test
+    void honoursReaderIndex() {
+        ByteBuf payload = buf("garbage{\"room\":\"r\"}");
+        payload.readerIndex(7);
+
+        long range = json.find(payload);
+
+        assertEquals(16, ShardKeyExtractor.start(range));
+        assertEquals(1, ShardKeyExtractor.length(range));
+        assertEquals(7, payload.readerIndex());
+    }
+
+    private static String key(ShardKeyExtractor extractor, String payload) {
+        ByteBuf buf = buf(payload);
+        long range = extractor.find(buf);
+        if (range == ShardKeyExtractor.NO_KEY) {
+            return null;
+        }
+        return buf.toString(ShardKeyExtractor.start(range), ShardKeyExtractor.length(range),
+                StandardCharsets.UTF_8);
+    }
+
+    private static ByteBuf buf(String value) {
+        return Unpooled.wrappedBuffer(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
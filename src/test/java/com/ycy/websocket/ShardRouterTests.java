@@ -0,0 +1,170 @@
+package com.ycy.websocket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+
+class ShardRouterTests {
+
+    private static final List<URI> SHARDS = List.of(URI.create("ws://shard-a:8080"), URI.create("ws://shard-b:8080"),
+            URI.create("ws://shard-c:8080"));
+
+    @Test
+    void rejectsEmptyShardList() {
+        assertThrows(IllegalArgumentException.class, () -> new ShardRouter(properties(List.of(), 160)));
+    }
+
+    @Test
+    void sameKeyAlwaysMapsToSameShard() {
+        ShardRouter router = new ShardRouter(properties(SHARDS, 160));
+        ShardKeyExtractor extractor = ShardKeyExtractor.of("json:topic");
+
+        int shard = router.shardOf(buf("{\"topic\":\"orders\",\"n\":1}"), extractor);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(shard, router.shardOf(buf("{\"n\":" + i + ",\"topic\":\"orders\"}"), extractor));
+        }
+        assertEquals(shard, new ShardRouter(properties(SHARDS, 160)).shardOf(buf("{\"topic\":\"orders\"}"),
+                extractor));
+    }
+
+    // 가상 노드 이름이 샤드 주소라서 shards 순서를 바꿔도 같은 주소로 배정됨
+    @Test
+    void assignmentDoesNotDependOnShardOrder() {
+        List<URI> reversed = new ArrayList<>(SHARDS);
+        Collections.reverse(reversed);
+        ShardRouter router = new ShardRouter(properties(SHARDS, 160));
+        ShardRouter reversedRouter = new ShardRouter(properties(reversed, 160));
+        ShardKeyExtractor extractor = ShardKeyExtractor.of("json:topic");
+
+        for (int i = 0; i < 200; i++) {
+            String payload = "{\"topic\":\"t-" + i + "\"}";
+            assertEquals(SHARDS.get(router.shardOf(buf(payload), extractor)),
+                    reversed.get(reversedRouter.shardOf(buf(payload), extractor)));
+        }
+    }
+
+    // 샤드를 하나 더해도 기존 키 대부분은 원래 샤드에 남음
+    @Test
+    void addingShardMovesFewKeys() {
+        List<URI> grown = new ArrayList<>(SHARDS);
+        grown.add(URI.create("ws://shard-d:8080"));
+        ShardRouter router = new ShardRouter(properties(SHARDS, 160));
+        ShardRouter grownRouter = new ShardRouter(properties(grown, 160));
+        ShardKeyExtractor extractor = ShardKeyExtractor.of("json:topic");
+
+        int moved = 0;
+        int keys = 4000;
+        for (int i = 0; i < keys; i++) {
+            String payload = "{\"topic\":\"t-" + i + "\"}";
+            URI before = SHARDS.get(router.shardOf(buf(payload), extractor));
+            URI after = grown.get(grownRouter.shardOf(buf(payload), extractor));
+            if (!before.equals(after)) {
+                assertEquals(grown.get(3), after, "옮겨지는 키는 새 샤드로만 가야 함");
+                moved++;
+            }
+        }
+        assertTrue(moved < keys / 2, "moved=" + moved);
+    }
+
+    @Test
+    void spreadsKeysRoughlyEvenly() {
+        ShardRouter router = new ShardRouter(properties(SHARDS, 160));
+        ShardKeyExtractor extractor = ShardKeyExtractor.of("json:topic");
+        int[] counts = new int[SHARDS.size()];
+        int keys = 9000;
+
+        for (int i = 0; i < keys; i++) {
+            counts[router.shardOf(buf("{\"topic\":\"key-" + i + "\"}"), extractor)]++;
+        }
+        for (int count : counts) {
+            assertTrue(count > keys / SHARDS.size() / 2, Arrays.toString(counts));
+        }
+    }
+
+    // 링의 마지막 가상 노드보다 큰 해시는 처음 가상 노드로 돌아감
+    @Test
+    void ringWrapsAround() {
+        ShardRouter router = new ShardRouter(properties(SHARDS, 1));
+        int first = lowestVirtualNodeShard();
+
+        assertEquals(first, router.onRing(Long.MAX_VALUE));
+        assertEquals(first, router.onRing(Long.MIN_VALUE));
+    }
+
+    @Test
+    void hashOnVirtualNodeMapsToThatShard() {
+        ShardRouter router = new ShardRouter(properties(SHARDS, 4));
+
+        for (int shard = 0; shard < SHARDS.size(); shard++) {
+            for (int i = 0; i < 4; i++) {
+                long hash = UpstreamBalancer.hash(SHARDS.get(shard).getRawAuthority() + "#" + i);
+                assertEquals(shard, router.onRing(hash));
+            }
+        }
+    }
+
+    @Test
+    void countsUnkeyedAndRoutedFrames() {
+        ShardRouter router = new ShardRouter(properties(SHARDS, 16));
+        ShardKeyExtractor extractor = ShardKeyExtractor.of("json:topic");
+
+        assertEquals(-1, router.shardOf(buf("{\"other\":1}"), extractor));
+        int shard = router.shardOf(buf("{\"topic\":\"x\"}"), extractor);
+
+        Map<String, Object> snapshot = router.snapshot("route");
+        assertEquals(1L, snapshot.get("unkeyed"));
+        @SuppressWarnings("unchecked")
+        Map<String, Long> routed = (Map<String, Long>) snapshot.get("routed");
+        assertEquals(1L, routed.get(SHARDS.get(shard).toString()));
+    }
+
+    @Test
+    void picksExtractorByFirstConfiguredProtocol() {
+        WebSocketProxyProperties.ShardingProperties properties = properties(SHARDS, 16);
+        properties.setProtocolKeys(Map.of("v12.stomp", "stomp:destination"));
+        ShardRouter router = new ShardRouter(properties);
+
+        ShardKeyExtractor defaultExtractor = router.extractor(List.of());
+        assertSame(defaultExtractor, router.extractor(List.of("graphql-ws")));
+        ShardKeyExtractor stomp = router.extractor(List.of("graphql-ws", "v12.stomp"));
+        assertTrue(stomp instanceof StompHeaderShardKey);
+        assertTrue(defaultExtractor instanceof JsonFieldShardKey);
+    }
+
+    private static int lowestVirtualNodeShard() {
+        int lowest = -1;
+        long lowestHash = Long.MAX_VALUE;
+        for (int shard = 0; shard < SHARDS.size(); shard++) {
+            long hash = UpstreamBalancer.hash(SHARDS.get(shard).getRawAuthority() + "#0");
+            if (lowest < 0 || hash < lowestHash) {
+                lowest = shard;
+                lowestHash = hash;
+            }
+        }
+        return lowest;
+    }
+
+    private static WebSocketProxyProperties.ShardingProperties properties(List<URI> shards, int virtualNodes) {
+        WebSocketProxyProperties.ShardingProperties properties = new WebSocketProxyProperties.ShardingProperties();
+        properties.setShards(shards);
+        properties.setVirtualNodes(virtualNodes);
+        return properties;
+    }
+
+    private static ByteBuf buf(String value) {
+        return Unpooled.wrappedBuffer(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
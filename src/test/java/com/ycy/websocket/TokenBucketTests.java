@@ -0,0 +1,145 @@
+package com.ycy.websocket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+// 시각은 모두 인자로 넘기므로 실제 시간과 관계없이 GCRA 계산만 확인
+class TokenBucketTests {
+
+    private static final long SECOND = 1_000_000_000L;
+    private static final long START = 1_000 * SECOND;
+
+    @Test
+    void allowsBurstThenWaitsOneInterval() {
+        TokenBucket bucket = new TokenBucket(10, 5, START);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.tryAcquire(START), "token " + i);
+        }
+        assertEquals(SECOND / 10, bucket.tryAcquire(START));
+    }
+
+    @Test
+    void refillsOneTokenPerInterval() {
+        TokenBucket bucket = new TokenBucket(10, 5, START);
+        for (int i = 0; i < 5; i++) {
+            bucket.tryAcquire(START);
+        }
+        long interval = SECOND / 10;
+
+        assertEquals(1, bucket.tryAcquire(START + interval - 1));
+        assertEquals(0, bucket.tryAcquire(START + interval));
+        assertEquals(interval, bucket.tryAcquire(START + interval));
+        assertEquals(0, bucket.tryAcquire(START + 2 * interval));
+    }
+
+    // 실패한 시도는 토큰을 쓰지 않으므로 대기 시간이 늘어나지 않음
+    @Test
+    void rejectedAttemptsDoNotConsume() {
+        TokenBucket bucket = new TokenBucket(1, 1, START);
+        bucket.tryAcquire(START);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(SECOND / 2, bucket.tryAcquire(START + SECOND / 2));
+        }
+        assertEquals(0, bucket.tryAcquire(START + SECOND));
+    }
+
+    // 오래 쉬어도 burst 보다 많이 쌓이지 않음
+    @Test
+    void idleTimeDoesNotExceedBurst() {
+        TokenBucket bucket = new TokenBucket(100, 3, START);
+        long later = START + 3600 * SECOND;
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, bucket.tryAcquire(later));
+        }
+        assertEquals(SECOND / 100, bucket.tryAcquire(later));
+    }
+
+    @Test
+    void fractionalRateUsesLongInterval() {
+        TokenBucket bucket = new TokenBucket(0.5, 1, START);
+
+        assertEquals(0, bucket.tryAcquire(START));
+        assertEquals(2 * SECOND, bucket.tryAcquire(START));
+        assertEquals(0, bucket.tryAcquire(START + 2 * SECOND));
+    }
+
+    // burst 가 0 이하로 설정돼도 한 개는 허용
+    @Test
+    void burstBelowOneAllowsSingleToken() {
+        TokenBucket bucket = new TokenBucket(10, 0, START);
+
+        assertEquals(0, bucket.tryAcquire(START));
+        assertTrue(bucket.tryAcquire(START) > 0);
+    }
+
+    // 초당 10억 개를 넘는 속도는 간격이 0 이 되지 않도록 1ns 로 고정
+    @Test
+    void veryHighRateKeepsPositiveInterval() {
+        TokenBucket bucket = new TokenBucket(1e12, 1, START);
+
+        assertEquals(0, bucket.tryAcquire(START));
+        assertEquals(1, bucket.tryAcquire(START));
+        assertEquals(0, bucket.tryAcquire(START + 1));
+    }
+
+    @Test
+    void isFullOnlyAfterDebtIsRepaid() {
+        TokenBucket bucket = new TokenBucket(10, 5, START);
+        assertTrue(bucket.isFull(START));
+
+        bucket.tryAcquire(START);
+        bucket.tryAcquire(START);
+
+        assertFalse(bucket.isFull(START));
+        assertFalse(bucket.isFull(START + SECOND / 10));
+        assertTrue(bucket.isFull(START + 2 * SECOND / 10));
+    }
+
+    // 같은 시각에 여러 스레드가 경쟁해도 정확히 burst 개만 성공
+    @Test
+    void concurrentAcquiresNeverExceedBurst() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1, 1000, START);
+        AtomicInteger granted = new AtomicInteger();
+        int threads = 8;
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int t = 0; t < threads; t++) {
+                executor.execute(() -> {
+                    ready.countDown();
+                    try {
+                        go.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int i = 0; i < 500; i++) {
+                        if (bucket.tryAcquire(START) == 0) {
+                            granted.incrementAndGet();
+                        }
+                    }
+                });
+            }
+            ready.await();
+            go.countDown();
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+
+        assertEquals(1000, granted.get());
+    }
+}
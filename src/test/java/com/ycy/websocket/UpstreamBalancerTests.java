@@ -0,0 +1,115 @@
+package com.ycy.websocket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+// /ws/** 에서만 WebSocket 을 받고 "/" 에는 404 를 주는 업스트림으로 제외 후 복구를 확인
+class UpstreamBalancerTests {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private DisposableServer backend;
+    private final AtomicInteger handshakes = new AtomicInteger();
+    private UpstreamBalancer balancer;
+
+    @BeforeEach
+    void startBackend() {
+        backend = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.ws("/ws/chat", (in, out) -> {
+                    handshakes.incrementAndGet();
+                    return out.sendClose();
+                }))
+                .bindNow();
+    }
+
+    @AfterEach
+    void stop() {
+        if (balancer != null) {
+            balancer.close();
+        }
+        backend.disposeNow();
+    }
+
+    @Test
+    void readmitsThroughProbePath() {
+        balancer = balancer("/ws/chat");
+
+        balancer.choose(null).failed();
+        assertTrue(ejected());
+
+        await(() -> !ejected());
+        assertTrue(handshakes.get() > 0);
+    }
+
+    // probe-path 가 없으면 그 인스턴스를 선택한 마지막 요청의 경로(쿼리 제외)로 확인
+    @Test
+    void readmitsThroughLastRequestPath() {
+        balancer = balancer("");
+
+        UpstreamBalancer.Lease lease = balancer.choose(null);
+        lease.resolve(URI.create("ws://gateway:8080/ws/chat?token=expired"));
+        lease.failed();
+        assertTrue(ejected());
+
+        await(() -> !ejected());
+    }
+
+    // 경로를 알 수 없으면 인스턴스 주소로 확인하므로 이 업스트림에서는 복구되지 않음
+    @Test
+    void staysEjectedWhenProbeGets404() throws InterruptedException {
+        balancer = balancer("");
+
+        balancer.choose(null).failed();
+        Thread.sleep(500);
+
+        assertTrue(ejected());
+        assertEquals(0, handshakes.get());
+    }
+
+    private UpstreamBalancer balancer(String probePath) {
+        WebSocketProxyProperties.LoadBalancerProperties properties =
+                new WebSocketProxyProperties.LoadBalancerProperties();
+        properties.setInstances(List.of(URI.create("ws://localhost:" + backend.port())));
+        properties.setFailureThreshold(1);
+        properties.setProbeInterval(Duration.ofMillis(50));
+        properties.setProbeTimeout(Duration.ofSeconds(2));
+        properties.setProbePath(probePath);
+        return new UpstreamBalancer("websocket_route", properties, new WebSocketSessionManager(),
+                new ReactorNettyWebSocketClient(), new WebSocketEventLogger(new WebSocketProxyProperties()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean ejected() {
+        List<Map<String, Object>> instances = (List<Map<String, Object>>) balancer.snapshot().get("instances");
+        return (Boolean) instances.get(0).get("ejected");
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "조건이 " + TIMEOUT + " 안에 충족되지 않음");
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
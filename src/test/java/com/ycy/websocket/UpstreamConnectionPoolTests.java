@@ -0,0 +1,125 @@
+package com.ycy.websocket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+class UpstreamConnectionPoolTests {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private DisposableServer backend;
+    private UpstreamConnectionPool pool;
+
+    @AfterEach
+    void stop() {
+        if (pool != null) {
+            pool.close();
+        }
+        if (backend != null) {
+            backend.disposeNow();
+        }
+    }
+
+    // 유휴 세션이 없을 때마다 target 이 하나씩 늘어 maxSize 까지 미리 연결
+    @Test
+    void growsTowardMaxSizeOnMisses() {
+        backend = backend(Duration.ofHours(1));
+        pool = pool(1, 4, Duration.ofHours(1));
+
+        borrowUntilTarget(4);
+        await(() -> idle() == 4);
+
+        // 늘어난 세션은 이후 몰려오는 요청에 바로 쓰임
+        for (int i = 0; i < 4; i++) {
+            UpstreamConnectionPool.PooledUpstream upstream = pool.borrow();
+            assertNotNull(upstream, "borrow " + i);
+            upstream.bind(session -> Mono.empty()).subscribe();
+        }
+        assertEquals(4, pool.snapshot().get("target"));
+    }
+
+    // 부족한 적이 없는 검증 주기마다 target 이 절반으로 줄고 남는 유휴 세션은 닫힘
+    @Test
+    void shrinksBackToMinIdleWhenQuiet() {
+        backend = backend(Duration.ofHours(1));
+        pool = pool(1, 4, Duration.ofMillis(100));
+
+        borrowUntilTarget(4);
+
+        await(() -> (Integer) pool.snapshot().get("target") == 1 && idle() == 1);
+        assertTrue((Long) pool.snapshot().get("evicted") > 0);
+    }
+
+    // 업스트림이 닫은 유휴 세션은 빌려 주지 않고 버림 (호출자는 새로 연결)
+    @Test
+    void skipsClosedIdleSessions() throws InterruptedException {
+        backend = backend(Duration.ofMillis(200));
+        pool = pool(1, 1, Duration.ofHours(1));
+        await(() -> idle() == 1);
+        Thread.sleep(500);
+
+        assertNull(pool.borrow());
+        assertTrue((Long) pool.snapshot().get("evicted") >= 1);
+    }
+
+    private void borrowUntilTarget(int expected) {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while ((Integer) pool.snapshot().get("target") < expected) {
+            assertTrue(System.nanoTime() < deadline, "target 이 " + expected + " 까지 늘지 않음");
+            UpstreamConnectionPool.PooledUpstream upstream = pool.borrow();
+            if (upstream != null) {
+                upstream.bind(session -> Mono.empty()).subscribe();
+            }
+        }
+    }
+
+    private int idle() {
+        return (Integer) pool.snapshot().get("idle");
+    }
+
+    // /ws 에서만 WebSocket 을 받고 closeAfter 뒤에 연결을 닫는 업스트림
+    private static DisposableServer backend(Duration closeAfter) {
+        return HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.ws("/ws", (in, out) -> Mono.delay(closeAfter).then(out.sendClose())))
+                .bindNow();
+    }
+
+    private UpstreamConnectionPool pool(int minIdle, int maxSize, Duration validationInterval) {
+        WebSocketProxyProperties.UpstreamPoolProperties properties =
+                new WebSocketProxyProperties.UpstreamPoolProperties();
+        properties.setMinIdle(minIdle);
+        properties.setMaxSize(maxSize);
+        properties.setValidationInterval(validationInterval);
+        return new UpstreamConnectionPool("websocket_route", URI.create("ws://localhost:" + backend.port() + "/ws"),
+                new ReactorNettyWebSocketClient(), properties, expired -> {
+                });
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "조건이 " + TIMEOUT + " 안에 충족되지 않음");
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+}